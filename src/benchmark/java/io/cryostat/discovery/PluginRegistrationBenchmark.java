@@ -0,0 +1,181 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.discovery;
+
+import java.net.URI;
+import java.security.Security;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import io.cryostat.MainModule;
+import io.cryostat.configuration.Variables;
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.Environment;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.discovery.BaseNodeType;
+import io.cryostat.platform.discovery.EnvironmentNode;
+import io.cryostat.platform.discovery.TargetNode;
+import io.cryostat.storage.StorageModule;
+
+import com.google.gson.Gson;
+import com.nimbusds.jose.crypto.bc.BouncyCastleProviderSingleton;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent discovery plugin registrations, each performing the same database operations as a
+ * plugin registering, publishing its targets, and deregistering. A pool size of 1 approximates the
+ * previous single shared EntityManager. Runs against an in-memory h2 database by default; for
+ * PostgreSQL, use for example {@code mvn -Pbenchmarks -DskipTests=true test
+ * -Dcryostat.benchmarks="PluginRegistrationBenchmark -p
+ * jdbcUrl=jdbc:postgresql://localhost:5432/cryostat -p jdbcDriver=org.postgresql.Driver -p
+ * dialect=org.hibernate.dialect.PostgreSQL95Dialect -p username=postgres -p password=postgres"}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Threads(16)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PluginRegistrationBenchmark {
+
+    @Param({"1", "8"})
+    public String poolSize;
+
+    @Param({
+        "jdbc:h2:mem:cryostat-benchmark;DB_CLOSE_DELAY=-1;INIT=create domain if not exists jsonb"
+                + " as varchar"
+    })
+    public String jdbcUrl;
+
+    @Param({"org.h2.Driver"})
+    public String jdbcDriver;
+
+    @Param({"org.hibernate.dialect.H2Dialect"})
+    public String dialect;
+
+    @Param({"cryostat"})
+    public String username;
+
+    @Param({""})
+    public String password;
+
+    EntityManagerFactory emf;
+    ExecutorService executor;
+    PluginInfoDao dao;
+    List<TargetNode> targets;
+
+    @Setup
+    public void setup() throws Exception {
+        Security.addProvider(BouncyCastleProviderSingleton.getInstance());
+
+        Map<String, String> vars = new HashMap<>();
+        vars.put(Variables.JDBC_URL, jdbcUrl);
+        vars.put(Variables.JDBC_DRIVER, jdbcDriver);
+        vars.put(Variables.HIBERNATE_DIALECT, dialect);
+        vars.put(Variables.JDBC_USERNAME, username);
+        vars.put(Variables.JDBC_PASSWORD, password);
+        vars.put(Variables.JDBC_POOL_SIZE, poolSize);
+        vars.put(Variables.HBM2DDL, "create-drop");
+        vars.put(Variables.JMX_CREDENTIALS_DB_PASSWORD, "benchmark");
+        Environment env = Mockito.mock(Environment.class);
+        Mockito.when(env.getEnv(Mockito.anyString()))
+                .thenAnswer(invocation -> vars.get(invocation.getArgument(0)));
+        Mockito.when(env.getEnv(Mockito.anyString(), Mockito.anyString()))
+                .thenAnswer(
+                        invocation ->
+                                vars.getOrDefault(
+                                        invocation.getArgument(0), invocation.getArgument(1)));
+        Mockito.when(env.hasEnv(Mockito.anyString()))
+                .thenAnswer(invocation -> vars.containsKey(invocation.getArgument(0)));
+
+        Logger logger = Mockito.mock(Logger.class);
+        Gson gson = MainModule.provideGson(logger);
+        this.emf = StorageModule.provideEntityManagerFactory(env);
+        this.executor = StorageModule.provideDatabaseExecutor(env);
+        this.dao = new PluginInfoDao(emf, executor, gson, logger);
+
+        this.targets =
+                List.of(
+                        new TargetNode(
+                                BaseNodeType.JVM,
+                                new ServiceRef(
+                                        new URI(
+                                                "service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi"),
+                                        "io.cryostat.Cryostat")));
+    }
+
+    @TearDown
+    public void teardown() {
+        executor.shutdownNow();
+        emf.close();
+    }
+
+    @Benchmark
+    public UUID register() {
+        String realm = "benchmark-" + Thread.currentThread().getId();
+        UUID id =
+                dao.save(
+                                realm,
+                                DiscoveryStorage.NO_CALLBACK,
+                                new EnvironmentNode(realm, BaseNodeType.REALM))
+                        .getId();
+        dao.update(id, targets);
+        dao.delete(id);
+        return id;
+    }
+}
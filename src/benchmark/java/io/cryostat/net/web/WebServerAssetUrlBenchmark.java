@@ -0,0 +1,128 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import io.cryostat.MainModule;
+import io.cryostat.core.log.Logger;
+import io.cryostat.net.AuthManager;
+import io.cryostat.net.HttpServer;
+import io.cryostat.net.NetworkConfiguration;
+import io.cryostat.net.web.http.api.ApiVersion;
+
+import org.apache.http.client.utils.URIBuilder;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares building archived recording download URLs with URIBuilder, as done for every URL before
+ * the host URL and asset path prefixes were precomputed, against the precomputed prefixes. The
+ * network configuration is mocked, so the URIBuilder baseline does not include any hostname
+ * resolution cost. Run with {@code mvn -Pbenchmarks -DskipTests=true test
+ * -Dcryostat.benchmarks=WebServerAssetUrlBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class WebServerAssetUrlBenchmark {
+
+    static final String SOURCE_TARGET = "service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi";
+    static final String RECORDING_NAME = "io-cryostat-Cryostat_profiling_20220101T000000Z.jfr";
+
+    HttpServer httpServer;
+    NetworkConfiguration netConf;
+    WebServer webServer;
+
+    @Setup
+    public void setup() throws Exception {
+        this.httpServer = Mockito.mock(HttpServer.class);
+        this.netConf = Mockito.mock(NetworkConfiguration.class);
+        Mockito.when(netConf.getWebServerHost()).thenReturn("cryostat.example.com");
+        Mockito.when(netConf.getExternalWebServerPort()).thenReturn(8181);
+        Logger logger = Mockito.mock(Logger.class);
+        this.webServer =
+                new WebServer(
+                        httpServer,
+                        netConf,
+                        Set.of(),
+                        MainModule.provideGson(logger),
+                        Mockito.mock(AuthManager.class),
+                        logger);
+    }
+
+    @Benchmark
+    public String uriBuilder() throws Exception {
+        URIBuilder hostUri =
+                new URIBuilder()
+                        .setScheme(httpServer.isSsl() ? "https" : "http")
+                        .setHost(netConf.getWebServerHost())
+                        .setPort(netConf.getExternalWebServerPort());
+        return new URIBuilder(hostUri.build().normalize())
+                .setScheme(httpServer.isSsl() ? "https" : "http")
+                .setPathSegments(
+                        List.of(
+                                "api",
+                                ApiVersion.BETA.getVersionString(),
+                                "recordings",
+                                SOURCE_TARGET,
+                                RECORDING_NAME))
+                .build()
+                .normalize()
+                .toString();
+    }
+
+    @Benchmark
+    public String precomputed() throws Exception {
+        return webServer.getArchivedDownloadURL(SOURCE_TARGET, RECORDING_NAME);
+    }
+}
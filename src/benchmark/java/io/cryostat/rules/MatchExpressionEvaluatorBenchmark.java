@@ -0,0 +1,127 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.rules;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+import io.cryostat.MainModule;
+import io.cryostat.configuration.CredentialsManager;
+import io.cryostat.core.log.Logger;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.ServiceRef.AnnotationKey;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares evaluating match expressions with the script engine, as done for every cache miss before
+ * expressions were compiled, against the compiled predicates. Run with {@code mvn -Pbenchmarks
+ * -DskipTests=true test -Dcryostat.benchmarks=MatchExpressionEvaluatorBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MatchExpressionEvaluatorBenchmark {
+
+    @Param({
+        "target.alias == 'io.cryostat.Cryostat'",
+        "target.connectUrl == 'service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi'",
+        "target.labels.app == 'cryostat' && target.annotations.cryostat.JAVA_MAIN =="
+                + " 'io.cryostat.Cryostat'",
+        "/^service:jmx:rmi:.*:9091\\/jmxrmi$/.test(target.connectUrl)",
+    })
+    public String matchExpression;
+
+    ScriptEngine scriptEngine;
+    MatchExpressionEvaluator evaluator;
+    Predicate<ServiceRef> compiled;
+    ServiceRef serviceRef;
+
+    @Setup
+    public void setup() throws Exception {
+        this.scriptEngine = MainModule.provideScriptEngine();
+        this.evaluator =
+                new MatchExpressionEvaluator(
+                        scriptEngine,
+                        Mockito.mock(CredentialsManager.class),
+                        Mockito.mock(RuleRegistry.class),
+                        Mockito.mock(Logger.class));
+        this.compiled = new MatchExpressionCompiler().compile(matchExpression).orElseThrow();
+
+        this.serviceRef =
+                new ServiceRef(
+                        new URI("service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi"),
+                        "io.cryostat.Cryostat");
+        serviceRef.setLabels(Map.of("app", "cryostat"));
+        serviceRef.setCryostatAnnotations(Map.of(AnnotationKey.JAVA_MAIN, "io.cryostat.Cryostat"));
+    }
+
+    @Benchmark
+    public Object scriptEngine() throws ScriptException {
+        return scriptEngine.eval(matchExpression, evaluator.createBindings(serviceRef));
+    }
+
+    @Benchmark
+    public boolean compiled() {
+        return compiled.test(serviceRef);
+    }
+
+    @Benchmark
+    public Object compile() {
+        return new MatchExpressionCompiler().compile(matchExpression);
+    }
+}
@@ -39,17 +39,19 @@ package io.cryostat.configuration;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.ExecutorService;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
-import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.discovery.DiscoveryStorage;
-import io.cryostat.rules.MatchExpressionEvaluator;
 import io.cryostat.rules.MatchExpressionValidator;
+import io.cryostat.rules.MatchMatrix;
+import io.cryostat.storage.StorageModule;
 
 import com.google.gson.Gson;
 import dagger.Lazy;
@@ -75,7 +77,7 @@ public abstract class ConfigurationModule {
     static CredentialsManager provideCredentialsManager(
             @Named(CONFIGURATION_PATH) Path confDir,
             MatchExpressionValidator matchExpressionValidator,
-            Lazy<MatchExpressionEvaluator> matchExpressionEvaluator,
+            Lazy<MatchMatrix> matchMatrix,
             DiscoveryStorage discovery,
             StoredCredentialsDao dao,
             FileSystem fs,
@@ -85,7 +87,7 @@ public abstract class ConfigurationModule {
         return new CredentialsManager(
                 credentialsDir,
                 matchExpressionValidator,
-                matchExpressionEvaluator,
+                matchMatrix,
                 discovery,
                 dao,
                 fs,
@@ -95,7 +97,10 @@ public abstract class ConfigurationModule {
 
     @Provides
     @Singleton
-    static StoredCredentialsDao provideStoredCredentialsDao(EntityManager em, Logger logger) {
-        return new StoredCredentialsDao(em, logger);
+    static StoredCredentialsDao provideStoredCredentialsDao(
+            EntityManagerFactory emf,
+            @Named(StorageModule.DATABASE_EXECUTOR) ExecutorService executor,
+            Logger logger) {
+        return new StoredCredentialsDao(emf, executor, logger);
     }
 }
@@ -38,6 +38,8 @@
 package io.cryostat.configuration;
 
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -49,6 +51,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.script.ScriptException;
 
@@ -57,9 +61,9 @@ import io.cryostat.core.net.Credentials;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.platform.PlatformClient;
 import io.cryostat.platform.ServiceRef;
-import io.cryostat.rules.MatchExpressionEvaluator;
 import io.cryostat.rules.MatchExpressionValidationException;
 import io.cryostat.rules.MatchExpressionValidator;
+import io.cryostat.rules.MatchMatrix;
 import io.cryostat.util.events.AbstractEventEmitter;
 import io.cryostat.util.events.EventType;
 
@@ -73,17 +77,20 @@ public class CredentialsManager
 
     private final Path credentialsDir;
     private final MatchExpressionValidator matchExpressionValidator;
-    private final Lazy<MatchExpressionEvaluator> matchExpressionEvaluator;
+    private final Lazy<MatchMatrix> matchMatrix;
     private final PlatformClient platformClient;
     private final StoredCredentialsDao dao;
     private final FileSystem fs;
     private final Gson gson;
     private final Logger logger;
 
+    // null until first use, and again whenever credentials are added or removed
+    private volatile CredentialsCache cache;
+
     CredentialsManager(
             Path credentialsDir,
             MatchExpressionValidator matchExpressionValidator,
-            Lazy<MatchExpressionEvaluator> matchExpressionEvaluator,
+            Lazy<MatchMatrix> matchMatrix,
             PlatformClient platformClient,
             StoredCredentialsDao dao,
             FileSystem fs,
@@ -91,12 +98,21 @@ public class CredentialsManager
             Logger logger) {
         this.credentialsDir = credentialsDir;
         this.matchExpressionValidator = matchExpressionValidator;
-        this.matchExpressionEvaluator = matchExpressionEvaluator;
+        this.matchMatrix = matchMatrix;
         this.platformClient = platformClient;
         this.dao = dao;
         this.fs = fs;
         this.gson = gson;
         this.logger = logger;
+
+        // a target's definition may change what credentials apply to it
+        platformClient.addTargetDiscoveryListener(
+                tde -> {
+                    CredentialsCache c = this.cache;
+                    if (c != null) {
+                        c.evict(tde.getServiceRef().getServiceUri().toString());
+                    }
+                });
     }
 
     // TODO remove after 2.2 release
@@ -165,6 +181,7 @@ public class CredentialsManager
             throws MatchExpressionValidationException {
         matchExpressionValidator.validate(matchExpression);
         StoredCredentials saved = dao.save(new StoredCredentials(matchExpression, credentials));
+        invalidateCache();
         emit(CredentialsEvent.ADDED, matchExpression);
         return saved.getId();
     }
@@ -183,17 +200,34 @@ public class CredentialsManager
     }
 
     public Credentials getCredentialsByTargetId(String targetId) throws ScriptException {
-        for (ServiceRef service : this.platformClient.listDiscoverableServices()) {
-            if (Objects.equals(targetId, service.getServiceUri().toString())) {
-                return getCredentials(service);
-            }
+        CredentialsCache c = cache();
+        Optional<Credentials> resolved = c.byTargetId.get(targetId);
+        if (resolved != null) {
+            return resolved.orElse(null);
         }
-        return null;
+        long generation = c.evictions.get();
+        Optional<ServiceRef> service;
+        try {
+            service = this.platformClient.getDiscoverableService(new URI(targetId));
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        if (service.isEmpty()) {
+            return null;
+        }
+        Credentials credentials = getCredentials(c, service.get());
+        c.fill(targetId, Optional.ofNullable(credentials), generation);
+        return credentials;
     }
 
     public Credentials getCredentials(ServiceRef serviceRef) throws ScriptException {
-        for (StoredCredentials sc : dao.getAll()) {
-            if (matchExpressionEvaluator.get().applies(sc.getMatchExpression(), serviceRef)) {
+        return getCredentials(cache(), serviceRef);
+    }
+
+    private Credentials getCredentials(CredentialsCache c, ServiceRef serviceRef)
+            throws ScriptException {
+        for (StoredCredentials sc : c.stored) {
+            if (matchMatrix.get().applies(sc.getMatchExpression(), serviceRef)) {
                 return sc.getCredentials();
             }
         }
@@ -201,14 +235,11 @@ public class CredentialsManager
     }
 
     public Collection<ServiceRef> getServiceRefsWithCredentials() throws ScriptException {
-        List<ServiceRef> result = new ArrayList<>();
-        for (ServiceRef service : this.platformClient.listDiscoverableServices()) {
-            Credentials credentials = getCredentials(service);
-            if (credentials != null) {
-                result.add(service);
-            }
+        Set<ServiceRef> result = new HashSet<>();
+        for (StoredCredentials sc : cache().stored) {
+            result.addAll(matchMatrix.get().getMatchingTargets(sc.getMatchExpression()));
         }
-        return result;
+        return new ArrayList<>(result);
     }
 
     public Optional<String> get(int id) {
@@ -220,40 +251,43 @@ public class CredentialsManager
         if (matchExpression.isEmpty()) {
             return Set.of();
         }
-        Set<ServiceRef> matchedTargets = new HashSet<>();
-        for (ServiceRef target : platformClient.listDiscoverableServices()) {
-            try {
-                if (matchExpressionEvaluator.get().applies(matchExpression.get(), target)) {
-                    matchedTargets.add(target);
-                }
-            } catch (ScriptException e) {
-                logger.error(e);
-                break;
-            }
-        }
-        return matchedTargets;
+        return resolveMatchingTargets(matchExpression.get());
     }
 
     public Set<ServiceRef> resolveMatchingTargets(String matchExpression) {
-        Set<ServiceRef> matchedTargets = new HashSet<>();
-        for (ServiceRef target : platformClient.listDiscoverableServices()) {
-            try {
-                if (matchExpressionEvaluator.get().applies(matchExpression, target)) {
-                    matchedTargets.add(target);
+        try {
+            return matchMatrix.get().getMatchingTargets(matchExpression);
+        } catch (ScriptException e) {
+            logger.error(e);
+            return Set.of();
+        }
+    }
+
+    public boolean delete(int id) {
+        Optional<String> matchExpression = dao.get(id).map(StoredCredentials::getMatchExpression);
+        boolean deleted = dao.delete(id);
+        // invalidate before notifying so that listeners cannot observe the deleted credentials
+        invalidateCache();
+        matchExpression.ifPresent(c -> emit(CredentialsEvent.REMOVED, c));
+        return deleted;
+    }
+
+    private CredentialsCache cache() {
+        CredentialsCache c = this.cache;
+        if (c == null) {
+            synchronized (this) {
+                c = this.cache;
+                if (c == null) {
+                    c = new CredentialsCache(dao.getAll());
+                    this.cache = c;
                 }
-            } catch (ScriptException e) {
-                logger.error(e);
-                break;
             }
         }
-        return matchedTargets;
+        return c;
     }
 
-    public boolean delete(int id) {
-        dao.get(id)
-                .map(StoredCredentials::getMatchExpression)
-                .ifPresent(c -> emit(CredentialsEvent.REMOVED, c));
-        return dao.delete(id);
+    private synchronized void invalidateCache() {
+        this.cache = null;
     }
 
     public Map<Integer, String> getAll() {
@@ -303,6 +337,34 @@ public class CredentialsManager
         }
     }
 
+    private static class CredentialsCache {
+        // in DAO order, so that the first matching credentials are still the ones used
+        final List<StoredCredentials> stored;
+        final Map<String, Optional<Credentials>> byTargetId;
+        final AtomicLong evictions;
+
+        CredentialsCache(List<StoredCredentials> stored) {
+            this.stored = List.copyOf(stored);
+            this.byTargetId = new ConcurrentHashMap<>();
+            this.evictions = new AtomicLong();
+        }
+
+        void evict(String targetId) {
+            evictions.incrementAndGet();
+            byTargetId.remove(targetId);
+        }
+
+        // a lookup may have resolved a target's credentials from a definition that was evicted
+        // while the lookup was in flight. Any eviction after the lookup began retracts its
+        // entry, and any eviction after that check removes the entry itself.
+        void fill(String targetId, Optional<Credentials> credentials, long generation) {
+            byTargetId.put(targetId, credentials);
+            if (evictions.get() != generation) {
+                byTargetId.remove(targetId, credentials);
+            }
+        }
+    }
+
     @Deprecated(since = "2.2", forRemoval = true)
     static class TargetSpecificStoredCredentials {
         private final String targetId;
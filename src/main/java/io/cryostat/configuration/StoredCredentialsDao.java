@@ -37,13 +37,15 @@
  */
 package io.cryostat.configuration;
 
-import javax.persistence.EntityManager;
+import java.util.concurrent.ExecutorService;
+
+import javax.persistence.EntityManagerFactory;
 
 import io.cryostat.core.log.Logger;
 import io.cryostat.storage.AbstractDao;
 
 class StoredCredentialsDao extends AbstractDao<Integer, StoredCredentials> {
-    StoredCredentialsDao(EntityManager em, Logger logger) {
-        super(StoredCredentials.class, em, logger);
+    StoredCredentialsDao(EntityManagerFactory emf, ExecutorService executor, Logger logger) {
+        super(StoredCredentials.class, emf, executor, logger);
     }
 }
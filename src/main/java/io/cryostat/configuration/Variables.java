@@ -47,8 +47,15 @@ public final class Variables {
 
     // report generation
     public static final String REPORT_GENERATOR_ENV = "CRYOSTAT_REPORT_GENERATOR";
+    public static final String REPORT_GENERATOR_STREAMING = "CRYOSTAT_REPORT_GENERATOR_STREAMING";
+    public static final String REPORT_GENERATOR_COMPRESSION =
+            "CRYOSTAT_REPORT_GENERATOR_COMPRESSION";
     public static final String SUBPROCESS_MAX_HEAP_ENV = "CRYOSTAT_REPORT_GENERATION_MAX_HEAP";
-    public static final String REPORT_STATS_PATH = "CRYOSTAT_REPORT_STATS_PATH";
+    public static final String REPORT_GENERATION_WORKERS = "CRYOSTAT_REPORT_GENERATION_WORKERS";
+    public static final String REPORT_QUEUE_SIZE = "CRYOSTAT_REPORT_QUEUE_SIZE";
+    public static final String REPORT_CACHE_PATH = "CRYOSTAT_REPORT_CACHE_PATH";
+    public static final String REPORT_CACHE_MAX_SIZE = "CRYOSTAT_REPORT_CACHE_MAX_SIZE";
+    public static final String REPORT_CACHE_MAX_AGE = "CRYOSTAT_REPORT_CACHE_MAX_AGE";
 
     // SSL configuration
     public static final String DISABLE_SSL = "CRYOSTAT_DISABLE_SSL";
@@ -60,8 +67,15 @@ public final class Variables {
     // platform configuration
     public static final String PLATFORM_STRATEGY_ENV_VAR = "CRYOSTAT_PLATFORM";
     public static final String AUTH_MANAGER_ENV_VAR = "CRYOSTAT_AUTH_MANAGER";
+    public static final String AUTH_DECISION_CACHE_TTL = "CRYOSTAT_AUTH_DECISION_CACHE_TTL";
+    public static final String AUTH_DECISION_CACHE_DENIED_TTL =
+            "CRYOSTAT_AUTH_DECISION_CACHE_DENIED_TTL";
     public static final String DISABLE_BUILTIN_DISCOVERY = "CRYOSTAT_DISABLE_BUILTIN_DISCOVERY";
     public static final String DISCOVERY_PING_PERIOD_MS = "CRYOSTAT_DISCOVERY_PING_PERIOD";
+    public static final String KUBERNETES_NAMESPACES = "CRYOSTAT_K8S_NAMESPACES";
+    public static final String DISCOVERY_BATCH_QUIET_PERIOD_MS =
+            "CRYOSTAT_DISCOVERY_BATCH_QUIET_PERIOD";
+    public static final String DISCOVERY_BATCH_MAX_DELAY_MS = "CRYOSTAT_DISCOVERY_BATCH_MAX_DELAY";
 
     // webserver configuration
     public static final String WEBSERVER_HOST = "CRYOSTAT_WEB_HOST";
@@ -70,14 +84,23 @@ public final class Variables {
     public static final String WEBSERVER_SSL_PROXIED = "CRYOSTAT_SSL_PROXIED";
     public static final String WEBSERVER_ALLOW_UNTRUSTED_SSL = "CRYOSTAT_ALLOW_UNTRUSTED_SSL";
     public static final String MAX_CONNECTIONS_ENV_VAR = "CRYOSTAT_MAX_WS_CONNECTIONS";
+    public static final String WS_MAX_QUEUED_MESSAGES = "CRYOSTAT_WS_MAX_QUEUED_MESSAGES";
+    public static final String WS_SLOW_CONSUMER_POLICY = "CRYOSTAT_WS_SLOW_CONSUMER_POLICY";
     public static final String ENABLE_CORS_ENV = "CRYOSTAT_CORS_ORIGIN";
     public static final String HTTP_REQUEST_TIMEOUT = "CRYOSTAT_HTTP_REQUEST_TIMEOUT";
     public static final String DEV_MODE = "CRYOSTAT_DEV_MODE";
+    public static final String DOWNLOAD_IO_THREADS = "CRYOSTAT_DOWNLOAD_IO_THREADS";
+    public static final String GRAPHQL_TARGET_PARALLELISM = "CRYOSTAT_GRAPHQL_TARGET_PARALLELISM";
+    public static final String GRAPHQL_MAX_DEPTH = "CRYOSTAT_GRAPHQL_MAX_DEPTH";
+    public static final String GRAPHQL_MAX_COST = "CRYOSTAT_GRAPHQL_MAX_COST";
 
     // JMX connections configuration
     public static final String TARGET_MAX_CONCURRENT_CONNECTIONS =
             "CRYOSTAT_TARGET_MAX_CONCURRENT_CONNECTIONS";
+    public static final String TARGET_MAX_CONNECTIONS_PER_TARGET =
+            "CRYOSTAT_TARGET_MAX_CONNECTIONS_PER_TARGET";
     public static final String TARGET_CACHE_TTL = "CRYOSTAT_TARGET_CACHE_TTL";
+    public static final String TARGET_CACHE_IDLE_TIMEOUT = "CRYOSTAT_TARGET_CACHE_IDLE_TIMEOUT";
     public static final String JMX_CONNECTION_TIMEOUT = "CRYOSTAT_JMX_CONNECTION_TIMEOUT_SECONDS";
 
     // paths configuration
@@ -89,6 +112,8 @@ public final class Variables {
     public static final String JDBC_URL = "CRYOSTAT_JDBC_URL";
     public static final String JDBC_USERNAME = "CRYOSTAT_JDBC_USERNAME";
     public static final String JDBC_PASSWORD = "CRYOSTAT_JDBC_PASSWORD";
+    public static final String JDBC_POOL_SIZE = "CRYOSTAT_JDBC_POOL_SIZE";
+    public static final String JDBC_QUEUE_SIZE = "CRYOSTAT_JDBC_QUEUE_SIZE";
     public static final String JMX_CREDENTIALS_DB_PASSWORD = "CRYOSTAT_JMX_CREDENTIALS_DB_PASSWORD";
     public static final String HIBERNATE_DIALECT = "CRYOSTAT_HIBERNATE_DIALECT";
     public static final String HBM2DDL = "CRYOSTAT_HBM2DDL";
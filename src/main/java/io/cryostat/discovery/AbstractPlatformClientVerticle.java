@@ -37,8 +37,8 @@
  */
 package io.cryostat.discovery;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.function.Consumer;
 
 import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
@@ -54,7 +54,9 @@ public abstract class AbstractPlatformClientVerticle extends AbstractVerticle
     protected final Set<Consumer<TargetDiscoveryEvent>> discoveryListeners;
 
     protected AbstractPlatformClientVerticle() {
-        this.discoveryListeners = new HashSet<>();
+        // listeners may register themselves while an event is being dispatched, ie. when they
+        // are lazily constructed by another listener
+        this.discoveryListeners = new CopyOnWriteArraySet<>();
     }
 
     @Override
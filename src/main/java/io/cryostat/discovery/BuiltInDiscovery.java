@@ -37,23 +37,37 @@
  */
 package io.cryostat.discovery;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
+import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
 import io.cryostat.core.sys.Environment;
 import io.cryostat.messaging.notifications.NotificationFactory;
 import io.cryostat.platform.PlatformClient;
+import io.cryostat.platform.ServiceRef;
 import io.cryostat.platform.TargetDiscoveryEvent;
+import io.cryostat.platform.discovery.AbstractNode;
 import io.cryostat.platform.discovery.EnvironmentNode;
 import io.cryostat.platform.internal.CustomTargetPlatformClient;
 
 import dagger.Lazy;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
 
 public class BuiltInDiscovery extends AbstractVerticle implements Consumer<TargetDiscoveryEvent> {
 
@@ -63,20 +77,27 @@ public class BuiltInDiscovery extends AbstractVerticle implements Consumer<Targe
     private final Set<PlatformClient> platformClients;
     private final Lazy<CustomTargetPlatformClient> customTargets;
     private final Environment env;
+    private final Duration batchQuietPeriod;
+    private final Duration batchMaxDelay;
     private final NotificationFactory notificationFactory;
     private final Logger logger;
+    private final List<DiscoveryEventBatcher> batchers = new CopyOnWriteArrayList<>();
 
     BuiltInDiscovery(
             DiscoveryStorage storage,
             Set<PlatformClient> platformClients,
             Lazy<CustomTargetPlatformClient> customTargets,
             Environment env,
+            Duration batchQuietPeriod,
+            Duration batchMaxDelay,
             NotificationFactory notificationFactory,
             Logger logger) {
         this.storage = storage;
         this.platformClients = platformClients;
         this.customTargets = customTargets;
         this.env = env;
+        this.batchQuietPeriod = batchQuietPeriod;
+        this.batchMaxDelay = batchMaxDelay;
         this.notificationFactory = notificationFactory;
         this.logger = logger;
     }
@@ -109,16 +130,14 @@ public class BuiltInDiscovery extends AbstractVerticle implements Consumer<Targe
                                                         }
                                                     });
 
-                            platform.addTargetDiscoveryListener(
-                                    tde ->
-                                            getVertx()
-                                                    .executeBlocking(
-                                                            promise ->
-                                                                    promise.complete(
-                                                                            storage.update(
-                                                                                    id,
-                                                                                    platform.getDiscoveryTree()
-                                                                                            .getChildren()))));
+                            DiscoveryEventBatcher batcher =
+                                    new DiscoveryEventBatcher(
+                                            getVertx(),
+                                            batchQuietPeriod,
+                                            batchMaxDelay,
+                                            batch -> publish(id, realmName, platform, batch));
+                            batchers.add(batcher);
+                            platform.addTargetDiscoveryListener(batcher);
                             Promise<EnvironmentNode> promise = Promise.promise();
                             promise.future()
                                     .onSuccess(
@@ -133,9 +152,72 @@ public class BuiltInDiscovery extends AbstractVerticle implements Consumer<Targe
         start.tryComplete();
     }
 
+    private void publish(
+            UUID id, String realm, PlatformClient platform, DiscoveryEventBatcher.Batch batch) {
+        // ordered on this verticle's context so that batches are applied in the order they were
+        // flushed, whichever thread flushed them
+        context.executeBlocking(
+                promise -> {
+                    publishBatch(id, realm, platform, batch);
+                    promise.complete();
+                },
+                true,
+                ar -> {
+                    if (ar.failed()) {
+                        logger.warn(
+                                "Failed to publish {} discovery events: {}",
+                                realm,
+                                ar.cause().getMessage());
+                    }
+                });
+    }
+
+    private void publishBatch(
+            UUID id, String realm, PlatformClient platform, DiscoveryEventBatcher.Batch batch) {
+        DiscoveryBatchEvent evt =
+                new DiscoveryBatchEvent(
+                        realm,
+                        batch.getReceived(),
+                        batch.getEvents().size(),
+                        batch.getLatency().toMillis());
+        evt.begin();
+        try {
+            List<AbstractNode> added = new ArrayList<>();
+            List<URI> removed = new ArrayList<>();
+            for (TargetDiscoveryEvent tde : batch.getEvents()) {
+                ServiceRef serviceRef = tde.getServiceRef();
+                if (tde.getEventKind() == EventKind.LOST) {
+                    removed.add(serviceRef.getServiceUri());
+                    continue;
+                }
+                // FOUND and MODIFIED alike: an added target replaces any with the same connection
+                // URI
+                platform.getDiscoveryBranch(serviceRef)
+                        .ifPresentOrElse(
+                                added::add,
+                                () ->
+                                        logger.warn(
+                                                "{} target {} not found in {} discovery tree",
+                                                tde.getEventKind(),
+                                                serviceRef.getServiceUri(),
+                                                platform.getClass().getSimpleName()));
+            }
+            evt.setFound(added.size());
+            evt.setLost(removed.size());
+            storage.update(id, added, removed);
+        } finally {
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.commit();
+            }
+        }
+    }
+
     @Override
     public void stop() {
         storage.removeTargetDiscoveryListener(this);
+        batchers.forEach(DiscoveryEventBatcher::flush);
+        batchers.clear();
         this.platformClients.forEach(
                 platform -> {
                     try {
@@ -162,4 +244,36 @@ public class BuiltInDiscovery extends AbstractVerticle implements Consumer<Targe
                 .build()
                 .send();
     }
+
+    @Name("io.cryostat.discovery.BuiltInDiscovery.DiscoveryBatchEvent")
+    @Label("Built-In Discovery Batch")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class DiscoveryBatchEvent extends Event {
+        String realm;
+        int eventsReceived;
+        int targets;
+        int found;
+        int lost;
+
+        @Timespan(Timespan.MILLISECONDS)
+        long batchLatency;
+
+        DiscoveryBatchEvent(String realm, int eventsReceived, int targets, long batchLatency) {
+            this.realm = realm;
+            this.eventsReceived = eventsReceived;
+            this.targets = targets;
+            this.batchLatency = batchLatency;
+        }
+
+        void setFound(int found) {
+            this.found = found;
+        }
+
+        void setLost(int lost) {
+            this.lost = lost;
+        }
+    }
 }
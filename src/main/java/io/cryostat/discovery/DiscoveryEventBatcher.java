@@ -0,0 +1,179 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.discovery;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import io.cryostat.platform.TargetDiscoveryEvent;
+
+import io.vertx.core.Vertx;
+
+/**
+ * Collects bursts of target discovery events from a single platform and passes them on as one
+ * batch, once no further event has arrived for the quiet period or once the oldest pending event
+ * has waited for the maximum delay, whichever comes first. Only the most recent event for each
+ * target connection URL is kept, so a target which is found and then lost again within one batch is
+ * only reported as lost.
+ */
+class DiscoveryEventBatcher implements Consumer<TargetDiscoveryEvent> {
+
+    private final Vertx vertx;
+    private final long quietPeriodMs;
+    private final long maxDelayMs;
+    private final Consumer<Batch> downstream;
+
+    private final Map<URI, TargetDiscoveryEvent> pending = new LinkedHashMap<>();
+    private int received;
+    private long firstEventNanos;
+    private long quietTimer = -1L;
+    private long maxDelayTimer = -1L;
+
+    DiscoveryEventBatcher(
+            Vertx vertx, Duration quietPeriod, Duration maxDelay, Consumer<Batch> downstream) {
+        this.vertx = vertx;
+        this.quietPeriodMs = quietPeriod.toMillis();
+        this.maxDelayMs = maxDelay.toMillis();
+        this.downstream = downstream;
+    }
+
+    @Override
+    public void accept(TargetDiscoveryEvent tde) {
+        Batch batch = null;
+        synchronized (this) {
+            if (received++ == 0) {
+                firstEventNanos = System.nanoTime();
+            }
+            pending.remove(tde.getServiceRef().getServiceUri());
+            pending.put(tde.getServiceRef().getServiceUri(), tde);
+            if (quietPeriodMs <= 0 || maxDelayMs <= 0) {
+                batch = drain();
+            } else {
+                if (quietTimer >= 0) {
+                    vertx.cancelTimer(quietTimer);
+                }
+                quietTimer = vertx.setTimer(quietPeriodMs, this::onTimer);
+                if (maxDelayTimer < 0) {
+                    maxDelayTimer = vertx.setTimer(maxDelayMs, this::onTimer);
+                }
+            }
+        }
+        if (batch != null) {
+            downstream.accept(batch);
+        }
+    }
+
+    /** Passes on any pending events immediately, for example when discovery is stopping. */
+    void flush() {
+        Batch batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        if (batch != null) {
+            downstream.accept(batch);
+        }
+    }
+
+    private void onTimer(long timerId) {
+        Batch batch;
+        synchronized (this) {
+            // a timer belonging to a batch which has already been flushed
+            if (timerId != quietTimer && timerId != maxDelayTimer) {
+                return;
+            }
+            batch = drain();
+        }
+        if (batch != null) {
+            downstream.accept(batch);
+        }
+    }
+
+    private Batch drain() {
+        if (quietTimer >= 0) {
+            vertx.cancelTimer(quietTimer);
+            quietTimer = -1L;
+        }
+        if (maxDelayTimer >= 0) {
+            vertx.cancelTimer(maxDelayTimer);
+            maxDelayTimer = -1L;
+        }
+        if (pending.isEmpty()) {
+            return null;
+        }
+        Batch batch =
+                new Batch(
+                        new ArrayList<>(pending.values()),
+                        received,
+                        Duration.ofNanos(System.nanoTime() - firstEventNanos));
+        pending.clear();
+        received = 0;
+        return batch;
+    }
+
+    static class Batch {
+        private final List<TargetDiscoveryEvent> events;
+        private final int received;
+        private final Duration latency;
+
+        Batch(List<TargetDiscoveryEvent> events, int received, Duration latency) {
+            this.events = events;
+            this.received = received;
+            this.latency = latency;
+        }
+
+        /** The most recent event for each distinct target, oldest first. */
+        List<TargetDiscoveryEvent> getEvents() {
+            return events;
+        }
+
+        /** The number of events merged into this batch. */
+        int getReceived() {
+            return received;
+        }
+
+        /** The time from the first event of this batch arriving until the batch was flushed. */
+        Duration getLatency() {
+            return latency;
+        }
+    }
+}
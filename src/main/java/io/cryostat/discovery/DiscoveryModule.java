@@ -39,10 +39,11 @@ package io.cryostat.discovery;
 
 import java.time.Duration;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
-import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 
 import io.cryostat.VerticleDeployer;
 import io.cryostat.configuration.Variables;
@@ -52,6 +53,7 @@ import io.cryostat.messaging.notifications.NotificationFactory;
 import io.cryostat.platform.PlatformClient;
 import io.cryostat.platform.discovery.AbstractNode;
 import io.cryostat.platform.internal.CustomTargetPlatformClient;
+import io.cryostat.storage.StorageModule;
 import io.cryostat.util.PluggableTypeAdapter;
 
 import com.google.gson.Gson;
@@ -65,6 +67,8 @@ import io.vertx.ext.web.client.WebClient;
 public abstract class DiscoveryModule {
 
     public static final String DISCOVERY_PING_DURATION = "DISCOVERY_PING_DURATION";
+    public static final String DISCOVERY_BATCH_QUIET_PERIOD = "DISCOVERY_BATCH_QUIET_PERIOD";
+    public static final String DISCOVERY_BATCH_MAX_DELAY = "DISCOVERY_BATCH_MAX_DELAY";
 
     @Provides
     @Singleton
@@ -79,8 +83,28 @@ public abstract class DiscoveryModule {
 
     @Provides
     @Singleton
-    static PluginInfoDao providePluginInfoDao(EntityManager em, Gson gson, Logger logger) {
-        return new PluginInfoDao(em, gson, logger);
+    @Named(DISCOVERY_BATCH_QUIET_PERIOD)
+    static Duration provideDiscoveryBatchQuietPeriod(Environment env) {
+        String d = env.getEnv(Variables.DISCOVERY_BATCH_QUIET_PERIOD_MS, "250");
+        return Duration.ofMillis(Long.parseLong(d));
+    }
+
+    @Provides
+    @Singleton
+    @Named(DISCOVERY_BATCH_MAX_DELAY)
+    static Duration provideDiscoveryBatchMaxDelay(Environment env) {
+        String d = env.getEnv(Variables.DISCOVERY_BATCH_MAX_DELAY_MS, "2000");
+        return Duration.ofMillis(Long.parseLong(d));
+    }
+
+    @Provides
+    @Singleton
+    static PluginInfoDao providePluginInfoDao(
+            EntityManagerFactory emf,
+            @Named(StorageModule.DATABASE_EXECUTOR) ExecutorService executor,
+            Gson gson,
+            Logger logger) {
+        return new PluginInfoDao(emf, executor, gson, logger);
     }
 
     @Provides
@@ -103,10 +127,19 @@ public abstract class DiscoveryModule {
             Set<PlatformClient> platformClients,
             Lazy<CustomTargetPlatformClient> customTargets,
             Environment env,
+            @Named(DISCOVERY_BATCH_QUIET_PERIOD) Duration batchQuietPeriod,
+            @Named(DISCOVERY_BATCH_MAX_DELAY) Duration batchMaxDelay,
             NotificationFactory notificationFactory,
             Logger logger) {
         return new BuiltInDiscovery(
-                storage, platformClients, customTargets, env, notificationFactory, logger);
+                storage,
+                platformClients,
+                customTargets,
+                env,
+                batchQuietPeriod,
+                batchMaxDelay,
+                notificationFactory,
+                logger);
     }
 
     @Provides
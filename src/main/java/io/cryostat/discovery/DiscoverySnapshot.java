@@ -0,0 +1,142 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.discovery;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.discovery.AbstractNode;
+import io.cryostat.platform.discovery.BaseNodeType;
+import io.cryostat.platform.discovery.EnvironmentNode;
+import io.cryostat.platform.discovery.TargetNode;
+
+/**
+ * Immutable view of the whole discovery tree at one version, with its targets indexed by connection
+ * URI, alias, and realm. A snapshot is built once per change to the tree and then shared by all
+ * readers, so lookups do not reparse or walk the tree.
+ */
+public final class DiscoverySnapshot {
+
+    private final long version;
+    private final EnvironmentNode tree;
+    private final List<ServiceRef> services;
+    private final Map<URI, ServiceRef> byConnectUrl;
+    private final Map<String, List<ServiceRef>> byAlias;
+    private final Map<String, List<ServiceRef>> byRealm;
+
+    DiscoverySnapshot(long version, List<EnvironmentNode> realms) {
+        this.version = version;
+        this.tree =
+                new EnvironmentNode(
+                        "Universe", BaseNodeType.UNIVERSE, Collections.emptyMap(), realms);
+        Set<TargetNode> leaves = new LinkedHashSet<>();
+        Map<URI, ServiceRef> byConnectUrl = new HashMap<>();
+        Map<String, List<ServiceRef>> byAlias = new HashMap<>();
+        Map<String, List<ServiceRef>> byRealm = new HashMap<>();
+        for (EnvironmentNode realm : realms) {
+            List<ServiceRef> realmServices = new ArrayList<>();
+            collect(realm, leaves, realmServices);
+            for (ServiceRef sr : realmServices) {
+                byConnectUrl.putIfAbsent(sr.getServiceUri(), sr);
+                sr.getAlias()
+                        .ifPresent(
+                                alias ->
+                                        byAlias.computeIfAbsent(alias, k -> new ArrayList<>())
+                                                .add(sr));
+            }
+            byRealm.computeIfAbsent(realm.getName(), k -> new ArrayList<>()).addAll(realmServices);
+        }
+        this.services = leaves.stream().map(TargetNode::getTarget).toList();
+        this.byConnectUrl = Collections.unmodifiableMap(byConnectUrl);
+        this.byAlias = copyOf(byAlias);
+        this.byRealm = copyOf(byRealm);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public EnvironmentNode getTree() {
+        return tree;
+    }
+
+    public List<ServiceRef> getServices() {
+        return services;
+    }
+
+    public Optional<ServiceRef> getService(URI connectUrl) {
+        return Optional.ofNullable(byConnectUrl.get(connectUrl));
+    }
+
+    public List<ServiceRef> getServicesByAlias(String alias) {
+        return byAlias.getOrDefault(alias, List.of());
+    }
+
+    public List<ServiceRef> getServicesByRealm(String realm) {
+        return byRealm.getOrDefault(realm, List.of());
+    }
+
+    private static void collect(
+            AbstractNode node, Set<TargetNode> leaves, List<ServiceRef> services) {
+        if (node instanceof TargetNode) {
+            if (leaves.add((TargetNode) node)) {
+                services.add(((TargetNode) node).getTarget());
+            }
+        } else if (node instanceof EnvironmentNode) {
+            ((EnvironmentNode) node)
+                    .getChildren()
+                    .forEach(child -> collect(child, leaves, services));
+        } else {
+            throw new IllegalArgumentException(node.getClass().getCanonicalName());
+        }
+    }
+
+    private static Map<String, List<ServiceRef>> copyOf(Map<String, List<ServiceRef>> index) {
+        Map<String, List<ServiceRef>> copy = new HashMap<>(index.size());
+        index.forEach((k, v) -> copy.put(k, List.copyOf(v)));
+        return Collections.unmodifiableMap(copy);
+    }
+}
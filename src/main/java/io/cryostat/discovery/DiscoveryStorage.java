@@ -40,7 +40,6 @@ package io.cryostat.discovery;
 import java.net.URI;
 import java.time.Duration;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -50,6 +49,9 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import io.cryostat.VerticleDeployer;
 import io.cryostat.core.log.Logger;
@@ -75,6 +77,9 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 public class DiscoveryStorage extends AbstractPlatformClientVerticle {
 
     public static final URI NO_CALLBACK = null;
+    // delta updates are applied in memory immediately and written through to the database at most
+    // this often per plugin
+    static final Duration PERSIST_DELAY = Duration.ofSeconds(1);
     private final Duration pingPeriod;
     private final VerticleDeployer deployer;
     private final Lazy<BuiltInDiscovery> builtin;
@@ -83,6 +88,10 @@ public class DiscoveryStorage extends AbstractPlatformClientVerticle {
     private final WebClient http;
     private final Logger logger;
     private long timerId = -1L;
+    private final Map<UUID, DiscoverySubtree> subtrees = new ConcurrentHashMap<>();
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicReference<DiscoverySnapshot> snapshot = new AtomicReference<>();
 
     public static final String DISCOVERY_STARTUP_ADDRESS = "discovery-startup";
 
@@ -129,9 +138,27 @@ public class DiscoveryStorage extends AbstractPlatformClientVerticle {
         getVertx().cancelTimer(timerId);
     }
 
-    private CompositeFuture pingPrune() {
+    private Future<CompositeFuture> pingPrune() {
+        // this runs on the event loop, so the plugin listing is done on the database executor
+        Promise<List<PluginInfo>> plugins = Promise.promise();
+        dao.getAllAsync()
+                .whenComplete(
+                        (list, t) ->
+                                getVertx()
+                                        .runOnContext(
+                                                v -> {
+                                                    if (t != null) {
+                                                        plugins.fail(t);
+                                                    } else {
+                                                        plugins.complete(list);
+                                                    }
+                                                }));
+        return plugins.future().compose(this::pingPrune);
+    }
+
+    private CompositeFuture pingPrune(List<PluginInfo> plugins) {
         List<Future> futures =
-                dao.getAll().stream()
+                plugins.stream()
                         .map(
                                 plugin -> {
                                     UUID key = plugin.getId();
@@ -212,6 +239,7 @@ public class DiscoveryStorage extends AbstractPlatformClientVerticle {
                                     Map.of(AnnotationKey.REALM.name(), id.toString())),
                             initial.getChildren());
             PluginInfo updated = dao.update(id, update);
+            invalidateSnapshot();
             logger.trace("Discovery Registration: \"{}\" [{}]", realm, id);
             return updated.getId();
         } catch (Exception e) {
@@ -228,57 +256,178 @@ public class DiscoveryStorage extends AbstractPlatformClientVerticle {
 
     public List<? extends AbstractNode> update(
             UUID id, Collection<? extends AbstractNode> children) {
-        PluginInfo plugin = dao.get(id).orElseThrow(() -> new NotFoundException(id));
-        logger.trace("Discovery Update {} ({}): {}", id, plugin.getRealm(), children);
-        EnvironmentNode original = gson.fromJson(plugin.getSubtree(), EnvironmentNode.class);
-        plugin = dao.update(id, Objects.requireNonNull(children));
-        EnvironmentNode currentTree = gson.fromJson(plugin.getSubtree(), EnvironmentNode.class);
-
-        Set<TargetNode> previousLeaves = findLeavesFrom(original);
-        Set<TargetNode> currentLeaves = findLeavesFrom(currentTree);
-
-        Set<TargetNode> added = new HashSet<>(currentLeaves);
-        added.removeAll(previousLeaves);
-
-        Set<TargetNode> removed = new HashSet<>(previousLeaves);
-        removed.removeAll(currentLeaves);
+        Objects.requireNonNull(children);
+        DiscoverySubtree subtree = getSubtree(id);
+        EnvironmentNode original;
+        DiscoverySubtree.Delta delta;
+        long version;
+        synchronized (subtree) {
+            original = subtree.toNode();
+            logger.trace("Discovery Update {} ({}): {}", id, original.getName(), children);
+            delta = subtree.replace(children);
+            version = subtree.getVersion();
+        }
+        try {
+            subtree.write(version, () -> dao.update(id, children));
+        } catch (RuntimeException e) {
+            // the stored subtree is now behind the one in memory, so reload it on next access
+            subtrees.remove(id, subtree);
+            invalidateSnapshot();
+            throw e;
+        }
+        invalidateSnapshot();
 
-        added.stream()
+        delta.getFound().stream()
                 .map(TargetNode::getTarget)
                 .forEach(sr -> notifyAsyncTargetDiscovery(EventKind.FOUND, sr));
-        removed.stream()
+        delta.getLost().stream()
                 .map(TargetNode::getTarget)
                 .forEach(sr -> notifyAsyncTargetDiscovery(EventKind.LOST, sr));
 
         return original.getChildren();
     }
 
+    /**
+     * Updates a plugin's subtree with only the changes since its last update. Targets with the
+     * given connection URIs are removed, and then the added nodes are merged into the subtree. See
+     * {@link DiscoverySubtree#apply}.
+     */
+    public void update(UUID id, Collection<? extends AbstractNode> added, Collection<URI> removed) {
+        Objects.requireNonNull(added);
+        Objects.requireNonNull(removed);
+        DiscoverySubtree subtree = getSubtree(id);
+        DiscoverySubtree.Delta delta = subtree.apply(added, removed);
+        if (delta.isEmpty()) {
+            return;
+        }
+        invalidateSnapshot();
+        logger.trace(
+                "Discovery Delta {}: {} found, {} lost",
+                id,
+                delta.getFound().size(),
+                delta.getLost().size());
+        schedulePersist(id);
+
+        delta.getLost().stream()
+                .map(TargetNode::getTarget)
+                .forEach(sr -> notifyAsyncTargetDiscovery(EventKind.LOST, sr));
+        delta.getFound().stream()
+                .map(TargetNode::getTarget)
+                .forEach(sr -> notifyAsyncTargetDiscovery(EventKind.FOUND, sr));
+    }
+
+    private DiscoverySubtree getSubtree(UUID id) {
+        return subtrees.computeIfAbsent(
+                id,
+                k ->
+                        new DiscoverySubtree(
+                                gson.fromJson(
+                                        dao.get(k)
+                                                .orElseThrow(() -> new NotFoundException(k))
+                                                .getSubtree(),
+                                        EnvironmentNode.class)));
+    }
+
+    private void schedulePersist(UUID id) {
+        if (!dirty.add(id)) {
+            return;
+        }
+        getVertx()
+                .setTimer(
+                        PERSIST_DELAY.toMillis(),
+                        t ->
+                                getVertx()
+                                        .executeBlocking(
+                                                promise -> {
+                                                    persist(id);
+                                                    promise.complete();
+                                                },
+                                                false,
+                                                ar -> {
+                                                    if (ar.failed()) {
+                                                        logger.warn(
+                                                                "Failed to persist discovery"
+                                                                        + " subtree {}: {}",
+                                                                id,
+                                                                ar.cause().getMessage());
+                                                    }
+                                                }));
+    }
+
+    private void persist(UUID id) {
+        dirty.remove(id);
+        DiscoverySubtree subtree = subtrees.get(id);
+        if (subtree == null) {
+            // deregistered since the update
+            return;
+        }
+        long version;
+        EnvironmentNode node;
+        synchronized (subtree) {
+            version = subtree.getVersion();
+            node = subtree.toNode();
+        }
+        // write outside of the subtree's lock so that deltas are not held up by storage. The
+        // version orders this write with any concurrent full update of the same plugin
+        subtree.write(version, () -> dao.update(id, node));
+    }
+
     public PluginInfo deregister(UUID id) {
         PluginInfo plugin = dao.get(id).orElseThrow(() -> new NotFoundException(id));
+        DiscoverySubtree subtree = subtrees.remove(id);
+        dirty.remove(id);
         dao.delete(id);
-        findLeavesFrom(gson.fromJson(plugin.getSubtree(), EnvironmentNode.class)).stream()
+        invalidateSnapshot();
+        findLeavesFrom(subtree != null ? subtree.toNode() : parseSubtree(plugin)).stream()
                 .map(TargetNode::getTarget)
                 .forEach(sr -> notifyAsyncTargetDiscovery(EventKind.LOST, sr));
         return plugin;
     }
 
-    public EnvironmentNode getDiscoveryTree() {
+    /**
+     * The current version of the whole discovery tree. Readers share the same immutable snapshot
+     * until the tree next changes, at which point the next reader rebuilds it.
+     */
+    public DiscoverySnapshot getSnapshot() {
+        DiscoverySnapshot current = snapshot.get();
+        if (current != null) {
+            return current;
+        }
+        long v = version.get();
         List<EnvironmentNode> realms =
                 dao.getAll().stream()
-                        .map(PluginInfo::getSubtree)
-                        .map(s -> gson.fromJson(s, EnvironmentNode.class))
+                        .map(
+                                plugin ->
+                                        getLoadedSubtree(plugin)
+                                                .map(DiscoverySubtree::toNode)
+                                                .orElseGet(() -> parseSubtree(plugin)))
                         .toList();
-        return new EnvironmentNode(
-                "Universe", BaseNodeType.UNIVERSE, Collections.emptyMap(), realms);
+        DiscoverySnapshot built = new DiscoverySnapshot(v, realms);
+        // an update racing with this rebuild may have made it stale already, in which case it is
+        // still returned to this caller but is not kept for the next one
+        if (snapshot.compareAndSet(null, built) && version.get() != v) {
+            snapshot.compareAndSet(built, null);
+        }
+        return built;
     }
 
-    private Set<TargetNode> getLeafNodes() {
-        return findLeavesFrom(getDiscoveryTree());
+    private void invalidateSnapshot() {
+        version.incrementAndGet();
+        snapshot.set(null);
+    }
+
+    public EnvironmentNode getDiscoveryTree() {
+        return getSnapshot().getTree();
     }
 
     @Override
     public List<ServiceRef> listDiscoverableServices() {
-        return getLeafNodes().stream().map(TargetNode::getTarget).toList();
+        return getSnapshot().getServices();
+    }
+
+    @Override
+    public Optional<ServiceRef> getDiscoverableService(URI connectUrl) {
+        return getSnapshot().getService(connectUrl);
     }
 
     public Optional<PluginInfo> getBuiltInPluginByRealm(String realm) {
@@ -289,9 +438,22 @@ public class DiscoveryStorage extends AbstractPlatformClientVerticle {
     }
 
     public List<ServiceRef> listDiscoverableServices(PluginInfo plugin) {
-        return findLeavesFrom(gson.fromJson(plugin.getSubtree(), EnvironmentNode.class)).stream()
-                .map(TargetNode::getTarget)
-                .toList();
+        return getLoadedSubtree(plugin)
+                .map(DiscoverySubtree::listTargets)
+                .orElseGet(
+                        () ->
+                                findLeavesFrom(parseSubtree(plugin)).stream()
+                                        .map(TargetNode::getTarget)
+                                        .toList());
+    }
+
+    // the in-memory subtree is more recent than the stored one while delta updates are pending
+    private Optional<DiscoverySubtree> getLoadedSubtree(PluginInfo plugin) {
+        return Optional.ofNullable(plugin.getId()).map(subtrees::get);
+    }
+
+    private EnvironmentNode parseSubtree(PluginInfo plugin) {
+        return gson.fromJson(plugin.getSubtree(), EnvironmentNode.class);
     }
 
     private Set<TargetNode> findLeavesFrom(AbstractNode node) {
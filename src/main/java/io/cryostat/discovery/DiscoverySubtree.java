@@ -0,0 +1,261 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.discovery;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.discovery.AbstractNode;
+import io.cryostat.platform.discovery.EnvironmentNode;
+import io.cryostat.platform.discovery.TargetNode;
+
+/**
+ * Mutable, node-level model of a single plugin's discovery subtree. Environment nodes are keyed by
+ * their node type and name within their parent and targets are indexed by their connection URI, so
+ * that adding or removing a target costs time proportional to the depth of the tree rather than to
+ * its size.
+ */
+class DiscoverySubtree {
+
+    private final Branch root;
+    private final Map<URI, Branch> targetParents = new HashMap<>();
+    private final Object writeLock = new Object();
+    private long version;
+    private long writtenVersion;
+
+    DiscoverySubtree(EnvironmentNode realm) {
+        this.root = new Branch(null, null, realm);
+        Delta ignored = new Delta();
+        realm.getChildren().forEach(child -> add(root, child, ignored));
+    }
+
+    /**
+     * Applies a delta to this subtree. Targets are removed by their connection URI before the added
+     * nodes are merged in. Added environment nodes are merged with existing nodes of the same type
+     * and name, and an added target replaces any existing target with the same connection URI
+     * wherever it is in the tree. Environment nodes left empty by removals are pruned.
+     */
+    synchronized Delta apply(Collection<? extends AbstractNode> added, Collection<URI> removed) {
+        Delta delta = new Delta();
+        Set<Branch> emptied = new HashSet<>();
+        removed.forEach(uri -> remove(uri, delta, emptied));
+        added.forEach(node -> add(root, node, delta, emptied));
+        emptied.forEach(this::prune);
+        delta.cancelOut();
+        version++;
+        return delta;
+    }
+
+    /** Replaces the entire contents of this subtree, as for a plugin publishing its full tree. */
+    synchronized Delta replace(Collection<? extends AbstractNode> children) {
+        Set<TargetNode> previous = getTargetNodes();
+        root.children.clear();
+        root.leaves.clear();
+        targetParents.clear();
+        Delta ignored = new Delta();
+        children.forEach(child -> add(root, child, ignored));
+        Set<TargetNode> current = getTargetNodes();
+
+        Delta delta = new Delta();
+        current.stream().filter(t -> !previous.contains(t)).forEach(delta.found::add);
+        previous.stream().filter(t -> !current.contains(t)).forEach(delta.lost::add);
+        version++;
+        return delta;
+    }
+
+    synchronized EnvironmentNode toNode() {
+        return toNode(root);
+    }
+
+    /** A sequence number which increases with every change to this subtree. */
+    synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Runs a write of the given version of this subtree to storage, unless the same or a later
+     * version has already been written. Writes are run one at a time on the calling thread, and do
+     * not hold this subtree's lock, so changes to the subtree are not delayed by storage.
+     */
+    void write(long version, Runnable writer) {
+        synchronized (writeLock) {
+            if (version <= writtenVersion) {
+                return;
+            }
+            writer.run();
+            writtenVersion = version;
+        }
+    }
+
+    synchronized List<ServiceRef> listTargets() {
+        List<ServiceRef> targets = new ArrayList<>(targetParents.size());
+        targetParents.forEach((uri, parent) -> targets.add(parent.leaves.get(uri).getTarget()));
+        return targets;
+    }
+
+    private Set<TargetNode> getTargetNodes() {
+        Set<TargetNode> targets = new HashSet<>();
+        targetParents.forEach((uri, parent) -> targets.add(parent.leaves.get(uri)));
+        return targets;
+    }
+
+    private void add(Branch parent, AbstractNode node, Delta delta) {
+        Set<Branch> emptied = new HashSet<>();
+        add(parent, node, delta, emptied);
+        emptied.forEach(this::prune);
+    }
+
+    private void add(Branch parent, AbstractNode node, Delta delta, Set<Branch> emptied) {
+        if (node instanceof TargetNode) {
+            TargetNode target = (TargetNode) node;
+            URI uri = target.getTarget().getServiceUri();
+            Branch previousParent = targetParents.get(uri);
+            if (previousParent == parent && target.equals(parent.leaves.get(uri))) {
+                return;
+            }
+            if (previousParent != null) {
+                remove(uri, delta, emptied);
+            }
+            parent.leaves.put(uri, target);
+            targetParents.put(uri, parent);
+            delta.found.add(target);
+        } else if (node instanceof EnvironmentNode) {
+            EnvironmentNode environment = (EnvironmentNode) node;
+            List<Object> key = List.of(environment.getNodeType().getKind(), environment.getName());
+            Branch branch = parent.children.get(key);
+            if (branch == null) {
+                branch = new Branch(parent, key, environment);
+                parent.children.put(key, branch);
+            } else {
+                branch.node =
+                        new EnvironmentNode(
+                                environment.getName(),
+                                environment.getNodeType(),
+                                environment.getLabels());
+            }
+            for (AbstractNode child : environment.getChildren()) {
+                add(branch, child, delta, emptied);
+            }
+        } else {
+            throw new IllegalArgumentException(node.getClass().getCanonicalName());
+        }
+    }
+
+    private void remove(URI uri, Delta delta, Set<Branch> emptied) {
+        Branch parent = targetParents.remove(uri);
+        if (parent == null) {
+            return;
+        }
+        delta.lost.add(parent.leaves.remove(uri));
+        emptied.add(parent);
+    }
+
+    private void prune(Branch branch) {
+        // branches are only detached once empty, so an attached branch that was emptied and then
+        // refilled during the same delta is left in place
+        while (branch != root
+                && branch.isEmpty()
+                && branch.parent.children.get(branch.key) == branch) {
+            branch.parent.children.remove(branch.key);
+            branch = branch.parent;
+        }
+    }
+
+    private static EnvironmentNode toNode(Branch branch) {
+        List<AbstractNode> children =
+                new ArrayList<>(branch.children.size() + branch.leaves.size());
+        branch.children.values().forEach(child -> children.add(toNode(child)));
+        children.addAll(branch.leaves.values());
+        return new EnvironmentNode(
+                branch.node.getName(),
+                branch.node.getNodeType(),
+                branch.node.getLabels(),
+                children);
+    }
+
+    static class Delta {
+        private final List<TargetNode> found = new ArrayList<>();
+        private final List<TargetNode> lost = new ArrayList<>();
+
+        List<TargetNode> getFound() {
+            return found;
+        }
+
+        List<TargetNode> getLost() {
+            return lost;
+        }
+
+        boolean isEmpty() {
+            return found.isEmpty() && lost.isEmpty();
+        }
+
+        // a target removed and re-added unchanged within one delta did not really change
+        private void cancelOut() {
+            Set<TargetNode> unchanged = new HashSet<>(found);
+            unchanged.retainAll(lost);
+            found.removeAll(unchanged);
+            lost.removeAll(unchanged);
+        }
+    }
+
+    private static class Branch {
+        final Branch parent;
+        final List<Object> key;
+        EnvironmentNode node;
+        final Map<List<Object>, Branch> children = new LinkedHashMap<>();
+        final Map<URI, TargetNode> leaves = new LinkedHashMap<>();
+
+        Branch(Branch parent, List<Object> key, EnvironmentNode node) {
+            this.parent = parent;
+            this.key = key;
+            this.node = new EnvironmentNode(node.getName(), node.getNodeType(), node.getLabels());
+        }
+
+        boolean isEmpty() {
+            return children.isEmpty() && leaves.isEmpty();
+        }
+    }
+}
@@ -43,9 +43,10 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
-import javax.persistence.EntityManager;
-import javax.persistence.EntityTransaction;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
@@ -62,93 +63,86 @@ class PluginInfoDao extends AbstractDao<UUID, PluginInfo> {
 
     private final Gson gson;
 
-    PluginInfoDao(EntityManager em, Gson gson, Logger logger) {
-        super(PluginInfo.class, em, logger);
+    PluginInfoDao(EntityManagerFactory emf, ExecutorService executor, Gson gson, Logger logger) {
+        super(PluginInfo.class, emf, executor, logger);
         this.gson = gson;
     }
 
     public final PluginInfo save(String realm, URI callback, EnvironmentNode subtree) {
-        synchronized (entityManager) {
-            Objects.requireNonNull(realm);
-            Objects.requireNonNull(subtree);
-            return super.save(new PluginInfo(realm, callback, gson.toJson(subtree)));
-        }
+        Objects.requireNonNull(realm);
+        Objects.requireNonNull(subtree);
+        return super.save(new PluginInfo(realm, callback, gson.toJson(subtree)));
     }
 
     public final List<PluginInfo> getByRealm(String realm) {
-        synchronized (entityManager) {
-            Objects.requireNonNull(realm);
-
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<PluginInfo> cq = cb.createQuery(klazz);
-            Root<PluginInfo> rootEntry = cq.from(klazz);
-            CriteriaQuery<PluginInfo> all = cq.select(rootEntry);
-            CriteriaQuery<PluginInfo> withRealm =
-                    all.where(cb.equal(rootEntry.get("realm"), realm));
-            TypedQuery<PluginInfo> realmQuery = entityManager.createQuery(withRealm);
-
-            return realmQuery.getResultList();
-        }
+        Objects.requireNonNull(realm);
+        return withEntityManager(
+                em -> {
+                    CriteriaBuilder cb = em.getCriteriaBuilder();
+                    CriteriaQuery<PluginInfo> cq = cb.createQuery(klazz);
+                    Root<PluginInfo> rootEntry = cq.from(klazz);
+                    CriteriaQuery<PluginInfo> all = cq.select(rootEntry);
+                    CriteriaQuery<PluginInfo> withRealm =
+                            all.where(cb.equal(rootEntry.get("realm"), realm));
+                    TypedQuery<PluginInfo> realmQuery = em.createQuery(withRealm);
+
+                    return realmQuery.getResultList();
+                });
     }
 
     public final PluginInfo update(UUID id, EnvironmentNode subtree) {
-        synchronized (entityManager) {
-            Objects.requireNonNull(id);
-            Objects.requireNonNull(subtree);
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                PluginInfo plugin =
-                        get(id).orElseThrow(() -> new NoSuchElementException(id.toString()));
-
-                transaction.begin();
-                plugin.setSubtree(gson.toJson(subtree));
-                entityManager.merge(plugin);
-                transaction.commit();
-                entityManager.detach(plugin);
-
-                return plugin;
-            } catch (Exception e) {
-                if (transaction != null) {
-                    transaction.rollback();
-                }
-                logger.error(e);
-                throw e;
-            }
-        }
+        Objects.requireNonNull(id);
+        Objects.requireNonNull(subtree);
+        return inTransaction(
+                em -> {
+                    PluginInfo plugin = em.find(klazz, id);
+                    if (plugin == null) {
+                        throw new NoSuchElementException(id.toString());
+                    }
+                    plugin.setSubtree(gson.toJson(subtree));
+                    return plugin;
+                });
     }
 
     public final PluginInfo update(UUID id, Collection<? extends AbstractNode> children) {
-        synchronized (entityManager) {
-            Objects.requireNonNull(id);
-            Objects.requireNonNull(children);
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                PluginInfo plugin =
-                        get(id).orElseThrow(() -> new NoSuchElementException(id.toString()));
-                EnvironmentNode original =
-                        gson.fromJson(plugin.getSubtree(), EnvironmentNode.class);
-
-                EnvironmentNode subtree =
-                        new EnvironmentNode(
-                                original.getName(),
-                                original.getNodeType(),
-                                original.getLabels(),
-                                children);
-
-                transaction.begin();
-                plugin.setSubtree(gson.toJson(subtree));
-                entityManager.merge(plugin);
-                transaction.commit();
-                entityManager.detach(plugin);
-
-                return plugin;
-            } catch (Exception e) {
-                if (transaction != null) {
-                    transaction.rollback();
-                }
-                logger.error(e);
-                throw e;
-            }
-        }
+        Objects.requireNonNull(id);
+        Objects.requireNonNull(children);
+        return inTransaction(
+                em -> {
+                    PluginInfo plugin = em.find(klazz, id);
+                    if (plugin == null) {
+                        throw new NoSuchElementException(id.toString());
+                    }
+                    EnvironmentNode original =
+                            gson.fromJson(plugin.getSubtree(), EnvironmentNode.class);
+
+                    EnvironmentNode subtree =
+                            new EnvironmentNode(
+                                    original.getName(),
+                                    original.getNodeType(),
+                                    original.getLabels(),
+                                    children);
+
+                    plugin.setSubtree(gson.toJson(subtree));
+                    return plugin;
+                });
+    }
+
+    public final CompletableFuture<PluginInfo> saveAsync(
+            String realm, URI callback, EnvironmentNode subtree) {
+        return async(() -> save(realm, callback, subtree));
+    }
+
+    public final CompletableFuture<List<PluginInfo>> getByRealmAsync(String realm) {
+        return async(() -> getByRealm(realm));
+    }
+
+    public final CompletableFuture<PluginInfo> updateAsync(UUID id, EnvironmentNode subtree) {
+        return async(() -> update(id, subtree));
+    }
+
+    public final CompletableFuture<PluginInfo> updateAsync(
+            UUID id, Collection<? extends AbstractNode> children) {
+        return async(() -> update(id, children));
     }
 }
@@ -37,6 +37,8 @@
  */
 package io.cryostat.messaging;
 
+import java.util.Locale;
+
 import javax.inject.Named;
 import javax.inject.Singleton;
 
@@ -64,6 +66,8 @@ import io.vertx.core.Vertx;
 public abstract class MessagingModule {
 
     static final String WS_MAX_CONNECTIONS = "WS_MAX_CONNECTIONS";
+    static final String WS_MAX_QUEUED_MESSAGES = "WS_MAX_QUEUED_MESSAGES";
+    static final int DEFAULT_MAX_QUEUED_MESSAGES = 256;
 
     @Provides
     @Singleton
@@ -74,6 +78,8 @@ public abstract class MessagingModule {
             AuthManager authManager,
             NotificationFactory notificationFactory,
             @Named(WS_MAX_CONNECTIONS) int maxConnections,
+            @Named(WS_MAX_QUEUED_MESSAGES) int maxQueuedMessages,
+            SlowConsumerPolicy slowConsumerPolicy,
             Clock clock,
             Logger logger,
             Gson gson) {
@@ -84,6 +90,8 @@ public abstract class MessagingModule {
                 authManager,
                 notificationFactory,
                 maxConnections,
+                maxQueuedMessages,
+                slowConsumerPolicy,
                 clock,
                 logger,
                 gson);
@@ -113,4 +121,38 @@ public abstract class MessagingModule {
             return Integer.MAX_VALUE;
         }
     }
+
+    @Provides
+    @Named(WS_MAX_QUEUED_MESSAGES)
+    static int provideWebSocketMaxQueuedMessages(Environment env, Logger logger) {
+        try {
+            int count =
+                    Integer.parseInt(
+                            env.getEnv(
+                                    Variables.WS_MAX_QUEUED_MESSAGES,
+                                    String.valueOf(DEFAULT_MAX_QUEUED_MESSAGES)));
+            if (count <= 0) {
+                logger.warn("{} was set to {} - ignoring", Variables.WS_MAX_QUEUED_MESSAGES, count);
+                count = DEFAULT_MAX_QUEUED_MESSAGES;
+            }
+            return count;
+        } catch (NumberFormatException nfe) {
+            logger.warn(nfe);
+            return DEFAULT_MAX_QUEUED_MESSAGES;
+        }
+    }
+
+    @Provides
+    static SlowConsumerPolicy provideSlowConsumerPolicy(Environment env, Logger logger) {
+        String policy =
+                env.getEnv(
+                        Variables.WS_SLOW_CONSUMER_POLICY, SlowConsumerPolicy.DROP_OLDEST.name());
+        try {
+            return SlowConsumerPolicy.valueOf(
+                    policy.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException iae) {
+            logger.warn("{} was set to {} - ignoring", Variables.WS_SLOW_CONSUMER_POLICY, policy);
+            return SlowConsumerPolicy.DROP_OLDEST;
+        }
+    }
 }
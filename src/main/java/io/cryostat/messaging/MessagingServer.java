@@ -40,10 +40,10 @@ package io.cryostat.messaging;
 import java.io.IOException;
 import java.net.SocketException;
 import java.net.UnknownHostException;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -65,6 +65,7 @@ import io.cryostat.net.web.http.HttpMimeType;
 import com.google.gson.Gson;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Vertx;
+import jdk.jfr.FlightRecorder;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 public class MessagingServer extends AbstractVerticle
@@ -76,10 +77,13 @@ public class MessagingServer extends AbstractVerticle
     private final NotificationFactory notificationFactory;
     private final Clock clock;
     private final int maxConnections;
+    private final int maxQueuedMessages;
+    private final SlowConsumerPolicy slowConsumerPolicy;
     private final Logger logger;
     private final Gson gson;
 
     private long prunerTaskId;
+    private final Runnable statisticsHook;
     private final Map<WsClient, Long> pingTasks;
 
     MessagingServer(
@@ -89,27 +93,37 @@ public class MessagingServer extends AbstractVerticle
             AuthManager authManager,
             NotificationFactory notificationFactory,
             @Named(MessagingModule.WS_MAX_CONNECTIONS) int maxConnections,
+            @Named(MessagingModule.WS_MAX_QUEUED_MESSAGES) int maxQueuedMessages,
+            SlowConsumerPolicy slowConsumerPolicy,
             Clock clock,
             Logger logger,
             Gson gson) {
         this.vertx = vertx;
-        this.connections = new HashSet<>();
+        this.connections = new CopyOnWriteArraySet<>();
         this.server = server;
         this.authManager = authManager;
         this.notificationFactory = notificationFactory;
         this.maxConnections = maxConnections;
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.slowConsumerPolicy = slowConsumerPolicy;
         this.clock = clock;
         this.logger = logger;
         this.gson = gson;
         this.pingTasks = new ConcurrentHashMap<>();
+        this.statisticsHook = () -> connections.forEach(WsClient::emitStatistics);
     }
 
     @Override
     public void start() throws SocketException, UnknownHostException {
         logger.info("Max concurrent WebSocket connections: {}", maxConnections);
+        logger.info(
+                "Max queued messages per WebSocket client: {}, slow consumer policy: {}",
+                maxQueuedMessages,
+                slowConsumerPolicy);
 
         prunerTaskId =
                 this.vertx.setPeriodic(TimeUnit.SECONDS.toMillis(1), id -> this.pruneConnections());
+        FlightRecorder.addPeriodicEvent(WsClient.WsClientStatistics.class, statisticsHook);
 
         server.websocketHandler(
                 (sws) -> {
@@ -121,20 +135,25 @@ public class MessagingServer extends AbstractVerticle
                         return;
                     }
                     String remoteAddress = sws.remoteAddress().toString();
-                    synchronized (connections) {
-                        if (connections.size() >= maxConnections) {
-                            logger.info(
-                                    "Dropping remote client {} due to too many concurrent"
-                                            + " connections",
-                                    remoteAddress);
-                            sws.reject();
-                            sendClientActivityNotification(remoteAddress, "dropped");
-                            return;
-                        }
+                    if (connections.size() >= maxConnections) {
+                        logger.info(
+                                "Dropping remote client {} due to too many concurrent"
+                                        + " connections",
+                                remoteAddress);
+                        sws.reject();
+                        sendClientActivityNotification(remoteAddress, "dropped");
+                        return;
                     }
                     logger.info("Connected remote client {}", remoteAddress);
 
-                    WsClient wsc = new WsClient(this.logger, sws, clock);
+                    WsClient wsc =
+                            new WsClient(
+                                    this.logger,
+                                    sws,
+                                    vertx.getOrCreateContext(),
+                                    clock,
+                                    maxQueuedMessages,
+                                    slowConsumerPolicy);
                     sws.closeHandler((unused) -> removeConnection(wsc));
                     sws.textMessageHandler(
                             msg -> {
@@ -220,23 +239,24 @@ public class MessagingServer extends AbstractVerticle
 
     @Override
     public void onNotification(Notification notification) {
-        getVertx()
-                .executeBlocking(
-                        promise -> {
-                            try {
-                                writeMessage(notification);
-                            } finally {
-                                promise.complete();
-                            }
-                        });
+        writeMessage(notification);
     }
 
+    /**
+     * Serialize the message once and queue it for every connected client. Clients write their
+     * queued messages from their own event loop context, so this does not block on slow clients.
+     */
     void writeMessage(Object message) {
-        String json = gson.toJson(message);
-        logger.info("Outgoing WS message: {}", json);
-        synchronized (connections) {
-            connections.forEach(c -> c.writeMessage(json));
+        if (connections.isEmpty()) {
+            return;
         }
+        String json = gson.toJson(message);
+        logger.trace("Outgoing WS message: {}", json);
+        String category =
+                message instanceof Notification ? ((Notification<?>) message).getCategory() : null;
+        WsClient.OutgoingMessage outgoing =
+                new WsClient.OutgoingMessage(category, json, clock.getMonotonicTime());
+        connections.forEach(c -> c.writeMessage(outgoing));
     }
 
     @Override
@@ -247,42 +267,35 @@ public class MessagingServer extends AbstractVerticle
     @Override
     public void close() {
         this.vertx.cancelTimer(prunerTaskId);
-        synchronized (connections) {
-            connections.forEach(this::removeConnection);
-            connections.clear();
-        }
+        FlightRecorder.removePeriodicEvent(statisticsHook);
+        connections.forEach(this::removeConnection);
+        connections.clear();
     }
 
     private void addConnection(WsClient wsc) {
-        synchronized (connections) {
-            connections.add(wsc);
-        }
+        connections.add(wsc);
     }
 
     private void removeConnection(WsClient wsc) {
-        synchronized (connections) {
-            if (connections.remove(wsc)) {
-                wsc.close();
-                logger.info("Disconnected remote client {}", wsc.getRemoteAddress());
-                sendClientActivityNotification(wsc.getRemoteAddress().toString(), "disconnected");
-            }
-            Long ping = pingTasks.remove(wsc);
-            if (ping != null) {
-                vertx.cancelTimer(ping);
-            }
+        if (connections.remove(wsc)) {
+            wsc.close();
+            logger.info("Disconnected remote client {}", wsc.getRemoteAddress());
+            sendClientActivityNotification(wsc.getRemoteAddress().toString(), "disconnected");
+        }
+        Long ping = pingTasks.remove(wsc);
+        if (ping != null) {
+            vertx.cancelTimer(ping);
         }
     }
 
     private void pruneConnections() {
         try {
             long now = clock.getMonotonicTime();
-            synchronized (connections) {
-                for (WsClient wsc : connections) {
-                    long expiry = wsc.getConnectionTime() + TimeUnit.SECONDS.toNanos(10);
-                    boolean isOld = now > expiry;
-                    if (isOld && !wsc.isAccepted()) {
-                        removeConnection(wsc);
-                    }
+            for (WsClient wsc : connections) {
+                long expiry = wsc.getConnectionTime() + TimeUnit.SECONDS.toNanos(10);
+                boolean isOld = now > expiry;
+                if (isOld && !wsc.isAccepted()) {
+                    removeConnection(wsc);
                 }
             }
         } catch (Exception e) {
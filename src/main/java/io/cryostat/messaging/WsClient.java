@@ -37,29 +37,71 @@
  */
 package io.cryostat.messaging;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.sys.Clock;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.vertx.core.Context;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 import io.vertx.core.net.SocketAddress;
 import jdk.jfr.Category;
 import jdk.jfr.Event;
 import jdk.jfr.Label;
 import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
 
 class WsClient implements AutoCloseable {
 
+    // 1008: WebSocket "Policy Violation" close reason
+    static final short SLOW_CONSUMER_CLOSE_CODE = 1008;
+
     private final ServerWebSocket sws;
+    private final Context context;
+    private final Clock clock;
     private final long connectionTime;
     private volatile boolean isAccepted;
     private final Logger logger;
 
-    WsClient(Logger logger, ServerWebSocket sws, Clock clock) {
+    private final int maxQueuedMessages;
+    private final SlowConsumerPolicy policy;
+    // guarded by this
+    private final Deque<OutgoingMessage> queue;
+    // guarded by this
+    private boolean flushScheduled;
+    // guarded by this
+    private boolean lagging;
+    private volatile boolean overflowed;
+
+    private final AtomicLong sentMessages;
+    private final AtomicLong droppedMessages;
+    private volatile long maxLag;
+
+    WsClient(
+            Logger logger,
+            ServerWebSocket sws,
+            Context context,
+            Clock clock,
+            int maxQueuedMessages,
+            SlowConsumerPolicy policy) {
         this.logger = logger;
         this.sws = sws;
+        this.context = context;
+        this.clock = clock;
         this.connectionTime = clock.getMonotonicTime();
+        this.maxQueuedMessages = maxQueuedMessages;
+        this.policy = policy;
+        this.queue = new ArrayDeque<>();
+        this.sentMessages = new AtomicLong();
+        this.droppedMessages = new AtomicLong();
     }
 
     void setAccepted() {
@@ -74,29 +116,167 @@ class WsClient implements AutoCloseable {
         return connectionTime;
     }
 
-    void writeMessage(String message) {
-        if (isAccepted() && !this.sws.isClosed()) {
-            WsMessageEmitted evt =
-                    new WsMessageEmitted(
-                            sws.remoteAddress().host(),
-                            sws.remoteAddress().port(),
-                            sws.uri(),
-                            message.length());
-            evt.begin();
-
-            try {
-                this.sws.writeTextMessage(message);
+    /**
+     * Queue a message for this client. The message is written from the client's own event loop
+     * context as soon as the socket can accept it, so this never blocks the caller. If the client
+     * already has the maximum number of messages queued then the {@link SlowConsumerPolicy} decides
+     * which message is discarded, or whether the client is disconnected instead.
+     */
+    void writeMessage(OutgoingMessage message) {
+        if (!isAccepted() || overflowed || this.sws.isClosed()) {
+            return;
+        }
+        boolean schedule = false;
+        boolean startedLagging = false;
+        synchronized (this) {
+            if (queue.size() >= maxQueuedMessages) {
+                startedLagging = !lagging;
+                lagging = true;
+                if (policy == SlowConsumerPolicy.DISCONNECT) {
+                    overflowed = true;
+                    droppedMessages.addAndGet(queue.size() + 1);
+                    queue.clear();
+                } else {
+                    if (policy != SlowConsumerPolicy.COALESCE || !removeSuperseded(message)) {
+                        queue.pollFirst();
+                    }
+                    droppedMessages.incrementAndGet();
+                }
+            }
+            if (!overflowed) {
+                queue.addLast(message);
+                schedule = !flushScheduled;
+                flushScheduled = true;
+            }
+        }
+        if (startedLagging) {
+            logger.warn(
+                    "Remote client {} is not keeping up with notifications, applying {} policy",
+                    getRemoteAddress(),
+                    policy);
+        }
+        if (overflowed) {
+            context.runOnContext(
+                    v -> {
+                        if (!sws.isClosed()) {
+                            sws.close(SLOW_CONSUMER_CLOSE_CODE, "Notification queue overflow");
+                        }
+                    });
+        } else if (schedule) {
+            context.runOnContext(v -> flush());
+        }
+    }
 
-            } catch (Exception e) {
-                logger.warn(e);
-                evt.setExceptionThrown(true);
+    // guarded by this. Only a queued message carrying exactly the same notification is superseded
+    // by the new one: two distinct notifications of the same category, ie. two different
+    // recordings being created, each carry information the client cannot recover from the other.
+    private boolean removeSuperseded(OutgoingMessage message) {
+        if (message.getCategory() == null) {
+            return false;
+        }
+        Iterator<OutgoingMessage> it = queue.iterator();
+        while (it.hasNext()) {
+            OutgoingMessage queued = it.next();
+            if (Objects.equals(message.getCategory(), queued.getCategory())
+                    && Objects.equals(message.getPayload(), queued.getPayload())) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
 
-            } finally {
-                evt.end();
-                if (evt.shouldCommit()) {
-                    evt.commit();
+    private void flush() {
+        while (!sws.isClosed() && !sws.writeQueueFull()) {
+            OutgoingMessage next;
+            synchronized (this) {
+                next = queue.pollFirst();
+                if (next == null) {
+                    flushScheduled = false;
+                    lagging = false;
+                    return;
                 }
             }
+            write(next);
+        }
+        if (sws.isClosed()) {
+            synchronized (this) {
+                queue.clear();
+                flushScheduled = false;
+            }
+        } else {
+            sws.drainHandler(v -> flush());
+        }
+    }
+
+    private void write(OutgoingMessage message) {
+        long lag = clock.getMonotonicTime() - message.getTimestamp();
+        if (lag > maxLag) {
+            maxLag = lag;
+        }
+        WsMessageEmitted evt =
+                new WsMessageEmitted(
+                        sws.remoteAddress().host(),
+                        sws.remoteAddress().port(),
+                        sws.uri(),
+                        message.getPayload().length(),
+                        lag);
+        evt.begin();
+
+        try {
+            this.sws.writeFrame(WebSocketFrame.textFrame(message.getPayload(), true));
+            sentMessages.incrementAndGet();
+
+        } catch (Exception e) {
+            logger.warn(e);
+            evt.setExceptionThrown(true);
+
+        } finally {
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.commit();
+            }
+        }
+    }
+
+    synchronized int getQueuedMessages() {
+        return queue.size();
+    }
+
+    long getSentMessages() {
+        return sentMessages.get();
+    }
+
+    long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    /**
+     * @return how long the oldest message still queued for this client has been waiting, in
+     *     nanoseconds, or 0 if no messages are queued.
+     */
+    long getLag() {
+        OutgoingMessage oldest;
+        synchronized (this) {
+            oldest = queue.peekFirst();
+        }
+        if (oldest == null) {
+            return 0;
+        }
+        return Math.max(0, clock.getMonotonicTime() - oldest.getTimestamp());
+    }
+
+    long getMaxLag() {
+        return maxLag;
+    }
+
+    void emitStatistics() {
+        if (!isAccepted()) {
+            return;
+        }
+        WsClientStatistics evt = new WsClientStatistics(this);
+        if (evt.shouldCommit()) {
+            evt.commit();
         }
     }
 
@@ -110,12 +290,43 @@ class WsClient implements AutoCloseable {
 
     @Override
     public void close() {
+        synchronized (this) {
+            queue.clear();
+        }
         if (!sws.isClosed()) {
             sws.textMessageHandler(null);
             sws.close();
         }
     }
 
+    /**
+     * A message serialized once for all clients. It is immutable, so the same instance is handed to
+     * every client's queue.
+     */
+    static class OutgoingMessage {
+        private final String category;
+        private final String payload;
+        private final long timestamp;
+
+        OutgoingMessage(String category, String payload, long timestamp) {
+            this.category = category;
+            this.payload = payload;
+            this.timestamp = timestamp;
+        }
+
+        String getCategory() {
+            return category;
+        }
+
+        String getPayload() {
+            return payload;
+        }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+    }
+
     @Name("io.cryostat.messaging.WsClient.WsMessageEmitted")
     @Label("WebSocket Message Emitted")
     @Category("Cryostat")
@@ -129,11 +340,15 @@ class WsClient implements AutoCloseable {
         int msgLen;
         boolean exceptionThrown;
 
-        public WsMessageEmitted(String host, int port, String path, int msgLen) {
+        @Timespan(Timespan.NANOSECONDS)
+        long queueLatency;
+
+        public WsMessageEmitted(String host, int port, String path, int msgLen, long queueLatency) {
             this.host = host;
             this.port = port;
             this.path = path;
             this.msgLen = msgLen;
+            this.queueLatency = queueLatency;
             this.exceptionThrown = false;
         }
 
@@ -141,4 +356,35 @@ class WsClient implements AutoCloseable {
             this.exceptionThrown = exceptionThrown;
         }
     }
+
+    @Name("io.cryostat.messaging.WsClient.WsClientStatistics")
+    @Label("WebSocket Client Statistics")
+    @Category("Cryostat")
+    @Period("10 s")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "Event fields are recorded with JFR instead of accessed directly")
+    public static class WsClientStatistics extends Event {
+        String host;
+        int port;
+        int queuedMessages;
+        long sentMessages;
+        long droppedMessages;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long lag;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long maxLag;
+
+        WsClientStatistics(WsClient client) {
+            this.host = client.getRemoteAddress().host();
+            this.port = client.getRemoteAddress().port();
+            this.queuedMessages = client.getQueuedMessages();
+            this.sentMessages = client.getSentMessages();
+            this.droppedMessages = client.getDroppedMessages();
+            this.lag = client.getLag();
+            this.maxLag = client.getMaxLag();
+        }
+    }
 }
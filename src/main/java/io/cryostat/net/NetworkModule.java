@@ -111,6 +111,21 @@ public abstract class NetworkModule {
                 Math.max(1, Integer.parseInt(env.getEnv(Variables.TARGET_CACHE_TTL, "10"))));
     }
 
+    @Provides
+    @Named(Variables.TARGET_MAX_CONNECTIONS_PER_TARGET)
+    static int provideMaxConnectionsPerTarget(Environment env) {
+        return Math.max(
+                1, Integer.parseInt(env.getEnv(Variables.TARGET_MAX_CONNECTIONS_PER_TARGET, "1")));
+    }
+
+    @Provides
+    @Named(Variables.TARGET_CACHE_IDLE_TIMEOUT)
+    static Duration provideTargetIdleTimeout(Environment env) {
+        return Duration.ofSeconds(
+                Math.max(
+                        0, Integer.parseInt(env.getEnv(Variables.TARGET_CACHE_IDLE_TIMEOUT, "0"))));
+    }
+
     @Provides
     @Singleton
     static TargetConnectionManager provideTargetConnectionManager(
@@ -118,6 +133,8 @@ public abstract class NetworkModule {
             DiscoveryStorage storage,
             @Named(Variables.TARGET_CACHE_TTL) Duration maxTargetTtl,
             @Named(Variables.TARGET_MAX_CONCURRENT_CONNECTIONS) int maxTargetConnections,
+            @Named(Variables.TARGET_MAX_CONNECTIONS_PER_TARGET) int maxConnectionsPerTarget,
+            @Named(Variables.TARGET_CACHE_IDLE_TIMEOUT) Duration idleTimeout,
             Logger logger) {
         return new TargetConnectionManager(
                 connectionToolkit,
@@ -126,6 +143,8 @@ public abstract class NetworkModule {
                 Scheduler.systemScheduler(),
                 maxTargetTtl,
                 maxTargetConnections,
+                maxConnectionsPerTarget,
+                idleTimeout,
                 logger);
     }
 
@@ -40,6 +40,7 @@ package io.cryostat.net;
 import java.net.MalformedURLException;
 import java.time.Duration;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -48,6 +49,10 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -63,14 +68,20 @@ import io.cryostat.platform.PlatformClient;
 import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
 import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.Scheduler;
 import dagger.Lazy;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import jdk.jfr.Category;
 import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
 import jdk.jfr.Label;
 import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 public class TargetConnectionManager {
 
@@ -81,9 +92,10 @@ public class TargetConnectionManager {
     private final Executor executor;
     private final Logger logger;
 
-    private final AsyncLoadingCache<ConnectionDescriptor, JFRConnection> connections;
-    private final Map<String, Object> targetLocks;
+    private final AsyncLoadingCache<PoolKey, JFRConnection> connections;
+    private final Map<String, TargetPool> targetPools;
     private final Optional<Semaphore> semaphore;
+    private final int maxConnectionsPerTarget;
 
     TargetConnectionManager(
             Lazy<JFRConnectionToolkit> jfrConnectionToolkit,
@@ -92,78 +104,163 @@ public class TargetConnectionManager {
             Scheduler scheduler,
             Duration ttl,
             int maxTargetConnections,
+            int maxConnectionsPerTarget,
+            Duration idleTimeout,
             Logger logger) {
         this.jfrConnectionToolkit = jfrConnectionToolkit;
         this.executor = executor;
         this.logger = logger;
 
-        this.targetLocks = new ConcurrentHashMap<>();
+        this.targetPools = new ConcurrentHashMap<>();
         if (maxTargetConnections > 0) {
             this.semaphore = Optional.of(new Semaphore(maxTargetConnections, true));
         } else {
             this.semaphore = Optional.empty();
         }
+        if (maxConnectionsPerTarget < 1) {
+            throw new IllegalArgumentException(
+                    "Connections per target must be a positive integer, was "
+                            + maxConnectionsPerTarget);
+        }
+        this.maxConnectionsPerTarget = maxConnectionsPerTarget;
 
-        Caffeine<ConnectionDescriptor, JFRConnection> cacheBuilder =
-                Caffeine.newBuilder()
-                        .executor(executor)
-                        .scheduler(scheduler)
-                        .removalListener(this::closeConnection);
         if (ttl.isZero() || ttl.isNegative()) {
             throw new IllegalArgumentException(
                     "TTL must be a positive integer in seconds, was " + ttl.toSeconds());
-        } else {
-            cacheBuilder = cacheBuilder.expireAfterAccess(ttl);
         }
-        this.connections = cacheBuilder.buildAsync(new ConnectionLoader());
+        // the first connection in each pool lives for the TTL since last access, as before. Any
+        // additional pooled connections are only opened under concurrent load, so they are closed
+        // again as soon as they have been idle for the (possibly shorter) idle timeout
+        long primaryTimeout = ttl.toNanos();
+        long secondaryTimeout =
+                (idleTimeout.isZero() || idleTimeout.isNegative())
+                        ? primaryTimeout
+                        : Math.min(primaryTimeout, idleTimeout.toNanos());
+        this.connections =
+                Caffeine.newBuilder()
+                        .executor(executor)
+                        .scheduler(scheduler)
+                        .expireAfter(new IdleExpiry(primaryTimeout, secondaryTimeout))
+                        .removalListener(this::closeConnection)
+                        .buildAsync(new ConnectionLoader());
 
         // force removal of connections from cache when we're notified about targets being lost.
         // This should already be taken care of by the connection close listener, but this provides
         // some additional insurance in case a target disappears and the underlying JMX network
-        // connection doesn't immediately report itself as closed
+        // connection doesn't immediately report itself as closed. The target's pool is retired
+        // once its last connection has closed and its last task has finished
         platform.addTargetDiscoveryListener(
                 tde -> {
                     if (EventKind.LOST.equals(tde.getEventKind())) {
-                        for (ConnectionDescriptor cd : connections.asMap().keySet()) {
-                            if (Objects.equals(
-                                    cd.getTargetId(),
-                                    tde.getServiceRef().getServiceUri().toString())) {
-                                connections.synchronous().invalidate(cd);
+                        String targetId = tde.getServiceRef().getServiceUri().toString();
+                        for (PoolKey key : connections.asMap().keySet()) {
+                            if (Objects.equals(key.descriptor.getTargetId(), targetId)) {
+                                connections.synchronous().invalidate(key);
                             }
                         }
                     }
                 });
+
+        FlightRecorder.addPeriodicEvent(
+                ConnectionPoolStatistics.class,
+                () -> targetPools.forEach((targetId, pool) -> pool.emitStatistics(targetId)));
     }
 
+    /**
+     * Execute a task against the target's connection on the configured executor. Tasks submitted
+     * this way do not take the target's task lock while they run, since asynchronous tasks commonly
+     * block on further work against the same target which may be dispatched to other threads.
+     */
     public <T> CompletableFuture<T> executeConnectedTaskAsync(
             ConnectionDescriptor connectionDescriptor, ConnectedTask<T> task) {
-        synchronized (
-                targetLocks.computeIfAbsent(
-                        connectionDescriptor.getTargetId(), k -> new Object())) {
-            return connections
-                    .get(connectionDescriptor)
-                    .thenApplyAsync(
-                            conn -> {
-                                try {
-                                    return task.execute(conn);
-                                } catch (Exception e) {
-                                    logger.error(e);
-                                    throw new CompletionException(e);
-                                }
-                            },
-                            executor);
-        }
+        TargetPool pool;
+        int slot;
+        do {
+            // retry against the target's current pool if this one was retired since lookup
+            pool = getPool(connectionDescriptor);
+            slot =
+                    pool.acquireSlot(
+                            connectionDescriptor, isOpen(pool, connectionDescriptor), false);
+        } while (slot < 0);
+        PoolKey key = new PoolKey(pool, connectionDescriptor, slot);
+        CompletableFuture<T> future =
+                connections
+                        .get(key)
+                        .thenApplyAsync(
+                                conn -> {
+                                    try {
+                                        return task.execute(conn);
+                                    } catch (Exception e) {
+                                        logger.error(e);
+                                        throw new CompletionException(e);
+                                    }
+                                },
+                                executor);
+        return future.whenComplete(
+                (t, ex) -> {
+                    key.pool.releaseSlot(connectionDescriptor, key.slot, false);
+                    retireIfIdle(key.pool, connectionDescriptor.getTargetId());
+                });
     }
 
+    /**
+     * Execute a task against the target's connection on the calling thread. Tasks created with
+     * {@link #readOnly(ConnectedTask)} share the target's lock and may run concurrently with one
+     * another, while all other tasks are treated as mutating and run exclusively. Nested tasks on
+     * the same thread are reentrant and reuse the same connection, however a mutating task may not
+     * be nested within a read-only task.
+     */
     public <T> T executeConnectedTask(
             ConnectionDescriptor connectionDescriptor, ConnectedTask<T> task) throws Exception {
-        synchronized (
-                targetLocks.computeIfAbsent(
-                        connectionDescriptor.getTargetId(), k -> new Object())) {
-            return task.execute(connections.get(connectionDescriptor).get());
+        String targetId = connectionDescriptor.getTargetId();
+        boolean readOnly = task instanceof ReadOnlyTask;
+        TargetPool pool = getPool(connectionDescriptor);
+        Lock lock = pool.lockFor(readOnly);
+
+        ConnectedTaskExecuted evt =
+                new ConnectedTaskExecuted(targetId, readOnly, pool.getQueueLength());
+        evt.begin();
+        long waitStart = System.nanoTime();
+        lock.lock();
+        int slot = pool.acquireSlot(connectionDescriptor, isOpen(pool, connectionDescriptor), true);
+        while (slot < 0) {
+            // the pool was retired before we took its lock, so retry against the target's current
+            // pool
+            lock.unlock();
+            pool = getPool(connectionDescriptor);
+            lock = pool.lockFor(readOnly);
+            lock.lock();
+            slot = pool.acquireSlot(connectionDescriptor, isOpen(pool, connectionDescriptor), true);
+        }
+        long holdStart = System.nanoTime();
+        try {
+            evt.setLockWaitTime(holdStart - waitStart);
+            return task.execute(
+                    connections.get(new PoolKey(pool, connectionDescriptor, slot)).get());
+        } catch (Exception e) {
+            evt.setExceptionThrown(true);
+            throw e;
+        } finally {
+            pool.releaseSlot(connectionDescriptor, slot, true);
+            lock.unlock();
+            retireIfIdle(pool, targetId);
+            evt.setLockHoldTime(System.nanoTime() - holdStart);
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.commit();
+            }
         }
     }
 
+    /**
+     * Mark a task as only reading state from the target, ie. not starting, stopping, or otherwise
+     * modifying recordings or target configuration. Read-only tasks against the same target may be
+     * executed concurrently by {@link #executeConnectedTask(ConnectionDescriptor, ConnectedTask)}.
+     */
+    public static <T> ConnectedTask<T> readOnly(ConnectedTask<T> task) {
+        return new ReadOnlyTask<>(task);
+    }
+
     /**
      * Mark a connection as still in use by the consumer. Connections expire from cache and are
      * automatically closed after {@link NetworkModule.TARGET_CACHE_TTL}. For long-running
@@ -178,12 +275,43 @@ public class TargetConnectionManager {
      *     removed from cache, true if it is still active and was refreshed
      */
     public boolean markConnectionInUse(ConnectionDescriptor connectionDescriptor) {
-        return connections.getIfPresent(connectionDescriptor) != null;
+        TargetPool pool = targetPools.get(connectionDescriptor.getTargetId());
+        if (pool == null) {
+            return false;
+        }
+        boolean present = false;
+        for (int slot = 0; slot < maxConnectionsPerTarget; slot++) {
+            present |=
+                    connections.getIfPresent(new PoolKey(pool, connectionDescriptor, slot)) != null;
+        }
+        return present;
+    }
+
+    /**
+     * @return a snapshot of the connection pool statistics for the specified target, or empty if
+     *     the target has no connection pool. A pool is retired, and its statistics discarded, once
+     *     its last connection has closed and no tasks are using it
+     */
+    public Optional<PoolStatistics> getPoolStatistics(String targetId) {
+        return Optional.ofNullable(targetPools.get(targetId)).map(TargetPool::getStatistics);
     }
 
-    private void closeConnection(
-            ConnectionDescriptor descriptor, JFRConnection connection, RemovalCause cause) {
-        if (descriptor == null) {
+    private TargetPool getPool(ConnectionDescriptor connectionDescriptor) {
+        return targetPools.computeIfAbsent(
+                connectionDescriptor.getTargetId(), k -> new TargetPool(maxConnectionsPerTarget));
+    }
+
+    private IntPredicate isOpen(TargetPool pool, ConnectionDescriptor connectionDescriptor) {
+        return slot ->
+                connections.asMap().containsKey(new PoolKey(pool, connectionDescriptor, slot));
+    }
+
+    private void retireIfIdle(TargetPool pool, String targetId) {
+        targetPools.computeIfPresent(targetId, (k, v) -> v == pool && v.retireIfIdle() ? null : v);
+    }
+
+    private void closeConnection(PoolKey key, JFRConnection connection, RemovalCause cause) {
+        if (key == null) {
             logger.error("Connection eviction triggered with null descriptor");
             return;
         }
@@ -191,14 +319,18 @@ public class TargetConnectionManager {
             logger.error("Connection eviction triggered with null connection");
             return;
         }
+        ConnectionDescriptor descriptor = key.descriptor;
         try {
             JMXConnectionClosed evt =
                     new JMXConnectionClosed(descriptor.getTargetId(), cause.name());
-            logger.info("Removing cached connection for {}: {}", descriptor.getTargetId(), cause);
+            logger.info(
+                    "Removing cached connection #{} for {}: {}",
+                    key.slot,
+                    descriptor.getTargetId(),
+                    cause);
             evt.begin();
             try {
                 connection.close();
-                targetLocks.remove(descriptor.getTargetId());
             } catch (RuntimeException e) {
                 evt.setExceptionThrown(true);
                 throw e;
@@ -211,32 +343,34 @@ public class TargetConnectionManager {
         } catch (Exception e) {
             logger.error(e);
         } finally {
+            // release the permit on the pool that opened this connection, which may no longer be
+            // the target's current pool
+            key.pool.connectionClosed();
             if (semaphore.isPresent()) {
                 semaphore.get().release();
                 logger.trace("Semaphore released! Permits: {}", semaphore.get().availablePermits());
             }
+            retireIfIdle(key.pool, descriptor.getTargetId());
         }
     }
 
-    private JFRConnection connect(ConnectionDescriptor connectionDescriptor) throws Exception {
+    private JFRConnection connect(PoolKey key) throws Exception {
         try {
-            return attemptConnectAsJMXServiceURL(connectionDescriptor);
+            return attemptConnectAsJMXServiceURL(key);
         } catch (MalformedURLException mue) {
-            return attemptConnectAsHostPortPair(connectionDescriptor);
+            return attemptConnectAsHostPortPair(key);
         }
     }
 
-    private JFRConnection attemptConnectAsJMXServiceURL(ConnectionDescriptor connectionDescriptor)
-            throws Exception {
+    private JFRConnection attemptConnectAsJMXServiceURL(PoolKey key) throws Exception {
         return connect(
-                connectionDescriptor,
-                new JMXServiceURL(connectionDescriptor.getTargetId()),
-                connectionDescriptor.getCredentials());
+                key,
+                new JMXServiceURL(key.descriptor.getTargetId()),
+                key.descriptor.getCredentials());
     }
 
-    private JFRConnection attemptConnectAsHostPortPair(ConnectionDescriptor connectionDescriptor)
-            throws Exception {
-        String s = connectionDescriptor.getTargetId();
+    private JFRConnection attemptConnectAsHostPortPair(PoolKey key) throws Exception {
+        String s = key.descriptor.getTargetId();
         Matcher m = HOST_PORT_PAIR_PATTERN.matcher(s);
         if (!m.find()) {
             throw new MalformedURLException(s);
@@ -247,35 +381,42 @@ public class TargetConnectionManager {
             port = "9091";
         }
         return connect(
-                connectionDescriptor,
+                key,
                 jfrConnectionToolkit.get().createServiceURL(host, Integer.parseInt(port)),
-                connectionDescriptor.getCredentials());
+                key.descriptor.getCredentials());
     }
 
     private JFRConnection connect(
-            ConnectionDescriptor cacheKey, JMXServiceURL url, Optional<Credentials> credentials)
+            PoolKey cacheKey, JMXServiceURL url, Optional<Credentials> credentials)
             throws Exception {
         JMXConnectionOpened evt = new JMXConnectionOpened(url.toString());
-        logger.info("Creating connection for {}", url);
+        logger.info("Creating connection #{} for {}", cacheKey.slot, url);
+        TargetPool pool = cacheKey.pool;
         evt.begin();
+        boolean targetPermitAcquired = false;
         try {
-            if (semaphore.isPresent()) {
-                semaphore.get().acquire();
-            }
-            return jfrConnectionToolkit
-                    .get()
-                    .connect(
-                            url,
-                            credentials.orElse(null),
-                            Collections.singletonList(
-                                    () -> {
-                                        logger.info("Connection for {} closed", url);
-                                        this.connections.synchronous().invalidate(cacheKey);
-                                    }));
+            pool.acquireConnectionPermit(semaphore);
+            targetPermitAcquired = true;
+            JFRConnection connection =
+                    jfrConnectionToolkit
+                            .get()
+                            .connect(
+                                    url,
+                                    credentials.orElse(null),
+                                    Collections.singletonList(
+                                            () -> {
+                                                logger.info("Connection for {} closed", url);
+                                                this.connections.synchronous().invalidate(cacheKey);
+                                            }));
+            pool.connectionCreated();
+            return connection;
         } catch (Exception e) {
             evt.setExceptionThrown(true);
-            if (semaphore.isPresent()) {
-                semaphore.get().release();
+            if (targetPermitAcquired) {
+                pool.releaseConnectionPermit();
+                if (semaphore.isPresent()) {
+                    semaphore.get().release();
+                }
             }
             throw e;
         } finally {
@@ -286,12 +427,11 @@ public class TargetConnectionManager {
         }
     }
 
-    private class ConnectionLoader
-            implements AsyncCacheLoader<ConnectionDescriptor, JFRConnection> {
+    private class ConnectionLoader implements AsyncCacheLoader<PoolKey, JFRConnection> {
 
         @Override
-        public CompletableFuture<JFRConnection> asyncLoad(
-                ConnectionDescriptor key, Executor executor) throws Exception {
+        public CompletableFuture<JFRConnection> asyncLoad(PoolKey key, Executor executor)
+                throws Exception {
             return CompletableFuture.supplyAsync(
                     () -> {
                         try {
@@ -305,7 +445,7 @@ public class TargetConnectionManager {
 
         @Override
         public CompletableFuture<JFRConnection> asyncReload(
-                ConnectionDescriptor key, JFRConnection prev, Executor executor) throws Exception {
+                PoolKey key, JFRConnection prev, Executor executor) throws Exception {
             // if we're refreshed and already have an existing, open connection, just reuse it.
             if (prev.isConnected()) {
                 return CompletableFuture.completedFuture(prev);
@@ -314,10 +454,339 @@ public class TargetConnectionManager {
         }
     }
 
+    private static class IdleExpiry implements Expiry<PoolKey, JFRConnection> {
+        private final long primaryTimeout;
+        private final long secondaryTimeout;
+
+        IdleExpiry(long primaryTimeout, long secondaryTimeout) {
+            this.primaryTimeout = primaryTimeout;
+            this.secondaryTimeout = secondaryTimeout;
+        }
+
+        private long timeout(PoolKey key) {
+            return key.slot == 0 ? primaryTimeout : secondaryTimeout;
+        }
+
+        @Override
+        public long expireAfterCreate(PoolKey key, JFRConnection value, long currentTime) {
+            return timeout(key);
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                PoolKey key, JFRConnection value, long currentTime, long currentDuration) {
+            return timeout(key);
+        }
+
+        @Override
+        public long expireAfterRead(
+                PoolKey key, JFRConnection value, long currentTime, long currentDuration) {
+            return timeout(key);
+        }
+    }
+
     public interface ConnectedTask<T> {
         T execute(JFRConnection connection) throws Exception;
     }
 
+    private static class ReadOnlyTask<T> implements ConnectedTask<T> {
+        private final ConnectedTask<T> delegate;
+
+        ReadOnlyTask(ConnectedTask<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public T execute(JFRConnection connection) throws Exception {
+            return delegate.execute(connection);
+        }
+    }
+
+    /**
+     * Identifies a pooled connection by the pool that opened it, as well as its target and slot, so
+     * that a connection outliving a retired pool is never shared with or accounted against the
+     * target's next pool.
+     */
+    static class PoolKey {
+        private final TargetPool pool;
+        private final ConnectionDescriptor descriptor;
+        private final int slot;
+
+        PoolKey(TargetPool pool, ConnectionDescriptor descriptor, int slot) {
+            this.pool = pool;
+            this.descriptor = descriptor;
+            this.slot = slot;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == null) {
+                return false;
+            }
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof PoolKey)) {
+                return false;
+            }
+            PoolKey key = (PoolKey) other;
+            return new EqualsBuilder()
+                    .append(pool, key.pool)
+                    .append(descriptor, key.descriptor)
+                    .append(slot, key.slot)
+                    .isEquals();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder().append(pool).append(descriptor).append(slot).hashCode();
+        }
+    }
+
+    /**
+     * Per-target scheduling state: the read/write task lock, the number of tasks currently leasing
+     * each pooled connection slot, the per-target connection permits, and pool statistics.
+     */
+    private static class TargetPool {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+        private final Semaphore permits;
+        private final int[] leases;
+        private final ThreadLocal<Map<ConnectionDescriptor, int[]>> heldSlots =
+                ThreadLocal.withInitial(HashMap::new);
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder waits = new LongAdder();
+        private final LongAdder creates = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        private final LongAdder waitTime = new LongAdder();
+        private boolean retired;
+
+        TargetPool(int maxConnections) {
+            this.permits = new Semaphore(maxConnections, true);
+            this.leases = new int[maxConnections];
+        }
+
+        Lock lockFor(boolean readOnly) {
+            if (readOnly) {
+                return lock.readLock();
+            }
+            if (lock.getReadHoldCount() > 0 && !lock.isWriteLockedByCurrentThread()) {
+                // ReentrantReadWriteLock does not support upgrading, so this would deadlock
+                throw new IllegalStateException(
+                        "Mutating task cannot be executed within a read-only task");
+            }
+            return lock.writeLock();
+        }
+
+        int getQueueLength() {
+            return lock.getQueueLength();
+        }
+
+        /**
+         * Select a connection slot for a task. Nested tasks on the same thread reuse the slot
+         * already held. Otherwise prefer an open connection with no other tasks, then opening a new
+         * pooled connection, and finally sharing the least loaded open connection.
+         *
+         * @return the selected slot, or -1 if this pool has been retired
+         */
+        synchronized int acquireSlot(
+                ConnectionDescriptor descriptor, IntPredicate isOpen, boolean reentrant) {
+            if (retired) {
+                return -1;
+            }
+            if (reentrant) {
+                int[] held = heldSlots.get().get(descriptor);
+                if (held != null) {
+                    held[1]++;
+                    leases[held[0]]++;
+                    return held[0];
+                }
+            }
+            int idle = -1;
+            int closed = -1;
+            int leastLoaded = -1;
+            for (int i = 0; i < leases.length; i++) {
+                // a slot with leases may still be loading its connection, which is shared
+                if (leases[i] == 0 && !isOpen.test(i)) {
+                    if (closed < 0) {
+                        closed = i;
+                    }
+                    continue;
+                }
+                if (leases[i] == 0 && idle < 0) {
+                    idle = i;
+                }
+                if (leastLoaded < 0 || leases[i] < leases[leastLoaded]) {
+                    leastLoaded = i;
+                }
+            }
+            int slot;
+            if (idle >= 0) {
+                slot = idle;
+            } else if (closed >= 0) {
+                slot = closed;
+            } else {
+                slot = leastLoaded;
+            }
+            if (slot != closed) {
+                hits.increment();
+            }
+            leases[slot]++;
+            if (reentrant) {
+                heldSlots.get().put(descriptor, new int[] {slot, 1});
+            }
+            return slot;
+        }
+
+        synchronized void releaseSlot(
+                ConnectionDescriptor descriptor, int slot, boolean reentrant) {
+            leases[slot]--;
+            if (reentrant) {
+                Map<ConnectionDescriptor, int[]> held = heldSlots.get();
+                int[] lease = held.get(descriptor);
+                if (lease != null && --lease[1] == 0) {
+                    held.remove(descriptor);
+                }
+            }
+        }
+
+        void acquireConnectionPermit(Optional<Semaphore> global) throws InterruptedException {
+            long start = System.nanoTime();
+            boolean waited = false;
+            if (!permits.tryAcquire()) {
+                waited = true;
+                permits.acquire();
+            }
+            if (global.isPresent() && !global.get().tryAcquire()) {
+                waited = true;
+                try {
+                    global.get().acquire();
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+            if (waited) {
+                waits.increment();
+                waitTime.add(System.nanoTime() - start);
+            }
+        }
+
+        void releaseConnectionPermit() {
+            permits.release();
+        }
+
+        void connectionCreated() {
+            creates.increment();
+        }
+
+        void connectionClosed() {
+            evictions.increment();
+            permits.release();
+        }
+
+        synchronized boolean isIdle() {
+            for (int l : leases) {
+                if (l > 0) {
+                    return false;
+                }
+            }
+            return permits.availablePermits() == leases.length
+                    && lock.getReadLockCount() == 0
+                    && !lock.isWriteLocked()
+                    && !lock.hasQueuedThreads();
+        }
+
+        /**
+         * Retire this pool if it has no open connections and no tasks. A retired pool hands out no
+         * further slots, so it may be removed from the target pools without losing any accounting.
+         */
+        synchronized boolean retireIfIdle() {
+            if (!retired && isIdle()) {
+                retired = true;
+            }
+            return retired;
+        }
+
+        synchronized PoolStatistics getStatistics() {
+            int active = 0;
+            for (int l : leases) {
+                active += l;
+            }
+            return new PoolStatistics(
+                    leases.length - permits.availablePermits(),
+                    active,
+                    hits.sum(),
+                    waits.sum(),
+                    creates.sum(),
+                    evictions.sum(),
+                    Duration.ofNanos(waitTime.sum()));
+        }
+
+        void emitStatistics(String targetId) {
+            PoolStatistics stats = getStatistics();
+            ConnectionPoolStatistics evt = new ConnectionPoolStatistics(targetId, stats);
+            if (evt.shouldCommit()) {
+                evt.commit();
+            }
+        }
+    }
+
+    public static class PoolStatistics {
+        private final int openConnections;
+        private final int activeTasks;
+        private final long hits;
+        private final long waits;
+        private final long creates;
+        private final long evictions;
+        private final Duration waitTime;
+
+        PoolStatistics(
+                int openConnections,
+                int activeTasks,
+                long hits,
+                long waits,
+                long creates,
+                long evictions,
+                Duration waitTime) {
+            this.openConnections = openConnections;
+            this.activeTasks = activeTasks;
+            this.hits = hits;
+            this.waits = waits;
+            this.creates = creates;
+            this.evictions = evictions;
+            this.waitTime = waitTime;
+        }
+
+        public int getOpenConnections() {
+            return openConnections;
+        }
+
+        public int getActiveTasks() {
+            return activeTasks;
+        }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getWaits() {
+            return waits;
+        }
+
+        public long getCreates() {
+            return creates;
+        }
+
+        public long getEvictions() {
+            return evictions;
+        }
+
+        public Duration getWaitTime() {
+            return waitTime;
+        }
+    }
+
     @Name("io.cryostat.net.TargetConnectionManager.JMXConnectionOpened")
     @Label("JMX Connection Status")
     @Category("Cryostat")
@@ -359,4 +828,74 @@ public class TargetConnectionManager {
             this.exceptionThrown = exceptionThrown;
         }
     }
+
+    @Name("io.cryostat.net.TargetConnectionManager.ConnectedTaskExecuted")
+    @Label("Connected Task Execution")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class ConnectedTaskExecuted extends Event {
+        String serviceUri;
+        boolean readOnly;
+        int queueDepth;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long lockWaitTime;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long lockHoldTime;
+
+        boolean exceptionThrown;
+
+        ConnectedTaskExecuted(String serviceUri, boolean readOnly, int queueDepth) {
+            this.serviceUri = serviceUri;
+            this.readOnly = readOnly;
+            this.queueDepth = queueDepth;
+            this.exceptionThrown = false;
+        }
+
+        void setLockWaitTime(long lockWaitTime) {
+            this.lockWaitTime = lockWaitTime;
+        }
+
+        void setLockHoldTime(long lockHoldTime) {
+            this.lockHoldTime = lockHoldTime;
+        }
+
+        void setExceptionThrown(boolean exceptionThrown) {
+            this.exceptionThrown = exceptionThrown;
+        }
+    }
+
+    @Name("io.cryostat.net.TargetConnectionManager.ConnectionPoolStatistics")
+    @Label("JMX Connection Pool Statistics")
+    @Category("Cryostat")
+    @Period("10 s")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class ConnectionPoolStatistics extends Event {
+        String serviceUri;
+        int openConnections;
+        int activeTasks;
+        long hits;
+        long waits;
+        long creates;
+        long evictions;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long waitTime;
+
+        ConnectionPoolStatistics(String serviceUri, PoolStatistics stats) {
+            this.serviceUri = serviceUri;
+            this.openConnections = stats.getOpenConnections();
+            this.activeTasks = stats.getActiveTasks();
+            this.hits = stats.getHits();
+            this.waits = stats.getWaits();
+            this.creates = stats.getCreates();
+            this.evictions = stats.getEvictions();
+            this.waitTime = stats.getWaitTime().toNanos();
+        }
+    }
 }
@@ -51,11 +51,13 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.regex.Matcher;
@@ -80,7 +82,9 @@ import io.cryostat.util.resource.ClassPropertiesLoader;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.Scheduler;
 import dagger.Lazy;
@@ -101,6 +105,7 @@ import jdk.jfr.Label;
 import jdk.jfr.Name;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.http.client.utils.URIBuilder;
 
 public class OpenShiftAuthManager extends AbstractAuthManager {
@@ -114,6 +119,8 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
     private static final String CRYOSTAT_BASE_OAUTH_ROLE = "CRYOSTAT_BASE_OAUTH_ROLE";
     private static final String CRYOSTAT_CUSTOM_OAUTH_ROLE = "CRYOSTAT_CUSTOM_OAUTH_ROLE";
 
+    static final long MAX_CACHED_DECISIONS = 10_000;
+
     static final Pattern RESOURCE_PATTERN =
             Pattern.compile(
                     "^([\\w]+)([\\.\\w]+)?(?:/([\\w]+))?$",
@@ -127,6 +134,7 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
     private final Map<ResourceType, Set<GroupResource>> resourceMap;
 
     private final LoadingCache<String, OpenShiftClient> userClients;
+    private final AsyncCache<AccessDecisionKey, AccessDecision> decisions;
 
     OpenShiftAuthManager(
             Environment env,
@@ -136,6 +144,8 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
             ClassPropertiesLoader classPropertiesLoader,
             Executor cacheExecutor,
             Scheduler cacheScheduler,
+            Duration allowedDecisionTtl,
+            Duration deniedDecisionTtl,
             Logger logger) {
         super(logger);
         this.env = env;
@@ -152,6 +162,14 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
                         .removalListener((k, v, cause) -> v.close());
         this.userClients = cacheBuilder.build(clientProvider::apply);
 
+        this.decisions =
+                Caffeine.newBuilder()
+                        .executor(cacheExecutor)
+                        .scheduler(cacheScheduler)
+                        .maximumSize(MAX_CACHED_DECISIONS)
+                        .expireAfter(new DecisionExpiry(allowedDecisionTtl, deniedDecisionTtl))
+                        .buildAsync();
+
         this.resourceMap = processResourceMapping(classPropertiesLoader, logger);
     }
 
@@ -235,6 +253,10 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
             throws ExecutionException, InterruptedException, TokenNotFoundException {
 
         String token = getTokenFromHttpHeader(httpHeaderProvider.get());
+        if (token != null) {
+            invalidateDecisions(token);
+            userClients.invalidate(token);
+        }
         deleteToken(token);
 
         return Optional.of(this.computeLogoutRedirectEndpoint().get());
@@ -252,27 +274,48 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
         }
 
         OpenShiftClient client = userClients.get(token);
+        String tokenHash = DigestUtils.sha256Hex(token);
+        AuthRequest evt = new AuthRequest();
         try {
+            evt.begin();
             List<CompletableFuture<Void>> results =
                     resourceActions.stream()
                             .flatMap(
                                     resourceAction ->
-                                            validateAction(client, namespace.get(), resourceAction))
+                                            validateAction(
+                                                    client,
+                                                    tokenHash,
+                                                    namespace.get(),
+                                                    resourceAction,
+                                                    evt))
                             .collect(Collectors.toList());
 
             CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
                     .get(15, TimeUnit.SECONDS);
             // if we get here then all requests were successful and granted, otherwise an exception
             // was thrown on allOf().get() above
+            evt.setRequestSuccessful(true);
             return CompletableFuture.completedFuture(true);
         } catch (KubernetesClientException | ExecutionException e) {
             userClients.invalidate(token);
+            if (ExceptionUtils.getRootCause(e) instanceof PermissionDeniedException) {
+                // the review itself succeeded, so the denial remains cached
+                evt.setRequestSuccessful(true);
+            } else {
+                invalidateDecisions(token);
+            }
             logger.info(e);
             return CompletableFuture.failedFuture(e);
         } catch (Exception e) {
             userClients.invalidate(token);
+            invalidateDecisions(token);
             logger.error(e);
             return CompletableFuture.failedFuture(e);
+        } finally {
+            if (evt.shouldCommit()) {
+                evt.end();
+                evt.commit();
+            }
         }
     }
 
@@ -290,7 +333,11 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
     }
 
     private Stream<CompletableFuture<Void>> validateAction(
-            OpenShiftClient client, String namespace, ResourceAction resourceAction) {
+            OpenShiftClient client,
+            String tokenHash,
+            String namespace,
+            ResourceAction resourceAction,
+            AuthRequest evt) {
         Set<GroupResource> resources =
                 resourceMap.getOrDefault(resourceAction.getResource(), Set.of());
         if (resources.isEmpty()) {
@@ -299,56 +346,77 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
         String verb = map(resourceAction.getVerb());
         return resources.stream()
                 .map(
-                        resource ->
-                                new SelfSubjectAccessReviewBuilder()
-                                        .withNewSpec()
-                                        .withNewResourceAttributes()
-                                        .withNamespace(namespace)
-                                        .withGroup(resource.getGroup())
-                                        .withResource(resource.getResource())
-                                        .withSubresource(resource.getSubResource())
-                                        .withVerb(verb)
-                                        .endResourceAttributes()
-                                        .endSpec()
-                                        .build())
-                .map(
-                        accessReview -> {
-                            CompletableFuture<Void> result = new CompletableFuture<>();
-                            AuthRequest evt = new AuthRequest();
-                            try {
-                                evt.begin();
-                                SelfSubjectAccessReview accessReviewResult =
-                                        client.authorization()
-                                                .v1()
-                                                .selfSubjectAccessReview()
-                                                .create(accessReview);
-                                evt.setRequestSuccessful(true);
-                                if (accessReviewResult.getStatus().getAllowed()) {
-                                    result.complete(null);
-                                } else {
-                                    result.completeExceptionally(
-                                            new PermissionDeniedException(
-                                                    namespace,
-                                                    new GroupResource(
-                                                                    accessReview
-                                                                            .getSpec()
-                                                                            .getResourceAttributes())
-                                                            .toString(),
-                                                    verb,
-                                                    accessReviewResult.getStatus().getReason()));
-                                }
-                            } catch (Exception e) {
-                                result.completeExceptionally(e);
-                            } finally {
-                                if (evt.shouldCommit()) {
-                                    evt.end();
-                                    evt.commit();
-                                }
-                            }
-                            return result;
+                        resource -> {
+                            AccessDecisionKey key =
+                                    new AccessDecisionKey(tokenHash, namespace, resource, verb);
+                            CompletableFuture<AccessDecision> decision =
+                                    getDecision(client, key, evt);
+                            return decision.thenAccept(
+                                    d -> {
+                                        if (!d.allowed) {
+                                            throw new CompletionException(
+                                                    new PermissionDeniedException(
+                                                            namespace,
+                                                            resource.toString(),
+                                                            verb,
+                                                            d.reason));
+                                        }
+                                    });
                         });
     }
 
+    /**
+     * Look up a cached access decision, or perform a SelfSubjectAccessReview on the calling thread
+     * if there is none. Concurrent lookups of the same decision wait for the single review already
+     * in flight rather than performing their own.
+     */
+    private CompletableFuture<AccessDecision> getDecision(
+            OpenShiftClient client, AccessDecisionKey key, AuthRequest evt) {
+        AtomicBoolean miss = new AtomicBoolean();
+        CompletableFuture<AccessDecision> decision =
+                decisions.get(
+                        key,
+                        (k, executor) -> {
+                            miss.set(true);
+                            return new CompletableFuture<>();
+                        });
+        if (!miss.get()) {
+            evt.incrementCacheHits();
+            return decision;
+        }
+        evt.incrementCacheMisses();
+        SelfSubjectAccessReview accessReview =
+                new SelfSubjectAccessReviewBuilder()
+                        .withNewSpec()
+                        .withNewResourceAttributes()
+                        .withNamespace(key.namespace)
+                        .withGroup(key.resource.getGroup())
+                        .withResource(key.resource.getResource())
+                        .withSubresource(key.resource.getSubResource())
+                        .withVerb(key.verb)
+                        .endResourceAttributes()
+                        .endSpec()
+                        .build();
+        try {
+            SelfSubjectAccessReview accessReviewResult =
+                    client.authorization().v1().selfSubjectAccessReview().create(accessReview);
+            // failed reviews are removed from the cache automatically, so only these decisions
+            // are retained
+            decision.complete(
+                    new AccessDecision(
+                            accessReviewResult.getStatus().getAllowed(),
+                            accessReviewResult.getStatus().getReason()));
+        } catch (Exception e) {
+            decision.completeExceptionally(e);
+        }
+        return decision;
+    }
+
+    private void invalidateDecisions(String token) {
+        String tokenHash = DigestUtils.sha256Hex(token);
+        decisions.synchronous().asMap().keySet().removeIf(k -> k.tokenHash.equals(tokenHash));
+    }
+
     @Override
     public Future<Boolean> validateHttpHeader(
             Supplier<String> headerProvider, Set<ResourceAction> resourceActions) {
@@ -594,6 +662,8 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
     public static class AuthRequest extends Event {
 
         boolean requestSuccessful;
+        int cacheHits;
+        int cacheMisses;
 
         public AuthRequest() {
             this.requestSuccessful = false;
@@ -602,6 +672,97 @@ public class OpenShiftAuthManager extends AbstractAuthManager {
         public void setRequestSuccessful(boolean requestSuccessful) {
             this.requestSuccessful = requestSuccessful;
         }
+
+        public void incrementCacheHits() {
+            this.cacheHits++;
+        }
+
+        public void incrementCacheMisses() {
+            this.cacheMisses++;
+        }
+    }
+
+    // A cached SelfSubjectAccessReview result. The token is only identified by its hash.
+    private static class AccessDecisionKey {
+        private final String tokenHash;
+        private final String namespace;
+        private final GroupResource resource;
+        private final String verb;
+
+        AccessDecisionKey(String tokenHash, String namespace, GroupResource resource, String verb) {
+            this.tokenHash = tokenHash;
+            this.namespace = namespace;
+            this.resource = resource;
+            this.verb = verb;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tokenHash, namespace, resource, verb);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            AccessDecisionKey other = (AccessDecisionKey) obj;
+            return Objects.equals(tokenHash, other.tokenHash)
+                    && Objects.equals(namespace, other.namespace)
+                    && Objects.equals(resource, other.resource)
+                    && Objects.equals(verb, other.verb);
+        }
+    }
+
+    private static class AccessDecision {
+        private final boolean allowed;
+        private final String reason;
+
+        AccessDecision(Boolean allowed, String reason) {
+            this.allowed = Boolean.TRUE.equals(allowed);
+            this.reason = reason;
+        }
+    }
+
+    // Denials are cached for a shorter time so that newly granted permissions take effect sooner
+    private static class DecisionExpiry implements Expiry<AccessDecisionKey, AccessDecision> {
+        private final long allowedTtl;
+        private final long deniedTtl;
+
+        DecisionExpiry(Duration allowedTtl, Duration deniedTtl) {
+            this.allowedTtl = allowedTtl.toNanos();
+            this.deniedTtl = deniedTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(
+                AccessDecisionKey key, AccessDecision value, long currentTime) {
+            return value.allowed ? allowedTtl : deniedTtl;
+        }
+
+        @Override
+        public long expireAfterUpdate(
+                AccessDecisionKey key,
+                AccessDecision value,
+                long currentTime,
+                long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(
+                AccessDecisionKey key,
+                AccessDecision value,
+                long currentTime,
+                long currentDuration) {
+            return currentDuration;
+        }
     }
 
     // A pairing of a Kubernetes group name and resource name
@@ -39,12 +39,14 @@ package io.cryostat.net.openshift;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
@@ -123,6 +125,23 @@ public abstract class OpenShiftNetworkModule {
         return tokenedClient.apply(serviceAccountToken);
     }
 
+    @Provides
+    @Named(Variables.AUTH_DECISION_CACHE_TTL)
+    static Duration provideAuthDecisionCacheTtl(Environment env) {
+        return Duration.ofSeconds(
+                Math.max(0, Integer.parseInt(env.getEnv(Variables.AUTH_DECISION_CACHE_TTL, "30"))));
+    }
+
+    @Provides
+    @Named(Variables.AUTH_DECISION_CACHE_DENIED_TTL)
+    static Duration provideAuthDecisionCacheDeniedTtl(Environment env) {
+        return Duration.ofSeconds(
+                Math.max(
+                        0,
+                        Integer.parseInt(
+                                env.getEnv(Variables.AUTH_DECISION_CACHE_DENIED_TTL, "5"))));
+    }
+
     @Provides
     @Singleton
     static OpenShiftAuthManager provideOpenShiftAuthManager(
@@ -131,6 +150,8 @@ public abstract class OpenShiftNetworkModule {
             Lazy<OpenShiftClient> serviceAccountClient,
             @Named(TOKENED_CLIENT) Function<String, OpenShiftClient> clientProvider,
             ClassPropertiesLoader classPropertiesLoader,
+            @Named(Variables.AUTH_DECISION_CACHE_TTL) Duration allowedDecisionTtl,
+            @Named(Variables.AUTH_DECISION_CACHE_DENIED_TTL) Duration deniedDecisionTtl,
             Logger logger) {
         return new OpenShiftAuthManager(
                 env,
@@ -140,6 +161,8 @@ public abstract class OpenShiftNetworkModule {
                 classPropertiesLoader,
                 ForkJoinPool.commonPool(),
                 Scheduler.systemScheduler(),
+                allowedDecisionTtl,
+                deniedDecisionTtl,
                 logger);
     }
 
@@ -71,8 +71,8 @@ abstract class AbstractReportGeneratorService implements ReportGeneratorService
     }
 
     @Override
-    public final CompletableFuture<Path> exec(
-            RecordingDescriptor recordingDescriptor, String filter) throws Exception {
+    public CompletableFuture<Path> exec(RecordingDescriptor recordingDescriptor, String filter)
+            throws Exception {
         Path recording =
                 getRecordingFromLiveTarget(
                         recordingDescriptor.recordingName,
@@ -38,7 +38,9 @@
 package io.cryostat.net.reports;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -49,89 +51,180 @@ import java.util.concurrent.TimeUnit;
 import javax.inject.Named;
 import javax.inject.Provider;
 
+import org.openjdk.jmc.common.unit.UnitLookup;
 import org.openjdk.jmc.rjmx.services.jfr.IRecordingDescriptor;
+import org.openjdk.jmc.rjmx.services.jfr.IRecordingDescriptor.RecordingState;
 
 import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.Clock;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.jmc.serialization.HyperlinkedSerializableRecordingDescriptor;
 import io.cryostat.messaging.notifications.Notification;
 import io.cryostat.messaging.notifications.NotificationListener;
 import io.cryostat.net.ConnectionDescriptor;
 import io.cryostat.net.TargetConnectionManager;
+import io.cryostat.recordings.JvmIdHelper;
+import io.cryostat.recordings.RecordingNotFoundException;
 import io.cryostat.recordings.RecordingTargetHelper;
+import io.cryostat.util.events.Event;
+import io.cryostat.util.events.EventListener;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.github.benmanes.caffeine.cache.LoadingCache;
-import com.github.benmanes.caffeine.cache.Scheduler;
+import org.apache.commons.lang3.tuple.Triple;
 
-class ActiveRecordingReportCache implements NotificationListener<Map<String, Object>> {
+class ActiveRecordingReportCache
+        implements NotificationListener<Map<String, Object>>,
+                EventListener<JvmIdHelper.IdEvent, String> {
     protected final Provider<ReportGeneratorService> reportGeneratorServiceProvider;
     protected final FileSystem fs;
-    protected final LoadingCache<RecordingDescriptor, String> cache;
+    protected final ActiveReportStore store;
     protected final TargetConnectionManager targetConnectionManager;
+    protected final JvmIdHelper jvmIdHelper;
+    protected final ReportScheduler scheduler;
+    protected final Clock clock;
     protected final long generationTimeoutSeconds;
+    protected final long maxAgeMillis;
     protected final Logger logger;
+    // (targetId, recordingName, filter) -> store path resolved for the recording's current data
+    private final Cache<Triple<String, String, String>, Path> storePaths;
 
     ActiveRecordingReportCache(
             Provider<ReportGeneratorService> reportGeneratorServiceProvider,
             FileSystem fs,
+            ActiveReportStore store,
             TargetConnectionManager targetConnectionManager,
+            JvmIdHelper jvmIdHelper,
+            ReportScheduler scheduler,
+            Clock clock,
             @Named(ReportsModule.REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
+            @Named(ReportsModule.REPORT_CACHE_MAX_AGE_SECONDS) long maxAgeSeconds,
             Logger logger) {
         this.reportGeneratorServiceProvider = reportGeneratorServiceProvider;
         this.fs = fs;
+        this.store = store;
         this.targetConnectionManager = targetConnectionManager;
+        this.jvmIdHelper = jvmIdHelper;
+        this.scheduler = scheduler;
+        this.clock = clock;
         this.generationTimeoutSeconds = generationTimeoutSeconds;
+        this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxAgeSeconds);
         this.logger = logger;
-        this.cache =
+        this.storePaths =
                 Caffeine.newBuilder()
-                        .scheduler(Scheduler.systemScheduler())
-                        .expireAfterWrite(30, TimeUnit.MINUTES)
-                        .refreshAfterWrite(5, TimeUnit.MINUTES)
-                        .softValues()
-                        .build((k) -> getReport(k));
+                        .ticker(clock::getMonotonicTime)
+                        .expireAfterWrite(Duration.ofSeconds(maxAgeSeconds))
+                        .build();
+        // a lost target's recordings are gone along with it, whether or not they were stopped
+        jvmIdHelper.addListener(this);
     }
 
     Future<String> get(
             ConnectionDescriptor connectionDescriptor, String recordingName, String filter) {
-        CompletableFuture<String> f = new CompletableFuture<>();
+        return get(connectionDescriptor, recordingName, filter, ReportPriority.INTERACTIVE);
+    }
+
+    Future<String> get(
+            ConnectionDescriptor connectionDescriptor,
+            String recordingName,
+            String filter,
+            ReportPriority priority) {
         try {
-            if (filter.isBlank()) {
-                f.complete(cache.get(new RecordingDescriptor(connectionDescriptor, recordingName)));
-            } else {
-                f.complete(
-                        getReport(
-                                new RecordingDescriptor(connectionDescriptor, recordingName),
-                                filter));
+            RecordingDescriptor recordingDescriptor =
+                    new RecordingDescriptor(connectionDescriptor, recordingName);
+            // remember where the recording's current report is stored for up to the max age, so
+            // that repeated requests do not each look up the recording on the target
+            Triple<String, String, String> key =
+                    Triple.of(connectionDescriptor.getTargetId(), recordingName, filter);
+            Path storePath = storePaths.getIfPresent(key);
+            if (storePath == null) {
+                storePath = getStorePath(recordingDescriptor, filter);
+                storePaths.put(key, storePath);
             }
-
+            Path path = storePath;
+            Optional<String> cached = store.get(storePath);
+            if (cached.isPresent()) {
+                logger.trace("Active report cache hit for {}", recordingName);
+                return CompletableFuture.completedFuture(cached.get());
+            }
+            // the store path identifies the recording's current data as well as the filter, so
+            // it is also the key for sharing one generation between concurrent requests
+            return scheduler.submit(
+                    path.toString(),
+                    priority,
+                    () -> {
+                        String report = getReport(recordingDescriptor, filter);
+                        store.put(path, report);
+                        return report;
+                    });
         } catch (Exception e) {
-            f.completeExceptionally(e);
+            return CompletableFuture.failedFuture(e);
         }
-        return f;
     }
 
     boolean delete(ConnectionDescriptor connectionDescriptor, String recordingName) {
-        RecordingDescriptor key = new RecordingDescriptor(connectionDescriptor, recordingName);
-        boolean hasKey = cache.asMap().containsKey(key);
+        // the target may be identified differently than when the report was requested, so forget
+        // the store paths of every recording with this name
+        storePaths.asMap().keySet().removeIf(k -> Objects.equals(k.getMiddle(), recordingName));
+        boolean hasKey = false;
+        try {
+            hasKey = store.invalidate(jvmIdHelper.getJvmId(connectionDescriptor), recordingName);
+        } catch (Exception e) {
+            logger.warn(e);
+        }
         if (hasKey) {
             logger.trace("Invalidated active report cache for {}", recordingName);
-            cache.invalidate(key);
         } else {
             logger.trace("No cache entry for {} to invalidate", recordingName);
         }
         return hasKey;
     }
 
-    protected String getReport(RecordingDescriptor recordingDescriptor) throws Exception {
-        return getReport(recordingDescriptor, "");
+    /**
+     * Compute the store location for the given recording's current data. A stopped recording's data
+     * end time no longer changes, so its report is generated once. JMC does not guarantee how a
+     * running recording's data end time advances: it may stay fixed until the recording stops, or
+     * follow the current time. A running recording's report is therefore also versioned by the
+     * current max age window, so it is regenerated at least once per window. Resolved locations are
+     * remembered for the max age, so it is not regenerated more often than that either.
+     */
+    protected Path getStorePath(RecordingDescriptor recordingDescriptor, String filter)
+            throws Exception {
+        ConnectionDescriptor cd = recordingDescriptor.connectionDescriptor;
+        String recordingName = recordingDescriptor.recordingName;
+        IRecordingDescriptor descriptor =
+                targetConnectionManager
+                        .executeConnectedTask(
+                                cd,
+                                TargetConnectionManager.readOnly(
+                                        conn ->
+                                                conn.getService().getAvailableRecordings().stream()
+                                                        .filter(
+                                                                r ->
+                                                                        Objects.equals(
+                                                                                r.getName(),
+                                                                                recordingName))
+                                                        .findFirst()))
+                        .orElseThrow(
+                                () ->
+                                        new RecordingNotFoundException(
+                                                cd.getTargetId(), recordingName));
+        long version =
+                descriptor.getDataEndTime() == null
+                        ? 0L
+                        : descriptor.getDataEndTime().longValueIn(UnitLookup.EPOCH_MS);
+        if (descriptor.getState() == RecordingState.RUNNING) {
+            long now = clock.getWallTime();
+            version = Math.max(version, now - (now % maxAgeMillis));
+        }
+        return store.resolve(
+                jvmIdHelper.getJvmId(cd), recordingName, filter, descriptor.getId(), version);
     }
 
     protected String getReport(RecordingDescriptor recordingDescriptor, String filter)
             throws Exception {
         Path saveFile = null;
         try {
-            /* NOTE: Not always a cache miss since if a filter is specified, we do not even check the cache */
             logger.trace("Active report cache miss for {}", recordingDescriptor.recordingName);
             try {
                 saveFile =
@@ -186,6 +279,8 @@ class ActiveRecordingReportCache implements NotificationListener<Map<String, Obj
         String category = notification.getCategory();
         switch (category) {
             case RecordingTargetHelper.STOP_NOTIFICATION_CATEGORY:
+            case RecordingTargetHelper.DELETION_NOTIFICATION_CATEGORY:
+            case RecordingTargetHelper.SNAPSHOT_DELETION_NOTIFICATION_CATEGORY:
                 String targetId = notification.getMessage().get("target").toString();
                 String recordingName =
                         ((HyperlinkedSerializableRecordingDescriptor)
@@ -197,4 +292,23 @@ class ActiveRecordingReportCache implements NotificationListener<Map<String, Obj
                 break;
         }
     }
+
+    @Override
+    public void onEvent(Event<JvmIdHelper.IdEvent, String> event) {
+        switch (event.getEventType()) {
+            case INVALIDATED:
+                String jvmId = event.getPayload();
+                if (jvmId == null) {
+                    break;
+                }
+                Path dir = store.jvmDirectory(jvmId);
+                storePaths.asMap().values().removeIf(p -> p.startsWith(dir));
+                if (store.invalidate(jvmId)) {
+                    logger.trace("Invalidated active report cache for lost JVM {}", jvmId);
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException(event.getEventType().toString());
+        }
+    }
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.FileSystem;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Size-bounded, disk-backed store of automated analysis reports generated from active recordings.
+ *
+ * <p>Reports are laid out as {@code
+ * <root>/<H(jvmId)>/<H(recordingName)>/<H(filter)>/<recordingId>-<version>.html}, where {@code H}
+ * is a SHA-256 hex digest and the version identifies the recording data the report was generated
+ * from. Once the version changes the lookup path changes with it, and the superseded report is
+ * replaced when the new one is stored. The store is re-indexed from disk on construction, so
+ * reports survive Cryostat restarts. When the total size exceeds the configured bound the least
+ * recently used reports are deleted.
+ */
+class ActiveReportStore {
+
+    static final String REPORT_EXTENSION = ".html";
+    static final String TEMP_EXTENSION = ".tmp";
+
+    private final Path root;
+    private final FileSystem fs;
+    private final Cache<Path, Long> index;
+    private final Logger logger;
+
+    ActiveReportStore(
+            Path root, long maxSizeBytes, FileSystem fs, Executor executor, Logger logger) {
+        this.root = root;
+        this.fs = fs;
+        this.logger = logger;
+        this.index =
+                Caffeine.newBuilder()
+                        .executor(executor)
+                        .maximumWeight(maxSizeBytes)
+                        .<Path, Long>weigher(
+                                (path, size) -> (int) Math.min(size, Integer.MAX_VALUE))
+                        .removalListener(
+                                (path, size, cause) -> {
+                                    if (cause.wasEvicted()) {
+                                        logger.trace("Evicting active report {}", path);
+                                        deleteFile(path);
+                                    }
+                                })
+                        .build();
+        load();
+    }
+
+    Path resolve(
+            String jvmId, String recordingName, String filter, long recordingId, long version) {
+        return recordingDirectory(jvmId, recordingName)
+                .resolve(DigestUtils.sha256Hex(filter))
+                .resolve(String.format("%d-%d%s", recordingId, version, REPORT_EXTENSION));
+    }
+
+    Path jvmDirectory(String jvmId) {
+        return root.resolve(DigestUtils.sha256Hex(jvmId));
+    }
+
+    Optional<String> get(Path path) {
+        if (index.getIfPresent(path) == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(fs.readString(path));
+        } catch (IOException ioe) {
+            logger.warn(ioe);
+            index.invalidate(path);
+            return Optional.empty();
+        }
+    }
+
+    synchronized void put(Path path, String report) throws IOException {
+        Path parent = path.getParent();
+        createDirectories(parent);
+        // older reports for the same recording and filter are superseded by this one
+        for (Path sibling : listFiles(parent)) {
+            if (!sibling.equals(path)) {
+                deleteFile(sibling);
+                index.invalidate(sibling);
+            }
+        }
+        Path tmp = path.resolveSibling(path.getFileName() + TEMP_EXTENSION);
+        try {
+            fs.writeString(
+                    tmp,
+                    report,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            // FileSystem has no equivalent for an atomic move
+            Files.move(
+                    tmp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            fs.deleteIfExists(tmp);
+        }
+        index.put(path, (long) report.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    synchronized boolean invalidate(String jvmId, String recordingName) {
+        return deleteTree(recordingDirectory(jvmId, recordingName));
+    }
+
+    synchronized boolean invalidate(String jvmId) {
+        return deleteTree(jvmDirectory(jvmId));
+    }
+
+    long size() {
+        return index.asMap().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    void cleanUp() {
+        index.cleanUp();
+    }
+
+    private Path recordingDirectory(String jvmId, String recordingName) {
+        return jvmDirectory(jvmId).resolve(DigestUtils.sha256Hex(recordingName));
+    }
+
+    private void load() {
+        if (!fs.isDirectory(root)) {
+            return;
+        }
+        try {
+            load(root);
+            logger.info(
+                    "Loaded {} cached active recording reports ({} bytes) from {}",
+                    index.estimatedSize(),
+                    size(),
+                    root);
+        } catch (IOException ioe) {
+            logger.warn(ioe);
+        }
+    }
+
+    private void load(Path dir) throws IOException {
+        for (String child : fs.listDirectoryChildren(dir)) {
+            Path p = dir.resolve(child);
+            if (fs.isDirectory(p)) {
+                load(p);
+            } else if (child.endsWith(REPORT_EXTENSION)) {
+                index.put(p, fileSize(p));
+            } else if (child.endsWith(TEMP_EXTENSION)) {
+                // incomplete write from a previous run
+                deleteFile(p);
+            }
+        }
+    }
+
+    private long fileSize(Path path) throws IOException {
+        // FileSystem has no equivalent for reading a file's size
+        return Files.size(path);
+    }
+
+    private void createDirectories(Path dir) throws IOException {
+        if (fs.isDirectory(dir)) {
+            return;
+        }
+        Path parent = dir.getParent();
+        if (parent != null) {
+            createDirectories(parent);
+        }
+        fs.createDirectory(dir);
+    }
+
+    private List<Path> listFiles(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String child : fs.listDirectoryChildren(dir)) {
+            Path p = dir.resolve(child);
+            if (fs.isRegularFile(p)) {
+                files.add(p);
+            }
+        }
+        return files;
+    }
+
+    private boolean deleteTree(Path dir) {
+        if (!fs.isDirectory(dir)) {
+            return false;
+        }
+        boolean removed = false;
+        try {
+            for (String child : fs.listDirectoryChildren(dir)) {
+                Path p = dir.resolve(child);
+                if (fs.isDirectory(p)) {
+                    removed |= deleteTree(p);
+                    continue;
+                }
+                if (child.endsWith(REPORT_EXTENSION) && index.asMap().remove(p) != null) {
+                    removed = true;
+                }
+                deleteFile(p);
+            }
+        } catch (IOException ioe) {
+            logger.warn(ioe);
+        }
+        deleteFile(dir);
+        return removed;
+    }
+
+    private void deleteFile(Path path) {
+        try {
+            fs.deleteIfExists(path);
+        } catch (IOException ioe) {
+            logger.warn(ioe);
+        }
+    }
+}
@@ -39,6 +39,7 @@ package io.cryostat.net.reports;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -55,6 +56,7 @@ class ArchivedRecordingReportCache {
     protected final FileSystem fs;
     protected final Provider<ReportGeneratorService> reportGeneratorServiceProvider;
     protected final RecordingArchiveHelper recordingArchiveHelper;
+    protected final ReportScheduler scheduler;
     protected final long generationTimeoutSeconds;
     protected final Logger logger;
 
@@ -62,48 +64,39 @@ class ArchivedRecordingReportCache {
             FileSystem fs,
             Provider<ReportGeneratorService> reportGeneratorServiceProvider,
             RecordingArchiveHelper recordingArchiveHelper,
+            ReportScheduler scheduler,
             @Named(ReportsModule.REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
             Logger logger) {
         this.fs = fs;
         this.reportGeneratorServiceProvider = reportGeneratorServiceProvider;
         this.recordingArchiveHelper = recordingArchiveHelper;
+        this.scheduler = scheduler;
         this.generationTimeoutSeconds = generationTimeoutSeconds;
         this.logger = logger;
     }
 
     Future<Path> getFromPath(String subdirectoryName, String recordingName, String filter) {
-        CompletableFuture<Path> f = new CompletableFuture<>();
-        Path dest = null;
+        Path dest;
         try {
             dest =
                     recordingArchiveHelper
                             .getCachedReportPathFromPath(subdirectoryName, recordingName)
                             .get();
             if (fs.isReadable(dest) && fs.isRegularFile(dest) && filter.isBlank()) {
-                f.complete(dest);
-                return f;
+                return CompletableFuture.completedFuture(dest);
             }
-            Path archivedRecording =
-                    recordingArchiveHelper
-                            .getRecordingPathFromPath(subdirectoryName, recordingName)
-                            .get();
-
-            Path saveFile =
-                    reportGeneratorServiceProvider
-                            .get()
-                            .exec(archivedRecording, dest, filter)
-                            .get(generationTimeoutSeconds, TimeUnit.SECONDS);
-            f.complete(saveFile);
         } catch (Exception e) {
             logger.error(e);
-            f.completeExceptionally(e);
-            try {
-                fs.deleteIfExists(dest);
-            } catch (IOException ioe) {
-                logger.warn(ioe);
-            }
+            return CompletableFuture.failedFuture(e);
         }
-        return f;
+        return generate(
+                dest,
+                filter,
+                ReportPriority.INTERACTIVE,
+                () ->
+                        recordingArchiveHelper
+                                .getRecordingPathFromPath(subdirectoryName, recordingName)
+                                .get());
     }
 
     Future<Path> get(String recordingName, String filter) {
@@ -111,37 +104,53 @@ class ArchivedRecordingReportCache {
     }
 
     Future<Path> get(String sourceTarget, String recordingName, String filter) {
-        CompletableFuture<Path> f = new CompletableFuture<>();
-        Path dest = null;
+        return this.get(sourceTarget, recordingName, filter, ReportPriority.INTERACTIVE);
+    }
+
+    Future<Path> get(
+            String sourceTarget, String recordingName, String filter, ReportPriority priority) {
+        Path dest;
         try {
             dest = recordingArchiveHelper.getCachedReportPath(sourceTarget, recordingName).get();
             /* NOTE: This is just a temporary solution: If a request includes a filter,
              * the report is never cached and just constructed on demand.
              */
             if (fs.isReadable(dest) && fs.isRegularFile(dest) && filter.isBlank()) {
-                f.complete(dest);
-                return f;
+                return CompletableFuture.completedFuture(dest);
             }
-
-            logger.trace("Archived report cache miss for {}", recordingName);
-            Path archivedRecording =
-                    recordingArchiveHelper.getRecordingPath(sourceTarget, recordingName).get();
-            Path saveFile =
-                    reportGeneratorServiceProvider
-                            .get()
-                            .exec(archivedRecording, dest, filter)
-                            .get(generationTimeoutSeconds, TimeUnit.SECONDS);
-            f.complete(saveFile);
         } catch (Exception e) {
             logger.error(e);
-            f.completeExceptionally(e);
-            try {
-                fs.deleteIfExists(dest);
-            } catch (IOException ioe) {
-                logger.warn(ioe);
-            }
+            return CompletableFuture.failedFuture(e);
         }
-        return f;
+        logger.trace("Archived report cache miss for {}", recordingName);
+        return generate(
+                dest,
+                filter,
+                priority,
+                () -> recordingArchiveHelper.getRecordingPath(sourceTarget, recordingName).get());
+    }
+
+    private Future<Path> generate(
+            Path dest, String filter, ReportPriority priority, Callable<Path> archivedRecording) {
+        return scheduler.submit(
+                String.format("archived:%s:%s", dest, filter),
+                priority,
+                () -> {
+                    try {
+                        return reportGeneratorServiceProvider
+                                .get()
+                                .exec(archivedRecording.call(), dest, filter)
+                                .get(generationTimeoutSeconds, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        logger.error(e);
+                        try {
+                            fs.deleteIfExists(dest);
+                        } catch (IOException ioe) {
+                            logger.warn(ioe);
+                        }
+                        throw e;
+                    }
+                });
     }
 
     boolean delete(String recordingName) {
@@ -0,0 +1,233 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.openjdk.jmc.common.item.IItemCollection;
+import org.openjdk.jmc.common.util.IPreferenceValueProvider;
+import org.openjdk.jmc.flightrecorder.JfrLoaderToolkit;
+import org.openjdk.jmc.flightrecorder.rules.IResult;
+import org.openjdk.jmc.flightrecorder.rules.IRule;
+import org.openjdk.jmc.flightrecorder.rules.RuleRegistry;
+import org.openjdk.jmc.flightrecorder.rules.Severity;
+import org.openjdk.jmc.flightrecorder.rules.report.html.JfrHtmlRulesReport;
+import org.openjdk.jmc.flightrecorder.rules.util.RulesToolkit;
+
+import io.cryostat.core.reports.ReportTransformer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+
+/**
+ * Generates automated analysis reports inside a report worker process, keeping the parsed events
+ * and per-rule results of recently seen recordings. Recordings are identified by a digest of their
+ * contents, since the same recording data is usually copied to a new temporary file for each
+ * request. The first request for a recording parses it once and evaluates every rule in parallel;
+ * any later request for the same data, with any rule filter, is rendered from the cached results
+ * without parsing or evaluating again. Cached recordings are softly referenced so that they are
+ * dropped before the worker's limited heap is exhausted.
+ */
+class CachingRuleEvaluator {
+
+    static final int MAX_CACHED_RECORDINGS = 2;
+
+    private final RecordingLoader loader;
+    private final Supplier<Collection<IRule>> rules;
+    private final RuleEvaluator evaluator;
+    private final Function<Collection<IResult>, String> renderer;
+    private final Cache<String, EvaluatedRecording> recordings;
+
+    CachingRuleEvaluator(int threads) {
+        this(
+                JfrLoaderToolkit::loadEvents,
+                RuleRegistry::getRules,
+                (rules, items) ->
+                        RulesToolkit.evaluateParallel(
+                                rules, items, IPreferenceValueProvider.DEFAULT_VALUES, threads),
+                JfrHtmlRulesReport::createReport);
+    }
+
+    CachingRuleEvaluator(
+            RecordingLoader loader,
+            Supplier<Collection<IRule>> rules,
+            RuleEvaluator evaluator,
+            Function<Collection<IResult>, String> renderer) {
+        this.loader = loader;
+        this.rules = rules;
+        this.evaluator = evaluator;
+        this.renderer = renderer;
+        this.recordings =
+                Caffeine.newBuilder().maximumSize(MAX_CACHED_RECORDINGS).softValues().build();
+    }
+
+    Report generate(Path recording, Predicate<IRule> filter, Set<ReportTransformer> transformers)
+            throws Exception {
+        long recordingSizeBytes = Files.size(recording);
+        String digest;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(recording))) {
+            digest = DigestUtils.sha256Hex(stream);
+        }
+
+        boolean recordingCacheHit = true;
+        EvaluatedRecording evaluated = recordings.getIfPresent(digest);
+        if (evaluated == null) {
+            recordingCacheHit = false;
+            evaluated = evaluate(recording);
+            recordings.put(digest, evaluated);
+        }
+
+        List<IResult> results = new ArrayList<>();
+        int ruleCacheHits = 0;
+        for (IRule rule : rules.get()) {
+            if (!filter.test(rule)) {
+                continue;
+            }
+            IResult result = evaluated.results.get(rule.getId());
+            if (result == null) {
+                // not part of the registry when this recording was evaluated
+                result = evaluator.evaluate(List.of(rule), evaluated.items).get(rule).get();
+                evaluated.results.put(rule.getId(), result);
+            } else if (recordingCacheHit) {
+                ruleCacheHits++;
+            }
+            results.add(result);
+        }
+        int rulesApplicable =
+                (int) results.stream().filter(r -> r.getSeverity() != Severity.NA).count();
+
+        String html = transform(renderer.apply(results), transformers);
+        return new Report(
+                html,
+                new ReportWorkerPool.Statistics(
+                        recordingSizeBytes,
+                        results.size(),
+                        rulesApplicable,
+                        ruleCacheHits,
+                        recordingCacheHit));
+    }
+
+    private EvaluatedRecording evaluate(Path recording) throws Exception {
+        IItemCollection items;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(recording))) {
+            items = loader.load(stream);
+        }
+        // evaluate every rule up front so that filtered requests never observe results that were
+        // computed without their rule dependencies
+        Map<IRule, Future<IResult>> futures = evaluator.evaluate(rules.get(), items);
+        Map<String, IResult> results = new ConcurrentHashMap<>();
+        for (Map.Entry<IRule, Future<IResult>> entry : futures.entrySet()) {
+            results.put(entry.getKey().getId(), entry.getValue().get());
+        }
+        return new EvaluatedRecording(items, results);
+    }
+
+    private String transform(String html, Set<ReportTransformer> transformers) {
+        if (transformers.isEmpty()) {
+            return html;
+        }
+        Document document = Jsoup.parse(html);
+        transformers.stream()
+                .sorted(Comparator.comparingInt(ReportTransformer::priority))
+                .forEachOrdered(
+                        t ->
+                                document.select(t.selector())
+                                        .forEach(el -> el.html(t.innerHtml(el.html()))));
+        return document.outerHtml();
+    }
+
+    long getCachedRecordingCount() {
+        return recordings.estimatedSize();
+    }
+
+    @FunctionalInterface
+    interface RecordingLoader {
+        IItemCollection load(InputStream stream) throws Exception;
+    }
+
+    @FunctionalInterface
+    interface RuleEvaluator {
+        Map<IRule, Future<IResult>> evaluate(Collection<IRule> rules, IItemCollection items)
+                throws Exception;
+    }
+
+    static class Report {
+        private final String html;
+        private final ReportWorkerPool.Statistics statistics;
+
+        Report(String html, ReportWorkerPool.Statistics statistics) {
+            this.html = html;
+            this.statistics = statistics;
+        }
+
+        String getHtml() {
+            return html;
+        }
+
+        ReportWorkerPool.Statistics getStatistics() {
+            return statistics;
+        }
+    }
+
+    private static class EvaluatedRecording {
+        private final IItemCollection items;
+        private final Map<String, IResult> results;
+
+        EvaluatedRecording(IItemCollection items, Map<String, IResult> results) {
+            this.items = items;
+            this.results = results;
+        }
+    }
+}
@@ -37,22 +37,47 @@
  */
 package io.cryostat.net.reports;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Named;
 
+import org.openjdk.jmc.rjmx.services.jfr.IRecordingDescriptor;
+
 import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
+import io.cryostat.core.net.JFRConnection;
 import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
+import io.cryostat.net.ConnectionDescriptor;
 import io.cryostat.net.TargetConnectionManager;
+import io.cryostat.net.web.http.DownloadPipeline;
 import io.cryostat.net.web.http.HttpMimeType;
+import io.cryostat.recordings.RecordingNotFoundException;
+import io.cryostat.util.GzipCompressingInputStream;
 import io.cryostat.util.HttpStatusCodeIdentifier;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Vertx;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.multipart.MultipartForm;
 
@@ -60,7 +85,11 @@ class RemoteReportGenerator extends AbstractReportGeneratorService {
 
     private final Vertx vertx;
     private final WebClient http;
+    private final HttpClient streamingHttp;
+    private final DownloadPipeline downloadPipeline;
     private final Environment env;
+    private final boolean streaming;
+    private final boolean compression;
     private final long generationTimeoutSeconds;
 
     RemoteReportGenerator(
@@ -68,16 +97,175 @@ class RemoteReportGenerator extends AbstractReportGeneratorService {
             FileSystem fs,
             Vertx vertx,
             WebClient http,
+            HttpClient streamingHttp,
+            DownloadPipeline downloadPipeline,
             Environment env,
+            boolean streaming,
+            boolean compression,
             @Named(ReportsModule.REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
             Logger logger) {
         super(targetConnectionManager, fs, logger);
         this.vertx = vertx;
         this.http = http;
+        this.streamingHttp = streamingHttp;
+        this.downloadPipeline = downloadPipeline;
         this.env = env;
+        this.streaming = streaming;
+        this.compression = compression;
         this.generationTimeoutSeconds = generationTimeoutSeconds;
     }
 
+    /**
+     * In streaming mode the recording is piped from the target's JMX stream directly into the
+     * request body, and the report is piped from the response body directly to its destination
+     * file, so neither is ever copied to disk or buffered in memory in full. Otherwise the
+     * recording is first copied to a temporary file and uploaded from there.
+     */
+    @Override
+    public CompletableFuture<Path> exec(RecordingDescriptor recordingDescriptor, String filter)
+            throws Exception {
+        if (!streaming) {
+            return super.exec(recordingDescriptor, filter);
+        }
+        ConnectionDescriptor cd = recordingDescriptor.connectionDescriptor;
+        String recordingName = recordingDescriptor.recordingName;
+        Optional<InputStream> recording =
+                targetConnectionManager.executeConnectedTask(
+                        cd, conn -> openRecordingStream(conn, recordingName));
+        if (recording.isEmpty()) {
+            throw new RecordingNotFoundException(cd.getTargetId(), recordingName);
+        }
+        Path saveFile = fs.createTempFile(null, null);
+        return stream(recording.get(), cd, recordingName, saveFile, filter);
+    }
+
+    private Optional<InputStream> openRecordingStream(JFRConnection conn, String recordingName)
+            throws Exception {
+        for (IRecordingDescriptor rec : conn.getService().getAvailableRecordings()) {
+            if (Objects.equals(rec.getName(), recordingName)) {
+                return Optional.of(conn.getService().openStream(rec, false));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private CompletableFuture<Path> stream(
+            InputStream recording,
+            ConnectionDescriptor cd,
+            String recordingName,
+            Path destination,
+            String filter) {
+        String reportGenerator = env.getEnv(Variables.REPORT_GENERATOR_ENV);
+        logger.info("Streaming {} to {}", recordingName, reportGenerator);
+
+        String boundary = "cryostat-" + UUID.randomUUID();
+        InputStream body = createMultipartBody(boundary, recordingName, recording, filter);
+        RequestOptions opts =
+                new RequestOptions()
+                        .setMethod(HttpMethod.POST)
+                        .setAbsoluteURI(String.format("%s/report", reportGenerator))
+                        .setTimeout(TimeUnit.SECONDS.toMillis(generationTimeoutSeconds))
+                        .putHeader(
+                                HttpHeaders.CONTENT_TYPE,
+                                "multipart/form-data; boundary=" + boundary);
+        if (compression) {
+            body = new GzipCompressingInputStream(body);
+            opts.putHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        InputStream source = body;
+
+        var f = new CompletableFuture<Path>();
+        streamingHttp
+                .request(opts)
+                .onComplete(
+                        ar -> {
+                            if (ar.failed()) {
+                                closeQuietly(source);
+                                f.completeExceptionally(ar.cause());
+                                return;
+                            }
+                            HttpClientRequest req = ar.result();
+                            req.setChunked(true);
+                            req.response().onComplete(res -> writeResponse(res, destination, f));
+                            try {
+                                // the pipeline stops reading from the target while the request's
+                                // write queue is full, so a slow report generator never causes
+                                // the recording to be buffered in memory
+                                downloadPipeline
+                                        .pipe(source, req, cd, recordingName)
+                                        .onFailure(
+                                                t -> {
+                                                    req.reset(0, t);
+                                                    f.completeExceptionally(t);
+                                                });
+                            } catch (IOException e) {
+                                req.reset(0, e);
+                                f.completeExceptionally(e);
+                            }
+                        });
+        return f;
+    }
+
+    private void writeResponse(
+            AsyncResult<HttpClientResponse> ar, Path destination, CompletableFuture<Path> f) {
+        if (ar.failed()) {
+            f.completeExceptionally(ar.cause());
+            return;
+        }
+        HttpClientResponse res = ar.result();
+        if (!HttpStatusCodeIdentifier.isSuccessCode(res.statusCode())) {
+            f.completeExceptionally(
+                    new ReportGenerationException(res.statusCode(), res.statusMessage()));
+            return;
+        }
+        // hold the body until the destination file is open
+        res.pause();
+        vertx.fileSystem()
+                .open(
+                        destination.toString(),
+                        new OpenOptions().setWrite(true).setCreate(true).setTruncateExisting(true))
+                .compose(res::pipeTo)
+                .onSuccess(
+                        v -> {
+                            f.complete(destination);
+                            logger.info("Report response for {} success", destination);
+                        })
+                .onFailure(f::completeExceptionally);
+    }
+
+    private InputStream createMultipartBody(
+            String boundary, String recordingName, InputStream recording, String filter) {
+        String preamble =
+                String.format(
+                        "--%1$s\r\n"
+                                + "Content-Disposition: form-data; name=\"filter\"\r\n\r\n"
+                                + "%2$s\r\n"
+                                + "--%1$s\r\n"
+                                + "Content-Disposition: form-data; name=\"file\";"
+                                + " filename=\"%3$s.jfr\"\r\n"
+                                + "Content-Type: %4$s\r\n\r\n",
+                        boundary,
+                        Objects.requireNonNullElse(filter, ""),
+                        recordingName,
+                        HttpMimeType.OCTET_STREAM.mime());
+        String epilogue = String.format("\r\n--%s--\r\n", boundary);
+        return new SequenceInputStream(
+                Collections.enumeration(
+                        List.of(
+                                new ByteArrayInputStream(preamble.getBytes(StandardCharsets.UTF_8)),
+                                recording,
+                                new ByteArrayInputStream(
+                                        epilogue.getBytes(StandardCharsets.UTF_8)))));
+    }
+
+    private void closeQuietly(InputStream stream) {
+        try {
+            stream.close();
+        } catch (IOException e) {
+            logger.warn(e);
+        }
+    }
+
     @Override
     @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
     public CompletableFuture<Path> exec(Path recording, Path destination, String filter) {
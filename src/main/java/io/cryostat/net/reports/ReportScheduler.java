@@ -0,0 +1,340 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import io.cryostat.core.log.Logger;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+/**
+ * Admits report generation work. Concurrent requests for the same report share a single in-flight
+ * generation, at most a fixed number of generations run at once, and the rest wait in a bounded
+ * queue ordered by {@link ReportPriority}. Requests arriving while the queue is full fail
+ * immediately with a {@link ReportQueueFullException} rather than waiting for capacity.
+ */
+class ReportScheduler {
+
+    // weight given to the latest generation time in the running average
+    private static final double RUN_TIME_SMOOTHING = 0.2;
+
+    // the statistics hook is registered once for the class rather than per instance, so that JFR
+    // does not keep discarded schedulers reachable
+    private static final Set<ReportScheduler> INSTANCES =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    static {
+        FlightRecorder.addPeriodicEvent(
+                ReportQueueStatistics.class, ReportScheduler::emitAllStatistics);
+    }
+
+    private final Executor executor;
+    private final int maxConcurrent;
+    private final int maxQueued;
+    private final Logger logger;
+
+    // all guarded by this
+    private final Map<String, Job<?>> jobs = new HashMap<>();
+    private final PriorityQueue<Job<?>> queue = new PriorityQueue<>();
+    private int running;
+    private long sequence;
+    private long submitted;
+    private long coalesced;
+    private long rejected;
+    private long completed;
+    private long totalWaitNanos;
+    private double averageRunNanos;
+
+    ReportScheduler(Executor executor, int maxConcurrent, int maxQueued, Logger logger) {
+        this.executor = executor;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxQueued = Math.max(0, maxQueued);
+        this.logger = logger;
+
+        INSTANCES.add(this);
+    }
+
+    /**
+     * Schedule a report generation task.
+     *
+     * @param key identifies the report being generated. If a task with the same key is already
+     *     queued or running then the returned future completes with that task's result instead, and
+     *     the queued task is promoted if this request has a higher priority.
+     * @param priority the urgency of the request
+     * @param task the generation work, run on the scheduler's executor
+     * @return a future for the task's result. This fails with a {@link ReportQueueFullException} if
+     *     the request could not be admitted.
+     */
+    @SuppressWarnings("unchecked")
+    <T> CompletableFuture<T> submit(String key, ReportPriority priority, Callable<T> task) {
+        Job<T> dispatch = null;
+        CompletableFuture<T> result;
+        synchronized (this) {
+            submitted++;
+            Job<?> existing = jobs.get(key);
+            if (existing != null) {
+                coalesced++;
+                if (existing.queued && priority.compareTo(existing.priority) < 0) {
+                    queue.remove(existing);
+                    existing.priority = priority;
+                    queue.add(existing);
+                }
+                logger.trace("Coalesced report generation request for {}", key);
+                // a copy so that one requester cancelling its future does not affect the others
+                return ((CompletableFuture<T>) existing.future).copy();
+            }
+            if (running >= maxConcurrent && queue.size() >= maxQueued) {
+                rejected++;
+                return CompletableFuture.failedFuture(
+                        new ReportQueueFullException(estimateRetryAfterSeconds()));
+            }
+            Job<T> job = new Job<>(key, priority, sequence++, task);
+            jobs.put(key, job);
+            if (running < maxConcurrent) {
+                running++;
+                dispatch = job;
+            } else {
+                job.queued = true;
+                queue.add(job);
+            }
+            result = job.future.copy();
+        }
+        if (dispatch != null) {
+            dispatch(dispatch);
+        }
+        return result;
+    }
+
+    synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    synchronized int getRunningCount() {
+        return running;
+    }
+
+    private <T> void dispatch(Job<T> job) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            finish(job, System.nanoTime(), null, e);
+        }
+    }
+
+    private <T> void run(Job<T> job) {
+        long start = System.nanoTime();
+        T value = null;
+        Throwable failure = null;
+        try {
+            value = job.task.call();
+        } catch (Throwable t) {
+            // errors must also release the slot and complete the job, or every later request for
+            // the same key would coalesce onto a future that never completes
+            failure = t;
+        }
+        finish(job, start, value, failure);
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+    }
+
+    private <T> void finish(Job<T> job, long start, T value, Throwable failure) {
+        long end = System.nanoTime();
+        Job<?> next;
+        synchronized (this) {
+            jobs.remove(job.key, job);
+            running--;
+            completed++;
+            totalWaitNanos += start - job.submitTime;
+            long runNanos = end - start;
+            averageRunNanos =
+                    completed == 1
+                            ? runNanos
+                            : RUN_TIME_SMOOTHING * runNanos
+                                    + (1 - RUN_TIME_SMOOTHING) * averageRunNanos;
+            next = queue.poll();
+            if (next != null) {
+                next.queued = false;
+                running++;
+            }
+        }
+
+        ReportJobCompleted evt =
+                new ReportJobCompleted(
+                        job.key, job.priority.name(), start - job.submitTime, end - start);
+        if (evt.shouldCommit()) {
+            evt.setFailed(failure != null);
+            evt.commit();
+        }
+
+        if (failure != null) {
+            job.future.completeExceptionally(failure);
+        } else {
+            job.future.complete(value);
+        }
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+
+    // guarded by this
+    private long estimateRetryAfterSeconds() {
+        // the time for the current backlog to drain
+        double nanos = averageRunNanos * (queue.size() + running) / maxConcurrent;
+        return Math.max(1, (long) Math.ceil(nanos / Duration.ofSeconds(1).toNanos()));
+    }
+
+    private static void emitAllStatistics() {
+        List<ReportScheduler> schedulers;
+        synchronized (INSTANCES) {
+            schedulers = new ArrayList<>(INSTANCES);
+        }
+        schedulers.forEach(ReportScheduler::emitStatistics);
+    }
+
+    private synchronized void emitStatistics() {
+        ReportQueueStatistics evt = new ReportQueueStatistics();
+        if (evt.shouldCommit()) {
+            evt.queueDepth = queue.size();
+            evt.running = running;
+            evt.submitted = submitted;
+            evt.coalesced = coalesced;
+            evt.rejected = rejected;
+            evt.completed = completed;
+            evt.averageWaitTime = completed == 0 ? 0 : totalWaitNanos / completed;
+            evt.averageRunTime = (long) averageRunNanos;
+            evt.commit();
+        }
+    }
+
+    private static class Job<T> implements Comparable<Job<?>> {
+        final String key;
+        final long sequence;
+        final Callable<T> task;
+        final long submitTime = System.nanoTime();
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        // guarded by the scheduler
+        ReportPriority priority;
+        boolean queued;
+
+        Job(String key, ReportPriority priority, long sequence, Callable<T> task) {
+            this.key = key;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public int compareTo(Job<?> other) {
+            int c = priority.compareTo(other.priority);
+            return c != 0 ? c : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    @Name("io.cryostat.net.reports.ReportScheduler.ReportJobCompleted")
+    @Label("Report Generation Job Completed")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class ReportJobCompleted extends Event {
+        String key;
+        String priority;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long waitTime;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long runTime;
+
+        boolean failed;
+
+        ReportJobCompleted(String key, String priority, long waitTime, long runTime) {
+            this.key = key;
+            this.priority = priority;
+            this.waitTime = waitTime;
+            this.runTime = runTime;
+        }
+
+        void setFailed(boolean failed) {
+            this.failed = failed;
+        }
+    }
+
+    @Name("io.cryostat.net.reports.ReportScheduler.ReportQueueStatistics")
+    @Label("Report Generation Queue Statistics")
+    @Category("Cryostat")
+    @Period("10 s")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class ReportQueueStatistics extends Event {
+        int queueDepth;
+        int running;
+        long submitted;
+        long coalesced;
+        long rejected;
+        long completed;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long averageWaitTime;
+
+        @Timespan(Timespan.NANOSECONDS)
+        long averageRunTime;
+    }
+}
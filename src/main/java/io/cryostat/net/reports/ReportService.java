@@ -65,6 +65,11 @@ public class ReportService {
         return archivedCache.get(sourceTarget, recordingName, filter);
     }
 
+    public Future<Path> get(
+            String sourceTarget, String recordingName, String filter, ReportPriority priority) {
+        return archivedCache.get(sourceTarget, recordingName, filter, priority);
+    }
+
     public boolean delete(String recordingName) {
         return archivedCache.delete(recordingName);
     }
@@ -78,6 +83,14 @@ public class ReportService {
         return activeCache.get(connectionDescriptor, recordingName, filter);
     }
 
+    public Future<String> get(
+            ConnectionDescriptor connectionDescriptor,
+            String recordingName,
+            String filter,
+            ReportPriority priority) {
+        return activeCache.get(connectionDescriptor, recordingName, filter, priority);
+    }
+
     public boolean delete(ConnectionDescriptor connectionDescriptor, String recordingName) {
         return activeCache.delete(connectionDescriptor, recordingName);
     }
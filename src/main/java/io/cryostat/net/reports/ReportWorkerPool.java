@@ -0,0 +1,336 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Provider;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.net.reports.SubprocessReportGenerator.ExitStatus;
+import io.cryostat.util.JavaProcess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+/**
+ * Pool of long-lived report generation worker processes. Each worker is a separate JVM running
+ * {@link SubprocessReportGenerator#main(String[])} with its own heap limit and OOM score
+ * adjustment, and handles one report at a time. Requests and responses are exchanged as single
+ * lines of JSON over the worker's standard input and output. Workers are started on demand, up to
+ * one per dispatcher thread, and are kept alive between reports. A worker that exits, crashes, or
+ * exceeds the generation timeout is discarded and replaced by a fresh process for the next request.
+ */
+class ReportWorkerPool {
+
+    private final Provider<JavaProcess.Builder> javaProcessBuilderProvider;
+    private final Gson gson;
+    private final List<String> jvmArgs;
+    private final ExecutorService dispatcher;
+    private final ScheduledExecutorService watchdog;
+    private final long generationTimeoutSeconds;
+    private final BlockingQueue<Worker> idleWorkers;
+    private final AtomicInteger workerCount;
+    private final Logger logger;
+
+    ReportWorkerPool(
+            Provider<JavaProcess.Builder> javaProcessBuilderProvider,
+            Gson gson,
+            List<String> jvmArgs,
+            ExecutorService dispatcher,
+            ScheduledExecutorService watchdog,
+            long generationTimeoutSeconds,
+            Logger logger) {
+        this.javaProcessBuilderProvider = javaProcessBuilderProvider;
+        this.gson = gson;
+        this.jvmArgs = List.copyOf(jvmArgs);
+        this.dispatcher = dispatcher;
+        this.watchdog = watchdog;
+        this.generationTimeoutSeconds = generationTimeoutSeconds;
+        this.idleWorkers = new LinkedBlockingQueue<>();
+        this.workerCount = new AtomicInteger();
+        this.logger = logger;
+    }
+
+    static List<String> createJvmArgs(int maxHeapMegabytes) {
+        List<String> args = new ArrayList<>();
+        if (maxHeapMegabytes > 0) {
+            args.add(String.format("-Xms%dM", maxHeapMegabytes));
+            args.add(String.format("-Xmx%dM", maxHeapMegabytes));
+        }
+        args.add("-XX:+ExitOnOutOfMemoryError");
+        // use Serial GC since we have a small heap and likely little garbage to clean,
+        // and low GC overhead is more important here than minimizing pause time since the
+        // result will end up cached for subsequent user accesses so long as the process
+        // succeeds in the end
+        args.add("-XX:+UseSerialGC");
+        return args;
+    }
+
+    CompletableFuture<Response> submit(Request request) {
+        return CompletableFuture.supplyAsync(() -> dispatch(request), dispatcher);
+    }
+
+    int getIdleWorkerCount() {
+        return idleWorkers.size();
+    }
+
+    private Response dispatch(Request request) {
+        Worker worker = idleWorkers.poll();
+        try {
+            if (worker == null || !worker.isAlive()) {
+                if (worker != null) {
+                    worker.destroy();
+                }
+                worker = spawn();
+            }
+            Response response = worker.process(request);
+            if (worker.isAlive()) {
+                idleWorkers.offer(worker);
+            } else {
+                logger.warn(
+                        "Report worker {} exited with status {}, recycling",
+                        worker.id,
+                        response.getStatus());
+            }
+            return response;
+        } catch (IOException | InterruptedException e) {
+            if (worker != null) {
+                worker.destroy();
+            }
+            logger.error(e);
+            throw new CompletionException(e);
+        } catch (RuntimeException e) {
+            // the worker may be part way through a request, so it cannot be reused
+            if (worker != null) {
+                worker.destroy();
+            }
+            logger.error(e);
+            throw e;
+        }
+    }
+
+    private Worker spawn() throws IOException, InterruptedException {
+        int id = workerCount.incrementAndGet();
+        logger.info("Starting report worker {}", id);
+        Process proc =
+                javaProcessBuilderProvider
+                        .get()
+                        .klazz(SubprocessReportGenerator.class)
+                        .jvmArgs(jvmArgs)
+                        .pipeIO(true)
+                        .exec();
+        return new Worker(id, proc);
+    }
+
+    private class Worker {
+        private final int id;
+        private final Process proc;
+        private final BufferedWriter writer;
+        private final BufferedReader reader;
+        private volatile boolean timedOut;
+        private volatile boolean destroyed;
+
+        Worker(int id, Process proc) {
+            this.id = id;
+            this.proc = proc;
+            this.writer =
+                    new BufferedWriter(
+                            new OutputStreamWriter(proc.getOutputStream(), StandardCharsets.UTF_8));
+            this.reader =
+                    new BufferedReader(
+                            new InputStreamReader(proc.getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        boolean isAlive() {
+            return !timedOut && !destroyed && proc.isAlive();
+        }
+
+        void destroy() {
+            destroyed = true;
+            proc.destroyForcibly();
+        }
+
+        Response process(Request request) throws InterruptedException {
+            ScheduledFuture<?> timeout =
+                    watchdog.schedule(
+                            () -> {
+                                timedOut = true;
+                                destroy();
+                            },
+                            Math.max(1, generationTimeoutSeconds - 1),
+                            TimeUnit.SECONDS);
+            try {
+                writer.write(gson.toJson(request));
+                writer.newLine();
+                writer.flush();
+                String line = reader.readLine();
+                if (line != null) {
+                    Response response = gson.fromJson(line, Response.class);
+                    if (response == null) {
+                        throw new JsonParseException("Empty response");
+                    }
+                    return response;
+                }
+            } catch (IOException ioe) {
+                logger.warn(ioe);
+            } catch (JsonParseException jpe) {
+                // the worker's output can no longer be trusted to line up with requests
+                logger.warn("Report worker {} sent a malformed response: {}", id, jpe.getMessage());
+                destroy();
+                return new Response(ExitStatus.OTHER, null);
+            } finally {
+                timeout.cancel(false);
+            }
+            // the worker closed its output without responding, so it has died or been killed
+            destroy();
+            if (timedOut) {
+                return new Response(ExitStatus.TIMED_OUT, null);
+            }
+            if (!proc.waitFor(1, TimeUnit.SECONDS)) {
+                return new Response(ExitStatus.TERMINATED, null);
+            }
+            return new Response(ExitStatus.byExitCode(proc.exitValue()), null);
+        }
+    }
+
+    static class Request {
+        private final String recording;
+        private final String saveFile;
+        private final String filter;
+        private final String transformers;
+
+        Request(String recording, String saveFile, String filter, String transformers) {
+            this.recording = recording;
+            this.saveFile = saveFile;
+            this.filter = filter;
+            this.transformers = transformers;
+        }
+
+        String getRecording() {
+            return recording;
+        }
+
+        String getSaveFile() {
+            return saveFile;
+        }
+
+        String getFilter() {
+            return filter;
+        }
+
+        String getTransformers() {
+            return transformers;
+        }
+    }
+
+    static class Response {
+        private final int status;
+        private final Statistics statistics;
+
+        Response(ExitStatus status, Statistics statistics) {
+            this.status = status.code;
+            this.statistics = statistics;
+        }
+
+        ExitStatus getStatus() {
+            return ExitStatus.byExitCode(status);
+        }
+
+        Statistics getStatistics() {
+            return statistics;
+        }
+    }
+
+    static class Statistics {
+        private final long recordingSizeBytes;
+        private final int rulesEvaluated;
+        private final int rulesApplicable;
+        private final int ruleCacheHits;
+        private final boolean recordingCacheHit;
+
+        Statistics(
+                long recordingSizeBytes,
+                int rulesEvaluated,
+                int rulesApplicable,
+                int ruleCacheHits,
+                boolean recordingCacheHit) {
+            this.recordingSizeBytes = recordingSizeBytes;
+            this.rulesEvaluated = rulesEvaluated;
+            this.rulesApplicable = rulesApplicable;
+            this.ruleCacheHits = ruleCacheHits;
+            this.recordingCacheHit = recordingCacheHit;
+        }
+
+        long getRecordingSizeBytes() {
+            return recordingSizeBytes;
+        }
+
+        int getRulesEvaluated() {
+            return rulesEvaluated;
+        }
+
+        int getRulesApplicable() {
+            return rulesApplicable;
+        }
+
+        int getRuleCacheHits() {
+            return ruleCacheHits;
+        }
+
+        boolean isRecordingCacheHit() {
+            return recordingCacheHit;
+        }
+    }
+}
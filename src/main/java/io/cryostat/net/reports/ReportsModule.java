@@ -37,20 +37,31 @@
  */
 package io.cryostat.net.reports;
 
+import java.nio.file.Path;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
+import io.cryostat.configuration.ConfigurationModule;
 import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.reports.ReportTransformer;
+import io.cryostat.core.sys.Clock;
 import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.messaging.notifications.NotificationListener;
+import io.cryostat.net.NetworkConfiguration;
 import io.cryostat.net.TargetConnectionManager;
+import io.cryostat.net.web.http.DownloadPipeline;
 import io.cryostat.net.web.http.HttpModule;
+import io.cryostat.recordings.JvmIdHelper;
 import io.cryostat.recordings.RecordingArchiveHelper;
 import io.cryostat.util.JavaProcess;
 
@@ -60,6 +71,8 @@ import dagger.Module;
 import dagger.Provides;
 import dagger.multibindings.IntoSet;
 import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
 import io.vertx.ext.web.client.WebClient;
 
 @Module(
@@ -70,6 +83,9 @@ public abstract class ReportsModule {
 
     public static final String REPORT_GENERATION_TIMEOUT_SECONDS =
             "REPORT_GENERATION_TIMEOUT_SECONDS";
+    public static final String REPORT_CACHE_SUBDIRECTORY = "reports";
+    public static final String REPORT_GENERATOR_HTTP_CLIENT = "REPORT_GENERATOR_HTTP_CLIENT";
+    public static final String REPORT_CACHE_MAX_AGE_SECONDS = "REPORT_CACHE_MAX_AGE_SECONDS";
 
     @Provides
     @Named(REPORT_GENERATION_TIMEOUT_SECONDS)
@@ -78,19 +94,52 @@ public abstract class ReportsModule {
         return httpTimeout;
     }
 
+    @Provides
+    @Named(REPORT_CACHE_MAX_AGE_SECONDS)
+    static long provideReportCacheMaxAgeSeconds(Environment env) {
+        return Math.max(1, Long.parseLong(env.getEnv(Variables.REPORT_CACHE_MAX_AGE, "30")));
+    }
+
+    @Provides
+    @Singleton
+    static ActiveReportStore provideActiveReportStore(
+            @Named(ConfigurationModule.CONFIGURATION_PATH) Path confDir,
+            Environment env,
+            FileSystem fs,
+            Logger logger) {
+        Path root =
+                env.hasEnv(Variables.REPORT_CACHE_PATH)
+                        ? Path.of(env.getEnv(Variables.REPORT_CACHE_PATH))
+                        : confDir.resolve(REPORT_CACHE_SUBDIRECTORY);
+        long maxSizeMiB =
+                Math.max(0, Long.parseLong(env.getEnv(Variables.REPORT_CACHE_MAX_SIZE, "64")));
+        return new ActiveReportStore(
+                root, maxSizeMiB * 1024 * 1024, fs, ForkJoinPool.commonPool(), logger);
+    }
+
     @Provides
     @Singleton
     static ActiveRecordingReportCache provideActiveRecordingReportCache(
             Provider<ReportGeneratorService> reportGeneratorServiceProvider,
             FileSystem fs,
+            ActiveReportStore store,
             TargetConnectionManager targetConnectionManager,
+            JvmIdHelper jvmIdHelper,
+            ReportScheduler scheduler,
+            Clock clock,
             @Named(REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
+            @Named(REPORT_CACHE_MAX_AGE_SECONDS) long maxAgeSeconds,
             Logger logger) {
         return new ActiveRecordingReportCache(
                 reportGeneratorServiceProvider,
                 fs,
+                store,
                 targetConnectionManager,
+                jvmIdHelper,
+                scheduler,
+                clock,
                 generationTimeoutSeconds,
+                maxAgeSeconds,
                 logger);
     }
 
@@ -104,12 +153,14 @@ public abstract class ReportsModule {
             FileSystem fs,
             Provider<ReportGeneratorService> reportGeneratorServiceProvider,
             RecordingArchiveHelper recordingArchiveHelper,
+            ReportScheduler scheduler,
             @Named(REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
             Logger logger) {
         return new ArchivedRecordingReportCache(
                 fs,
                 reportGeneratorServiceProvider,
                 recordingArchiveHelper,
+                scheduler,
                 generationTimeoutSeconds,
                 logger);
     }
@@ -136,34 +187,121 @@ public abstract class ReportsModule {
             FileSystem fs,
             Vertx vertx,
             WebClient http,
+            @Named(REPORT_GENERATOR_HTTP_CLIENT) HttpClient streamingHttp,
+            DownloadPipeline downloadPipeline,
             Environment env,
             @Named(REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
             Logger logger) {
         return new RemoteReportGenerator(
-                targetConnectionManager, fs, vertx, http, env, generationTimeoutSeconds, logger);
+                targetConnectionManager,
+                fs,
+                vertx,
+                http,
+                streamingHttp,
+                downloadPipeline,
+                env,
+                Boolean.parseBoolean(env.getEnv(Variables.REPORT_GENERATOR_STREAMING, "false")),
+                isReportGeneratorCompressionEnabled(env),
+                generationTimeoutSeconds,
+                logger);
     }
 
     @Provides
-    static SubprocessReportGenerator provideSubprocessReportGenerator(
+    @Singleton
+    @Named(REPORT_GENERATOR_HTTP_CLIENT)
+    static HttpClient provideReportGeneratorHttpClient(
+            Vertx vertx, NetworkConfiguration netConf, Environment env) {
+        HttpClientOptions opts =
+                new HttpClientOptions()
+                        // request and decompress gzipped report responses
+                        .setTryUseCompression(isReportGeneratorCompressionEnabled(env));
+        if (netConf.isUntrustedSslAllowed()) {
+            opts = opts.setTrustAll(true).setVerifyHost(false);
+        }
+        return vertx.createHttpClient(opts);
+    }
+
+    private static boolean isReportGeneratorCompressionEnabled(Environment env) {
+        return Boolean.parseBoolean(env.getEnv(Variables.REPORT_GENERATOR_COMPRESSION, "false"));
+    }
+
+    @Provides
+    @Singleton
+    static ReportScheduler provideReportScheduler(Environment env, Logger logger) {
+        // generations beyond the worker count would only wait on the worker pool, so they are held
+        // in the scheduler's queue instead where they can be coalesced and prioritized
+        int maxConcurrent =
+                Math.max(1, Integer.parseInt(env.getEnv(Variables.REPORT_GENERATION_WORKERS, "1")));
+        int maxQueued =
+                Math.max(0, Integer.parseInt(env.getEnv(Variables.REPORT_QUEUE_SIZE, "16")));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        maxConcurrent,
+                        r -> {
+                            Thread t =
+                                    new Thread(
+                                            r,
+                                            "cryostat-report-scheduler-"
+                                                    + threadCount.getAndIncrement());
+                            t.setDaemon(true);
+                            return t;
+                        });
+        return new ReportScheduler(executor, maxConcurrent, maxQueued, logger);
+    }
+
+    @Provides
+    @Singleton
+    static ReportWorkerPool provideReportWorkerPool(
             Environment env,
             Gson gson,
-            FileSystem fs,
-            TargetConnectionManager targetConnectionManager,
-            Set<ReportTransformer> reportTransformers,
             Provider<JavaProcess.Builder> javaProcessBuilder,
             @Named(REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
             Logger logger) {
-        return new SubprocessReportGenerator(
-                env,
-                gson,
-                fs,
-                targetConnectionManager,
-                reportTransformers,
+        int workers =
+                Math.max(1, Integer.parseInt(env.getEnv(Variables.REPORT_GENERATION_WORKERS, "1")));
+        int maxHeapMegabytes = Integer.parseInt(env.getEnv(Variables.SUBPROCESS_MAX_HEAP_ENV, "0"));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService dispatcher =
+                Executors.newFixedThreadPool(
+                        workers,
+                        r -> {
+                            Thread t =
+                                    new Thread(
+                                            r,
+                                            "cryostat-report-worker-"
+                                                    + threadCount.getAndIncrement());
+                            t.setDaemon(true);
+                            return t;
+                        });
+        ScheduledExecutorService watchdog =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "cryostat-report-worker-watchdog");
+                            t.setDaemon(true);
+                            return t;
+                        });
+        return new ReportWorkerPool(
                 javaProcessBuilder,
+                gson,
+                ReportWorkerPool.createJvmArgs(maxHeapMegabytes),
+                dispatcher,
+                watchdog,
                 generationTimeoutSeconds,
                 logger);
     }
 
+    @Provides
+    static SubprocessReportGenerator provideSubprocessReportGenerator(
+            FileSystem fs,
+            TargetConnectionManager targetConnectionManager,
+            Set<ReportTransformer> reportTransformers,
+            ReportWorkerPool workerPool,
+            Logger logger) {
+        return new SubprocessReportGenerator(
+                fs, targetConnectionManager, reportTransformers, workerPool, logger);
+    }
+
     @Provides
     @Singleton
     static ReportService provideReportService(
@@ -37,78 +37,64 @@
  */
 package io.cryostat.net.reports;
 
+import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
-import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 
-import javax.inject.Named;
-import javax.inject.Provider;
-
 import org.openjdk.jmc.flightrecorder.rules.IRule;
+import org.openjdk.jmc.flightrecorder.rules.RuleRegistry;
 import org.openjdk.jmc.rjmx.ConnectionException;
 
-import io.cryostat.configuration.Variables;
 import io.cryostat.core.CryostatCore;
 import io.cryostat.core.log.Logger;
-import io.cryostat.core.reports.InterruptibleReportGenerator;
 import io.cryostat.core.reports.InterruptibleReportGenerator.ReportGenerationEvent;
-import io.cryostat.core.reports.InterruptibleReportGenerator.ReportResult;
-import io.cryostat.core.reports.InterruptibleReportGenerator.ReportStats;
 import io.cryostat.core.reports.ReportTransformer;
-import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.core.util.RuleFilterParser;
 import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.recordings.RecordingNotFoundException;
-import io.cryostat.util.JavaProcess;
 
 import com.google.gson.Gson;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
 
 public class SubprocessReportGenerator extends AbstractReportGeneratorService {
 
-    private final Environment env;
-    private final Gson gson;
     private final Set<ReportTransformer> reportTransformers;
-    private final Provider<JavaProcess.Builder> javaProcessBuilderProvider;
-    private final long generationTimeoutSeconds;
+    private final ReportWorkerPool workerPool;
 
     SubprocessReportGenerator(
-            Environment env,
-            Gson gson,
             FileSystem fs,
             TargetConnectionManager targetConnectionManager,
             Set<ReportTransformer> reportTransformers,
-            Provider<JavaProcess.Builder> javaProcessBuilderProvider,
-            @Named(ReportsModule.REPORT_GENERATION_TIMEOUT_SECONDS) long generationTimeoutSeconds,
+            ReportWorkerPool workerPool,
             Logger logger) {
         super(targetConnectionManager, fs, logger);
-        this.env = env;
-        this.gson = gson;
         this.reportTransformers = reportTransformers;
-        this.javaProcessBuilderProvider = javaProcessBuilderProvider;
-        this.generationTimeoutSeconds = generationTimeoutSeconds;
+        this.workerPool = workerPool;
     }
 
     @Override
-    public synchronized CompletableFuture<Path> exec(Path recording, Path saveFile, String filter)
-            throws NoSuchMethodException, SecurityException, IllegalAccessException,
-                    IllegalArgumentException, InvocationTargetException, IOException,
-                    InterruptedException, ReportGenerationException {
+    public CompletableFuture<Path> exec(Path recording, Path saveFile, String filter) {
         if (recording == null) {
             throw new IllegalArgumentException("Recording may not be null");
         }
@@ -118,106 +104,50 @@ public class SubprocessReportGenerator extends AbstractReportGeneratorService {
         if (filter == null) {
             throw new IllegalArgumentException("Filter may not be null");
         }
-        fs.writeString(
-                saveFile,
-                serializeTransformersSet(),
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING,
-                StandardOpenOption.DSYNC,
-                StandardOpenOption.WRITE);
-        JavaProcess.Builder procBuilder =
-                javaProcessBuilderProvider
-                        .get()
-                        .klazz(SubprocessReportGenerator.class)
-                        .jvmArgs(
-                                createJvmArgs(
-                                        Integer.parseInt(
-                                                env.getEnv(
-                                                        Variables.SUBPROCESS_MAX_HEAP_ENV, "0"))))
-                        .processArgs(createProcessArgs(recording, saveFile, filter));
-        return CompletableFuture.supplyAsync(
-                () -> {
-                    Process proc = null;
-                    ReportGenerationEvent evt = new ReportGenerationEvent(recording.toString());
-                    evt.begin();
-                    Path reportStatsPath = Paths.get(Variables.REPORT_STATS_PATH);
-
-                    try {
-                        proc = procBuilder.exec();
-                        proc.waitFor(generationTimeoutSeconds - 1, TimeUnit.SECONDS);
-
-                        ExitStatus status =
-                                proc.isAlive()
-                                        ? ExitStatus.TIMED_OUT
-                                        : ExitStatus.byExitCode(proc.exitValue());
-
-                        if (fs.exists(reportStatsPath)) {
-                            ReportStats stats =
-                                    gson.fromJson(fs.readFile(reportStatsPath), ReportStats.class);
-                            evt.setRecordingSizeBytes(stats.getRecordingSizeBytes());
-                            evt.setRulesEvaluated(stats.getRulesEvaluated());
-                            evt.setRulesApplicable(stats.getRulesApplicable());
-                        }
-
-                        switch (status) {
-                            case OK:
-                                return saveFile;
-                            case NO_SUCH_RECORDING:
-                                throw new RecordingNotFoundException(
-                                        "archives", recording.toString());
-                            default:
-                                throw new SubprocessReportGenerationException(status);
-                        }
-                    } catch (InterruptedException e) {
-                        logger.error(e);
-                        throw new CompletionException(
-                                new SubprocessReportGenerationException(ExitStatus.TERMINATED));
-                    } catch (IOException
-                            | ReportGenerationException
-                            | RecordingNotFoundException
-                            | IllegalThreadStateException e) {
-                        logger.error(e);
-                        throw new CompletionException(e);
-                    } finally {
-                        if (proc != null) {
-                            proc.destroyForcibly();
-                        }
-
-                        try {
-                            fs.deleteIfExists(reportStatsPath);
-                        } catch (IOException e) {
-                            logger.error(e);
-                            throw new CompletionException(e);
-                        }
-
-                        evt.end();
-                        if (evt.shouldCommit()) {
-                            evt.commit();
-                        }
-                    }
-                });
-    }
-
-    private List<String> createJvmArgs(int maxHeapMegabytes) throws IOException {
-        List<String> args = new ArrayList<>();
-        if (maxHeapMegabytes > 0) {
-            args.add(String.format("-Xms%dM", maxHeapMegabytes));
-            args.add(String.format("-Xmx%dM", maxHeapMegabytes));
-        }
-        args.add("-XX:+ExitOnOutOfMemoryError");
-        // use Serial GC since we have a small heap and likely little garbage to clean,
-        // and low GC overhead is more important here than minimizing pause time since the
-        // result will end up cached for subsequent user accesses so long as the process
-        // succeeds in the end
-        args.add("-XX:+UseSerialGC");
-        return args;
-    }
-
-    private List<String> createProcessArgs(Path recording, Path saveFile, String filter) {
-        return List.of(
-                recording.toAbsolutePath().toString(),
-                saveFile.toAbsolutePath().toString(),
-                filter);
+        ReportWorkerPool.Request request =
+                new ReportWorkerPool.Request(
+                        recording.toAbsolutePath().toString(),
+                        saveFile.toAbsolutePath().toString(),
+                        filter,
+                        serializeTransformersSet());
+        ReportGenerationEvent evt = new ReportGenerationEvent(recording.toString());
+        evt.begin();
+        return workerPool
+                .submit(request)
+                .thenApply(
+                        response -> {
+                            try {
+                                ReportWorkerPool.Statistics stats = response.getStatistics();
+                                if (stats != null) {
+                                    evt.setRecordingSizeBytes(stats.getRecordingSizeBytes());
+                                    evt.setRulesEvaluated(stats.getRulesEvaluated());
+                                    evt.setRulesApplicable(stats.getRulesApplicable());
+                                    ReportRuleCacheStatistics cacheEvt =
+                                            new ReportRuleCacheStatistics(
+                                                    recording.toString(), stats);
+                                    if (cacheEvt.shouldCommit()) {
+                                        cacheEvt.commit();
+                                    }
+                                }
+                                ExitStatus status = response.getStatus();
+                                switch (status) {
+                                    case OK:
+                                        return saveFile;
+                                    case NO_SUCH_RECORDING:
+                                        throw new CompletionException(
+                                                new RecordingNotFoundException(
+                                                        "archives", recording.toString()));
+                                    default:
+                                        throw new CompletionException(
+                                                new SubprocessReportGenerationException(status));
+                                }
+                            } finally {
+                                evt.end();
+                                if (evt.shouldCommit()) {
+                                    evt.commit();
+                                }
+                            }
+                        });
     }
 
     private String serializeTransformersSet() {
@@ -245,7 +175,20 @@ public class SubprocessReportGenerator extends AbstractReportGeneratorService {
         return res;
     }
 
+    /**
+     * Report worker entrypoint, started by {@link ReportWorkerPool}. Reads one JSON {@link
+     * ReportWorkerPool.Request} per line from stdin, writes the report to the requested file, and
+     * replies with one JSON {@link ReportWorkerPool.Response} per line on stdout. Runs until stdin
+     * is closed. Out-of-memory errors terminate the process, which the pool observes as the exit
+     * status.
+     */
     public static void main(String[] args) {
+        // stdout is reserved for responses to the parent process, so send anything else that
+        // would be printed there, including log output, to stderr instead. This must happen before
+        // anything is logged
+        PrintStream responses = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+        System.setOut(System.err);
+
         long startTime = System.nanoTime();
         Logger.INSTANCE.info(SubprocessReportGenerator.class.getName() + " starting");
         Runtime.getRuntime()
@@ -278,80 +221,128 @@ public class SubprocessReportGenerator extends AbstractReportGeneratorService {
                         SubprocessReportGenerator.class.getName()
                                 + "/proc/self does not exist; ignoring OOM score adjustment");
             }
+            // load the rules engine ahead of the first request
+            Logger.INSTANCE.info(
+                    "{} loaded {} rules",
+                    SubprocessReportGenerator.class.getName(),
+                    RuleRegistry.getRules().size());
         } catch (Exception e) {
             e.printStackTrace();
             System.exit(ExitStatus.OTHER.code);
         }
 
-        if (args.length != 3) {
-            throw new IllegalArgumentException(Arrays.asList(args).toString());
-        }
-        var recording = Paths.get(args[0]);
-        Set<ReportTransformer> transformers = Collections.emptySet();
-        var saveFile = Paths.get(args[1]);
-        String filter = args[2];
-        try {
-            transformers = deserializeTransformers(fs.readString(saveFile));
-        } catch (Exception e) {
-            Logger.INSTANCE.error(e);
-            System.exit(ExitStatus.OTHER.code);
+        CachingRuleEvaluator evaluator =
+                new CachingRuleEvaluator(Runtime.getRuntime().availableProcessors());
+        Map<String, Set<ReportTransformer>> transformers = new HashMap<>();
+        try (BufferedReader requests =
+                new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = requests.readLine()) != null) {
+                ReportWorkerPool.Request request =
+                        gson.fromJson(line, ReportWorkerPool.Request.class);
+                ReportWorkerPool.Response response =
+                        processRequest(fs, evaluator, request, transformers);
+                responses.println(gson.toJson(response));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(ExitStatus.IO_EXCEPTION.code);
         }
+        System.exit(ExitStatus.OK.code);
+    }
 
+    static ReportWorkerPool.Response processRequest(
+            FileSystem fs,
+            CachingRuleEvaluator evaluator,
+            ReportWorkerPool.Request request,
+            Map<String, Set<ReportTransformer>> transformers) {
         try {
+            Set<ReportTransformer> requestTransformers =
+                    transformers.get(request.getTransformers());
+            if (requestTransformers == null) {
+                requestTransformers = deserializeTransformers(request.getTransformers());
+                transformers.put(request.getTransformers(), requestTransformers);
+            }
+
             Logger.INSTANCE.info(SubprocessReportGenerator.class.getName() + " processing report");
-            ReportResult reportResult = generateReportFromFile(recording, transformers, filter);
+            CachingRuleEvaluator.Report report =
+                    generateReportFromFile(
+                            evaluator,
+                            Paths.get(request.getRecording()),
+                            requestTransformers,
+                            request.getFilter());
             Logger.INSTANCE.info(
                     SubprocessReportGenerator.class.getName() + " writing report to file");
 
             fs.writeString(
-                    saveFile,
-                    reportResult.getHtml(),
+                    Paths.get(request.getSaveFile()),
+                    report.getHtml(),
                     StandardOpenOption.CREATE,
                     StandardOpenOption.TRUNCATE_EXISTING,
                     StandardOpenOption.DSYNC,
                     StandardOpenOption.WRITE);
 
-            Path reportStats = Paths.get(Variables.REPORT_STATS_PATH);
-            fs.writeString(
-                    reportStats,
-                    gson.toJson(reportResult.getReportStats()),
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING,
-                    StandardOpenOption.DSYNC,
-                    StandardOpenOption.WRITE);
-
-            System.exit(ExitStatus.OK.code);
+            return new ReportWorkerPool.Response(ExitStatus.OK, report.getStatistics());
+        } catch (SubprocessReportGenerationException e) {
+            return new ReportWorkerPool.Response(e.getStatus(), null);
         } catch (ConnectionException e) {
             e.printStackTrace();
-            System.exit(ExitStatus.TARGET_CONNECTION_FAILURE.code);
+            return new ReportWorkerPool.Response(ExitStatus.TARGET_CONNECTION_FAILURE, null);
         } catch (IOException e) {
             e.printStackTrace();
-            System.exit(ExitStatus.IO_EXCEPTION.code);
+            return new ReportWorkerPool.Response(ExitStatus.IO_EXCEPTION, null);
         } catch (Exception e) {
             e.printStackTrace();
-            System.exit(ExitStatus.OTHER.code);
+            return new ReportWorkerPool.Response(ExitStatus.OTHER, null);
         }
     }
 
-    static ReportResult generateReportFromFile(
-            Path recording, Set<ReportTransformer> transformers, String filter) throws Exception {
+    static CachingRuleEvaluator.Report generateReportFromFile(
+            CachingRuleEvaluator evaluator,
+            Path recording,
+            Set<ReportTransformer> transformers,
+            String filter)
+            throws Exception {
         var fs = new FileSystem();
         if (!fs.isRegularFile(recording)) {
             throw new SubprocessReportGenerationException(ExitStatus.NO_SUCH_RECORDING);
         }
         RuleFilterParser rfp = new RuleFilterParser();
         Predicate<IRule> rulePr = rfp.parse(filter);
-        try (InputStream stream = fs.newInputStream(recording)) {
-            return new InterruptibleReportGenerator(
-                            Logger.INSTANCE, transformers, ForkJoinPool.commonPool())
-                    .generateReportInterruptibly(stream, rulePr)
-                    .get();
+        try {
+            return evaluator.generate(recording, rulePr, transformers);
         } catch (IOException ioe) {
             ioe.printStackTrace();
             throw new SubprocessReportGenerationException(ExitStatus.IO_EXCEPTION);
         }
     }
 
+    @Name("io.cryostat.net.reports.SubprocessReportGenerator.ReportRuleCacheStatistics")
+    @Label("Report Rule Cache Statistics")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class ReportRuleCacheStatistics extends Event {
+        String recordingName;
+
+        @DataAmount long recordingSizeBytes;
+
+        int rulesEvaluated;
+        int rulesApplicable;
+        int ruleCacheHits;
+        boolean recordingCacheHit;
+
+        ReportRuleCacheStatistics(String recordingName, ReportWorkerPool.Statistics stats) {
+            this.recordingName = recordingName;
+            this.recordingSizeBytes = stats.getRecordingSizeBytes();
+            this.rulesEvaluated = stats.getRulesEvaluated();
+            this.rulesApplicable = stats.getRulesApplicable();
+            this.ruleCacheHits = stats.getRuleCacheHits();
+            this.recordingCacheHit = stats.isRecordingCacheHit();
+        }
+    }
+
     public enum ExitStatus {
         OK(0, ""),
         TARGET_CONNECTION_FAILURE(1, "Connection to target JVM failed."),
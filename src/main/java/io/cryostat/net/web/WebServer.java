@@ -44,10 +44,11 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -60,6 +61,7 @@ import io.cryostat.core.net.JFRConnection;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.HttpServer;
 import io.cryostat.net.NetworkConfiguration;
+import io.cryostat.net.reports.ReportQueueFullException;
 import io.cryostat.net.web.http.HttpMimeType;
 import io.cryostat.net.web.http.RequestHandler;
 import io.cryostat.net.web.http.api.ApiData;
@@ -92,6 +94,19 @@ public class WebServer extends AbstractVerticle {
     // Use X- prefix so as to not trigger web-browser auth dialogs
     public static final String AUTH_SCHEME_HEADER = "X-WWW-Authenticate";
 
+    // characters which URIBuilder leaves unencoded within a path segment
+    private static final BitSet PATH_SAFE = new BitSet(128);
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    static {
+        PATH_SAFE.set('a', 'z' + 1);
+        PATH_SAFE.set('A', 'Z' + 1);
+        PATH_SAFE.set('0', '9' + 1);
+        for (char c : "_-.*!~'();:@&=+$,".toCharArray()) {
+            PATH_SAFE.set(c);
+        }
+    }
+
     private final HttpServer server;
     private final NetworkConfiguration netConf;
     private final List<RequestHandler> requestHandlers;
@@ -99,6 +114,10 @@ public class WebServer extends AbstractVerticle {
     private final AuthManager auth;
     private final Logger logger;
 
+    // the host URL only depends on configuration read at startup, so it and the asset URL prefixes
+    // derived from it are computed once and reused rather than rebuilt for every asset URL
+    private volatile HostUrls hostUrls;
+
     WebServer(
             HttpServer server,
             NetworkConfiguration netConf,
@@ -117,6 +136,7 @@ public class WebServer extends AbstractVerticle {
 
     @Override
     public void start() throws FlightRecorderException, SocketException, UnknownHostException {
+        this.hostUrls = null;
         Router router =
                 Router.router(server.getVertx()); // a vertx is only available after server started
 
@@ -124,7 +144,30 @@ public class WebServer extends AbstractVerticle {
         Handler<RoutingContext> failureHandler =
                 ctx -> {
                     HttpException exception;
-                    if (ctx.failure() instanceof HttpException) {
+                    int queueFullIndex =
+                            ExceptionUtils.indexOfType(
+                                    ctx.failure(), ReportQueueFullException.class);
+                    if (queueFullIndex >= 0) {
+                        // report generation was refused rather than failed, so the client should
+                        // try again later regardless of how the handler wrapped the refusal
+                        ReportQueueFullException ex =
+                                (ReportQueueFullException)
+                                        ExceptionUtils.getThrowableList(ctx.failure())
+                                                .get(queueFullIndex);
+                        ctx.response()
+                                .putHeader(
+                                        HttpHeaders.RETRY_AFTER,
+                                        String.valueOf(ex.getRetryAfterSeconds()));
+                        exception =
+                                ctx.failure() instanceof ApiException
+                                        ? new HttpException(
+                                                ex.getStatusCode(),
+                                                ex.getMessage(),
+                                                new ApiException(
+                                                        ex.getStatusCode(), ex.getMessage(), ex))
+                                        : new HttpException(
+                                                ex.getStatusCode(), ex.getMessage(), ex);
+                    } else if (ctx.failure() instanceof HttpException) {
                         exception = (HttpException) ctx.failure();
                     } else if (ctx.failure() instanceof ApiException) {
                         ApiException ex = (ApiException) ctx.failure();
@@ -301,12 +344,13 @@ public class WebServer extends AbstractVerticle {
     @Override
     public void stop() {
         this.server.requestHandler(null);
+        this.hostUrls = null;
     }
 
     public URL getHostUrl()
             throws MalformedURLException, SocketException, UnknownHostException,
                     URISyntaxException {
-        return getHostUri().toURL();
+        return getHostUrls().hostUrl;
     }
 
     URI getHostUri() throws SocketException, UnknownHostException, URISyntaxException {
@@ -321,44 +365,129 @@ public class WebServer extends AbstractVerticle {
                 .normalize();
     }
 
+    private HostUrls getHostUrls()
+            throws SocketException, UnknownHostException, URISyntaxException {
+        HostUrls urls = this.hostUrls;
+        if (urls == null) {
+            URI hostUri = getHostUri();
+            try {
+                urls = new HostUrls(hostUri);
+            } catch (MalformedURLException e) {
+                throw new URISyntaxException(hostUri.toString(), String.valueOf(e.getMessage()));
+            }
+            this.hostUrls = urls;
+        }
+        return urls;
+    }
+
     // FIXME this has an implicit dependency on the RecordingGetHandler path
     public String getArchivedDownloadURL(String sourceTarget, String recordingName)
             throws UnknownHostException, URISyntaxException, SocketException {
-        return getAssetDownloadURL(ApiVersion.BETA, "recordings", sourceTarget, recordingName);
+        return normalize(
+                getHostUrls().archivedRecordings
+                        + encodePathSegment(sourceTarget)
+                        + "/"
+                        + encodePathSegment(recordingName));
     }
 
     // FIXME this has a an implicit dependency on the TargetRecordingGetHandler path
     public String getDownloadURL(JFRConnection connection, String recordingName)
             throws URISyntaxException, IOException {
-        return getAssetDownloadURL(
-                ApiVersion.V1, "targets", getTargetId(connection), "recordings", recordingName);
+        return normalize(
+                getHostUrls().targets
+                        + encodePathSegment(getTargetId(connection))
+                        + "/recordings/"
+                        + encodePathSegment(recordingName));
     }
 
     // FIXME this has a an implicit dependency on the ReportGetHandler path
     public String getArchivedReportURL(String sourceTarget, String recordingName)
             throws SocketException, UnknownHostException, URISyntaxException {
-        return getAssetDownloadURL(ApiVersion.BETA, "reports", sourceTarget, recordingName);
+        return normalize(
+                getHostUrls().archivedReports
+                        + encodePathSegment(sourceTarget)
+                        + "/"
+                        + encodePathSegment(recordingName));
     }
 
     // FIXME this has a an implicit dependency on the TargetReportGetHandler path
     public String getReportURL(JFRConnection connection, String recordingName)
             throws URISyntaxException, IOException {
-        return getAssetDownloadURL(
-                ApiVersion.V1, "targets", getTargetId(connection), "reports", recordingName);
+        return normalize(
+                getHostUrls().targets
+                        + encodePathSegment(getTargetId(connection))
+                        + "/reports/"
+                        + encodePathSegment(recordingName));
     }
 
     public String getAssetDownloadURL(ApiVersion apiVersion, String... pathSegments)
             throws SocketException, UnknownHostException, URISyntaxException {
-        List<String> segments = new ArrayList<>();
-        segments.add("api");
-        segments.add(apiVersion.getVersionString());
-        segments.addAll(Arrays.asList(pathSegments));
-        return new URIBuilder(getHostUri())
-                .setScheme(server.isSsl() ? "https" : "http")
-                .setPathSegments(segments)
-                .build()
-                .normalize()
-                .toString();
+        StringBuilder sb = new StringBuilder(getHostUrls().prefix);
+        sb.append("/api/").append(encodePathSegment(apiVersion.getVersionString()));
+        for (String segment : pathSegments) {
+            sb.append('/').append(encodePathSegment(segment));
+        }
+        return normalize(sb.toString());
+    }
+
+    /**
+     * '.' and '..' are left as-is by path segment encoding, so resolve them the same way as
+     * URI#normalize rather than leaving clients to resolve them against the API path.
+     */
+    static String normalize(String url) throws URISyntaxException {
+        if (url.contains("/./")
+                || url.contains("/../")
+                || url.endsWith("/.")
+                || url.endsWith("/..")) {
+            return new URI(url).normalize().toString();
+        }
+        return url;
+    }
+
+    /**
+     * Percent-encode a single URL path segment the same way as URIBuilder#setPathSegments, so that
+     * ex. '/' characters within JMX service URLs do not introduce additional segments.
+     */
+    static String encodePathSegment(String segment) {
+        int i = 0;
+        while (i < segment.length() && PATH_SAFE.get(segment.charAt(i))) {
+            i++;
+        }
+        if (i == segment.length()) {
+            return segment;
+        }
+        StringBuilder sb = new StringBuilder(segment.length() + 16);
+        sb.append(segment, 0, i);
+        byte[] bytes = segment.substring(i).getBytes(StandardCharsets.UTF_8);
+        for (byte b : bytes) {
+            int c = b & 0xFF;
+            if (PATH_SAFE.get(c)) {
+                sb.append((char) c);
+            } else {
+                sb.append('%').append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static class HostUrls {
+        final URL hostUrl;
+        final String prefix;
+        final String archivedRecordings;
+        final String archivedReports;
+        final String targets;
+
+        HostUrls(URI hostUri) throws MalformedURLException {
+            this.hostUrl = hostUri.toURL();
+            this.prefix = hostUri.toString();
+            this.archivedRecordings =
+                    String.format(
+                            "%s/api/%s/recordings/", prefix, ApiVersion.BETA.getVersionString());
+            this.archivedReports =
+                    String.format("%s/api/%s/reports/", prefix, ApiVersion.BETA.getVersionString());
+            this.targets =
+                    String.format("%s/api/%s/targets/", prefix, ApiVersion.V1.getVersionString());
+        }
     }
 
     private String getTargetId(JFRConnection conn) throws IOException {
@@ -0,0 +1,342 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.net.ConnectionDescriptor;
+import io.cryostat.net.TargetConnectionManager;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.streams.WriteStream;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Frequency;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Streams recording data from a blocking {@link InputStream}, typically a JMX recording stream, to
+ * a Vert.x {@link WriteStream} such as an HTTP response.
+ *
+ * <p>Each transfer has at most one read outstanding at a time. Reads happen on a dedicated bounded
+ * executor and forward whatever the source has available, up to the size of a pooled buffer, rather
+ * than waiting for the buffer to fill. The buffer is handed to the sink without copying and only
+ * returned to the pool once the sink has completed the write. Writes happen on the caller's Vert.x
+ * context. When the sink's write queue is full the transfer stops reading and resumes from the
+ * sink's drain handler, so no thread is parked waiting on a slow client. Calling handlers can
+ * therefore return as soon as the transfer has started.
+ */
+public class DownloadPipeline {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1024 * 1024; // 1 MiB
+
+    private final Vertx vertx;
+    private final TargetConnectionManager targetConnectionManager;
+    private final Executor executor;
+    private final int bufferSize;
+    private final BlockingQueue<byte[]> buffers;
+    private final Logger logger;
+
+    public DownloadPipeline(
+            Vertx vertx,
+            TargetConnectionManager targetConnectionManager,
+            Executor executor,
+            int bufferSize,
+            int maxPooledBuffers,
+            Logger logger) {
+        this.vertx = vertx;
+        this.targetConnectionManager = targetConnectionManager;
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, maxPooledBuffers));
+        this.logger = logger;
+    }
+
+    /**
+     * Begin transferring the source stream to the sink. The source is closed and the sink ended
+     * when the transfer completes or fails.
+     *
+     * @param source the stream to read from. This is read from and closed on the I/O executor.
+     * @param sink the stream to write to. This is written to on the caller's Vert.x context.
+     * @param connectionDescriptor the target connection the source stream belongs to. The
+     *     connection is kept alive for the duration of the transfer.
+     * @param name a name for the transfer, used for logging and JFR events
+     * @return a future completing when the sink has been ended, or failing if reading or writing
+     *     failed
+     * @throws IOException if the target connection has already been closed. The source stream is
+     *     closed before this is thrown.
+     */
+    public Future<Void> pipe(
+            InputStream source,
+            WriteStream<Buffer> sink,
+            ConnectionDescriptor connectionDescriptor,
+            String name)
+            throws IOException {
+        try {
+            checkConnection(connectionDescriptor);
+        } catch (IOException ioe) {
+            source.close();
+            throw ioe;
+        }
+        Transfer transfer =
+                new Transfer(source, sink, connectionDescriptor, name, vertx.getOrCreateContext());
+        transfer.start();
+        return transfer.promise.future();
+    }
+
+    private void checkConnection(ConnectionDescriptor connectionDescriptor) throws IOException {
+        if (!targetConnectionManager.markConnectionInUse(connectionDescriptor)) {
+            throw new IOException(
+                    "Target connection unexpectedly closed while streaming recording");
+        }
+    }
+
+    private byte[] borrowBuffer() {
+        byte[] buf = buffers.poll();
+        return buf != null ? buf : new byte[bufferSize];
+    }
+
+    private void returnBuffer(byte[] buf) {
+        // if the pool is already full then the buffer is simply dropped and collected
+        buffers.offer(buf);
+    }
+
+    private class Transfer {
+        private final InputStream source;
+        private final WriteStream<Buffer> sink;
+        private final ConnectionDescriptor connectionDescriptor;
+        private final String name;
+        private final Context context;
+        private final Promise<Void> promise = Promise.promise();
+        private final DownloadCompleted evt;
+
+        // bytes handed to the sink. Only updated on the context, after a read has completed, so a
+        // read still in flight when the transfer fails is never counted
+        private final AtomicLong bytes = new AtomicLong();
+        private long startTime;
+        private volatile boolean done;
+
+        Transfer(
+                InputStream source,
+                WriteStream<Buffer> sink,
+                ConnectionDescriptor connectionDescriptor,
+                String name,
+                Context context) {
+            this.source = source;
+            this.sink = sink;
+            this.connectionDescriptor = connectionDescriptor;
+            this.name = name;
+            this.context = context;
+            this.evt = new DownloadCompleted(connectionDescriptor.getTargetId(), name);
+        }
+
+        void start() {
+            sink.exceptionHandler(this::fail);
+            if (sink instanceof HttpServerResponse) {
+                ((HttpServerResponse) sink)
+                        .closeHandler(
+                                v -> fail(new IOException("Client closed download of " + name)));
+            }
+            startTime = System.nanoTime();
+            evt.begin();
+            readNext();
+        }
+
+        void readNext() {
+            executor.execute(
+                    () -> {
+                        if (done) {
+                            return;
+                        }
+                        byte[] buf = borrowBuffer();
+                        try {
+                            checkConnection(connectionDescriptor);
+                            int n = source.read(buf, 0, buf.length);
+                            context.runOnContext(v -> write(buf, n));
+                        } catch (Exception e) {
+                            returnBuffer(buf);
+                            context.runOnContext(v -> fail(e));
+                        }
+                    });
+        }
+
+        void write(byte[] buf, int n) {
+            if (done || n < 0) {
+                returnBuffer(buf);
+                if (!done) {
+                    finish();
+                }
+                return;
+            }
+            if (n > 0) {
+                bytes.addAndGet(n);
+                // the sink may still hold on to the wrapped buffer after this call returns, so it
+                // is only returned to the pool once the write has completed
+                sink.write(
+                        Buffer.buffer(Unpooled.wrappedBuffer(buf, 0, n)),
+                        res -> {
+                            returnBuffer(buf);
+                            if (res.failed()) {
+                                fail(res.cause());
+                            }
+                        });
+            } else {
+                returnBuffer(buf);
+            }
+            if (sink.writeQueueFull()) {
+                sink.drainHandler(
+                        v -> {
+                            sink.drainHandler(null);
+                            readNext();
+                        });
+            } else {
+                readNext();
+            }
+        }
+
+        void finish() {
+            done = true;
+            sink.end(
+                    res -> {
+                        closeSource();
+                        if (res.succeeded()) {
+                            complete(false);
+                            promise.tryComplete();
+                        } else {
+                            complete(true);
+                            promise.tryFail(res.cause());
+                        }
+                    });
+        }
+
+        void fail(Throwable t) {
+            if (done) {
+                return;
+            }
+            done = true;
+            logger.warn("Download of {} failed: {}", name, t.getMessage());
+            closeSource();
+            complete(true);
+            promise.tryFail(t);
+        }
+
+        void closeSource() {
+            executor.execute(
+                    () -> {
+                        try {
+                            source.close();
+                        } catch (IOException e) {
+                            logger.warn(e);
+                        }
+                    });
+        }
+
+        void complete(boolean failed) {
+            long bytes = this.bytes.get();
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+            long bytesPerSecond = elapsed.isZero() ? 0 : bytes * 1_000_000_000L / elapsed.toNanos();
+            logger.info(
+                    "Download of {} {} after {} bytes in {}ms ({} B/s)",
+                    name,
+                    failed ? "failed" : "completed",
+                    bytes,
+                    elapsed.toMillis(),
+                    bytesPerSecond);
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.setBytes(bytes);
+                evt.setThroughput(bytesPerSecond);
+                evt.setFailed(failed);
+                evt.commit();
+            }
+        }
+    }
+
+    @Name("io.cryostat.net.web.http.DownloadPipeline.DownloadCompleted")
+    @Label("Recording Download")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class DownloadCompleted extends Event {
+        String serviceUri;
+        String name;
+
+        @DataAmount(DataAmount.BYTES)
+        long bytes;
+
+        @DataAmount(DataAmount.BYTES)
+        @Frequency
+        long throughput;
+
+        boolean failed;
+
+        DownloadCompleted(String serviceUri, String name) {
+            this.serviceUri = serviceUri;
+            this.name = name;
+        }
+
+        void setBytes(long bytes) {
+            this.bytes = bytes;
+        }
+
+        void setThroughput(long throughput) {
+            this.throughput = throughput;
+        }
+
+        void setFailed(boolean failed) {
+            this.failed = failed;
+        }
+    }
+}
@@ -43,6 +43,7 @@ public enum HttpMimeType {
     PLAINTEXT("text/plain"),
     HTML("text/html"),
     JSON("application/json"),
+    NDJSON("application/x-ndjson"),
     OCTET_STREAM("application/octet-stream"),
     JFC("application/jfc+xml"),
     XML("application/xml"),
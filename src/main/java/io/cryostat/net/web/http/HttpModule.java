@@ -37,10 +37,18 @@
  */
 package io.cryostat.net.web.http;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import javax.inject.Named;
+import javax.inject.Singleton;
 
 import io.cryostat.configuration.Variables;
+import io.cryostat.core.log.Logger;
 import io.cryostat.core.sys.Environment;
+import io.cryostat.net.HttpServer;
+import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.web.http.api.beta.HttpApiBetaModule;
 import io.cryostat.net.web.http.api.v1.HttpApiV1Module;
 import io.cryostat.net.web.http.api.v2.HttpApiV2Module;
@@ -65,4 +73,44 @@ public abstract class HttpModule {
     static long provideReportGenerationTimeoutSeconds(Environment env) {
         return Long.parseLong(env.getEnv(Variables.HTTP_REQUEST_TIMEOUT, "29"));
     }
+
+    @Provides
+    @Singleton
+    static DownloadPipeline provideDownloadPipeline(
+            HttpServer httpServer,
+            TargetConnectionManager targetConnectionManager,
+            Environment env,
+            Logger logger) {
+        int threads =
+                Math.max(
+                        1,
+                        Integer.parseInt(
+                                env.getEnv(
+                                        Variables.DOWNLOAD_IO_THREADS,
+                                        String.valueOf(
+                                                Math.max(
+                                                        2,
+                                                        Runtime.getRuntime()
+                                                                .availableProcessors())))));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor =
+                Executors.newFixedThreadPool(
+                        threads,
+                        r -> {
+                            Thread t =
+                                    new Thread(
+                                            r,
+                                            "cryostat-download-io-"
+                                                    + threadCount.getAndIncrement());
+                            t.setDaemon(true);
+                            return t;
+                        });
+        return new DownloadPipeline(
+                httpServer.getVertx(),
+                targetConnectionManager,
+                executor,
+                DownloadPipeline.DEFAULT_BUFFER_SIZE,
+                threads,
+                logger);
+    }
 }
@@ -0,0 +1,135 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.google.gson.Gson;
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+
+/**
+ * Writes a sequence of objects to a chunked HTTP response as newline-delimited JSON, so that the
+ * client receives the first objects before the last have been serialized. Lines are batched into
+ * chunks of roughly {@link #CHUNK_SIZE} bytes, and writing blocks while the response's write queue
+ * is full, so the amount of serialized data held in memory stays bounded regardless of the number
+ * of objects written.
+ *
+ * <p>Since writes may block, this must only be used from a worker thread, ie. from a handler whose
+ * {@link RequestHandler#isAsync()} is false.
+ */
+public class NdjsonResponseWriter {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    private static final byte[] NEWLINE = "\n".getBytes(StandardCharsets.UTF_8);
+
+    private final HttpServerResponse response;
+    private final Gson gson;
+    private Buffer chunk = Buffer.buffer(CHUNK_SIZE);
+    private boolean started;
+
+    public NdjsonResponseWriter(HttpServerResponse response, Gson gson) {
+        if (Context.isOnEventLoopThread()) {
+            throw new IllegalStateException("Blocking writer used on event loop thread");
+        }
+        this.response = response;
+        this.gson = gson;
+    }
+
+    public void write(Object o) throws IOException {
+        chunk.appendString(gson.toJson(o), StandardCharsets.UTF_8.name());
+        chunk.appendBytes(NEWLINE);
+        if (chunk.length() >= CHUNK_SIZE) {
+            flush();
+        }
+    }
+
+    public void end() throws IOException {
+        if (!started) {
+            response.putHeader(HttpHeaders.CONTENT_TYPE, HttpMimeType.NDJSON.mime());
+            response.end(chunk);
+            return;
+        }
+        if (chunk.length() > 0) {
+            flush();
+        }
+        response.end();
+    }
+
+    private void flush() throws IOException {
+        if (!started) {
+            response.setChunked(true);
+            response.putHeader(HttpHeaders.CONTENT_TYPE, HttpMimeType.NDJSON.mime());
+            started = true;
+        }
+        awaitDrain();
+        response.write(chunk);
+        chunk = Buffer.buffer(CHUNK_SIZE);
+    }
+
+    private void awaitDrain() throws IOException {
+        while (response.writeQueueFull()) {
+            if (response.closed()) {
+                throw new IOException("Response closed before all data was written");
+            }
+            CompletableFuture<Void> drained = new CompletableFuture<>();
+            response.drainHandler(v -> drained.complete(null));
+            if (!response.writeQueueFull()) {
+                // drained before the handler was set
+                return;
+            }
+            try {
+                drained.get(1, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                // check whether the client has gone away, then keep waiting
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            } catch (ExecutionException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
@@ -110,9 +110,10 @@ class JvmIdGetHandler extends AbstractV2RequestHandler<String> {
             String jvmId =
                     this.targetConnectionManager.executeConnectedTask(
                             cd,
-                            connection -> {
-                                return connection.getJvmId();
-                            });
+                            TargetConnectionManager.readOnly(
+                                    connection -> {
+                                        return connection.getJvmId();
+                                    }));
             return new IntermediateResponse<String>().body(jvmId);
         } catch (Exception e) {
             throw new ApiException(
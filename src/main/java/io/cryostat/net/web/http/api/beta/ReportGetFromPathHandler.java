@@ -141,7 +141,7 @@ public class ReportGetFromPathHandler extends AbstractV2RequestHandler<Path> {
             if (ExceptionUtils.getRootCause(e) instanceof ReportGenerationException) {
                 ReportGenerationException rge =
                         (ReportGenerationException) ExceptionUtils.getRootCause(e);
-                throw new ApiException(rge.getStatusCode(), e.getMessage());
+                throw new ApiException(rge.getStatusCode(), e.getMessage(), e);
             }
             if (ExceptionUtils.getRootCause(e) instanceof RecordingNotFoundException
                     || ExceptionUtils.getRootCause(e) instanceof ArchivePathException) {
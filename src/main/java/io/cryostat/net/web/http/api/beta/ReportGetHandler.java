@@ -148,7 +148,7 @@ public class ReportGetHandler extends AbstractV2RequestHandler<Path> {
             if (ExceptionUtils.getRootCause(e) instanceof ReportGenerationException) {
                 ReportGenerationException rge =
                         (ReportGenerationException) ExceptionUtils.getRootCause(e);
-                throw new ApiException(rge.getStatusCode(), e.getMessage());
+                throw new ApiException(rge.getStatusCode(), e.getMessage(), e);
             }
             if (ExceptionUtils.getRootCause(e) instanceof RecordingNotFoundException) {
                 throw new ApiException(404, e.getMessage(), e);
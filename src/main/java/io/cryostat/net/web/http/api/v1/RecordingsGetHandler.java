@@ -50,7 +50,9 @@ import io.cryostat.net.AuthManager;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.web.http.AbstractAuthenticatedRequestHandler;
 import io.cryostat.net.web.http.HttpMimeType;
+import io.cryostat.net.web.http.NdjsonResponseWriter;
 import io.cryostat.net.web.http.api.ApiVersion;
+import io.cryostat.recordings.ArchivedRecordingsQuery;
 import io.cryostat.recordings.RecordingArchiveHelper;
 import io.cryostat.rules.ArchivePathException;
 import io.cryostat.rules.ArchivedRecordingInfo;
@@ -62,6 +64,11 @@ import io.vertx.ext.web.handler.HttpException;
 
 class RecordingsGetHandler extends AbstractAuthenticatedRequestHandler {
 
+    static final String SORT_PARAM = "sort";
+    static final String CURSOR_PARAM = "cursor";
+    static final String LIMIT_PARAM = "limit";
+    static final String LINK_HEADER = "Link";
+
     private final RecordingArchiveHelper recordingArchiveHelper;
     private final Gson gson;
 
@@ -104,14 +111,54 @@ class RecordingsGetHandler extends AbstractAuthenticatedRequestHandler {
 
     @Override
     public List<HttpMimeType> produces() {
-        return List.of(HttpMimeType.JSON);
+        return List.of(HttpMimeType.JSON, HttpMimeType.NDJSON);
     }
 
     @Override
     public void handleAuthenticated(RoutingContext ctx) throws Exception {
+        boolean ndjson = HttpMimeType.NDJSON.mime().equals(ctx.getAcceptableContentType());
+        String sort = first(ctx, SORT_PARAM);
+        String cursor = first(ctx, CURSOR_PARAM);
+        String limit = first(ctx, LIMIT_PARAM);
         try {
-            List<ArchivedRecordingInfo> result = recordingArchiveHelper.getRecordings().get();
-            ctx.response().end(gson.toJson(result));
+            if (!ndjson && sort == null && cursor == null && limit == null) {
+                List<ArchivedRecordingInfo> result = recordingArchiveHelper.getRecordings().get();
+                ctx.response().end(gson.toJson(result));
+                return;
+            }
+            ArchivedRecordingsQuery query;
+            try {
+                query = ArchivedRecordingsQuery.parse(sort, cursor, limit);
+            } catch (IllegalArgumentException iae) {
+                throw new HttpException(400, iae.getMessage(), iae);
+            }
+            ArchivedRecordingsQuery.Page page =
+                    recordingArchiveHelper.getRecordingsPage(query).get();
+            page.getNextCursor()
+                    .ifPresent(
+                            next ->
+                                    ctx.response()
+                                            .putHeader(
+                                                    LINK_HEADER,
+                                                    String.format(
+                                                            "<%s?%s=%s&%s=%d&%s=%s>; rel=\"next\"",
+                                                            path(),
+                                                            SORT_PARAM,
+                                                            query.getSortParameter(),
+                                                            LIMIT_PARAM,
+                                                            query.getLimit(),
+                                                            CURSOR_PARAM,
+                                                            next)));
+            if (ndjson) {
+                // the page builds each recording as it is iterated, so only one is held at a time
+                NdjsonResponseWriter writer = new NdjsonResponseWriter(ctx.response(), gson);
+                for (ArchivedRecordingInfo recording : page.getRecordings()) {
+                    writer.write(recording);
+                }
+                writer.end();
+            } else {
+                ctx.response().end(gson.toJson(page.getRecordings()));
+            }
         } catch (ExecutionException e) {
             if (e.getCause() instanceof ArchivePathException) {
                 throw new HttpException(501, e.getMessage(), e);
@@ -119,4 +166,9 @@ class RecordingsGetHandler extends AbstractAuthenticatedRequestHandler {
             throw e;
         }
     }
+
+    private static String first(RoutingContext ctx, String param) {
+        List<String> values = ctx.queryParam(param);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
 }
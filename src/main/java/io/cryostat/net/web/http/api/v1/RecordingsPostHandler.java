@@ -104,6 +104,7 @@ class RecordingsPostHandler extends AbstractAuthenticatedRequestHandler {
     private final NotificationFactory notificationFactory;
     private final Provider<WebServer> webServer;
     private final RecordingMetadataManager recordingMetadataManager;
+    private final RecordingArchiveHelper recordingArchiveHelper;
     private final Logger logger;
 
     private static final String NOTIFICATION_CATEGORY = "ArchivedRecordingCreated";
@@ -119,6 +120,7 @@ class RecordingsPostHandler extends AbstractAuthenticatedRequestHandler {
             NotificationFactory notificationFactory,
             Provider<WebServer> webServer,
             RecordingMetadataManager recordingMetadataManager,
+            RecordingArchiveHelper recordingArchiveHelper,
             Logger logger) {
         super(auth, credentialsManager, logger);
         this.vertx = httpServer.getVertx();
@@ -128,6 +130,7 @@ class RecordingsPostHandler extends AbstractAuthenticatedRequestHandler {
         this.notificationFactory = notificationFactory;
         this.webServer = webServer;
         this.recordingMetadataManager = recordingMetadataManager;
+        this.recordingArchiveHelper = recordingArchiveHelper;
         this.logger = logger;
     }
 
@@ -402,10 +405,11 @@ class RecordingsPostHandler extends AbstractAuthenticatedRequestHandler {
                             }
 
                             // verified no name clash at this time
+                            Path savePath = specificRecordingsPath.resolve(filename);
                             vertx.fileSystem()
                                     .move(
                                             tmpFile,
-                                            specificRecordingsPath.resolve(filename).toString(),
+                                            savePath.toString(),
                                             (res2) -> {
                                                 if (res2.failed()) {
                                                     handler.handle(
@@ -413,6 +417,8 @@ class RecordingsPostHandler extends AbstractAuthenticatedRequestHandler {
                                                     return;
                                                 }
 
+                                                recordingArchiveHelper.refreshArchivedRecording(
+                                                        savePath);
                                                 handler.handle(makeAsyncResult(filename));
                                             });
                         });
@@ -145,7 +145,7 @@ class ReportGetHandler extends AbstractAuthenticatedRequestHandler {
             if (ExceptionUtils.getRootCause(ee) instanceof ReportGenerationException) {
                 ReportGenerationException rge =
                         (ReportGenerationException) ExceptionUtils.getRootCause(ee);
-                throw new HttpException(rge.getStatusCode(), ee.getMessage());
+                throw new HttpException(rge.getStatusCode(), ee.getMessage(), ee);
             }
             if (ExceptionUtils.getRootCause(ee) instanceof RecordingNotFoundException) {
                 throw new HttpException(404, ee);
@@ -114,16 +114,17 @@ class TargetEventsGetHandler extends AbstractAuthenticatedRequestHandler {
         List<SerializableEventTypeInfo> templates =
                 connectionManager.executeConnectedTask(
                         getConnectionDescriptorFromContext(ctx),
-                        connection -> {
-                            Collection<? extends IEventTypeInfo> origInfos =
-                                    connection.getService().getAvailableEventTypes();
-                            List<SerializableEventTypeInfo> infos =
-                                    new ArrayList<>(origInfos.size());
-                            for (IEventTypeInfo info : origInfos) {
-                                infos.add(new SerializableEventTypeInfo(info));
-                            }
-                            return infos;
-                        });
+                        TargetConnectionManager.readOnly(
+                                connection -> {
+                                    Collection<? extends IEventTypeInfo> origInfos =
+                                            connection.getService().getAvailableEventTypes();
+                                    List<SerializableEventTypeInfo> infos =
+                                            new ArrayList<>(origInfos.size());
+                                    for (IEventTypeInfo info : origInfos) {
+                                        infos.add(new SerializableEventTypeInfo(info));
+                                    }
+                                    return infos;
+                                }));
         ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, HttpMimeType.JSON.mime());
         ctx.response().end(gson.toJson(templates));
     }
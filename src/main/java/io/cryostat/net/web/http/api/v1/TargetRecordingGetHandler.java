@@ -42,7 +42,6 @@ import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
 
@@ -50,41 +49,34 @@ import io.cryostat.configuration.CredentialsManager;
 import io.cryostat.core.log.Logger;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.ConnectionDescriptor;
-import io.cryostat.net.HttpServer;
-import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.web.http.AbstractAuthenticatedRequestHandler;
+import io.cryostat.net.web.http.DownloadPipeline;
 import io.cryostat.net.web.http.HttpMimeType;
 import io.cryostat.net.web.http.api.ApiVersion;
 import io.cryostat.recordings.RecordingTargetHelper;
-import io.cryostat.util.OutputToReadStream;
 
-import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.HttpException;
 
 class TargetRecordingGetHandler extends AbstractAuthenticatedRequestHandler {
-    protected static final int WRITE_BUFFER_SIZE = 64 * 1024; // 64 KB
 
-    protected final TargetConnectionManager targetConnectionManager;
     protected final RecordingTargetHelper recordingTargetHelper;
 
-    private final Vertx vertx;
+    private final DownloadPipeline downloadPipeline;
 
     @Inject
     TargetRecordingGetHandler(
             AuthManager auth,
             CredentialsManager credentialsManager,
-            TargetConnectionManager targetConnectionManager,
-            HttpServer httpServer,
+            DownloadPipeline downloadPipeline,
             RecordingTargetHelper recordingTargetHelper,
             Logger logger) {
         super(auth, credentialsManager, logger);
-        this.targetConnectionManager = targetConnectionManager;
+        this.downloadPipeline = downloadPipeline;
         this.recordingTargetHelper = recordingTargetHelper;
-        this.vertx = httpServer.getVertx();
     }
 
     @Override
@@ -138,22 +130,17 @@ class TargetRecordingGetHandler extends AbstractAuthenticatedRequestHandler {
         ctx.response().setChunked(true);
         ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, HttpMimeType.OCTET_STREAM.mime());
 
-        try (final InputStream is = stream.get();
-                final OutputToReadStream otrs =
-                        new OutputToReadStream(
-                                vertx, targetConnectionManager, connectionDescriptor)) {
-            CompletableFuture<Void> future = new CompletableFuture<>();
-            otrs.pipeFromInput(
-                    is,
-                    ctx.response(),
-                    res -> {
-                        if (res.succeeded()) {
-                            future.complete(null);
-                        } else {
-                            future.completeExceptionally(res.cause());
-                        }
-                    });
-            future.get();
-        }
+        // the transfer continues asynchronously after this handler returns, so the worker thread
+        // is released as soon as the stream has been opened
+        downloadPipeline
+                .pipe(stream.get(), ctx.response(), connectionDescriptor, recordingName)
+                .onFailure(
+                        t -> {
+                            if (!ctx.response().headWritten()) {
+                                ctx.fail(new HttpException(500, t.getMessage(), t));
+                            } else {
+                                ctx.response().reset();
+                            }
+                        });
     }
 }
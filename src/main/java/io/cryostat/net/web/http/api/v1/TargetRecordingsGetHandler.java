@@ -123,24 +123,27 @@ class TargetRecordingsGetHandler extends AbstractAuthenticatedRequestHandler {
         List<HyperlinkedSerializableRecordingDescriptor> descriptors =
                 connectionManager.executeConnectedTask(
                         getConnectionDescriptorFromContext(ctx),
-                        connection -> {
-                            List<IRecordingDescriptor> origDescriptors =
-                                    connection.getService().getAvailableRecordings();
-                            List<HyperlinkedSerializableRecordingDescriptor> list =
-                                    new ArrayList<>(origDescriptors.size());
-                            for (IRecordingDescriptor desc : origDescriptors) {
-                                list.add(
-                                        new HyperlinkedSerializableRecordingDescriptor(
-                                                desc,
-                                                webServer.getDownloadURL(
-                                                        connection, desc.getName()),
-                                                webServer.getReportURL(connection, desc.getName()),
-                                                recordingMetadataManager.getMetadata(
-                                                        getConnectionDescriptorFromContext(ctx),
-                                                        desc.getName())));
-                            }
-                            return list;
-                        });
+                        TargetConnectionManager.readOnly(
+                                connection -> {
+                                    List<IRecordingDescriptor> origDescriptors =
+                                            connection.getService().getAvailableRecordings();
+                                    List<HyperlinkedSerializableRecordingDescriptor> list =
+                                            new ArrayList<>(origDescriptors.size());
+                                    for (IRecordingDescriptor desc : origDescriptors) {
+                                        list.add(
+                                                new HyperlinkedSerializableRecordingDescriptor(
+                                                        desc,
+                                                        webServer.getDownloadURL(
+                                                                connection, desc.getName()),
+                                                        webServer.getReportURL(
+                                                                connection, desc.getName()),
+                                                        recordingMetadataManager.getMetadata(
+                                                                getConnectionDescriptorFromContext(
+                                                                        ctx),
+                                                                desc.getName())));
+                                    }
+                                    return list;
+                                }));
         ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, HttpMimeType.JSON.mime());
         ctx.response().end(gson.toJson(descriptors));
     }
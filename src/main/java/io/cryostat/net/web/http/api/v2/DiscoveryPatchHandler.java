@@ -0,0 +1,147 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2;
+
+import java.net.URI;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import io.cryostat.MainModule;
+import io.cryostat.core.log.Logger;
+import io.cryostat.discovery.DiscoveryStorage;
+import io.cryostat.discovery.DiscoveryStorage.NotFoundException;
+import io.cryostat.net.AuthManager;
+import io.cryostat.net.security.ResourceAction;
+import io.cryostat.net.security.jwt.DiscoveryJwtHelper;
+import io.cryostat.net.web.WebServer;
+import io.cryostat.net.web.http.api.ApiVersion;
+import io.cryostat.platform.discovery.AbstractNode;
+import io.cryostat.util.StringUtil;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.nimbusds.jwt.JWT;
+import dagger.Lazy;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.RoutingContext;
+
+class DiscoveryPatchHandler extends AbstractDiscoveryJwtConsumingHandler<Void> {
+
+    private final DiscoveryStorage storage;
+    private final Function<String, UUID> uuidFromString;
+    private final Gson gson;
+
+    @Inject
+    DiscoveryPatchHandler(
+            AuthManager auth,
+            DiscoveryJwtHelper jwtFactory,
+            Lazy<WebServer> webServer,
+            DiscoveryStorage storage,
+            @Named(MainModule.UUID_FROM_STRING) Function<String, UUID> uuidFromString,
+            Gson gson,
+            Logger logger) {
+        super(storage, auth, jwtFactory, webServer, uuidFromString, logger);
+        this.storage = storage;
+        this.uuidFromString = uuidFromString;
+        this.gson = gson;
+    }
+
+    @Override
+    public ApiVersion apiVersion() {
+        return ApiVersion.V2_2;
+    }
+
+    @Override
+    public HttpMethod httpMethod() {
+        return HttpMethod.PATCH;
+    }
+
+    @Override
+    public String path() {
+        return basePath() + DiscoveryPostHandler.PATH;
+    }
+
+    @Override
+    public Set<ResourceAction> resourceActions() {
+        return EnumSet.of(
+                ResourceAction.CREATE_TARGET,
+                ResourceAction.UPDATE_TARGET,
+                ResourceAction.DELETE_TARGET);
+    }
+
+    @Override
+    public boolean isAsync() {
+        return false;
+    }
+
+    @Override
+    void handleWithValidJwt(RoutingContext ctx, JWT jwt) throws Exception {
+        try {
+            UUID id =
+                    this.uuidFromString.apply(
+                            StringUtil.requireNonBlank(ctx.pathParam("id"), "id"));
+            String body = ctx.getBodyAsString();
+            Delta delta = gson.fromJson(StringUtil.requireNonBlank(body, "body"), Delta.class);
+            if (delta == null) {
+                throw new IllegalArgumentException(body);
+            }
+            storage.update(
+                    id,
+                    Objects.requireNonNullElse(delta.add, List.of()),
+                    Objects.requireNonNullElse(delta.remove, List.of()));
+
+            writeResponse(ctx, new IntermediateResponse<Void>());
+        } catch (JsonParseException | IllegalArgumentException e) {
+            throw new ApiException(400, e);
+        } catch (NotFoundException e) {
+            throw new ApiException(404, e);
+        }
+    }
+
+    static class Delta {
+        List<AbstractNode> add;
+        List<URI> remove;
+    }
+}
@@ -212,6 +212,14 @@ public abstract class HttpApiV2Module {
     @IntoSet
     abstract RequestHandler bindDiscoveryPostBodyHandler(DiscoveryPostBodyHandler handler);
 
+    @Binds
+    @IntoSet
+    abstract RequestHandler bindDiscoveryPatchHandler(DiscoveryPatchHandler handler);
+
+    @Binds
+    @IntoSet
+    abstract RequestHandler bindDiscoveryPatchBodyHandler(DiscoveryPatchBodyHandler handler);
+
     @Binds
     @IntoSet
     abstract RequestHandler bindAuthTokenPostHandler(AuthTokenPostHandler handler);
@@ -236,6 +244,10 @@ public abstract class HttpApiV2Module {
     @IntoSet
     abstract RequestHandler bindRecordingGetHandler(RecordingGetHandler handler);
 
+    @Binds
+    @IntoSet
+    abstract RequestHandler bindRecordingsGetHandler(RecordingsGetHandler handler);
+
     @Binds
     @IntoSet
     abstract RequestHandler bindReportGetHandler(ReportGetHandler handler);
@@ -0,0 +1,179 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import javax.inject.Inject;
+
+import io.cryostat.configuration.CredentialsManager;
+import io.cryostat.net.AuthManager;
+import io.cryostat.net.security.ResourceAction;
+import io.cryostat.net.web.http.HttpMimeType;
+import io.cryostat.net.web.http.NdjsonResponseWriter;
+import io.cryostat.net.web.http.api.ApiVersion;
+import io.cryostat.recordings.ArchivedRecordingsQuery;
+import io.cryostat.recordings.RecordingArchiveHelper;
+import io.cryostat.rules.ArchivePathException;
+import io.cryostat.rules.ArchivedRecordingInfo;
+
+import com.google.gson.Gson;
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+
+/**
+ * Lists archived recordings one page at a time, sorted by the "sort" query parameter. The response
+ * body contains the nextCursor to pass as the "cursor" query parameter of the following request, if
+ * there are more recordings. With an Accept of application/x-ndjson the recordings are instead
+ * streamed one per line, and the nextCursor is sent in the X-Next-Cursor header.
+ */
+class RecordingsGetHandler extends AbstractV2RequestHandler<ArchivedRecordingsQuery.Page> {
+
+    static final String PATH = "recordings";
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private final RecordingArchiveHelper recordingArchiveHelper;
+
+    @Inject
+    RecordingsGetHandler(
+            AuthManager auth,
+            CredentialsManager credentialsManager,
+            RecordingArchiveHelper recordingArchiveHelper,
+            Gson gson) {
+        super(auth, credentialsManager, gson);
+        this.recordingArchiveHelper = recordingArchiveHelper;
+    }
+
+    @Override
+    public boolean requiresAuthentication() {
+        return true;
+    }
+
+    @Override
+    public ApiVersion apiVersion() {
+        return ApiVersion.V2;
+    }
+
+    @Override
+    public HttpMethod httpMethod() {
+        return HttpMethod.GET;
+    }
+
+    @Override
+    public Set<ResourceAction> resourceActions() {
+        return EnumSet.of(ResourceAction.READ_RECORDING);
+    }
+
+    @Override
+    public String path() {
+        return basePath() + PATH;
+    }
+
+    @Override
+    public List<HttpMimeType> produces() {
+        return List.of(HttpMimeType.JSON, HttpMimeType.NDJSON);
+    }
+
+    @Override
+    public boolean isAsync() {
+        return false;
+    }
+
+    @Override
+    public IntermediateResponse<ArchivedRecordingsQuery.Page> handle(RequestParameters params)
+            throws Exception {
+        MultiMap query = params.getQueryParams();
+        ArchivedRecordingsQuery q;
+        try {
+            q =
+                    ArchivedRecordingsQuery.parse(
+                            query.get("sort"), query.get("cursor"), query.get("limit"));
+        } catch (IllegalArgumentException iae) {
+            throw new ApiException(400, iae.getMessage(), iae);
+        }
+        String sourceTarget = query.get("sourceTarget");
+        try {
+            ArchivedRecordingsQuery.Page page =
+                    sourceTarget == null
+                            ? recordingArchiveHelper.getRecordingsPage(q).get()
+                            : recordingArchiveHelper.getRecordingsPage(sourceTarget, q).get();
+            IntermediateResponse<ArchivedRecordingsQuery.Page> response =
+                    new IntermediateResponse<ArchivedRecordingsQuery.Page>().body(page);
+            page.getNextCursor().ifPresent(next -> response.addHeader(NEXT_CURSOR_HEADER, next));
+            return response;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ArchivePathException) {
+                throw new ApiException(501, e.getCause().getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected void writeResponse(
+            RoutingContext ctx, IntermediateResponse<ArchivedRecordingsQuery.Page> response) {
+        if (!HttpMimeType.NDJSON.mime().equals(ctx.getAcceptableContentType())) {
+            super.writeResponse(ctx, response);
+            return;
+        }
+        HttpServerResponse res = ctx.response();
+        res.setStatusCode(response.getStatusCode());
+        response.getHeaders().forEach(res::putHeader);
+        try {
+            // the page builds each recording as it is iterated, so only one is held at a time
+            NdjsonResponseWriter writer = new NdjsonResponseWriter(res, gson);
+            for (ArchivedRecordingInfo recording : response.getBody().getRecordings()) {
+                writer.write(recording);
+            }
+            writer.end();
+        } catch (IOException e) {
+            if (res.headWritten()) {
+                // too late to send an error status, so abort the response instead
+                res.reset();
+                return;
+            }
+            throw new ApiException(500, e);
+        }
+    }
+}
@@ -114,20 +114,21 @@ class TargetEventsGetHandler extends AbstractV2RequestHandler<List<SerializableE
             throws Exception {
         return targetConnectionManager.executeConnectedTask(
                 getConnectionDescriptorFromParams(params),
-                connection -> {
-                    String q = params.getQueryParams().get("q");
-                    List<SerializableEventTypeInfo> matchingEvents =
-                            connection.getService().getAvailableEventTypes().stream()
-                                    .filter(
-                                            event ->
-                                                    StringUtils.isBlank(q)
-                                                            || eventMatchesSearchTerm(
-                                                                    event, q.toLowerCase()))
-                                    .map(SerializableEventTypeInfo::new)
-                                    .collect(Collectors.toList());
-                    return new IntermediateResponse<List<SerializableEventTypeInfo>>()
-                            .body(matchingEvents);
-                });
+                TargetConnectionManager.readOnly(
+                        connection -> {
+                            String q = params.getQueryParams().get("q");
+                            List<SerializableEventTypeInfo> matchingEvents =
+                                    connection.getService().getAvailableEventTypes().stream()
+                                            .filter(
+                                                    event ->
+                                                            StringUtils.isBlank(q)
+                                                                    || eventMatchesSearchTerm(
+                                                                            event, q.toLowerCase()))
+                                            .map(SerializableEventTypeInfo::new)
+                                            .collect(Collectors.toList());
+                            return new IntermediateResponse<List<SerializableEventTypeInfo>>()
+                                    .body(matchingEvents);
+                        }));
     }
 
     private boolean eventMatchesSearchTerm(IEventTypeInfo event, String term) {
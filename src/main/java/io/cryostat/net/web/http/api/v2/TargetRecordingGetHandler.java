@@ -37,12 +37,12 @@
  */
 package io.cryostat.net.web.http.api.v2;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.EnumSet;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
 
@@ -50,27 +50,24 @@ import io.cryostat.configuration.CredentialsManager;
 import io.cryostat.core.log.Logger;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.ConnectionDescriptor;
-import io.cryostat.net.HttpServer;
 import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.security.jwt.AssetJwtHelper;
 import io.cryostat.net.web.WebServer;
+import io.cryostat.net.web.http.DownloadPipeline;
 import io.cryostat.net.web.http.HttpMimeType;
 import io.cryostat.net.web.http.api.ApiVersion;
-import io.cryostat.util.OutputToReadStream;
 
 import com.nimbusds.jwt.JWT;
 import dagger.Lazy;
-import io.vertx.core.Vertx;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.ext.web.RoutingContext;
 
 class TargetRecordingGetHandler extends AbstractAssetJwtConsumingHandler {
-    protected static final int WRITE_BUFFER_SIZE = 64 * 1024; // 64 KB
 
     private final TargetConnectionManager targetConnectionManager;
-    private final Vertx vertx;
+    private final DownloadPipeline downloadPipeline;
 
     @Inject
     TargetRecordingGetHandler(
@@ -78,12 +75,12 @@ class TargetRecordingGetHandler extends AbstractAssetJwtConsumingHandler {
             CredentialsManager credentialsManager,
             AssetJwtHelper jwtFactory,
             Lazy<WebServer> webServer,
-            HttpServer httpServer,
+            DownloadPipeline downloadPipeline,
             TargetConnectionManager targetConnectionManager,
             Logger logger) {
         super(auth, credentialsManager, jwtFactory, webServer, logger);
         this.targetConnectionManager = targetConnectionManager;
-        this.vertx = httpServer.getVertx();
+        this.downloadPipeline = downloadPipeline;
     }
 
     @Override
@@ -157,26 +154,21 @@ class TargetRecordingGetHandler extends AbstractAssetJwtConsumingHandler {
                         String.format("attachment; filename=\"%s.jfr\"", recordingName));
         ctx.response().putHeader(HttpHeaders.CONTENT_TYPE, HttpMimeType.OCTET_STREAM.mime());
 
-        try (final InputStream is = stream.get();
-                final OutputToReadStream otrs =
-                        new OutputToReadStream(
-                                vertx, targetConnectionManager, connectionDescriptor)) {
-            CompletableFuture<Void> future = new CompletableFuture<>();
-            otrs.pipeFromInput(
-                    is,
-                    ctx.response(),
-                    res -> {
-                        if (res.succeeded()) {
-                            future.complete(null);
-                        } else {
-                            future.completeExceptionally(res.cause());
-                        }
-                    });
-            try {
-                future.get();
-            } catch (Exception e) {
-                throw new ApiException(500, e);
-            }
+        // the transfer continues asynchronously after this handler returns, so the worker thread
+        // is released as soon as the stream has been opened
+        try {
+            downloadPipeline
+                    .pipe(stream.get(), ctx.response(), connectionDescriptor, recordingName)
+                    .onFailure(
+                            t -> {
+                                if (!ctx.response().headWritten()) {
+                                    ctx.fail(new ApiException(500, t));
+                                } else {
+                                    ctx.response().reset();
+                                }
+                            });
+        } catch (IOException e) {
+            throw new ApiException(500, e);
         }
     }
 }
@@ -44,7 +44,6 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -142,10 +141,8 @@ class TargetsPostHandler extends AbstractV2RequestHandler<ServiceRef> {
                 throw new ApiException(400, "\"alias\" form parameter must be provided");
             }
             URI uri = URIUtil.createAbsolute(connectUrl);
-            for (ServiceRef serviceRef : storage.listDiscoverableServices()) {
-                if (Objects.equals(uri, serviceRef.getServiceUri())) {
-                    throw new ApiException(400, "Duplicate connectUrl");
-                }
+            if (storage.getDiscoverableService(uri).isPresent()) {
+                throw new ApiException(400, "Duplicate connectUrl");
             }
             Map<AnnotationKey, String> cryostatAnnotations = new HashMap<>();
             ServiceRef serviceRef = new ServiceRef(uri, alias);
@@ -50,7 +50,6 @@ import javax.inject.Inject;
 import io.cryostat.core.log.Logger;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.security.ResourceAction;
-import io.cryostat.net.web.http.api.v2.graph.ArchivedRecordingsFetcher.AggregateInfo;
 import io.cryostat.net.web.http.api.v2.graph.ArchivedRecordingsFetcher.Archived;
 import io.cryostat.net.web.http.api.v2.graph.labels.LabelSelectorMatcher;
 import io.cryostat.recordings.RecordingArchiveHelper;
@@ -128,13 +127,6 @@ class AllArchivedRecordingsFetcher extends AbstractPermissionedDataFetcher<Archi
                             .collect(Collectors.toList());
         }
 
-        Archived archived = new Archived();
-        AggregateInfo aggregate = new AggregateInfo();
-        archived.data = recordings;
-        aggregate.count = archived.data.size();
-        aggregate.size = archived.data.stream().mapToLong(ArchivedRecordingInfo::getSize).sum();
-        archived.aggregate = aggregate;
-
-        return archived;
+        return ArchivedRecordingsFetcher.archived(recordings, environment);
     }
 }
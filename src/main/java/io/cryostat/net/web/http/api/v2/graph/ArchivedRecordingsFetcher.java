@@ -51,6 +51,7 @@ import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.web.http.api.v2.graph.ArchivedRecordingsFetcher.Archived;
 import io.cryostat.net.web.http.api.v2.graph.RecordingsFetcher.Recordings;
 import io.cryostat.net.web.http.api.v2.graph.labels.LabelSelectorMatcher;
+import io.cryostat.recordings.ArchivedRecordingsQuery;
 import io.cryostat.rules.ArchivedRecordingInfo;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
@@ -59,10 +60,14 @@ import graphql.schema.DataFetchingEnvironment;
 @SuppressFBWarnings(
         value = "URF_UNREAD_FIELD",
         justification =
-                "The Archived and AggregateInfo fields are serialized and returned to the client by"
-                        + " the GraphQL engine")
+                "The Archived, AggregateInfo and PageInfo fields are serialized and returned to the"
+                        + " client by the GraphQL engine")
 class ArchivedRecordingsFetcher extends AbstractPermissionedDataFetcher<Archived> {
 
+    static final String SORT_ARGUMENT = "sort";
+    static final String FIRST_ARGUMENT = "first";
+    static final String AFTER_ARGUMENT = "after";
+
     @Inject
     ArchivedRecordingsFetcher(AuthManager auth) {
         super(auth);
@@ -111,12 +116,38 @@ class ArchivedRecordingsFetcher extends AbstractPermissionedDataFetcher<Archived
                             .collect(Collectors.toList());
         }
 
+        return archived(recordings, environment);
+    }
+
+    /**
+     * Select the page of the filtered recordings requested by the "sort", "first" and "after"
+     * arguments, if any are present. The aggregate describes all of the filtered recordings rather
+     * than only the selected page.
+     */
+    static Archived archived(
+            List<ArchivedRecordingInfo> recordings, DataFetchingEnvironment environment) {
+        String sort = environment.getArgument(SORT_ARGUMENT);
+        Integer first = environment.getArgument(FIRST_ARGUMENT);
+        String after = environment.getArgument(AFTER_ARGUMENT);
+
         Archived archived = new Archived();
         AggregateInfo aggregate = new AggregateInfo();
-        archived.data = recordings;
-        aggregate.count = archived.data.size();
-        aggregate.size = archived.data.stream().mapToLong(ArchivedRecordingInfo::getSize).sum();
+        PageInfo pageInfo = new PageInfo();
+        if (sort == null && first == null && after == null) {
+            archived.data = recordings;
+        } else {
+            ArchivedRecordingsQuery query =
+                    ArchivedRecordingsQuery.parse(
+                            sort, after, first == null ? null : String.valueOf(first));
+            ArchivedRecordingsQuery.Page page = query.apply(recordings);
+            archived.data = page.getRecordings();
+            pageInfo.hasNextPage = page.getNextCursor().isPresent();
+            pageInfo.endCursor = page.getNextCursor().orElse(null);
+        }
+        aggregate.count = recordings.size();
+        aggregate.size = recordings.stream().mapToLong(ArchivedRecordingInfo::getSize).sum();
         archived.aggregate = aggregate;
+        archived.pageInfo = pageInfo;
 
         return archived;
     }
@@ -124,6 +155,12 @@ class ArchivedRecordingsFetcher extends AbstractPermissionedDataFetcher<Archived
     static class Archived {
         List<ArchivedRecordingInfo> data;
         AggregateInfo aggregate;
+        PageInfo pageInfo;
+    }
+
+    static class PageInfo {
+        boolean hasNextPage;
+        String endCursor;
     }
 
     static class AggregateInfo {
@@ -0,0 +1,112 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentationContext;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Records the time taken to fetch each query field as a JFR event. Fields which are simply read
+ * from their parent object are not recorded. The time of asynchronous fields runs until their value
+ * is available, so it includes any time spent waiting for a batched data loader.
+ */
+class FieldFetchInstrumentation extends SimpleInstrumentation {
+
+    @Override
+    public InstrumentationContext<Object> beginFieldFetch(
+            InstrumentationFieldFetchParameters parameters) {
+        if (parameters.isTrivialDataFetcher()) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        FieldFetchEvent evt = new FieldFetchEvent();
+        if (!evt.isEnabled()) {
+            return SimpleInstrumentationContext.noOp();
+        }
+        ExecutionStepInfo stepInfo = parameters.getExecutionStepInfo();
+        evt.setField(
+                stepInfo.getObjectType().getName(),
+                stepInfo.getFieldDefinition().getName(),
+                stepInfo.getPath().toString());
+        evt.begin();
+        return SimpleInstrumentationContext.whenCompleted(
+                (result, t) -> {
+                    evt.end();
+                    if (evt.shouldCommit()) {
+                        // fetchers may also report failures as partial results
+                        evt.setFailed(
+                                t != null
+                                        || (result instanceof DataFetcherResult
+                                                && ((DataFetcherResult<?>) result).hasErrors()));
+                        evt.commit();
+                    }
+                });
+    }
+
+    @Name("io.cryostat.net.web.http.api.v2.graph.FieldFetchInstrumentation.FieldFetchEvent")
+    @Label("GraphQL Field Fetch")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class FieldFetchEvent extends Event {
+
+        String type;
+        String field;
+        String path;
+        boolean failed;
+
+        void setField(String type, String field, String path) {
+            this.type = type;
+            this.field = field;
+            this.path = path;
+        }
+
+        void setFailed(boolean failed) {
+            this.failed = failed;
+        }
+    }
+}
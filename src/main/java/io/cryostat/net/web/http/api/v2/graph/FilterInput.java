@@ -40,6 +40,7 @@ package io.cryostat.net.web.http.api.v2.graph;
 import java.util.Map;
 
 import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.SelectedField;
 
 class FilterInput {
 
@@ -56,6 +57,12 @@ class FilterInput {
         return new FilterInput(map == null ? Map.of() : map);
     }
 
+    /** The filter argument of a field selected beneath the field being fetched. */
+    static FilterInput from(SelectedField field) {
+        Map<String, Object> map = (Map<String, Object>) field.getArguments().get(FILTER_ARGUMENT);
+        return new FilterInput(map == null ? Map.of() : map);
+    }
+
     boolean contains(Key key) {
         return filter.containsKey(key.key());
     }
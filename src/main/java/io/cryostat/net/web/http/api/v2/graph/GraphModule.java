@@ -40,12 +40,18 @@ package io.cryostat.net.web.http.api.v2.graph;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
 import io.cryostat.configuration.CredentialsManager;
+import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.Environment;
 import io.cryostat.discovery.DiscoveryStorage;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.TargetConnectionManager;
@@ -63,6 +69,8 @@ import dagger.Provides;
 import dagger.multibindings.IntoSet;
 import graphql.GraphQL;
 import graphql.Scalars;
+import graphql.execution.instrumentation.ChainedInstrumentation;
+import graphql.execution.instrumentation.dataloader.DataLoaderDispatcherInstrumentation;
 import graphql.scalars.ExtendedScalars;
 import graphql.schema.idl.RuntimeWiring;
 import graphql.schema.idl.SchemaGenerator;
@@ -70,10 +78,14 @@ import graphql.schema.idl.SchemaParser;
 import graphql.schema.idl.TypeDefinitionRegistry;
 import graphql.schema.idl.TypeRuntimeWiring;
 import org.apache.commons.codec.binary.Base32;
+import org.dataloader.DataLoaderRegistry;
 
 @Module
 public abstract class GraphModule {
 
+    static final String TARGET_QUERY_EXECUTOR = "GRAPHQL_TARGET_QUERY_EXECUTOR";
+    static final int MAX_CACHED_DOCUMENTS = 500;
+
     @Binds
     @IntoSet
     abstract RequestHandler bindGraphPostBodyHandler(GraphQLPostBodyHandler handler);
@@ -111,7 +123,9 @@ public abstract class GraphModule {
             PutActiveRecordingMetadataMutator putActiveRecordingMetadataMutator,
             PutArchivedRecordingMetadataMutator putArchivedRecordingMetadataMutator,
             DeleteActiveRecordingMutator deleteActiveRecordingMutator,
-            DeleteArchivedRecordingMutator deleteArchivedRecordingMutator) {
+            DeleteArchivedRecordingMutator deleteArchivedRecordingMutator,
+            @Named(Variables.GRAPHQL_MAX_DEPTH) int maxDepth,
+            @Named(Variables.GRAPHQL_MAX_COST) int maxCost) {
         RuntimeWiring wiring =
                 RuntimeWiring.newRuntimeWiring()
                         .scalar(ExtendedScalars.Object)
@@ -200,7 +214,28 @@ public abstract class GraphModule {
                 throw new RuntimeException(ioe);
             }
         }
-        return GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(tdr, wiring)).build();
+        return GraphQL.newGraphQL(new SchemaGenerator().makeExecutableSchema(tdr, wiring))
+                .preparsedDocumentProvider(new GraphQLDocumentCache(MAX_CACHED_DOCUMENTS))
+                .instrumentation(
+                        new ChainedInstrumentation(
+                                List.of(
+                                        // dispatches the batched loads of RecordingsFetcher
+                                        new DataLoaderDispatcherInstrumentation(),
+                                        new QueryLimitsInstrumentation(maxDepth, maxCost),
+                                        new FieldFetchInstrumentation())))
+                .build();
+    }
+
+    @Provides
+    @Named(Variables.GRAPHQL_MAX_DEPTH)
+    static int provideMaxQueryDepth(Environment env) {
+        return Integer.parseInt(env.getEnv(Variables.GRAPHQL_MAX_DEPTH, "16"));
+    }
+
+    @Provides
+    @Named(Variables.GRAPHQL_MAX_COST)
+    static int provideMaxQueryCost(Environment env) {
+        return Integer.parseInt(env.getEnv(Variables.GRAPHQL_MAX_COST, "20000"));
     }
 
     @Provides
@@ -208,6 +243,35 @@ public abstract class GraphModule {
         return new RootNodeFetcher(auth, storage);
     }
 
+    @Provides
+    static DataLoaderRegistry provideDataLoaderRegistry(RecordingsFetcher recordingsFetcher) {
+        DataLoaderRegistry registry = new DataLoaderRegistry();
+        registry.register(RecordingsFetcher.DATA_LOADER, recordingsFetcher.newDataLoader());
+        return registry;
+    }
+
+    @Provides
+    @Named(Variables.GRAPHQL_TARGET_PARALLELISM)
+    static int provideTargetQueryParallelism(Environment env) {
+        return Math.max(1, Integer.parseInt(env.getEnv(Variables.GRAPHQL_TARGET_PARALLELISM, "8")));
+    }
+
+    @Provides
+    @Singleton
+    @Named(TARGET_QUERY_EXECUTOR)
+    static ExecutorService provideTargetQueryExecutor() {
+        // each query limits itself to the configured parallelism, so this pool must not impose a
+        // lower global limit or one query fetching from many slow targets would delay all others.
+        // Connections to targets are still limited by the TargetConnectionManager
+        AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newCachedThreadPool(
+                r -> {
+                    Thread t = new Thread(r, "cryostat-graphql-" + threadCount.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
     @Provides
     static RecordingsFetcher provideRecordingsFetcher(
             AuthManager auth,
@@ -216,9 +280,19 @@ public abstract class GraphModule {
             CredentialsManager credentialsManager,
             RecordingMetadataManager metadataManager,
             Provider<WebServer> webServer,
+            @Named(TARGET_QUERY_EXECUTOR) ExecutorService executor,
+            @Named(Variables.GRAPHQL_TARGET_PARALLELISM) int parallelism,
             Logger logger) {
         return new RecordingsFetcher(
-                auth, tcm, archiveHelper, credentialsManager, metadataManager, webServer, logger);
+                auth,
+                tcm,
+                archiveHelper,
+                credentialsManager,
+                metadataManager,
+                webServer,
+                executor,
+                parallelism,
+                logger);
     }
 
     @Provides
@@ -243,8 +317,17 @@ public abstract class GraphModule {
     }
 
     @Provides
-    static TargetNodeRecurseFetcher provideTargetNodeRecurseFetcher(AuthManager auth) {
-        return new TargetNodeRecurseFetcher(auth);
+    static TargetNodeRecurseFetcher provideTargetNodeRecurseFetcher(
+            AuthManager auth, TargetAnnotationIndex annotationIndex) {
+        return new TargetNodeRecurseFetcher(auth, annotationIndex);
+    }
+
+    @Provides
+    @Singleton
+    static TargetAnnotationIndex provideTargetAnnotationIndex(DiscoveryStorage storage) {
+        TargetAnnotationIndex index = new TargetAnnotationIndex();
+        storage.addTargetDiscoveryListener(index);
+        return index;
     }
 
     @Provides
@@ -267,8 +350,9 @@ public abstract class GraphModule {
     static TargetNodesFetcher provideTargetNodesFetcher(
             AuthManager auth,
             RootNodeFetcher rootNodeFetcher,
-            TargetNodeRecurseFetcher recurseFetcher) {
-        return new TargetNodesFetcher(auth, rootNodeFetcher, recurseFetcher);
+            TargetNodeRecurseFetcher recurseFetcher,
+            TargetAnnotationIndex annotationIndex) {
+        return new TargetNodesFetcher(auth, rootNodeFetcher, recurseFetcher, annotationIndex);
     }
 
     @Provides
@@ -0,0 +1,108 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.ApolloPersistedQuerySupport;
+import graphql.execution.preparsed.persisted.PersistedQueryCache;
+import graphql.execution.preparsed.persisted.PersistedQueryCacheMiss;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+
+/**
+ * Keeps parsed and validated query documents so that repeated queries skip parsing and validation.
+ * Ordinary queries are cached by their text. Queries may also be persisted by clients following the
+ * Apollo automatic persisted queries protocol: a query sent along with its SHA-256 hash in the
+ * {@code persistedQuery} request extension is remembered under that hash, and later requests may
+ * send only the hash. Both caches are bounded, so a client must be prepared to send the full query
+ * again if it receives a {@code PersistedQueryNotFound} error.
+ */
+class GraphQLDocumentCache extends ApolloPersistedQuerySupport {
+
+    private final Cache<String, PreparsedDocumentEntry> documents;
+
+    GraphQLDocumentCache(int maxDocuments) {
+        super(new PersistedQueries(maxDocuments));
+        this.documents = Caffeine.newBuilder().maximumSize(maxDocuments).build();
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(
+            ExecutionInput executionInput,
+            Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction) {
+        if (getPersistedQueryId(executionInput).isPresent()) {
+            return super.getDocument(executionInput, parseAndValidateFunction);
+        }
+        // the document does not depend on the operation name or variables, so requests which only
+        // differ in these can share an entry
+        return documents.get(
+                executionInput.getQuery(), q -> parseAndValidateFunction.apply(executionInput));
+    }
+
+    private static class PersistedQueries implements PersistedQueryCache {
+        private final Cache<Object, PreparsedDocumentEntry> documents;
+
+        PersistedQueries(int maxDocuments) {
+            this.documents = Caffeine.newBuilder().maximumSize(maxDocuments).build();
+        }
+
+        @Override
+        public PreparsedDocumentEntry getPersistedQueryDocument(
+                Object persistedQueryId,
+                ExecutionInput executionInput,
+                PersistedQueryCacheMiss onCacheMiss)
+                throws PersistedQueryNotFound {
+            return documents.get(
+                    persistedQueryId,
+                    id -> {
+                        String query = executionInput.getQuery();
+                        if (query == null || PERSISTED_QUERY_MARKER.equals(query)) {
+                            // the client only sent the hash of a query we do not know
+                            query = null;
+                        }
+                        // verifies the hash and throws PersistedQueryError if the query is missing
+                        // or does not match. Nothing is cached in that case
+                        return onCacheMiss.apply(query);
+                    });
+        }
+    }
+}
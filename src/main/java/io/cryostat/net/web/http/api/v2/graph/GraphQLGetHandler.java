@@ -38,17 +38,19 @@
 package io.cryostat.net.web.http.api.v2.graph;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import io.cryostat.net.AuthManager;
 
 import graphql.GraphQL;
 import io.vertx.core.http.HttpMethod;
+import org.dataloader.DataLoaderRegistry;
 
 class GraphQLGetHandler extends GraphQLPostHandler {
 
     @Inject
-    GraphQLGetHandler(GraphQL graph, AuthManager auth) {
-        super(graph, auth);
+    GraphQLGetHandler(GraphQL graph, Provider<DataLoaderRegistry> dataLoaders, AuthManager auth) {
+        super(graph, dataLoaders, auth);
     }
 
     @Override
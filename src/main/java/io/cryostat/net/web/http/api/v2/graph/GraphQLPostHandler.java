@@ -37,33 +37,56 @@
  */
 package io.cryostat.net.web.http.api.v2.graph;
 
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
 
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.security.ResourceAction;
+import io.cryostat.net.web.http.HttpMimeType;
 import io.cryostat.net.web.http.RequestHandler;
 import io.cryostat.net.web.http.api.ApiVersion;
 import io.cryostat.net.web.http.api.v2.ApiException;
 
 import graphql.GraphQL;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.graphql.GraphQLHandler;
+import org.apache.commons.lang3.StringUtils;
+import org.dataloader.DataLoaderRegistry;
 
 class GraphQLPostHandler implements RequestHandler {
 
     static final String PATH = "graphql";
+    static final String QUERY = "query";
+    static final String EXTENSIONS = "extensions";
 
     private final GraphQLHandler handler;
     private final AuthManager auth;
 
     @Inject
-    GraphQLPostHandler(GraphQL graph, AuthManager auth) {
-        this.handler = GraphQLHandler.create(graph);
+    GraphQLPostHandler(GraphQL graph, Provider<DataLoaderRegistry> dataLoaders, AuthManager auth) {
+        this.handler =
+                GraphQLHandler.create(graph)
+                        .beforeExecute(
+                                input -> {
+                                    // each query gets its own data loaders, which batch its
+                                    // target lookups together
+                                    input.builder().dataLoaderRegistry(dataLoaders.get());
+                                    Map<String, Object> extensions =
+                                            input.context().get(EXTENSIONS);
+                                    if (extensions != null) {
+                                        input.builder().extensions(extensions);
+                                    }
+                                });
         this.auth = auth;
     }
 
@@ -106,6 +129,58 @@ class GraphQLPostHandler implements RequestHandler {
         } catch (InterruptedException | ExecutionException e) {
             throw new ApiException(500, e);
         }
+        readExtensions(ctx);
         this.handler.handle(ctx);
     }
+
+    /**
+     * vert.x does not pass request extensions on to the GraphQL engine, and rejects requests
+     * without query text. Keep the extensions for {@link GraphQLDocumentCache} to look up persisted
+     * queries by their hash, and stand in for the query text of requests which only send the hash.
+     */
+    void readExtensions(RoutingContext ctx) {
+        try {
+            if (HttpMethod.GET.equals(ctx.request().method())) {
+                String extensions = ctx.queryParams().get(EXTENSIONS);
+                if (StringUtils.isBlank(extensions)) {
+                    return;
+                }
+                ctx.put(EXTENSIONS, new JsonObject(extensions).getMap());
+                if (StringUtils.isBlank(ctx.queryParams().get(QUERY))) {
+                    ctx.queryParams().set(QUERY, PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+                }
+                return;
+            }
+            String contentType = ctx.request().getHeader(HttpHeaders.CONTENT_TYPE);
+            Buffer body = ctx.getBody();
+            if ((contentType != null && !contentType.startsWith(HttpMimeType.JSON.mime()))
+                    || body == null
+                    || !isJsonObject(body)) {
+                // batched or non-JSON requests are left to the GraphQL handler
+                return;
+            }
+            JsonObject json = body.toJsonObject();
+            JsonObject extensions = json.getJsonObject(EXTENSIONS);
+            if (extensions == null) {
+                return;
+            }
+            ctx.put(EXTENSIONS, extensions.getMap());
+            if (StringUtils.isBlank(json.getString(QUERY))) {
+                ctx.setBody(
+                        json.put(QUERY, PersistedQuerySupport.PERSISTED_QUERY_MARKER).toBuffer());
+            }
+        } catch (DecodeException | ClassCastException e) {
+            throw new ApiException(400, e);
+        }
+    }
+
+    private static boolean isJsonObject(Buffer body) {
+        for (int i = 0; i < body.length(); i++) {
+            byte b = body.getByte(i);
+            if (!Character.isWhitespace(b)) {
+                return b == '{';
+            }
+        }
+        return false;
+    }
 }
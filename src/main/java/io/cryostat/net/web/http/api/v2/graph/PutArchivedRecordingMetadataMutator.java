@@ -111,6 +111,7 @@ class PutArchivedRecordingMetadataMutator implements DataFetcher<ArchivedRecordi
                 ws.getArchivedDownloadURL(uri, recordingName),
                 ws.getArchivedReportURL(uri, recordingName),
                 metadata,
-                size);
+                size,
+                source.getArchivedTime());
     }
 }
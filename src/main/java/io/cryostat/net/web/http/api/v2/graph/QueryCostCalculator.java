@@ -0,0 +1,88 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.util.Set;
+
+import graphql.analysis.FieldComplexityCalculator;
+import graphql.analysis.FieldComplexityEnvironment;
+
+/**
+ * Estimates the cost of executing a query field. Ordinary fields cost 1. Fields which must open a
+ * JMX connection to a target cost {@link #TARGET_CONNECTION_COST}, and the selections below fields
+ * which return a list of targets are counted as if they were repeated for {@link
+ * #ASSUMED_TARGET_COUNT} targets, since the real number of targets is only known while executing
+ * the query. A query selecting the active recordings of all descendant targets of a node is
+ * therefore much more expensive than one listing the archived recordings of a single target.
+ */
+class QueryCostCalculator implements FieldComplexityCalculator {
+
+    static final int TARGET_CONNECTION_COST = 10;
+    static final int ASSUMED_TARGET_COUNT = 10;
+
+    // fields whose data fetchers or mutators connect to the target JVM
+    private static final Set<String> TARGET_CONNECTION_FIELDS =
+            Set.of(
+                    "Recordings.active",
+                    "TargetNode.doStartRecording",
+                    "TargetNode.doSnapshot",
+                    "ActiveRecording.doArchive",
+                    "ActiveRecording.doStop",
+                    "ActiveRecording.doDelete",
+                    "ActiveRecording.doPutMetadata");
+
+    // fields which may return any number of targets
+    private static final Set<String> TARGET_LIST_FIELDS =
+            Set.of(
+                    "Query.targetNodes",
+                    "EnvironmentNode.children",
+                    "EnvironmentNode.descendantTargets");
+
+    @Override
+    public int calculate(FieldComplexityEnvironment environment, int childComplexity) {
+        String field =
+                environment.getParentType().getName() + "." + environment.getField().getName();
+        long cost = TARGET_CONNECTION_FIELDS.contains(field) ? TARGET_CONNECTION_COST : 1;
+        if (TARGET_LIST_FIELDS.contains(field)) {
+            cost += (long) childComplexity * ASSUMED_TARGET_COUNT;
+        } else {
+            cost += childComplexity;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, cost);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import graphql.ExecutionResult;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.analysis.MaxQueryDepthInstrumentation;
+import graphql.execution.ExecutionContext;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.InstrumentationContext;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationExecuteOperationParameters;
+import graphql.execution.instrumentation.parameters.InstrumentationValidationParameters;
+
+/**
+ * Rejects queries which are nested too deeply or are estimated to be too expensive by {@link
+ * QueryCostCalculator}. The checks provided by graphql-java are made while validating a query,
+ * which is skipped for documents served by {@link GraphQLDocumentCache}, so they are applied here
+ * to every execution instead. This also means the checks see the variables of each execution, which
+ * may include or skip parts of the query.
+ */
+class QueryLimitsInstrumentation extends SimpleInstrumentation {
+
+    private final List<Instrumentation> limits = new ArrayList<>();
+
+    /**
+     * @param maxDepth the maximum query depth, or a value less than 1 for no limit
+     * @param maxCost the maximum query cost, or a value less than 1 for no limit
+     */
+    QueryLimitsInstrumentation(int maxDepth, int maxCost) {
+        if (maxDepth > 0) {
+            limits.add(new MaxQueryDepthInstrumentation(maxDepth));
+        }
+        if (maxCost > 0) {
+            limits.add(new MaxQueryComplexityInstrumentation(maxCost, new QueryCostCalculator()));
+        }
+    }
+
+    @Override
+    public InstrumentationContext<ExecutionResult> beginExecuteOperation(
+            InstrumentationExecuteOperationParameters parameters) {
+        ExecutionContext ctx = parameters.getExecutionContext();
+        InstrumentationValidationParameters validationParameters =
+                new InstrumentationValidationParameters(
+                        ctx.getExecutionInput(),
+                        ctx.getDocument(),
+                        ctx.getGraphQLSchema(),
+                        parameters.getInstrumentationState());
+        for (Instrumentation limit : limits) {
+            // throws AbortExecutionException if the limit is exceeded
+            limit.beginValidation(validationParameters).onCompleted(List.of(), null);
+        }
+        return super.beginExecuteOperation(parameters);
+    }
+}
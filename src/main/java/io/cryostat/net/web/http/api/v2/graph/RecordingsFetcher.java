@@ -39,11 +39,23 @@ package io.cryostat.net.web.http.api.v2.graph;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -59,6 +71,7 @@ import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.web.WebServer;
 import io.cryostat.net.web.http.api.v2.graph.RecordingsFetcher.Recordings;
+import io.cryostat.net.web.http.api.v2.graph.labels.LabelSelectorMatcher;
 import io.cryostat.platform.ServiceRef;
 import io.cryostat.platform.discovery.TargetNode;
 import io.cryostat.recordings.RecordingArchiveHelper;
@@ -67,15 +80,37 @@ import io.cryostat.recordings.RecordingMetadataManager.Metadata;
 import io.cryostat.rules.ArchivedRecordingInfo;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.DataFetcherResult;
 import graphql.schema.DataFetchingEnvironment;
+import graphql.schema.SelectedField;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.apache.commons.lang3.tuple.Pair;
+import org.dataloader.DataLoader;
+import org.dataloader.DataLoaderFactory;
 
-class RecordingsFetcher extends AbstractPermissionedDataFetcher<Recordings> {
+/**
+ * Fetches the active and archived recordings of a target. The recordings of every target selected
+ * by one query are loaded together through a {@link DataLoader}, so that a query spanning many
+ * targets contacts up to {@code parallelism} of them at once rather than one after another. This
+ * limit applies to each query separately, so the executor should not impose a lower shared limit.
+ * The active and archived recordings of each target are also fetched concurrently. A target which
+ * cannot be reached does not fail the whole query: its recordings are returned as empty lists, and
+ * the failure is reported as an error on that target's {@code recordings} field.
+ */
+class RecordingsFetcher
+        extends AbstractPermissionedDataFetcher<CompletableFuture<DataFetcherResult<Recordings>>> {
+
+    static final String DATA_LOADER = "recordings";
 
     private final TargetConnectionManager targetConnectionManager;
     private final RecordingArchiveHelper archiveHelper;
     private final CredentialsManager credentialsManager;
     private final RecordingMetadataManager metadataManager;
     private final Provider<WebServer> webServer;
+    private final ExecutorService executor;
+    private final int parallelism;
     private final Logger logger;
 
     @Inject
@@ -86,6 +121,8 @@ class RecordingsFetcher extends AbstractPermissionedDataFetcher<Recordings> {
             CredentialsManager credentialsManager,
             RecordingMetadataManager metadataManager,
             Provider<WebServer> webServer,
+            ExecutorService executor,
+            int parallelism,
             Logger logger) {
         super(auth);
         this.targetConnectionManager = targetConnectionManager;
@@ -93,6 +130,8 @@ class RecordingsFetcher extends AbstractPermissionedDataFetcher<Recordings> {
         this.credentialsManager = credentialsManager;
         this.metadataManager = metadataManager;
         this.webServer = webServer;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
         this.logger = logger;
     }
 
@@ -105,32 +144,193 @@ class RecordingsFetcher extends AbstractPermissionedDataFetcher<Recordings> {
     }
 
     @Override
+    public CompletableFuture<DataFetcherResult<Recordings>> getAuthenticated(
+            DataFetchingEnvironment environment) throws Exception {
+        TargetNode source = (TargetNode) environment.getSource();
+        ServiceRef target = source.getTarget();
+        String targetId = target.getServiceUri().toString();
+
+        List<SelectedField> selectedFields = environment.getSelectionSet().getFields();
+        List<String> requestedFields =
+                selectedFields.stream().map(field -> field.getName()).collect(Collectors.toList());
+
+        boolean active = requestedFields.contains("active");
+        boolean archived = requestedFields.contains("archived");
+        Set<String> activeCandidates =
+                active ? findActiveCandidates(targetId, selectedFields).orElse(null) : null;
+        RecordingsKey key = new RecordingsKey(target, active, archived, activeCandidates);
+
+        DataLoader<RecordingsKey, TargetRecordings> loader = environment.getDataLoader(DATA_LOADER);
+        CompletableFuture<TargetRecordings> result = loader == null ? load(key) : loader.load(key);
+        return result.thenApply(r -> r.toResult(environment));
+    }
+
+    /**
+     * Create a loader which batches the recordings requests made while executing a single query. A
+     * new loader must be used for every query so that results are not shared between queries or
+     * users. Every batch dispatched by the loader shares one limit of {@code parallelism} targets.
+     */
+    DataLoader<RecordingsKey, TargetRecordings> newDataLoader() {
+        TargetLimiter limiter = new TargetLimiter();
+        return DataLoaderFactory.newDataLoader(keys -> loadAll(keys, limiter));
+    }
+
+    private CompletionStage<List<TargetRecordings>> loadAll(
+            List<RecordingsKey> keys, TargetLimiter limiter) {
+        List<CompletableFuture<TargetRecordings>> results = new ArrayList<>(keys.size());
+        for (RecordingsKey key : keys) {
+            CompletableFuture<TargetRecordings> result = new CompletableFuture<>();
+            results.add(result);
+            limiter.submit(key, result);
+        }
+        return CompletableFuture.allOf(results.toArray(new CompletableFuture[0]))
+                .thenApply(
+                        v ->
+                                results.stream()
+                                        .map(CompletableFuture::join)
+                                        .collect(Collectors.toList()));
+    }
+
+    /** Loads the recordings of up to {@code parallelism} targets at once for one query. */
+    private class TargetLimiter {
+        private final Queue<Pair<RecordingsKey, CompletableFuture<TargetRecordings>>> pending =
+                new ConcurrentLinkedQueue<>();
+        private final AtomicInteger running = new AtomicInteger();
+
+        void submit(RecordingsKey key, CompletableFuture<TargetRecordings> result) {
+            pending.add(Pair.of(key, result));
+            drain();
+        }
+
+        private void drain() {
+            while (!pending.isEmpty()) {
+                int r = running.get();
+                if (r >= parallelism) {
+                    // a running load will drain the queue when it completes
+                    return;
+                }
+                if (!running.compareAndSet(r, r + 1)) {
+                    continue;
+                }
+                Pair<RecordingsKey, CompletableFuture<TargetRecordings>> next = pending.poll();
+                if (next == null) {
+                    running.decrementAndGet();
+                    continue;
+                }
+                CompletableFuture<TargetRecordings> load = load(next.getKey());
+                if (load.isDone()) {
+                    // loads which did not need to contact the target complete immediately. Carry
+                    // on with the next key on this thread rather than recursing
+                    running.decrementAndGet();
+                    complete(next.getValue(), load);
+                    continue;
+                }
+                load.whenComplete(
+                        (t, ex) -> {
+                            running.decrementAndGet();
+                            complete(next.getValue(), load);
+                            drain();
+                        });
+            }
+        }
+
+        private void complete(
+                CompletableFuture<TargetRecordings> result,
+                CompletableFuture<TargetRecordings> load) {
+            try {
+                result.complete(load.join());
+            } catch (CompletionException e) {
+                result.completeExceptionally(e.getCause());
+            }
+        }
+    }
+
     @SuppressFBWarnings(
             value = "URF_UNREAD_FIELD",
             justification =
                     "The Recordings fields are serialized and returned to the client by the GraphQL"
                             + " engine")
-    public Recordings getAuthenticated(DataFetchingEnvironment environment) throws Exception {
-        TargetNode source = (TargetNode) environment.getSource();
-        ServiceRef target = source.getTarget();
-        String targetId = target.getServiceUri().toString();
-        Recordings recordings = new Recordings();
+    CompletableFuture<TargetRecordings> load(RecordingsKey key) {
+        String targetId = key.target.getServiceUri().toString();
+        TargetRecordings result = new TargetRecordings();
 
-        List<String> requestedFields =
-                environment.getSelectionSet().getFields().stream()
-                        .map(field -> field.getName())
-                        .collect(Collectors.toList());
+        CompletableFuture<Void> active;
+        if (!key.active) {
+            active = CompletableFuture.completedFuture(null);
+        } else if (key.activeCandidates != null && key.activeCandidates.isEmpty()) {
+            // no recording of this target has labels matching the requested label
+            // selectors, so there is no need to connect to it
+            result.recordings.active = List.of();
+            active = CompletableFuture.completedFuture(null);
+        } else {
+            active =
+                    CompletableFuture.supplyAsync(() -> getActiveRecordings(key), executor)
+                            .handle(
+                                    (recordings, t) -> {
+                                        if (t != null) {
+                                            Throwable cause = unwrap(t);
+                                            logger.warn(
+                                                    "Couldn't get active recordings for {}",
+                                                    targetId);
+                                            logger.warn(cause);
+                                            result.recordings.active = List.of();
+                                            result.errors.add(
+                                                    String.format(
+                                                            "Failed to retrieve active recordings"
+                                                                    + " of %s: %s",
+                                                            targetId, cause.getMessage()));
+                                        } else {
+                                            result.recordings.active = recordings;
+                                        }
+                                        return null;
+                                    });
+        }
 
-        if (requestedFields.contains("active")) {
+        CompletableFuture<Void> archived;
+        if (!key.archived) {
+            archived = CompletableFuture.completedFuture(null);
+        } else {
+            archived =
+                    CompletableFuture.supplyAsync(() -> getArchivedRecordings(targetId), executor)
+                            .handle(
+                                    (recordings, t) -> {
+                                        if (t != null) {
+                                            Throwable cause = unwrap(t);
+                                            logger.warn(
+                                                    "Couldn't get archived recordings for {}",
+                                                    targetId);
+                                            logger.warn(cause);
+                                            result.recordings.archived = List.of();
+                                            result.errors.add(
+                                                    String.format(
+                                                            "Failed to retrieve archived"
+                                                                    + " recordings of %s: %s",
+                                                            targetId, cause.getMessage()));
+                                        } else {
+                                            result.recordings.archived = recordings;
+                                        }
+                                        return null;
+                                    });
+        }
+
+        return CompletableFuture.allOf(active, archived).thenApply(v -> result);
+    }
+
+    private List<GraphRecordingDescriptor> getActiveRecordings(RecordingsKey key) {
+        ServiceRef target = key.target;
+        Predicate<String> isCandidate =
+                key.activeCandidates == null ? n -> true : key.activeCandidates::contains;
+        try {
             ConnectionDescriptor cd =
-                    new ConnectionDescriptor(targetId, credentialsManager.getCredentials(target));
-            // FIXME populating these two struct members are each async tasks. we should do them in
-            // parallel
-            recordings.active =
-                    targetConnectionManager.executeConnectedTask(
-                            cd,
+                    new ConnectionDescriptor(
+                            target.getServiceUri().toString(),
+                            credentialsManager.getCredentials(target));
+            return targetConnectionManager.executeConnectedTask(
+                    cd,
+                    TargetConnectionManager.readOnly(
                             conn -> {
                                 return conn.getService().getAvailableRecordings().stream()
+                                        .filter(r -> isCandidate.test(r.getName()))
                                         .map(
                                                 r -> {
                                                     try {
@@ -162,24 +362,131 @@ class RecordingsFetcher extends AbstractPermissionedDataFetcher<Recordings> {
                                                 })
                                         .filter(Objects::nonNull)
                                         .collect(Collectors.toList());
-                            });
+                            }));
+        } catch (Exception e) {
+            throw new CompletionException(e);
         }
+    }
 
-        if (requestedFields.contains("archived")) {
-            try {
-                recordings.archived = archiveHelper.getRecordings(targetId).get();
-            } catch (ExecutionException e) {
-                recordings.archived = List.of();
-                logger.warn("Couldn't get archived recordings for {}", targetId);
-                logger.warn(e);
-            }
+    private List<ArchivedRecordingInfo> getArchivedRecordings(String targetId) {
+        try {
+            return archiveHelper.getRecordings(targetId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        while (t instanceof CompletionException && t.getCause() != null) {
+            t = t.getCause();
         }
+        return t;
+    }
 
-        return recordings;
+    /**
+     * Use the recording label index to find the names of the active recordings that could be
+     * selected by the label filters on the requested active field(s).
+     *
+     * @return the candidate recording names, or empty if the filters cannot be used to rule out any
+     *     recordings
+     */
+    private Optional<Set<String>> findActiveCandidates(
+            String targetId, List<SelectedField> selectedFields) {
+        Set<String> candidates = new HashSet<>();
+        boolean found = false;
+        for (SelectedField field : selectedFields) {
+            if (!"active".equals(field.getName())) {
+                continue;
+            }
+            found = true;
+            FilterInput filter = FilterInput.from(field);
+            if (!filter.contains(FilterInput.Key.LABELS)) {
+                return Optional.empty();
+            }
+            List<String> labels = filter.get(FilterInput.Key.LABELS);
+            Optional<Set<String>> names =
+                    metadataManager.findRecordingNames(
+                            targetId,
+                            labels.stream()
+                                    .map(LabelSelectorMatcher::parse)
+                                    .collect(Collectors.toList()));
+            if (names.isEmpty()) {
+                return Optional.empty();
+            }
+            // the same field may be requested more than once under different aliases
+            candidates.addAll(names.get());
+        }
+        return found ? Optional.of(candidates) : Optional.empty();
     }
 
     static class Recordings {
         List<GraphRecordingDescriptor> active;
         List<ArchivedRecordingInfo> archived;
     }
+
+    /** The recordings requested from one target by one selection of its recordings field. */
+    static class RecordingsKey {
+        final ServiceRef target;
+        final boolean active;
+        final boolean archived;
+        // names of the only active recordings which may be selected, or null if any may be
+        final Set<String> activeCandidates;
+
+        RecordingsKey(
+                ServiceRef target, boolean active, boolean archived, Set<String> activeCandidates) {
+            this.target = target;
+            this.active = active;
+            this.archived = archived;
+            this.activeCandidates = activeCandidates;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == null) {
+                return false;
+            }
+            if (other == this) {
+                return true;
+            }
+            if (!(other instanceof RecordingsKey)) {
+                return false;
+            }
+            RecordingsKey key = (RecordingsKey) other;
+            return new EqualsBuilder()
+                    .append(target, key.target)
+                    .append(active, key.active)
+                    .append(archived, key.archived)
+                    .append(activeCandidates, key.activeCandidates)
+                    .build();
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(target)
+                    .append(active)
+                    .append(archived)
+                    .append(activeCandidates)
+                    .toHashCode();
+        }
+    }
+
+    /** The recordings loaded from one target, along with any failures while loading them. */
+    static class TargetRecordings {
+        final Recordings recordings = new Recordings();
+        final List<String> errors = new CopyOnWriteArrayList<>();
+
+        DataFetcherResult<Recordings> toResult(DataFetchingEnvironment environment) {
+            DataFetcherResult.Builder<Recordings> result =
+                    DataFetcherResult.<Recordings>newResult().data(recordings);
+            for (String error : errors) {
+                result.error(
+                        GraphqlErrorBuilder.newError(environment).message("%s", error).build());
+            }
+            return result.build();
+        }
+    }
 }
@@ -0,0 +1,97 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
+import io.cryostat.net.web.http.api.v2.graph.labels.LabelIndex;
+import io.cryostat.net.web.http.api.v2.graph.labels.LabelSelectorMatcher;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.TargetDiscoveryEvent;
+import io.cryostat.platform.discovery.TargetNode;
+
+/**
+ * Index of discovered targets' annotations, kept current from target discovery events, so that
+ * annotation selectors can be answered by set operations over the index. Targets that have not
+ * (yet) been seen in a discovery event are tested against the selector directly.
+ */
+class TargetAnnotationIndex implements Consumer<TargetDiscoveryEvent> {
+
+    private final LabelIndex<URI> index = new LabelIndex<>();
+
+    @Override
+    public void accept(TargetDiscoveryEvent tde) {
+        ServiceRef serviceRef = tde.getServiceRef();
+        if (EventKind.LOST.equals(tde.getEventKind())) {
+            index.remove(serviceRef.getServiceUri());
+        } else {
+            index.put(serviceRef.getServiceUri(), annotations(serviceRef));
+        }
+    }
+
+    /** The nodes whose target's annotations match the given selector. */
+    List<TargetNode> filter(List<TargetNode> nodes, String selector) {
+        LabelSelectorMatcher matcher = LabelSelectorMatcher.parse(selector);
+        Set<URI> selected = matcher.select(index);
+        return nodes.stream()
+                .filter(
+                        n -> {
+                            URI uri = n.getTarget().getServiceUri();
+                            if (index.contains(uri)) {
+                                return selected.contains(uri);
+                            }
+                            return matcher.test(annotations(n.getTarget()));
+                        })
+                .collect(Collectors.toList());
+    }
+
+    /** The Cryostat and platform annotations of the target, merged into one map. */
+    static Map<String, String> annotations(ServiceRef serviceRef) {
+        Map<String, String> merged = new HashMap<>();
+        serviceRef.getCryostatAnnotations().forEach((key, val) -> merged.put(key.name(), val));
+        merged.putAll(serviceRef.getPlatformAnnotations());
+        return merged;
+    }
+}
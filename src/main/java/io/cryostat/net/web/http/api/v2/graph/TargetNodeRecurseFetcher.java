@@ -39,12 +39,9 @@ package io.cryostat.net.web.http.api.v2.graph;
 
 import java.util.ArrayList;
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -61,9 +58,12 @@ import graphql.schema.DataFetchingEnvironmentImpl;
 
 class TargetNodeRecurseFetcher extends AbstractPermissionedDataFetcher<List<TargetNode>> {
 
+    private final TargetAnnotationIndex annotationIndex;
+
     @Inject
-    TargetNodeRecurseFetcher(AuthManager auth) {
+    TargetNodeRecurseFetcher(AuthManager auth, TargetAnnotationIndex annotationIndex) {
         super(auth);
+        this.annotationIndex = annotationIndex;
     }
 
     @Override
@@ -107,23 +107,8 @@ class TargetNodeRecurseFetcher extends AbstractPermissionedDataFetcher<List<Targ
         }
         if (filter.contains(FilterInput.Key.ANNOTATIONS)) {
             List<String> annotations = filter.get(FilterInput.Key.ANNOTATIONS);
-            Function<TargetNode, Map<String, String>> mergedAnnotations =
-                    n -> {
-                        Map<String, String> merged = new HashMap<>();
-                        n.getTarget()
-                                .getCryostatAnnotations()
-                                .forEach((key, val) -> merged.put(key.name(), val));
-                        merged.putAll(n.getTarget().getPlatformAnnotations());
-                        return merged;
-                    };
             for (String annotation : annotations) {
-                result =
-                        result.stream()
-                                .filter(
-                                        n ->
-                                                LabelSelectorMatcher.parse(annotation)
-                                                        .test(mergedAnnotations.apply(n)))
-                                .collect(Collectors.toList());
+                result = annotationIndex.filter(result, annotation);
             }
         }
         return result;
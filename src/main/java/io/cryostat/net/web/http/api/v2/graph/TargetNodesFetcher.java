@@ -38,12 +38,9 @@
 package io.cryostat.net.web.http.api.v2.graph;
 
 import java.util.EnumSet;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import javax.inject.Inject;
@@ -60,15 +57,18 @@ class TargetNodesFetcher extends AbstractPermissionedDataFetcher<List<TargetNode
 
     private final RootNodeFetcher rootNodeFetcher;
     private final TargetNodeRecurseFetcher recurseFetcher;
+    private final TargetAnnotationIndex annotationIndex;
 
     @Inject
     TargetNodesFetcher(
             AuthManager auth,
             RootNodeFetcher rootNodefetcher,
-            TargetNodeRecurseFetcher recurseFetcher) {
+            TargetNodeRecurseFetcher recurseFetcher,
+            TargetAnnotationIndex annotationIndex) {
         super(auth);
         this.rootNodeFetcher = rootNodefetcher;
         this.recurseFetcher = recurseFetcher;
+        this.annotationIndex = annotationIndex;
     }
 
     @Override
@@ -102,23 +102,8 @@ class TargetNodesFetcher extends AbstractPermissionedDataFetcher<List<TargetNode
         }
         if (filter.contains(FilterInput.Key.ANNOTATIONS)) {
             List<String> annotations = filter.get(FilterInput.Key.ANNOTATIONS);
-            Function<TargetNode, Map<String, String>> mergedAnnotations =
-                    n -> {
-                        Map<String, String> merged = new HashMap<>();
-                        n.getTarget()
-                                .getCryostatAnnotations()
-                                .forEach((key, val) -> merged.put(key.name(), val));
-                        merged.putAll(n.getTarget().getPlatformAnnotations());
-                        return merged;
-                    };
             for (String annotation : annotations) {
-                result =
-                        result.stream()
-                                .filter(
-                                        n ->
-                                                LabelSelectorMatcher.parse(annotation)
-                                                        .test(mergedAnnotations.apply(n)))
-                                .collect(Collectors.toList());
+                result = annotationIndex.filter(result, annotation);
             }
         }
         return result;
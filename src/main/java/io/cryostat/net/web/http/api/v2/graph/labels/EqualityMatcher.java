@@ -38,6 +38,7 @@
 package io.cryostat.net.web.http.api.v2.graph.labels;
 
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
@@ -63,6 +64,22 @@ public class EqualityMatcher implements LabelMatcher {
         return operator.with(value).test(s);
     }
 
+    @Override
+    public <T> Set<T> select(LabelIndex<T> index) {
+        switch (operator) {
+            case EQUAL:
+            case DOUBLE_EQUAL:
+                return index.get(key, value);
+            case NOT_EQUAL:
+                // objects without the key at all are not equal to the value either
+                Set<T> ids = index.all();
+                ids.removeAll(index.get(key, value));
+                return ids;
+            default:
+                throw new IllegalStateException(operator.name());
+        }
+    }
+
     public enum Operator {
         EQUAL("=", arg -> v -> Objects.equals(arg, v)),
         DOUBLE_EQUAL("==", arg -> v -> Objects.equals(arg, v)),
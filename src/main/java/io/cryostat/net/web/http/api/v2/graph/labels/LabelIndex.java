@@ -0,0 +1,141 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph.labels;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Inverted index of label key, to label value, to the IDs of the labelled objects. This allows a
+ * {@link LabelSelectorMatcher} to be answered by set operations over the objects with matching
+ * labels, rather than by testing every object's labels in turn.
+ *
+ * <p>Writes are serialized. Reads may run concurrently with writes and see each write either
+ * completely or not at all for a given key, but may see a write to one key and not yet to another.
+ */
+public class LabelIndex<T> {
+
+    private final Map<T, Map<String, String>> labels = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Set<T>>> index = new ConcurrentHashMap<>();
+
+    /**
+     * Index the given ID with the given labels, replacing any labels it was indexed with before.
+     */
+    public synchronized void put(T id, Map<String, String> labels) {
+        Map<String, String> copy = new HashMap<>(labels);
+        Map<String, String> previous = this.labels.put(id, copy);
+        if (previous != null) {
+            previous.forEach(
+                    (key, value) -> {
+                        if (!value.equals(copy.get(key))) {
+                            unindex(id, key, value);
+                        }
+                    });
+        }
+        copy.forEach(
+                (key, value) ->
+                        index.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+                                .computeIfAbsent(value, v -> ConcurrentHashMap.newKeySet())
+                                .add(id));
+    }
+
+    public synchronized void remove(T id) {
+        Map<String, String> previous = this.labels.remove(id);
+        if (previous != null) {
+            previous.forEach((key, value) -> unindex(id, key, value));
+        }
+    }
+
+    public boolean contains(T id) {
+        return labels.containsKey(id);
+    }
+
+    public boolean isEmpty() {
+        return labels.isEmpty();
+    }
+
+    /** All of the indexed IDs. */
+    public Set<T> all() {
+        return new HashSet<>(labels.keySet());
+    }
+
+    /** The IDs which have the given label key with the given value. */
+    public Set<T> get(String key, String value) {
+        Map<String, Set<T>> values = index.get(key);
+        if (values == null) {
+            return new HashSet<>();
+        }
+        Set<T> ids = values.get(value);
+        return ids == null ? new HashSet<>() : new HashSet<>(ids);
+    }
+
+    /** The IDs which have the given label key with any of the given values. */
+    public Set<T> get(String key, Collection<String> values) {
+        Set<T> ids = new HashSet<>();
+        values.forEach(value -> ids.addAll(get(key, value)));
+        return ids;
+    }
+
+    /** The IDs which have the given label key, with any value. */
+    public Set<T> get(String key) {
+        Map<String, Set<T>> values = index.get(key);
+        Set<T> ids = new HashSet<>();
+        if (values != null) {
+            values.values().forEach(ids::addAll);
+        }
+        return ids;
+    }
+
+    private void unindex(T id, String key, String value) {
+        index.computeIfPresent(
+                key,
+                (k, values) -> {
+                    values.computeIfPresent(
+                            value,
+                            (v, ids) -> {
+                                ids.remove(id);
+                                return ids.isEmpty() ? null : ids;
+                            });
+                    return values.isEmpty() ? null : values;
+                });
+    }
+}
@@ -37,8 +37,12 @@
  */
 package io.cryostat.net.web.http.api.v2.graph.labels;
 
+import java.util.Set;
 import java.util.function.Predicate;
 
 interface LabelMatcher extends Predicate<String> {
     String getKey();
+
+    /** The IDs of the objects in the index whose labels match. */
+    <T> Set<T> select(LabelIndex<T> index);
 }
@@ -43,6 +43,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.Matcher;
@@ -84,6 +85,38 @@ public class LabelSelectorMatcher implements Predicate<Map<String, String>> {
         return this.matchers.stream().allMatch(m -> m.test(labels.get(m.getKey())));
     }
 
+    /**
+     * The IDs of the objects in the index whose labels match this selector. This is equivalent to
+     * testing the labels of every indexed object.
+     */
+    public <T> Set<T> select(LabelIndex<T> index) {
+        if (matchers.isEmpty()) {
+            return index.all();
+        }
+        Set<T> ids = null;
+        for (LabelMatcher matcher : matchers) {
+            Set<T> selected = matcher.select(index);
+            if (ids == null) {
+                ids = selected;
+            } else {
+                ids.retainAll(selected);
+            }
+            if (ids.isEmpty()) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Whether an object with no labels at all matches this selector. If it does not, then any
+     * object missing from a {@link LabelIndex} is known not to match either, so {@link
+     * #select(LabelIndex)} gives the complete set of matches even when not every object is indexed.
+     */
+    public boolean matchesUnlabelled() {
+        return test(Map.of());
+    }
+
     public static LabelSelectorMatcher parse(String clause) throws IllegalArgumentException {
         Collection<Function<String, LabelMatcher>> parsers =
                 Arrays.asList(
@@ -69,6 +69,27 @@ public class SetMatcher implements LabelMatcher {
         return operator.with(values).test(s);
     }
 
+    @Override
+    public <T> Set<T> select(LabelIndex<T> index) {
+        Set<T> ids;
+        switch (operator) {
+            case IN:
+                return index.get(key, values);
+            case NOT_IN:
+                ids = index.all();
+                ids.removeAll(index.get(key, values));
+                return ids;
+            case EXISTS:
+                return index.get(key);
+            case DOES_NOT_EXIST:
+                ids = index.all();
+                ids.removeAll(index.get(key));
+                return ids;
+            default:
+                throw new IllegalStateException(operator.name());
+        }
+    }
+
     public enum Operator {
         IN("In", args -> v -> contains(args, v)),
         NOT_IN("NotIn", args -> v -> !contains(args, v)),
@@ -37,10 +37,14 @@
  */
 package io.cryostat.platform;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Consumer;
 
+import io.cryostat.platform.discovery.AbstractNode;
 import io.cryostat.platform.discovery.EnvironmentNode;
+import io.cryostat.platform.discovery.TargetNode;
 
 import io.vertx.core.Promise;
 
@@ -55,9 +59,56 @@ public interface PlatformClient {
 
     List<ServiceRef> listDiscoverableServices();
 
+    /** The discoverable service with the given connection URL, if there is one. */
+    default Optional<ServiceRef> getDiscoverableService(URI connectUrl) {
+        return listDiscoverableServices().stream()
+                .filter(sr -> sr.getServiceUri().equals(connectUrl))
+                .findFirst();
+    }
+
     void addTargetDiscoveryListener(Consumer<TargetDiscoveryEvent> listener);
 
     void removeTargetDiscoveryListener(Consumer<TargetDiscoveryEvent> listener);
 
     EnvironmentNode getDiscoveryTree();
+
+    /**
+     * The branch of the discovery tree beneath the realm node which leads to the given target:
+     * either its TargetNode, or a chain of EnvironmentNodes with one child each ending in its
+     * TargetNode. Used to publish a single discovered target without republishing the whole tree.
+     * The default implementation searches the whole tree, so platforms which know where a target
+     * belongs should override it.
+     */
+    default Optional<AbstractNode> getDiscoveryBranch(ServiceRef serviceRef) {
+        for (AbstractNode child : getDiscoveryTree().getChildren()) {
+            Optional<AbstractNode> branch = findBranch(child, serviceRef.getServiceUri());
+            if (branch.isPresent()) {
+                return branch;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<AbstractNode> findBranch(AbstractNode node, URI serviceUri) {
+        if (node instanceof TargetNode) {
+            return serviceUri.equals(((TargetNode) node).getTarget().getServiceUri())
+                    ? Optional.of(node)
+                    : Optional.empty();
+        }
+        if (node instanceof EnvironmentNode) {
+            EnvironmentNode environment = (EnvironmentNode) node;
+            for (AbstractNode child : environment.getChildren()) {
+                Optional<AbstractNode> branch = findBranch(child, serviceUri);
+                if (branch.isPresent()) {
+                    return Optional.of(
+                            new EnvironmentNode(
+                                    environment.getName(),
+                                    environment.getNodeType(),
+                                    environment.getLabels(),
+                                    List.of(branch.get())));
+                }
+            }
+        }
+        return Optional.empty();
+    }
 }
@@ -43,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -50,6 +51,7 @@ import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
 import io.cryostat.discovery.DiscoveryStorage;
 import io.cryostat.platform.AbstractPlatformClient;
 import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.discovery.AbstractNode;
 import io.cryostat.platform.discovery.BaseNodeType;
 import io.cryostat.platform.discovery.EnvironmentNode;
 import io.cryostat.platform.discovery.NodeType;
@@ -124,6 +126,11 @@ public class CustomTargetPlatformClient extends AbstractPlatformClient {
         return new EnvironmentNode(REALM, BaseNodeType.REALM, Collections.emptyMap(), children);
     }
 
+    @Override
+    public Optional<AbstractNode> getDiscoveryBranch(ServiceRef serviceRef) {
+        return Optional.of(new TargetNode(NODE_TYPE, serviceRef));
+    }
+
     public enum CustomTargetNodeType implements NodeType {
         CUSTOM_TARGET,
         ;
@@ -44,6 +44,7 @@ import java.net.URISyntaxException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -56,6 +57,7 @@ import io.cryostat.core.net.discovery.JvmDiscoveryClient.JvmDiscoveryEvent;
 import io.cryostat.platform.AbstractPlatformClient;
 import io.cryostat.platform.ServiceRef;
 import io.cryostat.platform.ServiceRef.AnnotationKey;
+import io.cryostat.platform.discovery.AbstractNode;
 import io.cryostat.platform.discovery.BaseNodeType;
 import io.cryostat.platform.discovery.EnvironmentNode;
 import io.cryostat.platform.discovery.NodeType;
@@ -141,4 +143,9 @@ public class DefaultPlatformClient extends AbstractPlatformClient
                         .toList();
         return new EnvironmentNode(REALM, BaseNodeType.REALM, Collections.emptyMap(), targets);
     }
+
+    @Override
+    public Optional<AbstractNode> getDiscoveryBranch(ServiceRef serviceRef) {
+        return Optional.of(new TargetNode(NODE_TYPE, serviceRef));
+    }
 }
@@ -38,22 +38,33 @@
 package io.cryostat.platform.internal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.JFRConnectionToolkit;
 import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
+import io.cryostat.core.sys.Environment;
 import io.cryostat.platform.AbstractPlatformClient;
 import io.cryostat.platform.ServiceRef;
 import io.cryostat.platform.ServiceRef.AnnotationKey;
+import io.cryostat.platform.discovery.AbstractNode;
 import io.cryostat.platform.discovery.BaseNodeType;
 import io.cryostat.platform.discovery.EnvironmentNode;
 import io.cryostat.platform.discovery.NodeType;
@@ -69,122 +80,135 @@ import io.fabric8.kubernetes.api.model.HasMetadata;
 import io.fabric8.kubernetes.api.model.ObjectReference;
 import io.fabric8.kubernetes.api.model.OwnerReference;
 import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.kubernetes.client.dsl.Informable;
 import io.fabric8.kubernetes.client.informers.ResourceEventHandler;
 import io.fabric8.kubernetes.client.informers.SharedIndexInformer;
+import io.fabric8.kubernetes.client.informers.cache.Cache;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
 public class KubeApiPlatformClient extends AbstractPlatformClient {
 
     private static final String REALM = "KubernetesApi";
+    private static final long INFORMER_RESYNC_PERIOD = 30 * 1_000L;
     private final KubernetesClient k8sClient;
-    private SharedIndexInformer<Endpoints> endpointsInformer;
-    private Integer memoHash;
+    private final Map<String, SharedIndexInformer<Endpoints>> endpointsInformers =
+            new ConcurrentHashMap<>();
+    // Pods and their owners are watched too so that owner chains are resolved from the informers'
+    // local caches rather than by querying the API server for each target
+    private final Map<KubernetesNodeType, Map<String, SharedIndexInformer<? extends HasMetadata>>>
+            ownerInformers = new EnumMap<>(KubernetesNodeType.class);
+    // incremented whenever any watched resource changes, to invalidate the memoized tree
+    private final AtomicLong generation = new AtomicLong();
+    private long memoGeneration = -1L;
     private EnvironmentNode memoTree;
     private final Lazy<JFRConnectionToolkit> connectionToolkit;
     private final Logger logger;
-    private final String namespace;
-    private final Map<Pair<String, String>, Pair<HasMetadata, EnvironmentNode>> discoveryNodeCache =
-            new ConcurrentHashMap<>();
-    private final Map<Pair<String, String>, Object> queryLocks = new ConcurrentHashMap<>();
+    private final Set<String> namespaces;
 
     KubeApiPlatformClient(
-            String namespace,
+            Collection<String> namespaces,
             KubernetesClient k8sClient,
             Lazy<JFRConnectionToolkit> connectionToolkit,
             Logger logger) {
-        this.namespace = namespace;
+        this.namespaces = Collections.unmodifiableSet(new TreeSet<>(namespaces));
         this.k8sClient = k8sClient;
         this.connectionToolkit = connectionToolkit;
         this.logger = logger;
+        for (KubernetesNodeType type : KubernetesNodeType.values()) {
+            if (type.getInformerFunction() != null) {
+                ownerInformers.put(type, new ConcurrentHashMap<>());
+            }
+        }
+    }
+
+    /**
+     * The namespaces to discover targets in: those listed in {@link
+     * Variables#KUBERNETES_NAMESPACES}, or else only Cryostat's own namespace.
+     */
+    static Set<String> getNamespaces(Environment env, String ownNamespace) {
+        String ns = env.getEnv(Variables.KUBERNETES_NAMESPACES, "");
+        Set<String> namespaces =
+                Arrays.stream(ns.split(","))
+                        .map(String::trim)
+                        .filter(StringUtils::isNotBlank)
+                        .collect(Collectors.toSet());
+        if (namespaces.isEmpty()) {
+            return Set.of(ownNamespace);
+        }
+        return namespaces;
     }
 
     @Override
     public void start() {
-        startInformer();
+        startInformers();
     }
 
-    private SharedIndexInformer<Endpoints> getInformer() {
-        startInformer();
-        return endpointsInformer;
+    @Override
+    public void stop() throws Exception {
+        super.stop();
+        synchronized (this) {
+            endpointsInformers.values().forEach(SharedIndexInformer::close);
+            endpointsInformers.clear();
+            ownerInformers.values().forEach(m -> m.values().forEach(SharedIndexInformer::close));
+            ownerInformers.values().forEach(Map::clear);
+        }
     }
 
-    private void startInformer() {
-        if (endpointsInformer != null && endpointsInformer.isRunning()) {
-            return;
-        }
-        if (endpointsInformer != null) {
-            endpointsInformer.stop();
-            endpointsInformer.close();
+    private Collection<SharedIndexInformer<Endpoints>> getEndpointsInformers() {
+        startInformers();
+        return endpointsInformers.values();
+    }
+
+    private synchronized void startInformers() {
+        // the owner informers are started, and so have synced their caches, before the Endpoints
+        // informers, so that the owners of the first targets found can already be resolved
+        for (String namespace : namespaces) {
+            ownerInformers.forEach(
+                    (type, informers) -> {
+                        SharedIndexInformer<? extends HasMetadata> informer =
+                                informers.get(namespace);
+                        if (informer != null && informer.isRunning()) {
+                            return;
+                        }
+                        if (informer != null) {
+                            informer.close();
+                        }
+                        try {
+                            informers.put(
+                                    namespace,
+                                    type.getInformerFunction()
+                                            .apply(k8sClient)
+                                            .apply(namespace)
+                                            .inform(
+                                                    new OwnerEventHandler(),
+                                                    INFORMER_RESYNC_PERIOD));
+                        } catch (Exception e) {
+                            informers.remove(namespace);
+                            logger.error(e);
+                        }
+                    });
         }
-        try {
-            endpointsInformer =
-                    k8sClient
-                            .endpoints()
-                            .inNamespace(namespace)
-                            .inform(
-                                    new ResourceEventHandler<Endpoints>() {
-                                        @Override
-                                        public void onAdd(Endpoints endpoints) {
-                                            getServiceRefs(endpoints)
-                                                    .forEach(
-                                                            serviceRef ->
-                                                                    notifyAsyncTargetDiscovery(
-                                                                            EventKind.FOUND,
-                                                                            serviceRef));
-                                        }
-
-                                        @Override
-                                        public void onUpdate(
-                                                Endpoints oldEndpoints, Endpoints newEndpoints) {
-                                            List<ServiceRef> previousRefs =
-                                                    getServiceRefs(oldEndpoints);
-                                            List<ServiceRef> currentRefs =
-                                                    getServiceRefs(newEndpoints);
-
-                                            if (previousRefs.equals(currentRefs)) {
-                                                return;
-                                            }
-
-                                            Set<ServiceRef> added = new HashSet<>(currentRefs);
-                                            added.removeAll(previousRefs);
-
-                                            Set<ServiceRef> removed = new HashSet<>(previousRefs);
-                                            removed.removeAll(currentRefs);
-
-                                            removed.stream()
-                                                    .forEach(
-                                                            sr ->
-                                                                    notifyAsyncTargetDiscovery(
-                                                                            EventKind.LOST, sr));
-                                            added.stream()
-                                                    .forEach(
-                                                            sr ->
-                                                                    notifyAsyncTargetDiscovery(
-                                                                            EventKind.FOUND, sr));
-                                        }
-
-                                        @Override
-                                        public void onDelete(
-                                                Endpoints endpoints,
-                                                boolean deletedFinalStateUnknown) {
-                                            if (deletedFinalStateUnknown) {
-                                                logger.warn(
-                                                        "Deleted final state unknown: {}",
-                                                        endpoints);
-                                                return;
-                                            }
-                                            getServiceRefs(endpoints)
-                                                    .forEach(
-                                                            serviceRef ->
-                                                                    notifyAsyncTargetDiscovery(
-                                                                            EventKind.LOST,
-                                                                            serviceRef));
-                                        }
-                                    },
-                                    30 * 1_000L);
-            logger.info("Started Endpoints SharedInformer");
-        } catch (Exception e) {
-            logger.error(e);
+        for (String namespace : namespaces) {
+            SharedIndexInformer<Endpoints> informer = endpointsInformers.get(namespace);
+            if (informer != null && informer.isRunning()) {
+                continue;
+            }
+            if (informer != null) {
+                informer.close();
+            }
+            try {
+                endpointsInformers.put(
+                        namespace,
+                        k8sClient
+                                .endpoints()
+                                .inNamespace(namespace)
+                                .inform(new EndpointsEventHandler(), INFORMER_RESYNC_PERIOD));
+                logger.info("Started Endpoints SharedInformer for namespace \"{}\"", namespace);
+            } catch (Exception e) {
+                endpointsInformers.remove(namespace);
+                logger.error(e);
+            }
         }
     }
 
@@ -199,32 +223,60 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
     }
 
     @Override
-    public EnvironmentNode getDiscoveryTree() {
-        List<Endpoints> store = getInformer().getStore().list();
-        if (Objects.equals(memoHash, store.hashCode())) {
+    public synchronized EnvironmentNode getDiscoveryTree() {
+        Collection<SharedIndexInformer<Endpoints>> informers = getEndpointsInformers();
+        long gen = generation.get();
+        if (memoGeneration == gen) {
             logger.trace("Using memoized discovery tree");
             return new EnvironmentNode(memoTree);
         }
-        memoHash = store.hashCode();
-        EnvironmentNode nsNode = new EnvironmentNode(namespace, KubernetesNodeType.NAMESPACE);
-        EnvironmentNode realmNode =
-                new EnvironmentNode(
-                        REALM, BaseNodeType.REALM, Collections.emptyMap(), Set.of(nsNode));
+        List<EnvironmentNode> nsNodes = new ArrayList<>();
+        Map<String, EnvironmentNode> nsNodesByName = new HashMap<>();
+        for (String namespace : namespaces) {
+            EnvironmentNode nsNode = new EnvironmentNode(namespace, KubernetesNodeType.NAMESPACE);
+            nsNodes.add(nsNode);
+            nsNodesByName.put(namespace, nsNode);
+        }
+        OwnerChainBuilder builder = new OwnerChainBuilder();
         try {
-            store.stream()
+            informers.stream()
+                    .flatMap(informer -> informer.getStore().list().stream())
                     .flatMap(endpoints -> getTargetTuples(endpoints).stream())
-                    .forEach(tuple -> buildOwnerChain(nsNode, tuple));
+                    .forEach(
+                            tuple ->
+                                    buildOwnerChain(
+                                            nsNodesByName.get(tuple.namespace), tuple, builder));
         } catch (Exception e) {
             logger.warn(e);
-        } finally {
-            discoveryNodeCache.clear();
-            queryLocks.clear();
         }
+        EnvironmentNode realmNode =
+                new EnvironmentNode(REALM, BaseNodeType.REALM, Collections.emptyMap(), nsNodes);
+        memoGeneration = gen;
         memoTree = realmNode;
-        return realmNode;
+        return new EnvironmentNode(realmNode);
     }
 
-    private void buildOwnerChain(EnvironmentNode nsNode, TargetTuple targetTuple) {
+    @Override
+    public Optional<AbstractNode> getDiscoveryBranch(ServiceRef serviceRef) {
+        Map<AnnotationKey, String> annotations = serviceRef.getCryostatAnnotations();
+        String namespace = annotations.get(AnnotationKey.NAMESPACE);
+        String podName = annotations.get(AnnotationKey.POD_NAME);
+        if (namespace == null || !namespaces.contains(namespace)) {
+            return Optional.empty();
+        }
+        EnvironmentNode nsNode = new EnvironmentNode(namespace, KubernetesNodeType.NAMESPACE);
+        TargetNode target = new TargetNode(KubernetesNodeType.ENDPOINT, serviceRef);
+        if (podName == null) {
+            nsNode.addChildNode(target);
+        } else {
+            new OwnerChainBuilder()
+                    .attach(nsNode, namespace, KubernetesNodeType.POD, podName, target);
+        }
+        return Optional.of(nsNode);
+    }
+
+    private void buildOwnerChain(
+            EnvironmentNode nsNode, TargetTuple targetTuple, OwnerChainBuilder builder) {
         ObjectReference target = targetTuple.addr.getTargetRef();
         if (target == null) {
             logger.error(
@@ -232,91 +284,113 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
                     targetTuple.addr.getIp() != null
                             ? targetTuple.addr.getIp()
                             : targetTuple.addr.getHostname(),
-                    targetTuple.objRef.getName());
+                    targetTuple.endpointsName);
+            return;
+        }
+        ServiceRef serviceRef = targetTuple.toServiceRef();
+        if (nsNode == null || serviceRef == null) {
             return;
         }
-        String targetKind = target.getKind();
-        KubernetesNodeType targetType = KubernetesNodeType.fromKubernetesKind(targetKind);
+        TargetNode targetNode = new TargetNode(KubernetesNodeType.ENDPOINT, serviceRef);
+        KubernetesNodeType targetType = KubernetesNodeType.fromKubernetesKind(target.getKind());
         if (targetType == KubernetesNodeType.POD) {
             // if the Endpoint points to a Pod, chase the owner chain up as far as possible, then
             // add that to the Namespace
-
-            Pair<HasMetadata, EnvironmentNode> pod =
-                    discoveryNodeCache.computeIfAbsent(cacheKey(target), this::queryForNode);
-            pod.getRight()
-                    .addChildNode(
-                            new TargetNode(
-                                    KubernetesNodeType.ENDPOINT, targetTuple.toServiceRef()));
-
-            Pair<HasMetadata, EnvironmentNode> node = pod;
-            while (true) {
-                Pair<HasMetadata, EnvironmentNode> owner = getOrCreateOwnerNode(node);
-                if (owner == null) {
-                    break;
-                }
-                EnvironmentNode ownerNode = owner.getRight();
-                ownerNode.addChildNode(node.getRight());
-                node = owner;
-            }
-            nsNode.addChildNode(node.getRight());
+            builder.attach(nsNode, targetTuple.namespace, targetType, target.getName(), targetNode);
         } else {
             // if the Endpoint points to something else(?) than a Pod, just add the target straight
             // to the Namespace
-            nsNode.addChildNode(
-                    new TargetNode(KubernetesNodeType.ENDPOINT, targetTuple.toServiceRef()));
+            nsNode.addChildNode(targetNode);
         }
     }
 
-    private Pair<HasMetadata, EnvironmentNode> getOrCreateOwnerNode(
-            Pair<HasMetadata, EnvironmentNode> child) {
-        HasMetadata childRef = child.getLeft();
-        if (childRef == null) {
-            logger.error(
-                    "Could not locate node named {} of kind {} while traversing environment",
-                    child.getRight().getName(),
-                    child.getRight().getNodeType());
+    /**
+     * Resolves the watched Kubernetes object of the given kind from its informer's cache, or null
+     * if that kind is not watched or there is no such object.
+     */
+    private HasMetadata lookup(KubernetesNodeType type, String namespace, String name) {
+        Map<String, SharedIndexInformer<? extends HasMetadata>> informers =
+                ownerInformers.get(type);
+        if (informers == null) {
             return null;
         }
-        List<OwnerReference> owners = childRef.getMetadata().getOwnerReferences();
-        // Take first "expected" owner Kind from NodeTypes, or if none, simply use the first owner.
-        // If there are no owners then return null to signify this and break the chain
-        if (owners.isEmpty()) {
+        SharedIndexInformer<? extends HasMetadata> informer = informers.get(namespace);
+        if (informer == null) {
             return null;
         }
-        OwnerReference owner =
-                owners.stream()
-                        .filter(o -> KubernetesNodeType.fromKubernetesKind(o.getKind()) != null)
-                        .findFirst()
-                        .orElse(owners.get(0));
-        return discoveryNodeCache.computeIfAbsent(cacheKey(owner), this::queryForNode);
-    }
-
-    private Pair<String, String> cacheKey(OwnerReference resource) {
-        return Pair.of(resource.getKind(), resource.getName());
-    }
-
-    // Unfortunately, ObjectReference and OwnerReference both independently implement getKind and
-    // getName - they don't come from a common base class.
-    private Pair<String, String> cacheKey(ObjectReference resource) {
-        return Pair.of(resource.getKind(), resource.getName());
+        return informer.getStore().getByKey(Cache.namespaceKeyFunc(namespace, name));
     }
 
-    private Pair<HasMetadata, EnvironmentNode> queryForNode(Pair<String, String> lookupKey) {
-        KubernetesNodeType nodeType = KubernetesNodeType.fromKubernetesKind(lookupKey.getLeft());
-        String nodeName = lookupKey.getRight();
-        if (nodeType == null) {
-            return null;
+    /**
+     * Builds owner chains of EnvironmentNodes, sharing the node for each Kubernetes object between
+     * all of the chains which pass through it so that each node is attached to its parent once.
+     */
+    private class OwnerChainBuilder {
+        private final Map<Pair<String, String>, Pair<HasMetadata, EnvironmentNode>> nodes =
+                new HashMap<>();
+        private final Set<EnvironmentNode> attached =
+                Collections.newSetFromMap(new IdentityHashMap<>());
+
+        void attach(
+                EnvironmentNode nsNode,
+                String namespace,
+                KubernetesNodeType type,
+                String name,
+                TargetNode target) {
+            Pair<HasMetadata, EnvironmentNode> node = getOrCreate(namespace, type, name);
+            node.getRight().addChildNode(target);
+            while (attached.add(node.getRight())) {
+                Pair<HasMetadata, EnvironmentNode> owner = getOrCreateOwner(namespace, node);
+                if (owner == null) {
+                    nsNode.addChildNode(node.getRight());
+                    break;
+                }
+                owner.getRight().addChildNode(node.getRight());
+                node = owner;
+            }
         }
-        synchronized (queryLocks.computeIfAbsent(lookupKey, k -> new Object())) {
-            EnvironmentNode node;
-            HasMetadata kubeObj =
-                    nodeType.getQueryFunction().apply(k8sClient).apply(namespace).apply(nodeName);
-            if (kubeObj != null) {
-                node = new EnvironmentNode(nodeName, nodeType, kubeObj.getMetadata().getLabels());
-            } else {
-                node = new EnvironmentNode(nodeName, nodeType);
+
+        private Pair<HasMetadata, EnvironmentNode> getOrCreateOwner(
+                String namespace, Pair<HasMetadata, EnvironmentNode> child) {
+            HasMetadata childRef = child.getLeft();
+            if (childRef == null) {
+                logger.error(
+                        "Could not locate node named {} of kind {} while traversing environment",
+                        child.getRight().getName(),
+                        child.getRight().getNodeType());
+                return null;
+            }
+            List<OwnerReference> owners = childRef.getMetadata().getOwnerReferences();
+            // Take first "expected" owner Kind from NodeTypes, or if none, simply use the first
+            // owner. If there are no owners then return null to signify this and break the chain
+            if (owners.isEmpty()) {
+                return null;
             }
-            return Pair.of(kubeObj, node);
+            OwnerReference owner =
+                    owners.stream()
+                            .filter(o -> KubernetesNodeType.fromKubernetesKind(o.getKind()) != null)
+                            .findFirst()
+                            .orElse(owners.get(0));
+            KubernetesNodeType ownerType = KubernetesNodeType.fromKubernetesKind(owner.getKind());
+            if (ownerType == null) {
+                return null;
+            }
+            return getOrCreate(namespace, ownerType, owner.getName());
+        }
+
+        private Pair<HasMetadata, EnvironmentNode> getOrCreate(
+                String namespace, KubernetesNodeType type, String name) {
+            return nodes.computeIfAbsent(
+                    Pair.of(type.getKind(), Cache.namespaceKeyFunc(namespace, name)),
+                    k -> {
+                        HasMetadata kubeObj = lookup(type, namespace, name);
+                        EnvironmentNode node =
+                                kubeObj != null && kubeObj.getMetadata().getLabels() != null
+                                        ? new EnvironmentNode(
+                                                name, type, kubeObj.getMetadata().getLabels())
+                                        : new EnvironmentNode(name, type);
+                        return Pair.of(kubeObj, node);
+                    });
         }
     }
 
@@ -325,7 +399,8 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
     }
 
     private List<ServiceRef> getAllServiceRefs() {
-        return getInformer().getStore().list().stream()
+        return getEndpointsInformers().stream()
+                .flatMap(informer -> informer.getStore().list().stream())
                 .flatMap(endpoints -> getServiceRefs(endpoints).stream())
                 .collect(Collectors.toList());
     }
@@ -338,7 +413,7 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
                     continue;
                 }
                 for (EndpointAddress addr : subset.getAddresses()) {
-                    tts.add(new TargetTuple(addr.getTargetRef(), addr, port));
+                    tts.add(new TargetTuple(endpoints, addr, port));
                 }
             }
         }
@@ -352,22 +427,91 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
                 .collect(Collectors.toList());
     }
 
+    private class EndpointsEventHandler implements ResourceEventHandler<Endpoints> {
+        @Override
+        public void onAdd(Endpoints endpoints) {
+            generation.incrementAndGet();
+            getServiceRefs(endpoints)
+                    .forEach(serviceRef -> notifyAsyncTargetDiscovery(EventKind.FOUND, serviceRef));
+        }
+
+        @Override
+        public void onUpdate(Endpoints oldEndpoints, Endpoints newEndpoints) {
+            List<ServiceRef> previousRefs = getServiceRefs(oldEndpoints);
+            List<ServiceRef> currentRefs = getServiceRefs(newEndpoints);
+
+            if (previousRefs.equals(currentRefs)) {
+                return;
+            }
+            generation.incrementAndGet();
+
+            Set<ServiceRef> added = new HashSet<>(currentRefs);
+            added.removeAll(previousRefs);
+
+            Set<ServiceRef> removed = new HashSet<>(previousRefs);
+            removed.removeAll(currentRefs);
+
+            removed.stream().forEach(sr -> notifyAsyncTargetDiscovery(EventKind.LOST, sr));
+            added.stream().forEach(sr -> notifyAsyncTargetDiscovery(EventKind.FOUND, sr));
+        }
+
+        @Override
+        public void onDelete(Endpoints endpoints, boolean deletedFinalStateUnknown) {
+            generation.incrementAndGet();
+            if (deletedFinalStateUnknown) {
+                logger.warn("Deleted final state unknown: {}", endpoints);
+                return;
+            }
+            getServiceRefs(endpoints)
+                    .forEach(serviceRef -> notifyAsyncTargetDiscovery(EventKind.LOST, serviceRef));
+        }
+    }
+
+    private class OwnerEventHandler implements ResourceEventHandler<HasMetadata> {
+        @Override
+        public void onAdd(HasMetadata obj) {
+            generation.incrementAndGet();
+        }
+
+        @Override
+        public void onUpdate(HasMetadata oldObj, HasMetadata newObj) {
+            // periodic resyncs redeliver unchanged objects
+            if (!Objects.equals(
+                    oldObj.getMetadata().getResourceVersion(),
+                    newObj.getMetadata().getResourceVersion())) {
+                generation.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onDelete(HasMetadata obj, boolean deletedFinalStateUnknown) {
+            generation.incrementAndGet();
+        }
+    }
+
     private class TargetTuple {
+        String namespace;
+        String endpointsName;
         ObjectReference objRef;
         EndpointAddress addr;
         EndpointPort port;
 
-        TargetTuple(ObjectReference objRef, EndpointAddress addr, EndpointPort port) {
-            this.objRef = objRef;
+        TargetTuple(Endpoints endpoints, EndpointAddress addr, EndpointPort port) {
+            this.objRef = addr.getTargetRef();
+            this.namespace =
+                    objRef != null && objRef.getNamespace() != null
+                            ? objRef.getNamespace()
+                            : endpoints.getMetadata().getNamespace();
+            this.endpointsName = endpoints.getMetadata().getName();
             this.addr = addr;
             this.port = port;
         }
 
         ServiceRef toServiceRef() {
+            if (objRef == null) {
+                return null;
+            }
             try {
-                Pair<HasMetadata, EnvironmentNode> node =
-                        discoveryNodeCache.computeIfAbsent(
-                                cacheKey(objRef), KubeApiPlatformClient.this::queryForNode);
                 String targetName = objRef.getName();
                 ServiceRef serviceRef =
                         new ServiceRef(
@@ -377,8 +521,9 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
                                                 .createServiceURL(addr.getIp(), port.getPort())),
                                 targetName);
 
-                if (node.getRight().getNodeType() == KubernetesNodeType.POD) {
-                    HasMetadata podRef = node.getLeft();
+                if (KubernetesNodeType.fromKubernetesKind(objRef.getKind())
+                        == KubernetesNodeType.POD) {
+                    HasMetadata podRef = lookup(KubernetesNodeType.POD, namespace, targetName);
                     if (podRef != null) {
                         serviceRef.setLabels(podRef.getMetadata().getLabels());
                         serviceRef.setPlatformAnnotations(podRef.getMetadata().getAnnotations());
@@ -393,9 +538,9 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
                                 AnnotationKey.PORT,
                                 Integer.toString(port.getPort()),
                                 AnnotationKey.NAMESPACE,
-                                addr.getTargetRef().getNamespace(),
+                                namespace,
                                 AnnotationKey.POD_NAME,
-                                addr.getTargetRef().getName()));
+                                targetName));
                 return serviceRef;
             } catch (Exception e) {
                 logger.warn(e);
@@ -406,44 +551,33 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
 
     public enum KubernetesNodeType implements NodeType {
         NAMESPACE("Namespace"),
-        STATEFULSET(
-                "StatefulSet",
-                c -> ns -> n -> c.apps().statefulSets().inNamespace(ns).withName(n).get()),
-        DAEMONSET(
-                "DaemonSet",
-                c -> ns -> n -> c.apps().daemonSets().inNamespace(ns).withName(n).get()),
-        DEPLOYMENT(
-                "Deployment",
-                c -> ns -> n -> c.apps().deployments().inNamespace(ns).withName(n).get()),
+        STATEFULSET("StatefulSet", c -> ns -> c.apps().statefulSets().inNamespace(ns)),
+        DAEMONSET("DaemonSet", c -> ns -> c.apps().daemonSets().inNamespace(ns)),
+        DEPLOYMENT("Deployment", c -> ns -> c.apps().deployments().inNamespace(ns)),
         // FIXME DeploymentConfig is OpenShift-specific
         DEPLOYMENTCONFIG("DeploymentConfig"),
-        REPLICASET(
-                "ReplicaSet",
-                c -> ns -> n -> c.apps().replicaSets().inNamespace(ns).withName(n).get()),
+        REPLICASET("ReplicaSet", c -> ns -> c.apps().replicaSets().inNamespace(ns)),
         REPLICATIONCONTROLLER(
-                "ReplicationController",
-                c -> ns -> n -> c.replicationControllers().inNamespace(ns).withName(n).get()),
-        POD("Pod", c -> ns -> n -> c.pods().inNamespace(ns).withName(n).get()),
-        ENDPOINT("Endpoint", c -> ns -> n -> c.endpoints().inNamespace(ns).withName(n).get()),
+                "ReplicationController", c -> ns -> c.replicationControllers().inNamespace(ns)),
+        POD("Pod", c -> ns -> c.pods().inNamespace(ns)),
+        ENDPOINT("Endpoint"),
         ;
 
         private final String kubernetesKind;
         private final transient Function<
-                        KubernetesClient, Function<String, Function<String, ? extends HasMetadata>>>
-                getFn;
+                        KubernetesClient, Function<String, Informable<? extends HasMetadata>>>
+                informFn;
 
         KubernetesNodeType(String kubernetesKind) {
-            this(kubernetesKind, client -> namespace -> name -> null);
+            this(kubernetesKind, null);
         }
 
         KubernetesNodeType(
                 String kubernetesKind,
-                Function<
-                                KubernetesClient,
-                                Function<String, Function<String, ? extends HasMetadata>>>
-                        getFn) {
+                Function<KubernetesClient, Function<String, Informable<? extends HasMetadata>>>
+                        informFn) {
             this.kubernetesKind = kubernetesKind;
-            this.getFn = getFn;
+            this.informFn = informFn;
         }
 
         @Override
@@ -451,9 +585,13 @@ public class KubeApiPlatformClient extends AbstractPlatformClient {
             return kubernetesKind;
         }
 
-        public Function<KubernetesClient, Function<String, Function<String, ? extends HasMetadata>>>
-                getQueryFunction() {
-            return getFn;
+        /**
+         * The resources of this kind within a namespace, to be watched with an informer so that
+         * owner chains can be resolved locally. Null for kinds which are not watched.
+         */
+        public Function<KubernetesClient, Function<String, Informable<? extends HasMetadata>>>
+                getInformerFunction() {
+            return informFn;
         }
 
         public static KubernetesNodeType fromKubernetesKind(String kubernetesKind) {
@@ -42,6 +42,7 @@ import java.nio.file.Paths;
 
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.JFRConnectionToolkit;
+import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.NoopAuthManager;
@@ -57,6 +58,7 @@ class KubeApiPlatformStrategy implements PlatformDetectionStrategy<KubeApiPlatfo
     private final Logger logger;
     private final AuthManager authMgr;
     private final FileSystem fs;
+    private final Environment env;
     private final Lazy<JFRConnectionToolkit> connectionToolkit;
     private KubernetesClient k8sClient;
 
@@ -64,11 +66,13 @@ class KubeApiPlatformStrategy implements PlatformDetectionStrategy<KubeApiPlatfo
             Logger logger,
             NoopAuthManager authMgr,
             Lazy<JFRConnectionToolkit> connectionToolkit,
-            FileSystem fs) {
+            FileSystem fs,
+            Environment env) {
         this.logger = logger;
         this.authMgr = authMgr;
         this.connectionToolkit = connectionToolkit;
         this.fs = fs;
+        this.env = env;
         try {
             this.k8sClient = new DefaultKubernetesClient();
         } catch (Exception e) {
@@ -105,7 +109,11 @@ class KubeApiPlatformStrategy implements PlatformDetectionStrategy<KubeApiPlatfo
     @Override
     public KubeApiPlatformClient getPlatformClient() {
         logger.info("Selected KubeApi Platform Strategy");
-        return new KubeApiPlatformClient(getNamespace(), k8sClient, connectionToolkit, logger);
+        return new KubeApiPlatformClient(
+                KubeApiPlatformClient.getNamespaces(env, getNamespace()),
+                k8sClient,
+                connectionToolkit,
+                logger);
     }
 
     @Override
@@ -42,6 +42,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -52,6 +53,7 @@ import io.cryostat.core.sys.Environment;
 import io.cryostat.platform.AbstractPlatformClient;
 import io.cryostat.platform.ServiceRef;
 import io.cryostat.platform.ServiceRef.AnnotationKey;
+import io.cryostat.platform.discovery.AbstractNode;
 import io.cryostat.platform.discovery.BaseNodeType;
 import io.cryostat.platform.discovery.EnvironmentNode;
 import io.cryostat.platform.discovery.NodeType;
@@ -101,6 +103,11 @@ class KubeEnvPlatformClient extends AbstractPlatformClient {
         return new EnvironmentNode(REALM, BaseNodeType.REALM, Collections.emptyMap(), targets);
     }
 
+    @Override
+    public Optional<AbstractNode> getDiscoveryBranch(ServiceRef serviceRef) {
+        return Optional.of(new TargetNode(KubernetesNodeType.SERVICE, serviceRef));
+    }
+
     private ServiceRef envToServiceRef(Map.Entry<String, String> entry) {
         Matcher matcher = SERVICE_ENV_PATTERN.matcher(entry.getKey());
         if (!matcher.matches()) {
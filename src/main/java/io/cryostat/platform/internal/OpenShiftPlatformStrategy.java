@@ -42,6 +42,7 @@ import java.nio.file.Paths;
 
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.JFRConnectionToolkit;
+import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.openshift.OpenShiftAuthManager;
@@ -57,6 +58,7 @@ class OpenShiftPlatformStrategy implements PlatformDetectionStrategy<KubeApiPlat
     private final Logger logger;
     private final AuthManager authMgr;
     private final FileSystem fs;
+    private final Environment env;
     private OpenShiftClient osClient;
     private final Lazy<JFRConnectionToolkit> connectionToolkit;
 
@@ -64,10 +66,12 @@ class OpenShiftPlatformStrategy implements PlatformDetectionStrategy<KubeApiPlat
             Logger logger,
             OpenShiftAuthManager authMgr,
             Lazy<JFRConnectionToolkit> connectionToolkit,
-            FileSystem fs) {
+            FileSystem fs,
+            Environment env) {
         this.logger = logger;
         this.authMgr = authMgr;
         this.fs = fs;
+        this.env = env;
         try {
             this.osClient = new DefaultOpenShiftClient();
         } catch (Exception e) {
@@ -104,7 +108,11 @@ class OpenShiftPlatformStrategy implements PlatformDetectionStrategy<KubeApiPlat
     @Override
     public KubeApiPlatformClient getPlatformClient() {
         logger.info("Selected OpenShift Platform Strategy");
-        return new KubeApiPlatformClient(getNamespace(), osClient, connectionToolkit, logger);
+        return new KubeApiPlatformClient(
+                KubeApiPlatformClient.getNamespaces(env, getNamespace()),
+                osClient,
+                connectionToolkit,
+                logger);
     }
 
     @Override
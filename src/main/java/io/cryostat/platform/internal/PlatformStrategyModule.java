@@ -68,8 +68,9 @@ public abstract class PlatformStrategyModule {
             FileSystem fs,
             JvmDiscoveryClient discoveryClient) {
         return Set.of(
-                new OpenShiftPlatformStrategy(logger, openShiftAuthManager, connectionToolkit, fs),
-                new KubeApiPlatformStrategy(logger, noopAuthManager, connectionToolkit, fs),
+                new OpenShiftPlatformStrategy(
+                        logger, openShiftAuthManager, connectionToolkit, fs, env),
+                new KubeApiPlatformStrategy(logger, noopAuthManager, connectionToolkit, fs, env),
                 new KubeEnvPlatformStrategy(logger, fs, noopAuthManager, connectionToolkit, env),
                 new DefaultPlatformStrategy(logger, noopAuthManager, discoveryClient));
     }
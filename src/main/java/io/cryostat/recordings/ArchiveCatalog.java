@@ -0,0 +1,620 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.recordings;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.FileSystem;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * In-memory index of the archived recordings directory, so that listing and looking up archived
+ * recordings does not require walking the filesystem.
+ *
+ * <p>The archives directory contains one subdirectory per target JVM, named by the encoded JVM ID,
+ * each holding that JVM's recordings and a connectUrl file. The catalog mirrors this as a map of
+ * subdirectory name to {@link Directory}, plus an index of recording file name to the
+ * subdirectories containing it. It is kept current by a {@link WatchService}, and writers that know
+ * they have just changed a file can also {@link #refresh(Path)} it to see the change immediately.
+ *
+ * <p>The catalog is persisted as a file in the archives directory. On startup, the files in each
+ * subdirectory are checked against the persisted catalog, and only those which were added, removed,
+ * or changed in size or modification time since it was persisted are re-read.
+ */
+class ArchiveCatalog {
+
+    static final String CATALOG_FILE_NAME = ".catalog.json";
+    static final String CONNECT_URL = "connectUrl";
+    private static final int CATALOG_VERSION = 1;
+    private static final long PERSIST_DELAY_SECONDS = 5;
+
+    private final Path root;
+    private final FileSystem fs;
+    private final Gson gson;
+    private final Executor watchExecutor;
+    private final ScheduledExecutorService persistExecutor;
+    private final Logger logger;
+
+    private final Map<String, Directory> directories = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> locations = new ConcurrentHashMap<>();
+    private final Map<WatchKey, String> watchKeys = new ConcurrentHashMap<>();
+    private final AtomicBoolean persistScheduled = new AtomicBoolean();
+    private volatile boolean started;
+    private volatile WatchService watchService;
+    private WatchKey rootKey;
+
+    ArchiveCatalog(
+            Path root,
+            FileSystem fs,
+            Gson gson,
+            Executor watchExecutor,
+            ScheduledExecutorService persistExecutor,
+            Logger logger) {
+        this.root = root;
+        this.fs = fs;
+        this.gson = gson;
+        this.watchExecutor = watchExecutor;
+        this.persistExecutor = persistExecutor;
+        this.logger = logger;
+    }
+
+    /**
+     * Load the persisted catalog, reconcile it against the archives directory, and begin watching
+     * for changes. This is idempotent, and is called implicitly by every lookup.
+     */
+    void start() {
+        if (started) {
+            return;
+        }
+        synchronized (this) {
+            if (started) {
+                return;
+            }
+            try {
+                watchService = root.getFileSystem().newWatchService();
+                // register before scanning so that no change made during the scan is missed
+                rootKey = root.register(watchService, ENTRY_CREATE, ENTRY_DELETE);
+                reconcile(load());
+                WatchService ws = watchService;
+                watchExecutor.execute(() -> processEvents(ws));
+                started = true;
+                logger.info(
+                        "Archive catalog started with {} directories, {} recordings",
+                        directories.size(),
+                        locations.size());
+            } catch (IOException e) {
+                logger.warn("Archive catalog could not watch {}: {}", root, e.getMessage());
+                closeWatchService();
+                // fall back to scanning on each lookup until the directory can be watched
+                rescan();
+            }
+        }
+    }
+
+    Optional<Directory> getDirectory(String subdirectoryName) {
+        start();
+        return Optional.ofNullable(directories.get(subdirectoryName));
+    }
+
+    Collection<Directory> getDirectories() {
+        start();
+        return Collections.unmodifiableCollection(directories.values());
+    }
+
+    /** Find a recording by name in any subdirectory. */
+    Optional<Entry> find(String recordingName) {
+        start();
+        Set<String> subdirectories = locations.get(recordingName);
+        if (subdirectories == null) {
+            return Optional.empty();
+        }
+        for (String subdirectory : subdirectories) {
+            Directory dir = directories.get(subdirectory);
+            if (dir != null) {
+                Entry entry = dir.recordings.get(recordingName);
+                if (entry != null) {
+                    return Optional.of(entry);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    Optional<Entry> get(String subdirectoryName, String recordingName) {
+        return getDirectory(subdirectoryName)
+                .flatMap(dir -> Optional.ofNullable(dir.recordings.get(recordingName)));
+    }
+
+    /**
+     * Update the catalog entry for a file within a subdirectory of the archives to match its
+     * current state on disk, without waiting for the change to be observed by the watcher.
+     *
+     * @return the updated entry, or empty if the file does not exist or is not an archived
+     *     recording
+     */
+    Optional<Entry> refresh(Path file) {
+        start();
+        Path parent = file.toAbsolutePath().normalize().getParent();
+        Path fileName = file.getFileName();
+        if (parent == null
+                || fileName == null
+                || !root.toAbsolutePath().normalize().equals(parent.getParent())) {
+            return Optional.empty();
+        }
+        return update(String.valueOf(parent.getFileName()), fileName.toString());
+    }
+
+    void close() {
+        synchronized (this) {
+            closeWatchService();
+        }
+        persist();
+    }
+
+    private void closeWatchService() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                logger.warn(e);
+            }
+            watchService = null;
+        }
+    }
+
+    private synchronized void reconcile(Map<String, DirectorySnapshot> snapshot) {
+        directories.clear();
+        locations.clear();
+        try {
+            for (String name : fs.listDirectoryChildren(root)) {
+                Path child = root.resolve(name);
+                if (!fs.isDirectory(child)) {
+                    continue;
+                }
+                watch(child, name);
+                DirectorySnapshot previous = snapshot.get(name);
+                if (previous != null) {
+                    restore(name, previous);
+                    validate(name);
+                } else {
+                    scan(name);
+                }
+            }
+        } catch (IOException e) {
+            logger.error(e);
+        }
+        schedulePersist();
+    }
+
+    private synchronized void rescan() {
+        reconcile(Map.of());
+    }
+
+    private void restore(String name, DirectorySnapshot snapshot) {
+        Directory dir = new Directory(name, snapshot.connectUrl);
+        directories.put(name, dir);
+        for (RecordingSnapshot recording : snapshot.recordings) {
+            Entry entry =
+                    new Entry(
+                            recording.name,
+                            root.resolve(name).resolve(recording.name).normalize().toAbsolutePath(),
+                            recording.size,
+                            recording.lastModified);
+            dir.recordings.put(recording.name, entry);
+            index(name, recording.name);
+        }
+    }
+
+    /**
+     * Bring a restored subdirectory up to date with its files. The subdirectory's own modification
+     * time is not enough to tell whether it changed, since it is not updated when a file within it
+     * is rewritten in place.
+     */
+    private synchronized void validate(String name) {
+        Directory dir = directories.get(name);
+        if (dir == null) {
+            return;
+        }
+        Set<String> missing = new HashSet<>(dir.recordings.keySet());
+        try {
+            for (String fileName : fs.listDirectoryChildren(root.resolve(name))) {
+                missing.remove(fileName);
+                Entry entry = dir.recordings.get(fileName);
+                if (entry == null || !isCurrent(entry)) {
+                    update(name, fileName);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn(e);
+            scan(name);
+            return;
+        }
+        for (String fileName : missing) {
+            update(name, fileName);
+        }
+    }
+
+    private boolean isCurrent(Entry entry) {
+        try {
+            BasicFileAttributes attrs = readAttributes(entry.path);
+            return attrs.size() == entry.size
+                    && attrs.lastModifiedTime().toMillis() == entry.lastModified;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private synchronized void scan(String name) {
+        Path path = root.resolve(name);
+        remove(name);
+        List<String> files;
+        try {
+            files = fs.listDirectoryChildren(path);
+        } catch (IOException e) {
+            // the directory was removed concurrently
+            return;
+        }
+        directories.put(name, new Directory(name, null));
+        for (String file : files) {
+            update(name, file);
+        }
+        schedulePersist();
+    }
+
+    private synchronized void remove(String name) {
+        Directory dir = directories.remove(name);
+        if (dir == null) {
+            return;
+        }
+        for (String recordingName : dir.recordings.keySet()) {
+            unindex(name, recordingName);
+        }
+        schedulePersist();
+    }
+
+    private synchronized Optional<Entry> update(String subdirectoryName, String fileName) {
+        Path file = root.resolve(subdirectoryName).resolve(fileName);
+        Directory dir = directories.get(subdirectoryName);
+        BasicFileAttributes attrs;
+        try {
+            attrs = readAttributes(file);
+        } catch (NoSuchFileException e) {
+            if (dir != null && dir.recordings.remove(fileName) != null) {
+                unindex(subdirectoryName, fileName);
+                schedulePersist();
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn(e);
+            return Optional.empty();
+        }
+        if (dir == null) {
+            dir = new Directory(subdirectoryName, null);
+            directories.put(subdirectoryName, dir);
+            watch(root.resolve(subdirectoryName), subdirectoryName);
+        }
+        if (!attrs.isRegularFile() || fileName.startsWith(".")) {
+            return Optional.empty();
+        }
+        if (CONNECT_URL.equals(fileName)) {
+            try {
+                dir.connectUrl = fs.readString(file).strip();
+            } catch (IOException e) {
+                logger.warn(e);
+            }
+            schedulePersist();
+            return Optional.empty();
+        }
+        Entry entry =
+                new Entry(
+                        fileName,
+                        file.normalize().toAbsolutePath(),
+                        attrs.size(),
+                        attrs.lastModifiedTime().toMillis());
+        dir.recordings.put(fileName, entry);
+        index(subdirectoryName, fileName);
+        schedulePersist();
+        return Optional.of(entry);
+    }
+
+    private BasicFileAttributes readAttributes(Path file) throws IOException {
+        // FileSystem has no equivalent for reading file attributes
+        return Files.readAttributes(file, BasicFileAttributes.class);
+    }
+
+    private void index(String subdirectoryName, String recordingName) {
+        locations
+                .computeIfAbsent(recordingName, k -> new ConcurrentSkipListSet<>())
+                .add(subdirectoryName);
+    }
+
+    private void unindex(String subdirectoryName, String recordingName) {
+        locations.computeIfPresent(
+                recordingName,
+                (k, v) -> {
+                    v.remove(subdirectoryName);
+                    return v.isEmpty() ? null : v;
+                });
+    }
+
+    private void watch(Path dir, String name) {
+        if (watchService == null) {
+            return;
+        }
+        try {
+            watchKeys.put(
+                    dir.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY), name);
+        } catch (IOException e) {
+            logger.warn(e);
+        }
+    }
+
+    private void processEvents(WatchService ws) {
+        while (true) {
+            WatchKey key;
+            try {
+                key = ws.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            try {
+                handle(key);
+            } catch (Exception e) {
+                logger.error(e);
+            }
+            if (!key.reset()) {
+                String name = watchKeys.remove(key);
+                if (name != null) {
+                    remove(name);
+                }
+            }
+        }
+    }
+
+    private void handle(WatchKey key) {
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+                logger.info("Archive catalog missed filesystem events, rescanning");
+                rescan();
+                return;
+            }
+            String child = String.valueOf(event.context());
+            if (key.equals(rootKey)) {
+                if (event.kind() == ENTRY_DELETE) {
+                    remove(child);
+                } else if (fs.isDirectory(root.resolve(child))) {
+                    watch(root.resolve(child), child);
+                    scan(child);
+                }
+            } else {
+                String subdirectory = watchKeys.get(key);
+                if (subdirectory != null) {
+                    update(subdirectory, child);
+                }
+            }
+        }
+    }
+
+    private Map<String, DirectorySnapshot> load() {
+        Path file = root.resolve(CATALOG_FILE_NAME);
+        if (!fs.isRegularFile(file)) {
+            return Map.of();
+        }
+        try (Reader reader = fs.readFile(file)) {
+            Snapshot snapshot = gson.fromJson(reader, Snapshot.class);
+            if (snapshot == null
+                    || snapshot.version != CATALOG_VERSION
+                    || snapshot.directories == null) {
+                return Map.of();
+            }
+            Map<String, DirectorySnapshot> result = new HashMap<>();
+            for (DirectorySnapshot dir : snapshot.directories) {
+                if (dir.name != null && dir.recordings != null) {
+                    result.put(dir.name, dir);
+                }
+            }
+            return result;
+        } catch (IOException | JsonParseException e) {
+            logger.warn("Archive catalog {} could not be read, rescanning", file);
+            return Map.of();
+        }
+    }
+
+    private void schedulePersist() {
+        if (persistScheduled.compareAndSet(false, true)) {
+            // batch up bursts of changes, ex. an archive migration, into a single write
+            persistExecutor.schedule(this::persist, PERSIST_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void persist() {
+        persistScheduled.set(false);
+        Snapshot snapshot = new Snapshot();
+        snapshot.version = CATALOG_VERSION;
+        snapshot.directories = new ArrayList<>(directories.size());
+        for (Directory dir : directories.values()) {
+            DirectorySnapshot ds = new DirectorySnapshot();
+            ds.name = dir.name;
+            ds.connectUrl = dir.connectUrl;
+            ds.recordings = new ArrayList<>(dir.recordings.size());
+            for (Entry entry : dir.recordings.values()) {
+                RecordingSnapshot rs = new RecordingSnapshot();
+                rs.name = entry.name;
+                rs.size = entry.size;
+                rs.lastModified = entry.lastModified;
+                ds.recordings.add(rs);
+            }
+            snapshot.directories.add(ds);
+        }
+        Path file = root.resolve(CATALOG_FILE_NAME);
+        Path tmp = root.resolve(CATALOG_FILE_NAME + ".tmp");
+        try {
+            fs.writeString(
+                    tmp,
+                    gson.toJson(snapshot),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            // FileSystem has no equivalent for an atomic move
+            Files.move(
+                    tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Archive catalog could not be persisted to {}", file);
+            logger.warn(e);
+        }
+    }
+
+    /** An archives subdirectory, containing the recordings for a single target JVM. */
+    static class Directory {
+        private final String name;
+        private final Map<String, Entry> recordings = new ConcurrentSkipListMap<>();
+        private volatile String connectUrl;
+
+        Directory(String name, String connectUrl) {
+            this.name = name;
+            this.connectUrl = connectUrl;
+        }
+
+        /** The subdirectory name, which is the encoded JVM ID for target subdirectories. */
+        String getName() {
+            return name;
+        }
+
+        /** The contents of the subdirectory's connectUrl file, if it has one. */
+        Optional<String> getConnectUrl() {
+            return Optional.ofNullable(connectUrl);
+        }
+
+        Collection<Entry> getRecordings() {
+            return Collections.unmodifiableCollection(recordings.values());
+        }
+    }
+
+    /** An archived recording file. */
+    static class Entry {
+        private final String name;
+        private final Path path;
+        private final long size;
+        private final long lastModified;
+
+        Entry(String name, Path path, long size, long lastModified) {
+            this.name = name;
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        Path getPath() {
+            return path;
+        }
+
+        long getSize() {
+            return size;
+        }
+
+        long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    @SuppressFBWarnings(
+            value = {"UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR", "URF_UNREAD_FIELD"},
+            justification = "Fields are (de)serialized by Gson")
+    private static class Snapshot {
+        int version;
+        List<DirectorySnapshot> directories;
+    }
+
+    @SuppressFBWarnings(
+            value = {"UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR", "URF_UNREAD_FIELD"},
+            justification = "Fields are (de)serialized by Gson")
+    private static class DirectorySnapshot {
+        String name;
+        String connectUrl;
+        List<RecordingSnapshot> recordings;
+    }
+
+    @SuppressFBWarnings(
+            value = {"UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR", "URF_UNREAD_FIELD"},
+            justification = "Fields are (de)serialized by Gson")
+    private static class RecordingSnapshot {
+        String name;
+        long size;
+        long lastModified;
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.recordings;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+
+import io.cryostat.rules.ArchivedRecordingInfo;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Sort order, cursor and page size for a listing of archived recordings. Cursors are opaque to
+ * clients and record the sort key of the last recording in a page, so a listing can be resumed
+ * after recordings have been added or removed without skipping or repeating any that remain.
+ */
+public class ArchivedRecordingsQuery {
+
+    private static final Comparator<String> NULLS_FIRST =
+            Comparator.nullsFirst(Comparator.naturalOrder());
+
+    private final Sort sort;
+    private final boolean descending;
+    private final ArchivedRecordingInfo after;
+    private final int limit;
+
+    /**
+     * @param sort the sort key
+     * @param descending whether to sort in descending rather than ascending order
+     * @param cursor the nextCursor of a previous page, or null to start from the beginning
+     * @param limit the maximum number of recordings in a page, or 0 for no limit
+     * @throws IllegalArgumentException if the cursor is invalid or was produced with a different
+     *     sort order, or the limit is negative
+     */
+    public ArchivedRecordingsQuery(Sort sort, boolean descending, String cursor, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative");
+        }
+        this.sort = sort;
+        this.descending = descending;
+        this.after = StringUtils.isBlank(cursor) ? null : decodeCursor(cursor);
+        this.limit = limit;
+    }
+
+    /**
+     * Create a query from HTTP request parameters, any of which may be null.
+     *
+     * @param sort a {@link Sort} name, optionally prefixed with '-' for descending order
+     * @param cursor the nextCursor of a previous page
+     * @param limit the maximum number of recordings in a page
+     */
+    public static ArchivedRecordingsQuery parse(String sort, String cursor, String limit) {
+        Sort s = Sort.NAME;
+        boolean descending = false;
+        if (StringUtils.isNotBlank(sort)) {
+            String key = sort.strip();
+            if (key.startsWith("-")) {
+                descending = true;
+                key = key.substring(1);
+            }
+            try {
+                s = Sort.valueOf(key.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException iae) {
+                throw new IllegalArgumentException("Unknown sort key: " + key, iae);
+            }
+        }
+        int l = 0;
+        if (StringUtils.isNotBlank(limit)) {
+            try {
+                l = Integer.parseInt(limit.strip());
+            } catch (NumberFormatException nfe) {
+                throw new IllegalArgumentException("Invalid limit: " + limit, nfe);
+            }
+        }
+        return new ArchivedRecordingsQuery(s, descending, cursor, l);
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /** The sort parameter which {@link #parse} would accept to produce this query's order. */
+    public String getSortParameter() {
+        String key = sort.name().toLowerCase(Locale.ROOT);
+        return descending ? "-" + key : key;
+    }
+
+    /** A total order over recordings, consistent with this query's sort key and direction. */
+    public Comparator<SortKey> comparator() {
+        Comparator<SortKey> byName =
+                Comparator.comparing(SortKey::getName, NULLS_FIRST)
+                        .thenComparing(SortKey::getServiceUri, NULLS_FIRST);
+        Comparator<SortKey> c;
+        switch (sort) {
+            case SIZE:
+                c = Comparator.comparingLong(SortKey::getSize).thenComparing(byName);
+                break;
+            case TIME:
+                c = Comparator.comparingLong(SortKey::getArchivedTime).thenComparing(byName);
+                break;
+            case NAME:
+            default:
+                c = byName;
+                break;
+        }
+        return descending ? c.reversed() : c;
+    }
+
+    /** Select the page of recordings following this query's cursor. */
+    public Page apply(Collection<ArchivedRecordingInfo> recordings) {
+        return apply(recordings, Optional::of);
+    }
+
+    /**
+     * Select the page of candidates following this query's cursor, and convert only the candidates
+     * in that page into recordings. Every candidate is still compared against the cursor, but when
+     * the query has a limit only that many are kept and sorted, so callers can defer any expensive
+     * work of building a recording until it is known to be in the page. Candidates are converted as
+     * the page's recordings are retrieved, so iterating over them builds only one at a time.
+     *
+     * @param toRecording converts a candidate in the page to a recording, or returns empty to omit
+     *     that candidate from the page
+     */
+    public <T extends SortKey> Page apply(
+            Collection<T> candidates,
+            Function<? super T, Optional<ArchivedRecordingInfo>> toRecording) {
+        Comparator<SortKey> comparator = comparator();
+        List<T> selected;
+        if (limit == 0) {
+            selected = new ArrayList<>(candidates.size());
+            for (T candidate : candidates) {
+                if (after == null || comparator.compare(candidate, after) > 0) {
+                    selected.add(candidate);
+                }
+            }
+        } else {
+            // keep one more than the limit, which tells us whether there is a following page
+            PriorityQueue<T> heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+            for (T candidate : candidates) {
+                if (after == null || comparator.compare(candidate, after) > 0) {
+                    heap.add(candidate);
+                    if (heap.size() > limit + 1) {
+                        heap.poll();
+                    }
+                }
+            }
+            selected = new ArrayList<>(heap);
+        }
+        selected.sort(comparator);
+        String nextCursor = null;
+        if (limit > 0 && selected.size() > limit) {
+            selected = selected.subList(0, limit);
+            nextCursor = encodeCursor(selected.get(limit - 1));
+        }
+        return new Page(new ConvertingList<>(selected, toRecording), nextCursor);
+    }
+
+    private String encodeCursor(SortKey last) {
+        long key;
+        switch (sort) {
+            case SIZE:
+                key = last.getSize();
+                break;
+            case TIME:
+                key = last.getArchivedTime();
+                break;
+            case NAME:
+            default:
+                key = 0;
+                break;
+        }
+        return String.join(
+                ".",
+                getSortParameter(),
+                Long.toString(key),
+                encode(last.getName()),
+                encode(last.getServiceUri()));
+    }
+
+    private ArchivedRecordingInfo decodeCursor(String cursor) {
+        String[] parts = cursor.strip().split("\\.", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (!getSortParameter().equals(parts[0])) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Cursor was created for sort order %s, not %s",
+                            parts[0], getSortParameter()));
+        }
+        try {
+            long key = Long.parseLong(parts[1]);
+            return new ArchivedRecordingInfo(
+                    decode(parts[3]),
+                    decode(parts[2]),
+                    null,
+                    null,
+                    null,
+                    sort == Sort.SIZE ? key : 0,
+                    sort == Sort.TIME ? key : 0);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    private static String encode(String s) {
+        if (s == null) {
+            return "";
+        }
+        // prefix so that the empty string remains distinguishable from null
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(("~" + s).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String s) {
+        if (s.isEmpty()) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(s), StandardCharsets.UTF_8).substring(1);
+    }
+
+    /**
+     * The properties of an archived recording which queries sort by, so that a page can be selected
+     * before the remainder of each recording's information is gathered.
+     */
+    public interface SortKey {
+        String getServiceUri();
+
+        String getName();
+
+        long getSize();
+
+        long getArchivedTime();
+    }
+
+    public enum Sort {
+        NAME,
+        SIZE,
+        TIME,
+    }
+
+    /**
+     * The recordings of a page, converted from their candidates as they are retrieved. Iterating
+     * converts one candidate at a time and keeps none of the results, so a page can be streamed
+     * without building all of its recordings first. Any other access converts and keeps all of
+     * them.
+     */
+    private static class ConvertingList<T> extends AbstractList<ArchivedRecordingInfo> {
+        private final List<T> candidates;
+        private final Function<? super T, Optional<ArchivedRecordingInfo>> toRecording;
+        private List<ArchivedRecordingInfo> converted;
+
+        ConvertingList(
+                List<T> candidates,
+                Function<? super T, Optional<ArchivedRecordingInfo>> toRecording) {
+            this.candidates = candidates;
+            this.toRecording = toRecording;
+        }
+
+        @Override
+        public synchronized Iterator<ArchivedRecordingInfo> iterator() {
+            if (converted != null) {
+                return converted.iterator();
+            }
+            return candidates.stream().map(toRecording).flatMap(Optional::stream).iterator();
+        }
+
+        @Override
+        public Spliterator<ArchivedRecordingInfo> spliterator() {
+            // streams would otherwise ask for the size up front, converting every candidate
+            return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED);
+        }
+
+        @Override
+        public ArchivedRecordingInfo get(int index) {
+            return convertAll().get(index);
+        }
+
+        @Override
+        public int size() {
+            return convertAll().size();
+        }
+
+        private synchronized List<ArchivedRecordingInfo> convertAll() {
+            if (converted == null) {
+                List<ArchivedRecordingInfo> recordings = new ArrayList<>(candidates.size());
+                for (T candidate : candidates) {
+                    toRecording.apply(candidate).ifPresent(recordings::add);
+                }
+                converted = recordings;
+            }
+            return converted;
+        }
+    }
+
+    public static class Page {
+        private final List<ArchivedRecordingInfo> recordings;
+        private final String nextCursor;
+
+        public Page(List<ArchivedRecordingInfo> recordings, String nextCursor) {
+            this.recordings = recordings;
+            this.nextCursor = nextCursor;
+        }
+
+        /**
+         * The recordings in this page. These may be built as they are retrieved, so iterate over
+         * them rather than indexing into them to avoid building them all at once.
+         */
+        public List<ArchivedRecordingInfo> getRecordings() {
+            return recordings;
+        }
+
+        /** The cursor for the following page, or empty if this is the last page. */
+        public Optional<String> getNextCursor() {
+            return Optional.ofNullable(nextCursor);
+        }
+    }
+}
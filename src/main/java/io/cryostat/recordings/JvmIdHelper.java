@@ -39,6 +39,7 @@ package io.cryostat.recordings;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
@@ -146,6 +147,18 @@ public class JvmIdHelper extends AbstractEventEmitter<JvmIdHelper.IdEvent, Strin
         }
     }
 
+    /**
+     * The JVM ID of the target if it has already been retrieved, without connecting to the target
+     * or waiting for a retrieval still in progress.
+     */
+    public Optional<String> getCachedJvmId(String targetId) {
+        CompletableFuture<String> id = this.ids.getIfPresent(targetId);
+        if (id == null || !id.isDone() || id.isCompletedExceptionally()) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(id.getNow(null));
+    }
+
     public String subdirectoryNameToJvmId(String subdirectoryName) {
         if (subdirectoryName.equals(RecordingArchiveHelper.UPLOADED_RECORDINGS_SUBDIRECTORY)
                 || subdirectoryName.equals(RecordingArchiveHelper.LOST_RECORDINGS_SUBDIRECTORY)) {
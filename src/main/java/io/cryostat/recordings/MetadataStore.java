@@ -0,0 +1,452 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.recordings;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.FileSystem;
+import io.cryostat.net.web.http.api.v2.graph.labels.LabelIndex;
+import io.cryostat.net.web.http.api.v2.graph.labels.LabelSelectorMatcher;
+import io.cryostat.recordings.RecordingMetadataManager.StoredRecordingMetadata;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * In-memory index of recording metadata, keyed by JVM ID and recording name, backed by one JSON
+ * file per recording in the metadata directory. Recording labels are also indexed per JVM ID, so
+ * that label selectors can be evaluated without reading every recording's metadata.
+ *
+ * <p>Reads are served from the index. Writes update the index immediately and are persisted
+ * write-behind: changes are queued per file, in the same critical section as the index update so
+ * that the index and the queue always agree on a recording's latest value, so repeated writes to
+ * the same recording within the flush delay are coalesced, and then written out together as a
+ * batch. Each batch is first written to a journal file, which is moved into place atomically before
+ * any metadata file is touched and removed once the batch has been applied. If Cryostat stops
+ * partway through applying a batch, the journal is replayed on the next startup, so a metadata file
+ * is never left half-written. Changes still waiting for the flush delay to elapse are not journaled
+ * and are lost if Cryostat exits without being stopped cleanly.
+ */
+class MetadataStore {
+
+    static final String JOURNAL_FILE_NAME = ".journal.json";
+    private static final long FLUSH_DELAY_MILLIS = 1000;
+
+    private final Path metadataDir;
+    private final FileSystem fs;
+    private final Gson gson;
+    private final ScheduledExecutorService flushExecutor;
+    private final Logger logger;
+
+    private final Map<String, Map<String, Entry>> index = new ConcurrentHashMap<>();
+    // jvmId -> inverted index of labels to recordingName. This is keyed by JVM ID rather than the
+    // stored target ID, since the same target may be written to under different connect URLs
+    private final Map<String, LabelIndex<String>> labelsByJvm = new ConcurrentHashMap<>();
+    // file -> metadata to write, or empty to delete the file. Guarded by itself.
+    private final Map<Path, Optional<StoredRecordingMetadata>> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    MetadataStore(
+            Path metadataDir,
+            FileSystem fs,
+            Gson gson,
+            ScheduledExecutorService flushExecutor,
+            Logger logger) {
+        this.metadataDir = metadataDir;
+        this.fs = fs;
+        this.gson = gson;
+        this.flushExecutor = flushExecutor;
+        this.logger = logger;
+    }
+
+    /**
+     * Replay the journal left behind by a batch that was not completely applied, if there is one.
+     * This must be called before the metadata files are read to build the index.
+     */
+    synchronized void recover() {
+        Path journal = metadataDir.resolve(JOURNAL_FILE_NAME);
+        try {
+            Files.deleteIfExists(metadataDir.resolve(JOURNAL_FILE_NAME + ".tmp"));
+            if (!Files.isRegularFile(journal)) {
+                return;
+            }
+            Journal j;
+            try (Reader reader = Files.newBufferedReader(journal, StandardCharsets.UTF_8)) {
+                j = gson.fromJson(reader, Journal.class);
+            } catch (JsonParseException e) {
+                // the journal is only ever moved into place complete, so this is not a torn write
+                logger.warn("Recording metadata journal {} is invalid, discarding", journal);
+                Files.deleteIfExists(journal);
+                return;
+            }
+            if (j != null && j.records != null) {
+                logger.info("Replaying {} recording metadata journal records", j.records.size());
+                Map<Path, Optional<StoredRecordingMetadata>> batch = new LinkedHashMap<>();
+                for (JournalRecord record : j.records) {
+                    batch.put(
+                            metadataDir.resolve(record.file), Optional.ofNullable(record.metadata));
+                }
+                if (!apply(batch).isEmpty()) {
+                    // leave the journal in place to try again on the next startup
+                    return;
+                }
+            }
+            Files.deleteIfExists(journal);
+        } catch (IOException e) {
+            logger.error("Recording metadata journal {} could not be replayed", journal);
+            logger.error(e);
+        }
+    }
+
+    /** Add metadata that has already been persisted at the given file to the index. */
+    void load(Path file, StoredRecordingMetadata srm) {
+        store(file, srm, false);
+    }
+
+    Optional<StoredRecordingMetadata> get(String jvmId, String recordingName) {
+        Map<String, Entry> recordings = index.get(jvmId);
+        if (recordings == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(recordings.get(recordingName)).map(e -> e.metadata);
+    }
+
+    /** All of the metadata stored for recordings belonging to the given JVM. */
+    Collection<StoredRecordingMetadata> getAll(String jvmId) {
+        Map<String, Entry> recordings = index.get(jvmId);
+        if (recordings == null) {
+            return List.of();
+        }
+        List<StoredRecordingMetadata> result = new ArrayList<>(recordings.size());
+        recordings.values().forEach(e -> result.add(e.metadata));
+        return result;
+    }
+
+    /**
+     * The names of the recordings belonging to the given JVM whose stored labels match all of the
+     * given selectors. Recordings with no stored metadata are not included.
+     */
+    Set<String> selectRecordingNames(String jvmId, Collection<LabelSelectorMatcher> selectors) {
+        LabelIndex<String> labels = labelsByJvm.get(jvmId);
+        if (labels == null) {
+            return new HashSet<>();
+        }
+        Set<String> names = null;
+        for (LabelSelectorMatcher selector : selectors) {
+            Set<String> selected = selector.select(labels);
+            if (names == null) {
+                names = selected;
+            } else {
+                names.retainAll(selected);
+            }
+        }
+        if (names == null) {
+            names = labels.all();
+        }
+        return names;
+    }
+
+    /** Store metadata in the index, and queue it to be written to the given file. */
+    void put(Path file, StoredRecordingMetadata srm) {
+        store(file, srm, true);
+    }
+
+    /** Remove metadata from the index, and queue its file to be deleted. */
+    Optional<StoredRecordingMetadata> remove(String jvmId, String recordingName) {
+        AtomicReference<Entry> removed = new AtomicReference<>();
+        index.computeIfPresent(
+                jvmId,
+                (k, recordings) -> {
+                    Entry entry = recordings.remove(recordingName);
+                    if (entry != null) {
+                        unindexLabels(entry.metadata);
+                        enqueue(entry.file, Optional.empty());
+                    }
+                    removed.set(entry);
+                    return recordings.isEmpty() ? null : recordings;
+                });
+        return Optional.ofNullable(removed.get()).map(e -> e.metadata);
+    }
+
+    /**
+     * Remove any metadata stored at the given file from the index, and queue the file to be
+     * deleted. The file is queued even if it is not indexed, ex. because it could not be read.
+     * Deleting through the queue means a flush already in progress cannot write the file back
+     * afterwards.
+     */
+    void delete(Path file) {
+        AtomicBoolean queued = new AtomicBoolean();
+        for (String jvmId : index.keySet()) {
+            index.computeIfPresent(
+                    jvmId,
+                    (k, recordings) -> {
+                        boolean removed =
+                                recordings
+                                        .values()
+                                        .removeIf(
+                                                e -> {
+                                                    if (!e.file.equals(file)) {
+                                                        return false;
+                                                    }
+                                                    unindexLabels(e.metadata);
+                                                    return true;
+                                                });
+                        if (removed) {
+                            enqueue(file, Optional.empty());
+                            queued.set(true);
+                        }
+                        return recordings.isEmpty() ? null : recordings;
+                    });
+        }
+        if (!queued.get()) {
+            enqueue(file, Optional.empty());
+        }
+    }
+
+    /** Persist all queued changes now, rather than waiting for the flush delay to elapse. */
+    synchronized void flush() {
+        Map<Path, Optional<StoredRecordingMetadata>> batch;
+        synchronized (pending) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+        Path journal = metadataDir.resolve(JOURNAL_FILE_NAME);
+        try {
+            writeJournal(journal, batch);
+        } catch (IOException e) {
+            logger.warn("Recording metadata journal {} could not be written", journal);
+            logger.warn(e);
+            requeue(batch);
+            return;
+        }
+        Map<Path, Optional<StoredRecordingMetadata>> failed = apply(batch);
+        // failed changes are requeued, and journaled again with the next batch
+        requeue(failed);
+        try {
+            Files.deleteIfExists(journal);
+        } catch (IOException e) {
+            logger.warn("Recording metadata journal {} could not be removed", journal);
+            logger.warn(e);
+        }
+    }
+
+    private void store(Path file, StoredRecordingMetadata srm, boolean persist) {
+        // mutate the per-JVM maps only within compute so that they are not concurrently removed.
+        // A recording's file is derived from its JVM ID and name, so queueing the write within
+        // the same compute also orders concurrent writes to the file the same way as the index
+        index.compute(
+                srm.getJvmId(),
+                (k, recordings) -> {
+                    if (recordings == null) {
+                        recordings = new ConcurrentHashMap<>();
+                    }
+                    Entry previous = recordings.put(srm.getRecordingName(), new Entry(file, srm));
+                    if (previous != null) {
+                        unindexLabels(previous.metadata);
+                    }
+                    indexLabels(srm);
+                    if (persist) {
+                        enqueue(file, Optional.of(srm));
+                    }
+                    return recordings;
+                });
+    }
+
+    // called within the index compute functions for the recording's JVM ID, so that the label
+    // indices are updated in the same order as the index
+    private void indexLabels(StoredRecordingMetadata srm) {
+        labelsByJvm
+                .computeIfAbsent(srm.getJvmId(), k -> new LabelIndex<>())
+                .put(srm.getRecordingName(), srm.getLabels());
+    }
+
+    private void unindexLabels(StoredRecordingMetadata srm) {
+        labelsByJvm.computeIfPresent(
+                srm.getJvmId(),
+                (k, labels) -> {
+                    labels.remove(srm.getRecordingName());
+                    return labels.isEmpty() ? null : labels;
+                });
+    }
+
+    private void enqueue(Path file, Optional<StoredRecordingMetadata> change) {
+        synchronized (pending) {
+            // remove first so that the most recently changed files are written last
+            pending.remove(file);
+            pending.put(file, change);
+            scheduleFlush();
+        }
+    }
+
+    private void requeue(Map<Path, Optional<StoredRecordingMetadata>> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        synchronized (pending) {
+            // changes made since the batch was taken supersede the failed ones
+            changes.forEach(pending::putIfAbsent);
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flushExecutor.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeJournal(Path journal, Map<Path, Optional<StoredRecordingMetadata>> batch)
+            throws IOException {
+        Journal j = new Journal();
+        j.records = new ArrayList<>(batch.size());
+        batch.forEach(
+                (file, change) -> {
+                    JournalRecord record = new JournalRecord();
+                    record.file = file.toString();
+                    record.metadata = change.orElse(null);
+                    j.records.add(record);
+                });
+        Path tmp = metadataDir.resolve(JOURNAL_FILE_NAME + ".tmp");
+        try (Writer writer =
+                Files.newBufferedWriter(
+                        tmp,
+                        StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.SYNC)) {
+            gson.toJson(j, writer);
+        }
+        Files.move(
+                tmp, journal, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Map<Path, Optional<StoredRecordingMetadata>> apply(
+            Map<Path, Optional<StoredRecordingMetadata>> batch) {
+        Map<Path, Optional<StoredRecordingMetadata>> failed = new LinkedHashMap<>();
+        Set<Path> emptiedDirectories = new HashSet<>();
+        batch.forEach(
+                (file, change) -> {
+                    Path parent = file.getParent();
+                    try {
+                        if (change.isPresent()) {
+                            if (parent != null && !fs.isDirectory(parent)) {
+                                fs.createDirectory(parent);
+                            }
+                            fs.writeString(
+                                    file,
+                                    gson.toJson(change.get()),
+                                    StandardOpenOption.WRITE,
+                                    StandardOpenOption.CREATE,
+                                    StandardOpenOption.TRUNCATE_EXISTING);
+                        } else if (fs.deleteIfExists(file) && parent != null) {
+                            emptiedDirectories.add(parent);
+                        }
+                    } catch (IOException e) {
+                        logger.error("Recording metadata file {} could not be updated", file);
+                        logger.error(e);
+                        failed.put(file, change);
+                    }
+                });
+        for (Path dir : emptiedDirectories) {
+            if (dir.equals(metadataDir)) {
+                continue;
+            }
+            try {
+                if (fs.listDirectoryChildren(dir).isEmpty()) {
+                    fs.deleteIfExists(dir);
+                }
+            } catch (IOException e) {
+                logger.warn("Recording metadata directory {} could not be removed", dir);
+            }
+        }
+        return failed;
+    }
+
+    private static class Entry {
+        private final Path file;
+        private final StoredRecordingMetadata metadata;
+
+        Entry(Path file, StoredRecordingMetadata metadata) {
+            this.file = file;
+            this.metadata = metadata;
+        }
+    }
+
+    @SuppressFBWarnings(
+            value = {"UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR", "URF_UNREAD_FIELD"},
+            justification = "Fields are (de)serialized by Gson")
+    private static class Journal {
+        List<JournalRecord> records;
+    }
+
+    @SuppressFBWarnings(
+            value = {"UWF_FIELD_NOT_INITIALIZED_IN_CONSTRUCTOR", "URF_UNREAD_FIELD"},
+            justification = "Fields are (de)serialized by Gson")
+    private static class JournalRecord {
+        String file;
+        StoredRecordingMetadata metadata;
+    }
+}
@@ -61,7 +61,6 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 import javax.inject.Named;
 import javax.inject.Provider;
@@ -81,6 +80,7 @@ import io.cryostat.net.web.WebModule;
 import io.cryostat.net.web.WebServer;
 import io.cryostat.net.web.http.HttpMimeType;
 import io.cryostat.platform.PlatformClient;
+import io.cryostat.platform.ServiceRef;
 import io.cryostat.recordings.JvmIdHelper.JvmIdGetException;
 import io.cryostat.recordings.RecordingMetadataManager.Metadata;
 import io.cryostat.rules.ArchivePathException;
@@ -105,6 +105,7 @@ public class RecordingArchiveHelper {
     private final NotificationFactory notificationFactory;
     private final JvmIdHelper jvmIdHelper;
     private final Base32 base32;
+    private final ArchiveCatalog catalog;
 
     private static final String SAVE_NOTIFICATION_CATEGORY = "ActiveRecordingSaved";
     private static final String DELETE_NOTIFICATION_CATEGORY = "ArchivedRecordingDeleted";
@@ -129,7 +130,8 @@ public class RecordingArchiveHelper {
             PlatformClient platformClient,
             NotificationFactory notificationFactory,
             JvmIdHelper jvmIdHelper,
-            Base32 base32) {
+            Base32 base32,
+            ArchiveCatalog catalog) {
         this.fs = fs;
         this.webServerProvider = webServerProvider;
         this.logger = logger;
@@ -142,6 +144,7 @@ public class RecordingArchiveHelper {
         this.notificationFactory = notificationFactory;
         this.jvmIdHelper = jvmIdHelper;
         this.base32 = base32;
+        this.catalog = catalog;
     }
 
     // startup migration for archived recordings
@@ -149,6 +152,10 @@ public class RecordingArchiveHelper {
         List<String> subdirectories = fs.listDirectoryChildren(archivedRecordingsPath);
         List<Future<Void>> futures = new ArrayList<>(subdirectories.size());
         for (String subdirectoryName : subdirectories) {
+            if (subdirectoryName.startsWith(".")) {
+                // hidden files such as the archive catalog are not recording subdirectories
+                continue;
+            }
             Future<Void> future =
                     executor.submit(
                             () -> {
@@ -243,15 +250,10 @@ public class RecordingArchiveHelper {
     protected void transferArchivesIfRestarted(String targetId) {
         try {
             Path subdirectoryPath = null;
-            for (String encodedJvmId : fs.listDirectoryChildren(archivedRecordingsPath)) {
-                Path subdir = archivedRecordingsPath.resolve(encodedJvmId);
-                Path connectUrl = subdir.resolve("connectUrl");
-                if (fs.exists(connectUrl)) {
-                    String u = fs.readString(connectUrl);
-                    if (Objects.equals(targetId, u)) {
-                        subdirectoryPath = subdir;
-                        break;
-                    }
+            for (ArchiveCatalog.Directory dir : catalog.getDirectories()) {
+                if (Objects.equals(Optional.of(targetId), dir.getConnectUrl())) {
+                    subdirectoryPath = archivedRecordingsPath.resolve(dir.getName());
+                    break;
                 }
             }
             if (subdirectoryPath == null) {
@@ -377,7 +379,7 @@ public class RecordingArchiveHelper {
                                     .getArchivedReportURL(
                                             connectionDescriptor.getTargetId(), filename),
                             metadata,
-                            getFileSize(filename));
+                            getFileSize(savePath));
             future.complete(archivedRecordingInfo);
             notificationFactory
                     .createBuilder()
@@ -423,7 +425,9 @@ public class RecordingArchiveHelper {
                             webServerProvider.get().getArchivedReportURL(targetId, filename),
                             recordingMetadataManager.deleteRecordingMetadataIfExists(
                                     jvmId, recordingName),
-                            getFileSize(filename));
+                            catalog.get(subdirectoryName, filename)
+                                    .map(ArchiveCatalog.Entry::getSize)
+                                    .orElse(0L));
             notificationFactory
                     .createBuilder()
                     .metaCategory(DELETE_NOTIFICATION_CATEGORY)
@@ -432,6 +436,7 @@ public class RecordingArchiveHelper {
                     .build()
                     .send();
             fs.deleteIfExists(recordingPath);
+            catalog.refresh(recordingPath);
             checkEmptySubdirectory(subdirectoryPath);
             future.complete(archivedRecordingInfo);
         } catch (IOException | URISyntaxException | InterruptedException | ExecutionException e) {
@@ -471,7 +476,9 @@ public class RecordingArchiveHelper {
         CompletableFuture<ArchivedRecordingInfo> future = new CompletableFuture<>();
 
         try {
+            long size = getFileSize(archivedRecording);
             fs.deleteIfExists(archivedRecording);
+            catalog.refresh(archivedRecording);
             validateSavePath(recordingName, archivedRecording);
             Path parentPath = archivedRecording.getParent();
             Path filenamePath = archivedRecording.getFileName();
@@ -486,7 +493,7 @@ public class RecordingArchiveHelper {
                             webServerProvider.get().getArchivedReportURL(targetId, filename),
                             recordingMetadataManager.deleteRecordingMetadataIfExists(
                                     new ConnectionDescriptor(targetId), recordingName),
-                            getFileSize(filename));
+                            size);
             notificationFactory
                     .createBuilder()
                     .metaCategory(DELETE_NOTIFICATION_CATEGORY)
@@ -525,6 +532,14 @@ public class RecordingArchiveHelper {
         }
     }
 
+    /**
+     * Update the archive listings for a recording file which was written into the archives without
+     * going through this helper, so that it is listed without waiting for the filesystem watcher.
+     */
+    public void refreshArchivedRecording(Path recording) {
+        catalog.refresh(recording);
+    }
+
     public boolean deleteReportFromPath(String subdirectoryName, String recordingName) {
         try {
             logger.trace("Invalidating archived report cache for {}", recordingName);
@@ -615,26 +630,27 @@ public class RecordingArchiveHelper {
             }
             WebServer webServer = webServerProvider.get();
             List<ArchivedRecordingInfo> archivedRecordings = new ArrayList<>();
-            this.fs.listDirectoryChildren(specificRecordingsPath).stream()
-                    .filter(filename -> !filename.equals(CONNECT_URL))
-                    .map(
-                            file -> {
-                                try {
-                                    return new ArchivedRecordingInfo(
-                                            targetId,
-                                            file,
-                                            webServer.getArchivedDownloadURL(targetId, file),
-                                            webServer.getArchivedReportURL(targetId, file),
-                                            recordingMetadataManager.getMetadata(
-                                                    new ConnectionDescriptor(targetId), file),
-                                            getFileSize(file));
-                                } catch (IOException | URISyntaxException e) {
-                                    logger.warn(e);
-                                    return null;
-                                }
-                            })
-                    .filter(Objects::nonNull)
-                    .forEach(archivedRecordings::add);
+            String subdirectoryName = jvmIdHelper.jvmIdToSubdirectoryName(jvmId);
+            for (ArchiveCatalog.Entry entry :
+                    catalog.getDirectory(subdirectoryName)
+                            .map(ArchiveCatalog.Directory::getRecordings)
+                            .orElse(List.of())) {
+                try {
+                    String file = entry.getName();
+                    archivedRecordings.add(
+                            new ArchivedRecordingInfo(
+                                    targetId,
+                                    file,
+                                    webServer.getArchivedDownloadURL(targetId, file),
+                                    webServer.getArchivedReportURL(targetId, file),
+                                    recordingMetadataManager.getMetadata(
+                                            new ConnectionDescriptor(targetId), file),
+                                    entry.getSize(),
+                                    entry.getLastModified()));
+                } catch (IOException | URISyntaxException e) {
+                    logger.warn(e);
+                }
+            }
             future.complete(archivedRecordings);
         } catch (ArchivePathException | IOException e) {
             future.completeExceptionally(e);
@@ -659,52 +675,44 @@ public class RecordingArchiveHelper {
             }
             WebServer webServer = webServerProvider.get();
             List<ArchiveDirectory> directories = new ArrayList<>();
-            List<String> subdirectories = this.fs.listDirectoryChildren(archivedRecordingsPath);
-            for (String subdirectoryName : subdirectories) {
+            for (ArchiveCatalog.Directory dir : catalog.getDirectories()) {
+                String subdirectoryName = dir.getName();
                 if (subdirectoryName.equals("file-uploads")) {
                     continue;
                 }
-                Path subdirectory = archivedRecordingsPath.resolve(subdirectoryName);
-                String targetId = getConnectUrlFromPath(subdirectory).get();
+                Optional<String> connectUrl = getConnectUrl(dir);
+                if (connectUrl.isEmpty()) {
+                    continue;
+                }
+                String targetId = connectUrl.get();
                 String jvmId = jvmIdHelper.subdirectoryNameToJvmId(subdirectoryName);
-                List<String> files = this.fs.listDirectoryChildren(subdirectory);
-                List<ArchivedRecordingInfo> temp =
-                        files.stream()
-                                .filter(filename -> !filename.equals(CONNECT_URL))
-                                .map(
-                                        file -> {
-                                            try {
-                                                // FIXME: string replacing
-                                                return new ArchivedRecordingInfo(
-                                                        targetId,
-                                                        file,
-                                                        webServer
-                                                                .getArchivedDownloadURL(
-                                                                        subdirectoryName, file)
-                                                                .replace(
-                                                                        "beta/recordings",
-                                                                        "beta/fs/recordings"),
-                                                        webServer
-                                                                .getArchivedReportURL(
-                                                                        subdirectoryName, file)
-                                                                .replace(
-                                                                        "beta/reports",
-                                                                        "beta/fs/reports"),
-                                                        recordingMetadataManager
-                                                                .getMetadataFromPathIfExists(
-                                                                        jvmId, file),
-                                                        getFileSize(file));
-                                            } catch (IOException | URISyntaxException e) {
-                                                logger.warn(e);
-                                                return null;
-                                            }
-                                        })
-                                .filter(Objects::nonNull)
-                                .collect(Collectors.toList());
+                List<ArchivedRecordingInfo> temp = new ArrayList<>();
+                for (ArchiveCatalog.Entry entry : dir.getRecordings()) {
+                    String file = entry.getName();
+                    try {
+                        // FIXME: string replacing
+                        temp.add(
+                                new ArchivedRecordingInfo(
+                                        targetId,
+                                        file,
+                                        webServer
+                                                .getArchivedDownloadURL(subdirectoryName, file)
+                                                .replace("beta/recordings", "beta/fs/recordings"),
+                                        webServer
+                                                .getArchivedReportURL(subdirectoryName, file)
+                                                .replace("beta/reports", "beta/fs/reports"),
+                                        recordingMetadataManager.getMetadataFromPathIfExists(
+                                                jvmId, file),
+                                        entry.getSize(),
+                                        entry.getLastModified()));
+                    } catch (IOException | URISyntaxException e) {
+                        logger.warn(e);
+                    }
+                }
                 directories.add(new ArchiveDirectory(targetId, subdirectoryName, temp));
             }
             future.complete(directories);
-        } catch (ArchivePathException | IOException | InterruptedException | ExecutionException e) {
+        } catch (ArchivePathException e) {
             future.completeExceptionally(e);
         }
         return future;
@@ -726,46 +734,137 @@ public class RecordingArchiveHelper {
                         archivedRecordingsPath.toString(), "is not a directory");
             }
             WebServer webServer = webServerProvider.get();
-            List<String> subdirectories = this.fs.listDirectoryChildren(archivedRecordingsPath);
             List<ArchivedRecordingInfo> archivedRecordings = new ArrayList<>();
-            for (String subdirectoryName : subdirectories) {
-                Path subdirectory = archivedRecordingsPath.resolve(subdirectoryName);
-                String targetId = getConnectUrlFromPath(subdirectory).get();
-                List<String> files = this.fs.listDirectoryChildren(subdirectory);
-                List<ArchivedRecordingInfo> temp =
-                        files.stream()
-                                .filter(filename -> !filename.equals(CONNECT_URL))
-                                .map(
-                                        file -> {
-                                            try {
-                                                return new ArchivedRecordingInfo(
-                                                        targetId,
-                                                        file,
-                                                        webServer.getArchivedDownloadURL(
-                                                                targetId, file),
-                                                        webServer.getArchivedReportURL(
-                                                                targetId, file),
-                                                        recordingMetadataManager.getMetadata(
-                                                                new ConnectionDescriptor(targetId),
-                                                                file),
-                                                        getFileSize(file));
-                                            } catch (IOException | URISyntaxException e) {
-                                                logger.warn(e);
-                                                return null;
-                                            }
-                                        })
-                                .filter(Objects::nonNull)
-                                .collect(Collectors.toList());
-                archivedRecordings.addAll(temp);
+            for (ArchiveCatalog.Directory dir : catalog.getDirectories()) {
+                Optional<String> connectUrl = getConnectUrl(dir);
+                if (connectUrl.isEmpty()) {
+                    continue;
+                }
+                String targetId = connectUrl.get();
+                for (ArchiveCatalog.Entry entry : dir.getRecordings()) {
+                    String file = entry.getName();
+                    try {
+                        archivedRecordings.add(
+                                new ArchivedRecordingInfo(
+                                        targetId,
+                                        file,
+                                        webServer.getArchivedDownloadURL(targetId, file),
+                                        webServer.getArchivedReportURL(targetId, file),
+                                        recordingMetadataManager.getMetadata(
+                                                new ConnectionDescriptor(targetId), file),
+                                        entry.getSize(),
+                                        entry.getLastModified()));
+                    } catch (IOException | URISyntaxException e) {
+                        logger.warn(e);
+                    }
+                }
             }
             future.complete(archivedRecordings);
-        } catch (ArchivePathException | IOException | InterruptedException | ExecutionException e) {
+        } catch (ArchivePathException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * List one page of the archived recordings of all targets. Every catalog entry is still visited
+     * to select the page, so the cost of a page grows with the size of the archives, but recordings
+     * are selected and sorted using only the name, size and modification time recorded in the
+     * catalog. URLs and metadata are only gathered for the recordings in the page, as each is
+     * retrieved from it, so streaming the page builds one recording at a time.
+     */
+    public Future<ArchivedRecordingsQuery.Page> getRecordingsPage(ArchivedRecordingsQuery query) {
+        CompletableFuture<ArchivedRecordingsQuery.Page> future = new CompletableFuture<>();
+        try {
+            validateArchivePath();
+            WebServer webServer = webServerProvider.get();
+            List<PageCandidate> candidates = new ArrayList<>();
+            for (ArchiveCatalog.Directory dir : catalog.getDirectories()) {
+                Optional<String> connectUrl = getConnectUrl(dir);
+                if (connectUrl.isPresent()) {
+                    addCandidates(candidates, connectUrl.get(), dir);
+                }
+            }
+            future.complete(query.apply(candidates, c -> toRecordingInfo(webServer, c)));
+        } catch (ArchivePathException e) {
             future.completeExceptionally(e);
         }
+        return future;
+    }
 
+    /**
+     * List one page of the archived recordings of a single target.
+     *
+     * @see #getRecordingsPage(ArchivedRecordingsQuery)
+     */
+    public Future<ArchivedRecordingsQuery.Page> getRecordingsPage(
+            String targetId, ArchivedRecordingsQuery query) {
+        CompletableFuture<ArchivedRecordingsQuery.Page> future = new CompletableFuture<>();
+        try {
+            validateArchivePath();
+            String jvmId = jvmIdHelper.getJvmId(targetId);
+            WebServer webServer = webServerProvider.get();
+            List<PageCandidate> candidates = new ArrayList<>();
+            Optional<ArchiveCatalog.Directory> dir =
+                    catalog.getDirectory(jvmIdHelper.jvmIdToSubdirectoryName(jvmId));
+            if (dir.isPresent()) {
+                addCandidates(candidates, targetId, dir.get());
+            }
+            future.complete(query.apply(candidates, c -> toRecordingInfo(webServer, c)));
+        } catch (ArchivePathException | IOException e) {
+            future.completeExceptionally(e);
+        }
         return future;
     }
 
+    private void validateArchivePath() throws ArchivePathException {
+        if (!fs.exists(archivedRecordingsPath)) {
+            throw new ArchivePathException(archivedRecordingsPath.toString(), "does not exist");
+        }
+        if (!fs.isReadable(archivedRecordingsPath)) {
+            throw new ArchivePathException(archivedRecordingsPath.toString(), "is not readable");
+        }
+        if (!fs.isDirectory(archivedRecordingsPath)) {
+            throw new ArchivePathException(archivedRecordingsPath.toString(), "is not a directory");
+        }
+    }
+
+    private void addCandidates(
+            List<PageCandidate> candidates, String targetId, ArchiveCatalog.Directory dir) {
+        for (ArchiveCatalog.Entry entry : dir.getRecordings()) {
+            candidates.add(new PageCandidate(targetId, entry));
+        }
+    }
+
+    private Optional<ArchivedRecordingInfo> toRecordingInfo(
+            WebServer webServer, PageCandidate candidate) {
+        String targetId = candidate.getServiceUri();
+        String file = candidate.getName();
+        Metadata metadata;
+        try {
+            metadata =
+                    recordingMetadataManager.getMetadata(new ConnectionDescriptor(targetId), file);
+        } catch (IOException e) {
+            logger.warn(e);
+            metadata = new Metadata();
+        }
+        try {
+            return Optional.of(
+                    new ArchivedRecordingInfo(
+                            targetId,
+                            file,
+                            webServer.getArchivedDownloadURL(targetId, file),
+                            webServer.getArchivedReportURL(targetId, file),
+                            metadata,
+                            candidate.getSize(),
+                            candidate.getArchivedTime()));
+        } catch (IOException | URISyntaxException e) {
+            logger.warn(e);
+            return Optional.empty();
+        }
+    }
+
     public Future<Path> getRecordingPathFromPath(String subdirectoryName, String recordingName) {
         try {
             boolean checkConnectUrl = !jvmIdHelper.isSpecialDirectory(subdirectoryName);
@@ -780,12 +879,11 @@ public class RecordingArchiveHelper {
     public Future<Path> getRecordingPath(String recordingName) {
         CompletableFuture<Path> future = new CompletableFuture<>();
         try {
-            List<String> subdirectories = this.fs.listDirectoryChildren(archivedRecordingsPath);
             Optional<Path> optional =
-                    searchSubdirectories(subdirectories, archivedRecordingsPath, recordingName);
+                    catalog.find(recordingName).map(ArchiveCatalog.Entry::getPath);
             validateRecordingPath(optional, recordingName, false);
             future.complete(optional.get());
-        } catch (RecordingNotFoundException | IOException | ArchivePathException e) {
+        } catch (RecordingNotFoundException | ArchivePathException e) {
             future.completeExceptionally(e);
         }
         return future;
@@ -806,10 +904,13 @@ public class RecordingArchiveHelper {
                         sourceTarget,
                         StandardOpenOption.CREATE);
             }
-            Path archivedRecording = searchSubdirectory(subdirectory, recordingName);
-            if (archivedRecording == null) {
-                throw new RecordingNotFoundException(sourceTarget, recordingName);
-            }
+            Path archivedRecording =
+                    catalog.get(jvmIdHelper.jvmIdToSubdirectoryName(jvmId), recordingName)
+                            .map(ArchiveCatalog.Entry::getPath)
+                            .orElseThrow(
+                                    () ->
+                                            new RecordingNotFoundException(
+                                                    sourceTarget, recordingName));
             validateRecordingPath(Optional.of(archivedRecording), recordingName, true);
             future.complete(archivedRecording);
         } catch (RecordingNotFoundException | ArchivePathException | IOException e) {
@@ -818,35 +919,6 @@ public class RecordingArchiveHelper {
         return future;
     }
 
-    private Path searchSubdirectory(Path subdirectory, String recordingName) {
-        Path recordingPath = null;
-        try {
-            for (String file : this.fs.listDirectoryChildren(subdirectory)) {
-                if (file.equals(CONNECT_URL)) continue;
-                if (recordingName.equals(file)) {
-                    recordingPath = subdirectory.resolve(file).normalize().toAbsolutePath();
-                    break;
-                }
-            }
-        } catch (IOException ioe) {
-            logger.error(ioe);
-        }
-        return recordingPath;
-    }
-
-    private Optional<Path> searchSubdirectories(
-            List<String> subdirectories, Path parent, String recordingName) {
-        // TODO refactor this into nicer streaming
-        return subdirectories.stream()
-                .map(parent::resolve)
-                .map(
-                        subdirectory -> {
-                            return searchSubdirectory(subdirectory, recordingName);
-                        })
-                .filter(Objects::nonNull)
-                .findFirst();
-    }
-
     public void validateSourceTarget(String sourceTarget)
             throws RecordingSourceTargetNotFoundException {
         if (sourceTarget.equals(UPLOADED_RECORDINGS_SUBDIRECTORY)) {
@@ -854,14 +926,14 @@ public class RecordingArchiveHelper {
         }
         // assume sourceTarget is percent encoded
         String decodedTargetId = URLDecoder.decode(sourceTarget, StandardCharsets.UTF_8);
-        boolean exists =
-                this.platformClient.listDiscoverableServices().stream()
-                        .anyMatch(
-                                target ->
-                                        target.getServiceUri().toString().equals(decodedTargetId));
-        if (!exists) {
-            throw new RecordingSourceTargetNotFoundException(decodedTargetId);
+        try {
+            if (this.platformClient.getDiscoverableService(new URI(decodedTargetId)).isPresent()) {
+                return;
+            }
+        } catch (URISyntaxException e) {
+            // not a valid connection URL, so it can't be a known target's
         }
+        throw new RecordingSourceTargetNotFoundException(decodedTargetId);
     }
 
     private void validateRecordingPath(
@@ -904,17 +976,10 @@ public class RecordingArchiveHelper {
             recordingName = recordingName.substring(0, recordingName.length() - 4);
         }
 
-        // TODO: To avoid having to perform this lookup each time, we should implement
-        // something like a map from targetIds to corresponding ServiceRefs
         String targetName =
-                platformClient.listDiscoverableServices().stream()
-                        .filter(
-                                serviceRef -> {
-                                    return serviceRef.getServiceUri().equals(serviceUri)
-                                            && serviceRef.getAlias().isPresent();
-                                })
-                        .map(s -> s.getAlias().get())
-                        .findFirst()
+                platformClient
+                        .getDiscoverableService(serviceUri)
+                        .flatMap(ServiceRef::getAlias)
                         .orElse(connection.getHost())
                         .replaceAll("[\\._]+", "-");
 
@@ -971,12 +1036,53 @@ public class RecordingArchiveHelper {
                 .findFirst();
     }
 
-    private long getFileSize(String recordingName) {
-        try {
-            return Files.size(getRecordingPath(recordingName).get());
-        } catch (IOException | InterruptedException | ExecutionException e) {
-            logger.error("Invalid path: {}", recordingName);
-            return 0;
+    private long getFileSize(Path recording) {
+        return catalog.refresh(recording).map(ArchiveCatalog.Entry::getSize).orElse(0L);
+    }
+
+    private Optional<String> getConnectUrl(ArchiveCatalog.Directory dir) {
+        String name = dir.getName();
+        if (name.equals(UPLOADED_RECORDINGS_SUBDIRECTORY) || name.equals("file-uploads")) {
+            return Optional.of(UPLOADED_RECORDINGS_SUBDIRECTORY);
+        }
+        if (name.equals(LOST_RECORDINGS_SUBDIRECTORY)) {
+            return Optional.of(LOST_RECORDINGS_SUBDIRECTORY);
+        }
+        if (dir.getConnectUrl().isEmpty()) {
+            // the directory has only just been created and its connectUrl is not yet written
+            logger.trace("Skipping archive subdirectory {} with no connectUrl", name);
+        }
+        return dir.getConnectUrl();
+    }
+
+    /** A catalog entry of a target's archives, sortable without building its recording info. */
+    private static class PageCandidate implements ArchivedRecordingsQuery.SortKey {
+        private final String targetId;
+        private final ArchiveCatalog.Entry entry;
+
+        PageCandidate(String targetId, ArchiveCatalog.Entry entry) {
+            this.targetId = targetId;
+            this.entry = entry;
+        }
+
+        @Override
+        public String getServiceUri() {
+            return targetId;
+        }
+
+        @Override
+        public String getName() {
+            return entry.getName();
+        }
+
+        @Override
+        public long getSize() {
+            return entry.getSize();
+        }
+
+        @Override
+        public long getArchivedTime() {
+            return entry.getLastModified();
         }
     }
 
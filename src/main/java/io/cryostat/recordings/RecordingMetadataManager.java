@@ -42,10 +42,12 @@ import java.io.IOException;
 import java.lang.reflect.Type;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
@@ -70,6 +72,7 @@ import io.cryostat.messaging.notifications.NotificationFactory;
 import io.cryostat.net.ConnectionDescriptor;
 import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.web.http.HttpMimeType;
+import io.cryostat.net.web.http.api.v2.graph.labels.LabelSelectorMatcher;
 import io.cryostat.platform.PlatformClient;
 import io.cryostat.platform.ServiceRef;
 import io.cryostat.platform.TargetDiscoveryEvent;
@@ -107,6 +110,7 @@ public class RecordingMetadataManager extends AbstractVerticle
     private final JvmIdHelper jvmIdHelper;
     private final Gson gson;
     private final Base32 base32;
+    private final MetadataStore store;
     private final Logger logger;
 
     private final CountDownLatch migrationLatch = new CountDownLatch(1);
@@ -125,6 +129,7 @@ public class RecordingMetadataManager extends AbstractVerticle
             JvmIdHelper jvmIdHelper,
             Gson gson,
             Base32 base32,
+            MetadataStore store,
             Logger logger) {
         this.executor = executor;
         this.recordingMetadataDir = recordingMetadataDir;
@@ -139,6 +144,7 @@ public class RecordingMetadataManager extends AbstractVerticle
         this.jvmIdHelper = jvmIdHelper;
         this.gson = gson;
         this.base32 = base32;
+        this.store = store;
         this.logger = logger;
     }
 
@@ -149,8 +155,11 @@ public class RecordingMetadataManager extends AbstractVerticle
         Map<StoredRecordingMetadata, Path> staleMetadata =
                 new HashMap<StoredRecordingMetadata, Path>();
         RecordingArchiveHelper archiveHelper = archiveHelperProvider.get();
+        store.recover();
         try {
             this.fs.listDirectoryChildren(recordingMetadataDir).stream()
+                    // skip the store's journal
+                    .filter(n -> !n.startsWith("."))
                     .peek(n -> logger.info("Peeking contents of metadata directory: {}", n))
                     .map(recordingMetadataDir::resolve)
                     .forEach(
@@ -226,6 +235,7 @@ public class RecordingMetadataManager extends AbstractVerticle
                                                                 // since we are using directory
                                                                 // structure
                                                                 if (srm.getJvmId() != null) {
+                                                                    store.load(file, srm);
                                                                     try {
                                                                         if (!isArchivedRecording(
                                                                                 recordingName)) {
@@ -411,6 +421,7 @@ public class RecordingMetadataManager extends AbstractVerticle
     @Override
     public void stop() {
         this.platformClient.removeTargetDiscoveryListener(this);
+        store.flush();
     }
 
     @Override
@@ -524,12 +535,9 @@ public class RecordingMetadataManager extends AbstractVerticle
         String jvmId = jvmIdHelper.subdirectoryNameToJvmId(subdirectoryName);
 
         Path metadataPath = this.getMetadataPath(jvmId, recordingName);
-        fs.writeString(
+        store.put(
                 metadataPath,
-                gson.toJson(StoredRecordingMetadata.of(connectUrl, jvmId, recordingName, metadata)),
-                StandardOpenOption.WRITE,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING);
+                StoredRecordingMetadata.of(connectUrl, jvmId, recordingName, metadata));
 
         notificationFactory
                 .createBuilder()
@@ -561,17 +569,10 @@ public class RecordingMetadataManager extends AbstractVerticle
         String jvmId = jvmIdHelper.getJvmId(connectionDescriptor);
 
         Path metadataPath = this.getMetadataPath(jvmId, recordingName);
-        fs.writeString(
+        store.put(
                 metadataPath,
-                gson.toJson(
-                        StoredRecordingMetadata.of(
-                                connectionDescriptor.getTargetId(),
-                                jvmId,
-                                recordingName,
-                                metadata)),
-                StandardOpenOption.WRITE,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.TRUNCATE_EXISTING);
+                StoredRecordingMetadata.of(
+                        connectionDescriptor.getTargetId(), jvmId, recordingName, metadata));
 
         if (issueNotification) {
             notificationFactory
@@ -615,23 +616,13 @@ public class RecordingMetadataManager extends AbstractVerticle
         Objects.requireNonNull(connectionDescriptor);
         Objects.requireNonNull(recordingName);
 
-        Metadata metadata = null;
-
         String jvmId;
         if (connectionDescriptor.getTargetId().equals(UPLOADS)) {
             jvmId = UPLOADS;
         } else {
             jvmId = jvmIdHelper.getJvmId(connectionDescriptor);
         }
-
-        Path metadataPath = getMetadataPath(jvmId, recordingName);
-        if (!fs.isRegularFile(metadataPath)) {
-            metadata = new Metadata();
-            fs.writeString(metadataPath, gson.toJson(metadata));
-        } else {
-            metadata = gson.fromJson(fs.readFile(metadataPath), Metadata.class);
-        }
-        return metadata;
+        return getMetadataFromPathIfExists(jvmId, recordingName);
     }
 
     // Public metadata getter which doesn't rely on target being available
@@ -639,13 +630,34 @@ public class RecordingMetadataManager extends AbstractVerticle
             throws IOException {
         Objects.requireNonNull(jvmId);
         Objects.requireNonNull(recordingName);
-        Path metadataPath = getMetadataPath(jvmId, recordingName);
-        if (!fs.isRegularFile(metadataPath)) {
-            Metadata metadata = new Metadata();
-            fs.writeString(metadataPath, gson.toJson(metadata));
-            return metadata;
+        // recordings without stored metadata simply have no labels, so there is no need to
+        // persist an empty entry for them
+        return store.get(jvmId, recordingName).map(Metadata::new).orElseGet(Metadata::new);
+    }
+
+    /**
+     * Find the names of the recordings originating from the given target whose labels match all of
+     * the given selectors, using the label index rather than reading each recording's metadata. The
+     * names may include archived recordings as well as active ones.
+     *
+     * <p>Labels are indexed by JVM ID, so recordings are found no matter which connect URL for the
+     * target their labels were written with. The target's JVM ID is only used if it is already
+     * known, so this never connects to the target.
+     *
+     * @return the matching recording names, or empty if the selectors would also match a recording
+     *     with no labels, in which case recordings without stored metadata cannot be ruled out, or
+     *     if the target's JVM ID is not yet known
+     */
+    public Optional<Set<String>> findRecordingNames(
+            String targetId, Collection<LabelSelectorMatcher> selectors) {
+        Objects.requireNonNull(targetId);
+        Objects.requireNonNull(selectors);
+        if (selectors.stream().allMatch(LabelSelectorMatcher::matchesUnlabelled)) {
+            return Optional.empty();
         }
-        return gson.fromJson(fs.readFile(metadataPath), Metadata.class);
+        return jvmIdHelper
+                .getCachedJvmId(targetId)
+                .map(jvmId -> store.selectRecordingNames(jvmId, selectors));
     }
 
     public Metadata deleteRecordingMetadataIfExists(
@@ -662,15 +674,7 @@ public class RecordingMetadataManager extends AbstractVerticle
         Objects.requireNonNull(jvmId);
         Objects.requireNonNull(recordingName);
 
-        Path metadataPath = this.getMetadataPath(jvmId, recordingName);
-        if (fs.isRegularFile(metadataPath)) {
-            Metadata metadata = gson.fromJson(fs.readFile(metadataPath), Metadata.class);
-            if (fs.deleteIfExists(metadataPath)) {
-                deleteSubdirectoryIfEmpty(metadataPath.getParent());
-            }
-            return metadata;
-        }
-        return null;
+        return store.remove(jvmId, recordingName).map(Metadata::new).orElse(null);
     }
 
     public Future<Metadata> copyMetadataToArchives(
@@ -741,28 +745,18 @@ public class RecordingMetadataManager extends AbstractVerticle
             }
 
             logger.info("{} Metadata transfer: {} -> {}", targetId, oldJvmId, newJvmId);
-            Path oldParent = getMetadataPath(oldJvmId);
-            for (String encodedFilename : fs.listDirectoryChildren(oldParent)) {
+            for (StoredRecordingMetadata srm : store.getAll(oldJvmId)) {
                 try {
-                    Path oldMetadataPath = oldParent.resolve(encodedFilename);
-                    StoredRecordingMetadata srm =
-                            gson.fromJson(
-                                    fs.readFile(oldMetadataPath), StoredRecordingMetadata.class);
                     String recordingName = srm.recordingName;
                     StoredRecordingMetadata updatedSrm =
                             StoredRecordingMetadata.of(targetId, newJvmId, recordingName, srm);
-                    Path newLocation = getMetadataPath(newJvmId, recordingName);
-                    fs.writeString(newLocation, gson.toJson(updatedSrm));
-
-                    fs.deleteIfExists(oldMetadataPath);
+                    store.put(getMetadataPath(newJvmId, recordingName), updatedSrm);
+                    store.remove(oldJvmId, recordingName);
                 } catch (Exception e) {
                     logger.error("Metadata could not be transferred");
                     logger.error(e);
                 }
             }
-            if (fs.listDirectoryChildren(oldParent).isEmpty()) {
-                fs.deleteIfExists(oldParent);
-            }
             logger.info(
                     "{} Metadata successfully transferred: {} -> {}", targetId, oldJvmId, newJvmId);
         } catch (IOException e) {
@@ -771,20 +765,15 @@ public class RecordingMetadataManager extends AbstractVerticle
     }
 
     private void removeLostTargetMetadata(String jvmId) {
-        try {
-            for (String encodedFilename : fs.listDirectoryChildren(getMetadataPath(jvmId))) {
-                String recordingName =
-                        new String(base32.decode(encodedFilename), StandardCharsets.UTF_8);
-                try {
-                    if (!isArchivedRecording(recordingName)) {
-                        deleteRecordingMetadataIfExists(jvmId, recordingName);
-                    }
-                } catch (IOException e) {
-                    logger.error(e);
+        for (StoredRecordingMetadata srm : store.getAll(jvmId)) {
+            String recordingName = srm.getRecordingName();
+            try {
+                if (!isArchivedRecording(recordingName)) {
+                    deleteRecordingMetadataIfExists(jvmId, recordingName);
                 }
+            } catch (IOException e) {
+                logger.error(e);
             }
-        } catch (IOException e) {
-            logger.error(e);
         }
     }
 
@@ -863,41 +852,11 @@ public class RecordingMetadataManager extends AbstractVerticle
         return subdirectory.resolve(filename);
     }
 
-    private boolean deleteMetadataPathIfExists(Path path) {
-        if (fs.exists(path)) {
-            try {
-                if (fs.deleteIfExists(path)) {
-                    logger.info("Deleted metadata file {}", path);
-                    deleteSubdirectoryIfEmpty(path.getParent());
-                    return true;
-                } else {
-                    logger.error("Failed to delete metadata file {}", path);
-                }
-            } catch (IOException e) {
-                logger.error("Failed to delete metadata file {}, {}", path, e.getCause());
-            }
-        } else {
-            logger.error("Try to delete path that doesn't exist {}", path);
-        }
-        return false;
-    }
-
-    private boolean deleteSubdirectoryIfEmpty(Path path) {
-        if (path == null || path.equals(recordingMetadataDir)) {
-            return false;
-        }
-        if (fs.exists(path)) {
-            try {
-                if (fs.listDirectoryChildren(path).isEmpty()) {
-                    return fs.deleteIfExists(path);
-                }
-            } catch (IOException e) {
-                logger.error("Couldn't delete path {}, msg: {}", path, e.getCause());
-            }
-        } else {
-            logger.error("Try to delete path that doesn't exist {}", path);
-        }
-        return false;
+    private void deleteMetadataPathIfExists(Path path) {
+        // queue the deletion with the store's other writes rather than deleting the file here, so
+        // that a flush which has already taken a write for the file cannot recreate it afterwards
+        logger.info("Deleting metadata file {}", path);
+        store.delete(path);
     }
 
     private ConnectionDescriptor getConnectionDescriptorWithCredentials(ServiceRef serviceRef)
@@ -82,9 +82,9 @@ public class RecordingTargetHelper {
 
     private static final String CREATION_NOTIFICATION_CATEGORY = "ActiveRecordingCreated";
     public static final String STOP_NOTIFICATION_CATEGORY = "ActiveRecordingStopped";
-    private static final String DELETION_NOTIFICATION_CATEGORY = "ActiveRecordingDeleted";
+    public static final String DELETION_NOTIFICATION_CATEGORY = "ActiveRecordingDeleted";
     private static final String SNAPSHOT_CREATION_NOTIFICATION_CATEGORY = "SnapshotCreated";
-    private static final String SNAPSHOT_DELETION_NOTIFICATION_CATEGORY = "SnapshotDeleted";
+    public static final String SNAPSHOT_DELETION_NOTIFICATION_CATEGORY = "SnapshotDeleted";
 
     private static final long TIMESTAMP_DRIFT_SAFEGUARD = 500L;
 
@@ -133,7 +133,8 @@ public class RecordingTargetHelper {
             throws Exception {
         return targetConnectionManager.executeConnectedTask(
                 connectionDescriptor,
-                connection -> connection.getService().getAvailableRecordings());
+                TargetConnectionManager.readOnly(
+                        connection -> connection.getService().getAvailableRecordings()));
     }
 
     public IRecordingDescriptor startRecording(
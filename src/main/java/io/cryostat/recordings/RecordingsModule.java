@@ -43,6 +43,7 @@ import java.nio.file.Path;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
 import java.util.Set;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 
 import javax.inject.Named;
@@ -127,7 +128,8 @@ public abstract class RecordingsModule {
             DiscoveryStorage storage,
             NotificationFactory notificationFactory,
             JvmIdHelper jvmIdHelper,
-            Base32 base32) {
+            Base32 base32,
+            ArchiveCatalog catalog) {
         return new RecordingArchiveHelper(
                 fs,
                 webServerProvider,
@@ -140,7 +142,34 @@ public abstract class RecordingsModule {
                 storage,
                 notificationFactory,
                 jvmIdHelper,
-                base32);
+                base32,
+                catalog);
+    }
+
+    @Provides
+    @Singleton
+    static ArchiveCatalog provideArchiveCatalog(
+            @Named(MainModule.RECORDINGS_PATH) Path archivedRecordingsPath,
+            FileSystem fs,
+            Gson gson,
+            Logger logger) {
+        return new ArchiveCatalog(
+                archivedRecordingsPath,
+                fs,
+                gson,
+                Executors.newSingleThreadExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "cryostat-archive-catalog-watcher");
+                            t.setDaemon(true);
+                            return t;
+                        }),
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "cryostat-archive-catalog-persister");
+                            t.setDaemon(true);
+                            return t;
+                        }),
+                logger);
     }
 
     @Provides
@@ -203,6 +232,18 @@ public abstract class RecordingsModule {
                     jvmIdHelper,
                     gson,
                     base32,
+                    new MetadataStore(
+                            metadataDir,
+                            fs,
+                            gson,
+                            Executors.newSingleThreadScheduledExecutor(
+                                    r -> {
+                                        Thread t =
+                                                new Thread(r, "cryostat-recording-metadata-writer");
+                                        t.setDaemon(true);
+                                        return t;
+                                    }),
+                            logger),
                     logger);
         } catch (IOException e) {
             throw new RuntimeException(e);
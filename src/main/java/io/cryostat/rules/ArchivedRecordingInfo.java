@@ -37,13 +37,14 @@
  */
 package io.cryostat.rules;
 
+import io.cryostat.recordings.ArchivedRecordingsQuery;
 import io.cryostat.recordings.RecordingMetadataManager.Metadata;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 
 // FIXME move to a more appropriate package
-public class ArchivedRecordingInfo {
+public class ArchivedRecordingInfo implements ArchivedRecordingsQuery.SortKey {
 
     private final transient String serviceUri;
     private final String downloadUrl;
@@ -51,6 +52,7 @@ public class ArchivedRecordingInfo {
     private final String reportUrl;
     private final Metadata metadata;
     private final long size;
+    private final long archivedTime;
 
     public ArchivedRecordingInfo(
             String serviceUri,
@@ -59,18 +61,32 @@ public class ArchivedRecordingInfo {
             String reportUrl,
             Metadata metadata,
             long size) {
+        this(serviceUri, name, downloadUrl, reportUrl, metadata, size, 0);
+    }
+
+    public ArchivedRecordingInfo(
+            String serviceUri,
+            String name,
+            String downloadUrl,
+            String reportUrl,
+            Metadata metadata,
+            long size,
+            long archivedTime) {
         this.serviceUri = serviceUri;
         this.name = name;
         this.downloadUrl = downloadUrl;
         this.reportUrl = reportUrl;
         this.metadata = metadata;
         this.size = size;
+        this.archivedTime = archivedTime;
     }
 
+    @Override
     public String getServiceUri() {
         return this.serviceUri;
     }
 
+    @Override
     public String getName() {
         return this.name;
     }
@@ -87,10 +103,17 @@ public class ArchivedRecordingInfo {
         return this.metadata;
     }
 
+    @Override
     public long getSize() {
         return this.size;
     }
 
+    /** Last modification time of the archived file, in epoch milliseconds. */
+    @Override
+    public long getArchivedTime() {
+        return this.archivedTime;
+    }
+
     @Override
     public boolean equals(Object other) {
         if (other == null) {
@@ -110,6 +133,7 @@ public class ArchivedRecordingInfo {
                 .append(reportUrl, ari.reportUrl)
                 .append(metadata, ari.metadata)
                 .append(size, ari.size)
+                .append(archivedTime, ari.archivedTime)
                 .isEquals();
     }
 
@@ -122,6 +146,7 @@ public class ArchivedRecordingInfo {
                 .append(reportUrl)
                 .append(metadata)
                 .append(size)
+                .append(archivedTime)
                 .hashCode();
     }
 }
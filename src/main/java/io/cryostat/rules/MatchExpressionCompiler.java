@@ -0,0 +1,578 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.rules;
+
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import io.cryostat.platform.ServiceRef;
+
+import org.openjdk.nashorn.api.tree.ArrayAccessTree;
+import org.openjdk.nashorn.api.tree.BinaryTree;
+import org.openjdk.nashorn.api.tree.CompilationUnitTree;
+import org.openjdk.nashorn.api.tree.ExpressionStatementTree;
+import org.openjdk.nashorn.api.tree.ExpressionTree;
+import org.openjdk.nashorn.api.tree.FunctionCallTree;
+import org.openjdk.nashorn.api.tree.IdentifierTree;
+import org.openjdk.nashorn.api.tree.LiteralTree;
+import org.openjdk.nashorn.api.tree.MemberSelectTree;
+import org.openjdk.nashorn.api.tree.ParenthesizedTree;
+import org.openjdk.nashorn.api.tree.Parser;
+import org.openjdk.nashorn.api.tree.RegExpLiteralTree;
+import org.openjdk.nashorn.api.tree.Tree;
+import org.openjdk.nashorn.api.tree.UnaryTree;
+import org.openjdk.nashorn.internal.runtime.ParserException;
+
+/**
+ * Translates match expressions into native Java predicates over {@link ServiceRef}, so that the
+ * common comparisons against a target's connectUrl, alias, labels and annotations do not need a
+ * round trip through the script engine on every evaluation. Only a subset of the expression
+ * language is supported: boolean, string and null literals, {@code undefined}, the {@code target}
+ * properties, {@code == != === !== && || !}, parentheses and {@code /regexp/.test(...)}. The
+ * compiled predicates reproduce the script engine's semantics for that subset, including the
+ * distinction between {@code null} and {@code undefined} for missing map keys and the loose
+ * comparison of the connectUrl URI object against strings. Anything outside of the subset is not
+ * compiled and callers should fall back to evaluating the expression with the script engine.
+ */
+class MatchExpressionCompiler {
+
+    // stands in for the JavaScript undefined value, ie. the result of reading a missing key
+    private static final Object UNDEFINED = new Object();
+
+    // the script engine resolves these against the Map object itself rather than its entries
+    private static final Set<String> MAP_MEMBERS = mapMembers();
+
+    private static final String ANY_EXCEPT_LINE_TERMINATOR = "[^\\n\\r\\u2028\\u2029]";
+    private static final String WORD_BOUNDARY = "(?:(?<=\\w)(?!\\w)|(?<!\\w)(?=\\w))";
+    private static final String NOT_WORD_BOUNDARY = "(?:(?<=\\w)(?=\\w)|(?<!\\w)(?!\\w))";
+    private static final String REGEXP_SYNTAX_CHARACTERS = "^$\\.*+?()[]{}|/-";
+
+    private final Parser parser = Parser.create();
+
+    Optional<Predicate<ServiceRef>> compile(String matchExpression) {
+        try {
+            CompilationUnitTree cut = parser.parse("", matchExpression, null);
+            if (cut == null || cut.getSourceElements().size() != 1) {
+                return Optional.empty();
+            }
+            Tree element = cut.getSourceElements().get(0);
+            if (element.getKind() != Tree.Kind.EXPRESSION_STATEMENT) {
+                return Optional.empty();
+            }
+            Operand operand = compile(((ExpressionStatementTree) element).getExpression());
+            if (operand.type != Type.BOOLEAN) {
+                return Optional.empty();
+            }
+            return Optional.of(serviceRef -> (Boolean) operand.evaluate(serviceRef));
+        } catch (ParserException | UnsupportedExpressionException e) {
+            return Optional.empty();
+        }
+    }
+
+    private Operand compile(ExpressionTree node) {
+        switch (node.getKind()) {
+            case PARENTHESIZED:
+                return compile(((ParenthesizedTree) node).getExpression());
+            case BOOLEAN_LITERAL:
+                return Operand.constant(Type.BOOLEAN, ((LiteralTree) node).getValue());
+            case STRING_LITERAL:
+                return Operand.constant(Type.STRING, ((LiteralTree) node).getValue());
+            case NULL_LITERAL:
+                return Operand.constant(Type.NULLISH, null);
+            case IDENTIFIER:
+                if ("undefined".equals(((IdentifierTree) node).getName())) {
+                    return Operand.constant(Type.NULLISH, UNDEFINED);
+                }
+                throw new UnsupportedExpressionException();
+            case MEMBER_SELECT:
+            case ARRAY_ACCESS:
+                return property(propertyPath(node));
+            case EQUAL_TO:
+                return equality((BinaryTree) node, false, false);
+            case NOT_EQUAL_TO:
+                return equality((BinaryTree) node, false, true);
+            case STRICT_EQUAL_TO:
+                return equality((BinaryTree) node, true, false);
+            case STRICT_NOT_EQUAL_TO:
+                return equality((BinaryTree) node, true, true);
+            case CONDITIONAL_AND:
+                {
+                    Operand left = compileBoolean(((BinaryTree) node).getLeftOperand());
+                    Operand right = compileBoolean(((BinaryTree) node).getRightOperand());
+                    return new Operand(
+                            Type.BOOLEAN,
+                            sr -> (Boolean) left.evaluate(sr) && (Boolean) right.evaluate(sr));
+                }
+            case CONDITIONAL_OR:
+                {
+                    Operand left = compileBoolean(((BinaryTree) node).getLeftOperand());
+                    Operand right = compileBoolean(((BinaryTree) node).getRightOperand());
+                    return new Operand(
+                            Type.BOOLEAN,
+                            sr -> (Boolean) left.evaluate(sr) || (Boolean) right.evaluate(sr));
+                }
+            case LOGICAL_COMPLEMENT:
+                {
+                    Operand operand = compileBoolean(((UnaryTree) node).getExpression());
+                    return new Operand(Type.BOOLEAN, sr -> !(Boolean) operand.evaluate(sr));
+                }
+            case FUNCTION_INVOCATION:
+                return regExpTest((FunctionCallTree) node);
+            default:
+                throw new UnsupportedExpressionException();
+        }
+    }
+
+    private Operand compileBoolean(ExpressionTree node) {
+        Operand operand = compile(node);
+        if (operand.type != Type.BOOLEAN) {
+            // && and || evaluate to one of their operands, and ! coerces its operand, so only
+            // boolean operands are guaranteed to behave identically
+            throw new UnsupportedExpressionException();
+        }
+        return operand;
+    }
+
+    private Operand equality(BinaryTree node, boolean strict, boolean negate) {
+        Operand left = compile(node.getLeftOperand());
+        Operand right = compile(node.getRightOperand());
+        if (left.type == Type.URI && right.type == Type.URI) {
+            throw new UnsupportedExpressionException();
+        }
+        if (!strict && (left.type == Type.BOOLEAN) != (right.type == Type.BOOLEAN)) {
+            // loose comparison of a boolean against anything other than null or undefined
+            // performs numeric conversions, which are not supported
+            Type other = left.type == Type.BOOLEAN ? right.type : left.type;
+            if (other != Type.NULLISH) {
+                throw new UnsupportedExpressionException();
+            }
+        }
+        BiPredicate<Object, Object> equals =
+                strict
+                        ? MatchExpressionCompiler::strictEquals
+                        : MatchExpressionCompiler::looseEquals;
+        return new Operand(
+                Type.BOOLEAN, sr -> equals.test(left.evaluate(sr), right.evaluate(sr)) != negate);
+    }
+
+    private static boolean looseEquals(Object a, Object b) {
+        if (isNullish(a) || isNullish(b)) {
+            return isNullish(a) && isNullish(b);
+        }
+        if (a instanceof URI) {
+            a = a.toString();
+        }
+        if (b instanceof URI) {
+            b = b.toString();
+        }
+        return a.equals(b);
+    }
+
+    private static boolean strictEquals(Object a, Object b) {
+        if (a instanceof URI || b instanceof URI) {
+            return a == b;
+        }
+        return Objects.equals(a, b);
+    }
+
+    private static boolean isNullish(Object o) {
+        return o == null || o == UNDEFINED;
+    }
+
+    private static String toJsString(Object o) {
+        if (o == UNDEFINED) {
+            return "undefined";
+        }
+        return String.valueOf(o);
+    }
+
+    private List<String> propertyPath(ExpressionTree node) {
+        List<String> path = new ArrayList<>();
+        while (node.getKind() != Tree.Kind.IDENTIFIER) {
+            if (node.getKind() == Tree.Kind.MEMBER_SELECT) {
+                MemberSelectTree select = (MemberSelectTree) node;
+                path.add(0, select.getIdentifier());
+                node = select.getExpression();
+            } else if (node.getKind() == Tree.Kind.ARRAY_ACCESS) {
+                ArrayAccessTree access = (ArrayAccessTree) node;
+                if (access.getIndex().getKind() != Tree.Kind.STRING_LITERAL) {
+                    throw new UnsupportedExpressionException();
+                }
+                path.add(0, (String) ((LiteralTree) access.getIndex()).getValue());
+                node = access.getExpression();
+            } else if (node.getKind() == Tree.Kind.PARENTHESIZED) {
+                node = ((ParenthesizedTree) node).getExpression();
+            } else {
+                throw new UnsupportedExpressionException();
+            }
+        }
+        if (!"target".equals(((IdentifierTree) node).getName())) {
+            throw new UnsupportedExpressionException();
+        }
+        return path;
+    }
+
+    private Operand property(List<String> path) {
+        if (path.equals(List.of("connectUrl"))) {
+            return new Operand(Type.URI, ServiceRef::getServiceUri);
+        }
+        if (path.equals(List.of("alias"))) {
+            return new Operand(Type.NULLABLE_STRING, sr -> sr.getAlias().orElse(null));
+        }
+        if (path.size() == 2 && path.get(0).equals("labels")) {
+            String key = entryKey(path.get(1));
+            return new Operand(Type.NULLABLE_STRING, sr -> lookup(sr.getLabels(), key));
+        }
+        if (path.size() == 3 && path.subList(0, 2).equals(List.of("annotations", "platform"))) {
+            String key = entryKey(path.get(2));
+            return new Operand(
+                    Type.NULLABLE_STRING, sr -> lookup(sr.getPlatformAnnotations(), key));
+        }
+        if (path.size() == 3 && path.subList(0, 2).equals(List.of("annotations", "cryostat"))) {
+            String name = entryKey(path.get(2));
+            Optional<ServiceRef.AnnotationKey> key =
+                    Arrays.stream(ServiceRef.AnnotationKey.values())
+                            .filter(k -> k.name().equals(name))
+                            .findFirst();
+            if (key.isEmpty()) {
+                return Operand.constant(Type.NULLABLE_STRING, UNDEFINED);
+            }
+            return new Operand(
+                    Type.NULLABLE_STRING, sr -> lookup(sr.getCryostatAnnotations(), key.get()));
+        }
+        throw new UnsupportedExpressionException();
+    }
+
+    private static String entryKey(String key) {
+        if (MAP_MEMBERS.contains(key)) {
+            throw new UnsupportedExpressionException();
+        }
+        return key;
+    }
+
+    private static Object lookup(Map<?, String> map, Object key) {
+        if (!map.containsKey(key)) {
+            return UNDEFINED;
+        }
+        return map.get(key);
+    }
+
+    private Operand regExpTest(FunctionCallTree node) {
+        if (node.getFunctionSelect().getKind() != Tree.Kind.MEMBER_SELECT
+                || node.getArguments().size() != 1) {
+            throw new UnsupportedExpressionException();
+        }
+        MemberSelectTree select = (MemberSelectTree) node.getFunctionSelect();
+        if (!"test".equals(select.getIdentifier())
+                || select.getExpression().getKind() != Tree.Kind.REGEXP_LITERAL) {
+            throw new UnsupportedExpressionException();
+        }
+        Pattern pattern = regExp((RegExpLiteralTree) select.getExpression());
+        Operand argument = compile(node.getArguments().get(0));
+        return new Operand(
+                Type.BOOLEAN, sr -> pattern.matcher(toJsString(argument.evaluate(sr))).find());
+    }
+
+    /**
+     * Translate a JavaScript regular expression literal into an equivalent {@link Pattern}. Only
+     * constructs which behave identically in both dialects, or which can be rewritten to do so, are
+     * accepted.
+     */
+    static Pattern regExp(RegExpLiteralTree node) {
+        return regExp(node.getPattern(), node.getOptions());
+    }
+
+    static Pattern regExp(String source, String options) {
+        int flags;
+        if (options.isEmpty()) {
+            flags = 0;
+        } else if (options.equals("i")) {
+            flags = Pattern.CASE_INSENSITIVE;
+        } else {
+            throw new UnsupportedExpressionException();
+        }
+        StringBuilder sb = new StringBuilder(source.length() * 2);
+        boolean inClass = false;
+        // whether the previous atom may be followed by a quantifier, and whether it already was
+        Repeat repeat = Repeat.NOTHING;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (c > 0x7f && flags != 0) {
+                // case folding of non-ASCII characters differs between the two dialects
+                throw new UnsupportedExpressionException();
+            }
+            if (inClass) {
+                switch (c) {
+                    case ']':
+                        inClass = false;
+                        repeat = Repeat.ATOM;
+                        sb.append(c);
+                        break;
+                    case '[':
+                    case '&':
+                        // nested classes, unions and intersections are Java-only syntax
+                        sb.append('\\').append(c);
+                        break;
+                    case '\\':
+                        sb.append(classEscape(source, ++i));
+                        break;
+                    default:
+                        sb.append(c);
+                        break;
+                }
+                continue;
+            }
+            switch (c) {
+                case '\\':
+                    i++;
+                    if (i >= source.length()) {
+                        throw new UnsupportedExpressionException();
+                    }
+                    char escaped = source.charAt(i);
+                    if (escaped == 'b' || escaped == 'B') {
+                        sb.append(escaped == 'b' ? WORD_BOUNDARY : NOT_WORD_BOUNDARY);
+                        repeat = Repeat.NOTHING;
+                    } else {
+                        sb.append(characterEscape(escaped));
+                        repeat = Repeat.ATOM;
+                    }
+                    break;
+                case '[':
+                    inClass = true;
+                    sb.append(c);
+                    if (i + 1 < source.length() && source.charAt(i + 1) == '^') {
+                        sb.append(source.charAt(++i));
+                    }
+                    if (i + 1 < source.length() && source.charAt(i + 1) == ']') {
+                        // [] and [^] match nothing and anything in JavaScript
+                        throw new UnsupportedExpressionException();
+                    }
+                    break;
+                case '.':
+                    sb.append(ANY_EXCEPT_LINE_TERMINATOR);
+                    repeat = Repeat.ATOM;
+                    break;
+                case '^':
+                    sb.append(c);
+                    repeat = Repeat.NOTHING;
+                    break;
+                case '$':
+                    // without the multiline flag, $ only matches at the very end of the input
+                    sb.append("\\z");
+                    repeat = Repeat.NOTHING;
+                    break;
+                case '|':
+                    sb.append(c);
+                    repeat = Repeat.NOTHING;
+                    break;
+                case '(':
+                    sb.append(c);
+                    if (i + 1 < source.length() && source.charAt(i + 1) == '?') {
+                        if (i + 2 >= source.length() || ":=!".indexOf(source.charAt(i + 2)) < 0) {
+                            throw new UnsupportedExpressionException();
+                        }
+                        sb.append(source, i + 1, i + 3);
+                        i += 2;
+                    }
+                    repeat = Repeat.NOTHING;
+                    break;
+                case ')':
+                    sb.append(c);
+                    repeat = Repeat.ATOM;
+                    break;
+                case '*':
+                case '+':
+                    if (repeat != Repeat.ATOM) {
+                        // possessive quantifiers are Java-only syntax
+                        throw new UnsupportedExpressionException();
+                    }
+                    sb.append(c);
+                    repeat = Repeat.QUANTIFIED;
+                    break;
+                case '?':
+                    if (repeat == Repeat.ATOM) {
+                        repeat = Repeat.QUANTIFIED;
+                    } else if (repeat == Repeat.QUANTIFIED) {
+                        repeat = Repeat.LAZY;
+                    } else {
+                        throw new UnsupportedExpressionException();
+                    }
+                    sb.append(c);
+                    break;
+                case '{':
+                    {
+                        int end = source.indexOf('}', i);
+                        if (repeat != Repeat.ATOM
+                                || end < 0
+                                || !source.substring(i + 1, end).matches("\\d+(,\\d*)?")) {
+                            // JavaScript treats malformed quantifiers as literals
+                            throw new UnsupportedExpressionException();
+                        }
+                        sb.append(source, i, end + 1);
+                        i = end;
+                        repeat = Repeat.QUANTIFIED;
+                        break;
+                    }
+                case ']':
+                case '}':
+                    sb.append('\\').append(c);
+                    repeat = Repeat.ATOM;
+                    break;
+                default:
+                    sb.append(c);
+                    repeat = Repeat.ATOM;
+                    break;
+            }
+        }
+        if (inClass) {
+            throw new UnsupportedExpressionException();
+        }
+        try {
+            return Pattern.compile(sb.toString(), flags);
+        } catch (PatternSyntaxException pse) {
+            throw new UnsupportedExpressionException();
+        }
+    }
+
+    private static String characterEscape(char c) {
+        switch (c) {
+            case 'd':
+            case 'D':
+            case 'w':
+            case 'W':
+            case 'n':
+            case 'r':
+            case 't':
+            case 'f':
+                return "\\" + c;
+            case 'v':
+                return "\\x0B";
+            default:
+                if (REGEXP_SYNTAX_CHARACTERS.indexOf(c) >= 0) {
+                    return "\\" + c;
+                }
+                // whitespace classes, backreferences and control, hex or unicode escapes are not
+                // translated
+                throw new UnsupportedExpressionException();
+        }
+    }
+
+    private static String classEscape(String source, int i) {
+        if (i >= source.length()) {
+            throw new UnsupportedExpressionException();
+        }
+        char c = source.charAt(i);
+        switch (c) {
+            case 'b':
+                return "\\x08";
+            case 'B':
+                throw new UnsupportedExpressionException();
+            default:
+                return characterEscape(c);
+        }
+    }
+
+    private static Set<String> mapMembers() {
+        Set<String> members = new HashSet<>();
+        members.add("length");
+        for (Class<?> klazz : List.of(Map.class, HashMap.class, Object.class)) {
+            for (Method method : klazz.getMethods()) {
+                String name = method.getName();
+                members.add(name);
+                if (method.getParameterCount() == 0) {
+                    if (name.startsWith("get") && name.length() > 3) {
+                        members.add(Character.toLowerCase(name.charAt(3)) + name.substring(4));
+                    } else if (name.startsWith("is") && name.length() > 2) {
+                        members.add(Character.toLowerCase(name.charAt(2)) + name.substring(3));
+                    }
+                }
+            }
+        }
+        return members;
+    }
+
+    private enum Type {
+        BOOLEAN,
+        STRING,
+        URI,
+        NULLABLE_STRING,
+        NULLISH,
+    }
+
+    private enum Repeat {
+        NOTHING,
+        ATOM,
+        QUANTIFIED,
+        LAZY,
+    }
+
+    private static class Operand {
+        final Type type;
+        final Function<ServiceRef, Object> function;
+
+        Operand(Type type, Function<ServiceRef, Object> function) {
+            this.type = type;
+            this.function = function;
+        }
+
+        static Operand constant(Type type, Object value) {
+            return new Operand(type, sr -> value);
+        }
+
+        Object evaluate(ServiceRef serviceRef) {
+            return function.apply(serviceRef);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static class UnsupportedExpressionException extends RuntimeException {}
+}
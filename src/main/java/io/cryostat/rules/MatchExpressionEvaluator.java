@@ -40,7 +40,9 @@ package io.cryostat.rules;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.CompletionException;
+import java.util.function.Predicate;
 
 import javax.script.Bindings;
 import javax.script.ScriptEngine;
@@ -62,6 +64,8 @@ import org.apache.commons.lang3.tuple.Pair;
 public class MatchExpressionEvaluator {
 
     private final ScriptEngine scriptEngine;
+    private final MatchExpressionCompiler compiler;
+    private final LoadingCache<String, Optional<Predicate<ServiceRef>>> compiledExpressions;
     private final LoadingCache<Pair<String, ServiceRef>, Boolean> cache;
     private final Logger logger;
 
@@ -72,6 +76,8 @@ public class MatchExpressionEvaluator {
             Logger logger) {
         this.scriptEngine = scriptEngine;
         this.logger = logger;
+        this.compiler = new MatchExpressionCompiler();
+        this.compiledExpressions = Caffeine.newBuilder().maximumSize(256).build(compiler::compile);
         this.cache =
                 Caffeine.newBuilder()
                         .maximumSize(1024) // should this be configurable?
@@ -119,6 +125,7 @@ public class MatchExpressionEvaluator {
     }
 
     private void invalidate(String matchExpression) {
+        compiledExpressions.invalidate(matchExpression);
         var it = cache.asMap().keySet().iterator();
         while (it.hasNext()) {
             Pair<String, ServiceRef> entry = it.next();
@@ -133,6 +140,13 @@ public class MatchExpressionEvaluator {
         MatchExpressionAppliesEvent evt = new MatchExpressionAppliesEvent(matchExpression);
         try {
             evt.begin();
+            // expressions within the subset understood by the compiler are cheap enough to
+            // evaluate directly, so only results from the script engine are memoized
+            Optional<Predicate<ServiceRef>> compiled = compiledExpressions.get(matchExpression);
+            evt.setCompiled(compiled.isPresent());
+            if (compiled.isPresent()) {
+                return compiled.get().test(serviceRef);
+            }
             Boolean result = cache.get(key);
             if (result == null) {
                 throw new IllegalStateException();
@@ -195,10 +209,15 @@ public class MatchExpressionEvaluator {
     public static class MatchExpressionAppliesEvent extends Event {
 
         String matchExpression;
+        boolean compiled;
 
         MatchExpressionAppliesEvent(String matchExpression) {
             this.matchExpression = matchExpression;
         }
+
+        void setCompiled(boolean compiled) {
+            this.compiled = compiled;
+        }
     }
 
     @Name("io.cryostat.rules.MatchExpressionEvaluator.BindingsCreationEvent")
@@ -0,0 +1,399 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.rules;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import javax.script.ScriptException;
+
+import io.cryostat.configuration.CredentialsManager;
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
+import io.cryostat.platform.PlatformClient;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.TargetDiscoveryEvent;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Materialized matrix of which discovered targets each match expression applies to. A column is
+ * computed the first time an expression is looked up, or when a rule or credential using it is
+ * added, and dropped again when it is removed. Target discovery events only re-evaluate the
+ * expressions against the target that was found or lost, so lookups do not need to evaluate every
+ * expression against every target. Targets which are not (or not yet) part of the matrix are
+ * evaluated directly.
+ *
+ * <p>Expressions are evaluated, and the targets are listed from the platform, without holding the
+ * matrix's lock. The results are then published under the lock, after evaluating anything which
+ * changed in the meantime, so slow expressions do not hold up lookups of other columns.
+ */
+public class MatchMatrix implements Consumer<TargetDiscoveryEvent> {
+
+    static final int MAX_EXPRESSIONS = 1024;
+
+    private final PlatformClient platformClient;
+    private final MatchExpressionEvaluator evaluator;
+    private final Logger logger;
+
+    // all guarded by this. The targets are listed from the platform on first use and then kept
+    // current from discovery events. Events received while the targets are being listed are
+    // applied to the listing before it is published, and found targets are only published once
+    // every column has been evaluated against them
+    private Map<URI, ServiceRef> targets;
+    private List<TargetDiscoveryEvent> missedEvents;
+    private final Map<URI, ServiceRef> pendingTargets = new HashMap<>();
+    private final Map<String, Set<URI>> columns;
+
+    MatchMatrix(
+            PlatformClient platformClient,
+            MatchExpressionEvaluator evaluator,
+            CredentialsManager credentialsManager,
+            RuleRegistry ruleRegistry,
+            Logger logger) {
+        this.platformClient = platformClient;
+        this.evaluator = evaluator;
+        this.logger = logger;
+        this.columns =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Set<URI>> eldest) {
+                        // expressions which are only ever tested ad hoc should not pile up
+                        return size() > MAX_EXPRESSIONS;
+                    }
+                };
+
+        platformClient.addTargetDiscoveryListener(this);
+        credentialsManager.addListener(
+                e -> {
+                    switch (e.getEventType()) {
+                        case ADDED:
+                            update(e.getPayload());
+                            break;
+                        case REMOVED:
+                            invalidate(e.getPayload());
+                            break;
+                        default:
+                            // ignore
+                            break;
+                    }
+                });
+        ruleRegistry.addListener(
+                e -> {
+                    switch (e.getEventType()) {
+                        case ADDED:
+                            update(e.getPayload().getMatchExpression());
+                            break;
+                        case REMOVED:
+                            invalidate(e.getPayload().getMatchExpression());
+                            break;
+                        default:
+                            // ignore
+                            break;
+                    }
+                });
+    }
+
+    public boolean applies(String matchExpression, ServiceRef serviceRef) throws ScriptException {
+        listTargets();
+        URI uri = serviceRef.getServiceUri();
+        boolean known;
+        synchronized (this) {
+            known = serviceRef.equals(targets.get(uri));
+        }
+        if (!known) {
+            return evaluator.applies(matchExpression, serviceRef);
+        }
+        return withColumn(matchExpression, column -> column.contains(uri));
+    }
+
+    public Set<ServiceRef> getMatchingTargets(String matchExpression) throws ScriptException {
+        return withColumn(
+                matchExpression,
+                column -> {
+                    Set<ServiceRef> matching = new HashSet<>();
+                    for (URI uri : column) {
+                        matching.add(targets.get(uri));
+                    }
+                    return matching;
+                });
+    }
+
+    @Override
+    public void accept(TargetDiscoveryEvent tde) {
+        ServiceRef serviceRef = tde.getServiceRef();
+        URI uri = serviceRef.getServiceUri();
+        synchronized (this) {
+            if (targets == null) {
+                if (missedEvents != null) {
+                    missedEvents.add(tde);
+                }
+                // otherwise nothing to update yet, the targets will be listed on first use
+                return;
+            }
+        }
+        TargetUpdateEvent evt = new TargetUpdateEvent(uri.toString(), tde.getEventKind().name());
+        try {
+            evt.begin();
+            if (EventKind.LOST.equals(tde.getEventKind())) {
+                synchronized (this) {
+                    if (serviceRef.equals(pendingTargets.get(uri))) {
+                        pendingTargets.remove(uri);
+                    }
+                    if (lose(targets, serviceRef)) {
+                        columns.values().forEach(column -> column.remove(uri));
+                    }
+                }
+                return;
+            }
+            synchronized (this) {
+                // supersedes any earlier definition of the target which is still being evaluated
+                pendingTargets.put(uri, serviceRef);
+            }
+            // null for expressions which failed to evaluate
+            Map<String, Boolean> results = new HashMap<>();
+            while (true) {
+                List<String> expressions = new ArrayList<>();
+                synchronized (this) {
+                    if (pendingTargets.get(uri) != serviceRef) {
+                        // lost, or found again, while being evaluated
+                        return;
+                    }
+                    for (String matchExpression : columns.keySet()) {
+                        if (!results.containsKey(matchExpression)) {
+                            expressions.add(matchExpression);
+                        }
+                    }
+                    if (expressions.isEmpty()) {
+                        pendingTargets.remove(uri);
+                        targets.put(uri, serviceRef);
+                        Iterator<Map.Entry<String, Set<URI>>> it = columns.entrySet().iterator();
+                        while (it.hasNext()) {
+                            Map.Entry<String, Set<URI>> column = it.next();
+                            Boolean matches = results.get(column.getKey());
+                            if (matches == null) {
+                                // recomputed, and the failure reported, on the next lookup
+                                it.remove();
+                            } else if (matches) {
+                                column.getValue().add(uri);
+                            } else {
+                                column.getValue().remove(uri);
+                            }
+                        }
+                        return;
+                    }
+                }
+                for (String matchExpression : expressions) {
+                    evt.expressions++;
+                    try {
+                        boolean matches = evaluator.applies(matchExpression, serviceRef);
+                        results.put(matchExpression, matches);
+                        if (matches) {
+                            evt.matches++;
+                        }
+                    } catch (ScriptException | RuntimeException e) {
+                        logger.trace(e);
+                        results.put(matchExpression, null);
+                    }
+                }
+            }
+        } finally {
+            evt.end();
+            if (evt.shouldCommit()) {
+                evt.commit();
+            }
+        }
+    }
+
+    void update(String matchExpression) {
+        invalidate(matchExpression);
+        try {
+            withColumn(matchExpression, column -> null);
+        } catch (ScriptException | RuntimeException e) {
+            // reported to whoever looks the expression up
+            logger.trace(e);
+        }
+    }
+
+    synchronized void invalidate(String matchExpression) {
+        columns.remove(matchExpression);
+    }
+
+    // a modified target is reported as found again before its previous definition is lost, so
+    // only forget the target if it is still the one that was lost
+    private static boolean lose(Map<URI, ServiceRef> targets, ServiceRef serviceRef) {
+        return targets.remove(serviceRef.getServiceUri(), serviceRef);
+    }
+
+    private void listTargets() {
+        synchronized (this) {
+            if (targets != null) {
+                return;
+            }
+            if (missedEvents == null) {
+                missedEvents = new ArrayList<>();
+            }
+        }
+        Map<URI, ServiceRef> listed = new LinkedHashMap<>();
+        platformClient.listDiscoverableServices().forEach(sr -> listed.put(sr.getServiceUri(), sr));
+        synchronized (this) {
+            if (targets != null) {
+                // listed concurrently by another caller
+                return;
+            }
+            // no columns exist before the targets are published, so only the listing needs to be
+            // brought up to date
+            for (TargetDiscoveryEvent tde : missedEvents) {
+                if (EventKind.LOST.equals(tde.getEventKind())) {
+                    lose(listed, tde.getServiceRef());
+                } else {
+                    listed.put(tde.getServiceRef().getServiceUri(), tde.getServiceRef());
+                }
+            }
+            missedEvents = null;
+            targets = listed;
+        }
+    }
+
+    /**
+     * Apply a function to the column of the given expression while holding this matrix's lock,
+     * computing the column first if necessary. The expression is evaluated against the targets
+     * without holding the lock, and then against any targets found while it was evaluated.
+     */
+    private <T> T withColumn(String matchExpression, Function<Set<URI>, T> fn)
+            throws ScriptException {
+        listTargets();
+        Map<ServiceRef, Boolean> evaluated = new HashMap<>();
+        ExpressionUpdateEvent evt = null;
+        try {
+            while (true) {
+                List<ServiceRef> unevaluated = new ArrayList<>();
+                synchronized (this) {
+                    Set<URI> column = columns.get(matchExpression);
+                    if (column == null) {
+                        if (evt == null) {
+                            evt = new ExpressionUpdateEvent(matchExpression);
+                            evt.begin();
+                        }
+                        for (ServiceRef serviceRef : targets.values()) {
+                            if (!evaluated.containsKey(serviceRef)) {
+                                unevaluated.add(serviceRef);
+                            }
+                        }
+                        if (unevaluated.isEmpty()) {
+                            column = new HashSet<>();
+                            for (ServiceRef serviceRef : targets.values()) {
+                                if (evaluated.get(serviceRef)) {
+                                    column.add(serviceRef.getServiceUri());
+                                }
+                            }
+                            columns.put(matchExpression, column);
+                        }
+                    }
+                    if (column != null) {
+                        return fn.apply(column);
+                    }
+                }
+                for (ServiceRef serviceRef : unevaluated) {
+                    evt.targets++;
+                    boolean matches = evaluator.applies(matchExpression, serviceRef);
+                    evaluated.put(serviceRef, matches);
+                    if (matches) {
+                        evt.matches++;
+                    }
+                }
+            }
+        } finally {
+            if (evt != null) {
+                evt.end();
+                if (evt.shouldCommit()) {
+                    evt.commit();
+                }
+            }
+        }
+    }
+
+    @Name("io.cryostat.rules.MatchMatrix.TargetUpdateEvent")
+    @Label("Match Matrix Target Update")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class TargetUpdateEvent extends Event {
+
+        String targetId;
+        String eventKind;
+        int expressions;
+        int matches;
+
+        TargetUpdateEvent(String targetId, String eventKind) {
+            this.targetId = targetId;
+            this.eventKind = eventKind;
+        }
+    }
+
+    @Name("io.cryostat.rules.MatchMatrix.ExpressionUpdateEvent")
+    @Label("Match Matrix Expression Update")
+    @Category("Cryostat")
+    @SuppressFBWarnings(
+            value = "URF_UNREAD_FIELD",
+            justification = "The event fields are recorded with JFR instead of accessed directly")
+    public static class ExpressionUpdateEvent extends Event {
+
+        String matchExpression;
+        int targets;
+        int matches;
+
+        ExpressionUpdateEvent(String matchExpression) {
+            this.matchExpression = matchExpression;
+        }
+    }
+}
@@ -61,20 +61,16 @@ import dagger.Lazy;
 public class RuleRegistry extends AbstractEventEmitter<RuleEvent, Rule> {
 
     private final Path rulesDir;
-    private final Lazy<MatchExpressionEvaluator> matchExpressionEvaluator;
+    private final Lazy<MatchMatrix> matchMatrix;
     private final FileSystem fs;
     private final Set<Rule> rules;
     private final Gson gson;
     private final Logger logger;
 
     RuleRegistry(
-            Path rulesDir,
-            Lazy<MatchExpressionEvaluator> matchExpressionEvaluator,
-            FileSystem fs,
-            Gson gson,
-            Logger logger) {
+            Path rulesDir, Lazy<MatchMatrix> matchMatrix, FileSystem fs, Gson gson, Logger logger) {
         this.rulesDir = rulesDir;
-        this.matchExpressionEvaluator = matchExpressionEvaluator;
+        this.matchMatrix = matchMatrix;
         this.fs = fs;
         this.gson = gson;
         this.logger = logger;
@@ -124,7 +120,7 @@ public class RuleRegistry extends AbstractEventEmitter<RuleEvent, Rule> {
 
     public boolean applies(Rule rule, ServiceRef serviceRef) {
         try {
-            return matchExpressionEvaluator.get().applies(rule.getMatchExpression(), serviceRef);
+            return matchMatrix.get().applies(rule.getMatchExpression(), serviceRef);
         } catch (ScriptException se) {
             logger.error(se);
             try {
@@ -82,7 +82,7 @@ public abstract class RulesModule {
     @Singleton
     static RuleRegistry provideRuleRegistry(
             @Named(ConfigurationModule.CONFIGURATION_PATH) Path confDir,
-            Lazy<MatchExpressionEvaluator> matchExpressionEvaluator,
+            Lazy<MatchMatrix> matchMatrix,
             FileSystem fs,
             Gson gson,
             Logger logger) {
@@ -91,7 +91,7 @@ public abstract class RulesModule {
             if (!fs.isDirectory(rulesDir)) {
                 Files.createDirectory(rulesDir);
             }
-            return new RuleRegistry(rulesDir, matchExpressionEvaluator, fs, gson, logger);
+            return new RuleRegistry(rulesDir, matchMatrix, fs, gson, logger);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -113,6 +113,18 @@ public abstract class RulesModule {
         return new MatchExpressionEvaluator(scriptEngine, credentialsManager, ruleRegistry, logger);
     }
 
+    @Provides
+    @Singleton
+    static MatchMatrix provideMatchMatrix(
+            DiscoveryStorage storage,
+            MatchExpressionEvaluator matchExpressionEvaluator,
+            CredentialsManager credentialsManager,
+            RuleRegistry ruleRegistry,
+            Logger logger) {
+        return new MatchMatrix(
+                storage, matchExpressionEvaluator, credentialsManager, ruleRegistry, logger);
+    }
+
     @Provides
     @Singleton
     static RuleProcessor provideRuleProcessor(
@@ -40,8 +40,14 @@ package io.cryostat.storage;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -50,85 +56,127 @@ import javax.persistence.criteria.Root;
 
 import io.cryostat.core.log.Logger;
 
+/**
+ * Each operation is its own unit of work with its own EntityManager, backed by a pooled JDBC
+ * connection, so operations from different threads proceed concurrently. The *Async variants run
+ * the same operations on the bounded database executor rather than on the calling thread, which
+ * must not block if it is a Vert.x event loop thread.
+ */
 public abstract class AbstractDao<I, T> {
 
     protected final Class<T> klazz;
-    protected final EntityManager entityManager;
+    protected final EntityManagerFactory entityManagerFactory;
+    protected final ExecutorService executor;
     protected final Logger logger;
 
-    protected AbstractDao(Class<T> klazz, EntityManager entityManager, Logger logger) {
+    protected AbstractDao(
+            Class<T> klazz,
+            EntityManagerFactory entityManagerFactory,
+            ExecutorService executor,
+            Logger logger) {
         this.klazz = klazz;
-        this.entityManager = entityManager;
+        this.entityManagerFactory = entityManagerFactory;
+        this.executor = executor;
         this.logger = logger;
     }
 
     public final T save(T t) {
-        synchronized (entityManager) {
-            Objects.requireNonNull(t);
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                entityManager.persist(t);
-                transaction.commit();
-                entityManager.detach(t);
-                return t;
-            } catch (Exception e) {
-                if (transaction != null) {
-                    transaction.rollback();
-                }
-                logger.error(e);
-                throw e;
-            }
-        }
+        Objects.requireNonNull(t);
+        return inTransaction(
+                em -> {
+                    em.persist(t);
+                    return t;
+                });
     }
 
     public final boolean delete(I id) {
-        synchronized (entityManager) {
-            Objects.requireNonNull(id);
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                transaction.begin();
-                T t = entityManager.find(klazz, id);
-                entityManager.remove(t);
-                transaction.commit();
-                return true;
-            } catch (Exception e) {
-                if (transaction != null) {
-                    transaction.rollback();
-                }
-                logger.error(e);
-                return false;
-            }
+        Objects.requireNonNull(id);
+        try {
+            return inTransaction(
+                    em -> {
+                        em.remove(em.find(klazz, id));
+                        return true;
+                    });
+        } catch (Exception e) {
+            return false;
         }
     }
 
     public final Optional<T> get(I id) {
-        synchronized (entityManager) {
-            Objects.requireNonNull(id);
-            EntityTransaction transaction = entityManager.getTransaction();
-            try {
-                T t = entityManager.find(klazz, id);
-                if (t != null) {
-                    entityManager.detach(t);
-                }
-                return Optional.ofNullable(t);
-            } catch (Exception e) {
-                if (transaction != null) {
-                    transaction.rollback();
-                }
-                throw e;
-            }
-        }
+        Objects.requireNonNull(id);
+        return withEntityManager(em -> Optional.ofNullable(em.find(klazz, id)));
     }
 
     public final List<T> getAll() {
-        synchronized (entityManager) {
-            CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-            CriteriaQuery<T> cq = cb.createQuery(klazz);
-            Root<T> rootEntry = cq.from(klazz);
-            CriteriaQuery<T> all = cq.select(rootEntry);
-            TypedQuery<T> allQuery = entityManager.createQuery(all);
-            return allQuery.getResultList();
+        return withEntityManager(
+                em -> {
+                    CriteriaBuilder cb = em.getCriteriaBuilder();
+                    CriteriaQuery<T> cq = cb.createQuery(klazz);
+                    Root<T> rootEntry = cq.from(klazz);
+                    CriteriaQuery<T> all = cq.select(rootEntry);
+                    TypedQuery<T> allQuery = em.createQuery(all);
+                    return allQuery.getResultList();
+                });
+    }
+
+    public final CompletableFuture<T> saveAsync(T t) {
+        return async(() -> save(t));
+    }
+
+    public final CompletableFuture<Boolean> deleteAsync(I id) {
+        return async(() -> delete(id));
+    }
+
+    public final CompletableFuture<Optional<T>> getAsync(I id) {
+        return async(() -> get(id));
+    }
+
+    public final CompletableFuture<List<T>> getAllAsync() {
+        return async(this::getAll);
+    }
+
+    protected final <R> CompletableFuture<R> async(Supplier<R> operation) {
+        try {
+            return CompletableFuture.supplyAsync(operation, executor);
+        } catch (RejectedExecutionException ree) {
+            logger.warn("Database executor saturated, rejecting {} operation", klazz.getName());
+            return CompletableFuture.failedFuture(ree);
         }
     }
+
+    /**
+     * Performs a read-only unit of work. Entities are detached once the EntityManager is closed, so
+     * they may be returned.
+     */
+    protected final <R> R withEntityManager(Function<EntityManager, R> work) {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Performs a unit of work within a transaction which is committed if the work completes
+     * normally, or rolled back and rethrown otherwise.
+     */
+    protected final <R> R inTransaction(Function<EntityManager, R> work) {
+        return withEntityManager(
+                em -> {
+                    EntityTransaction transaction = em.getTransaction();
+                    try {
+                        transaction.begin();
+                        R r = work.apply(em);
+                        transaction.commit();
+                        return r;
+                    } catch (Exception e) {
+                        if (transaction.isActive()) {
+                            transaction.rollback();
+                        }
+                        logger.error(e);
+                        throw e;
+                    }
+                });
+    }
 }
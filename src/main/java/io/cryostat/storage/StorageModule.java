@@ -38,10 +38,15 @@
 package io.cryostat.storage;
 
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.inject.Named;
 import javax.inject.Singleton;
 import javax.naming.ConfigurationException;
-import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 
@@ -57,9 +62,11 @@ import org.jasypt.hibernate5.encryptor.HibernatePBEEncryptorRegistry;
 @Module
 public abstract class StorageModule {
 
+    public static final String DATABASE_EXECUTOR = "DATABASE_EXECUTOR";
+
     @Provides
     @Singleton
-    static EntityManagerFactory provideEntityManagerFactory(Environment env) {
+    public static EntityManagerFactory provideEntityManagerFactory(Environment env) {
         Properties properties = new Properties();
         properties.put(
                 "jakarta.persistence.jdbc.driver",
@@ -78,6 +85,11 @@ public abstract class StorageModule {
                 "hibernate.dialect",
                 env.getEnv(Variables.HIBERNATE_DIALECT, "org.hibernate.dialect.H2Dialect"));
         properties.put("hibernate.hbm2ddl.auto", env.getEnv(Variables.HBM2DDL, "create"));
+        properties.put(
+                "hibernate.connection.provider_class",
+                "org.hibernate.hikaricp.internal.HikariCPConnectionProvider");
+        properties.put("hibernate.hikari.maximumPoolSize", String.valueOf(getPoolSize(env)));
+        properties.put("hibernate.hikari.minimumIdle", "1");
         if (env.hasEnv(Variables.LOG_QUERIES)) {
             properties.put("hibernate.show_sql", "true");
             properties.put("hibernate.format_sql", "true");
@@ -105,7 +117,27 @@ public abstract class StorageModule {
 
     @Provides
     @Singleton
-    static EntityManager provideEntityManager(EntityManagerFactory emf) {
-        return emf.createEntityManager();
+    @Named(DATABASE_EXECUTOR)
+    public static ExecutorService provideDatabaseExecutor(Environment env) {
+        // one thread per pooled connection, so queued work waits here rather than holding a thread
+        // blocked on the connection pool
+        int threads = getPoolSize(env);
+        int queueSize = Math.max(1, Integer.parseInt(env.getEnv(Variables.JDBC_QUEUE_SIZE, "256")));
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "cryostat-database-" + threadCount.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    private static int getPoolSize(Environment env) {
+        return Math.max(1, Integer.parseInt(env.getEnv(Variables.JDBC_POOL_SIZE, "8")));
     }
 }
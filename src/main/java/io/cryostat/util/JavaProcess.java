@@ -51,7 +51,11 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 public class JavaProcess {
 
     static Process exec(
-            Class<?> klazz, Map<String, String> env, List<String> jvmArgs, List<String> processArgs)
+            Class<?> klazz,
+            Map<String, String> env,
+            List<String> jvmArgs,
+            List<String> processArgs,
+            boolean pipeIO)
             throws IOException, InterruptedException {
         String className = klazz.getName();
 
@@ -66,6 +70,10 @@ public class JavaProcess {
         Logger.INSTANCE.trace("Forking process: " + cmd.toString());
         var pb = new ProcessBuilder();
         pb.environment().putAll(env);
+        if (pipeIO) {
+            // stdin and stdout are left as pipes for the parent to communicate with the child
+            return pb.command(cmd).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        }
         return pb.command(cmd).inheritIO().start();
     }
 
@@ -74,6 +82,7 @@ public class JavaProcess {
         private Map<String, String> env;
         private List<String> jvmArgs;
         private List<String> processArgs;
+        private boolean pipeIO;
 
         public Builder klazz(Class<?> klazz) {
             this.klazz = Objects.requireNonNull(klazz);
@@ -98,6 +107,11 @@ public class JavaProcess {
             return this;
         }
 
+        public Builder pipeIO(boolean pipeIO) {
+            this.pipeIO = pipeIO;
+            return this;
+        }
+
         public Process exec() throws IOException, InterruptedException {
             Objects.requireNonNull(klazz, "Class cannot be null");
             if (env == null) {
@@ -109,7 +123,7 @@ public class JavaProcess {
             if (processArgs == null) {
                 processArgs = Collections.emptyList();
             }
-            return JavaProcess.exec(klazz, env, jvmArgs, processArgs);
+            return JavaProcess.exec(klazz, env, jvmArgs, processArgs, pipeIO);
         }
     }
 }
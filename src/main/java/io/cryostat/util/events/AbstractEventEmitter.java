@@ -37,11 +37,13 @@
  */
 package io.cryostat.util.events;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 public abstract class AbstractEventEmitter<T extends EventType, V> {
-    protected final Set<EventListener<T, V>> listeners = new HashSet<>();
+    // listeners may register themselves while an event is being emitted, ie. when they are
+    // lazily constructed by another listener
+    protected final Set<EventListener<T, V>> listeners = new CopyOnWriteArraySet<>();
 
     public void addListener(EventListener<T, V> listener) {
         this.listeners.add(listener);
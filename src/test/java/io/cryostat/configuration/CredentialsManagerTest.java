@@ -39,19 +39,26 @@ package io.cryostat.configuration;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.script.ScriptException;
 
 import io.cryostat.MainModule;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.Credentials;
+import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.platform.PlatformClient;
 import io.cryostat.platform.ServiceRef;
-import io.cryostat.rules.MatchExpressionEvaluator;
+import io.cryostat.platform.TargetDiscoveryEvent;
 import io.cryostat.rules.MatchExpressionValidator;
+import io.cryostat.rules.MatchMatrix;
 
 import com.google.gson.Gson;
 import org.apache.commons.codec.binary.Base32;
@@ -63,9 +70,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
-import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.mockito.stubbing.Answer;
 
 @ExtendWith(MockitoExtension.class)
 class CredentialsManagerTest {
@@ -73,7 +78,7 @@ class CredentialsManagerTest {
     CredentialsManager credentialsManager;
     @Mock Path credentialsDir;
     @Mock MatchExpressionValidator matchExpressionValidator;
-    @Mock MatchExpressionEvaluator matchExpressionEvaluator;
+    @Mock MatchMatrix matchMatrix;
     @Mock PlatformClient platformClient;
     @Mock StoredCredentialsDao dao;
     @Mock FileSystem fs;
@@ -87,7 +92,7 @@ class CredentialsManagerTest {
                 new CredentialsManager(
                         credentialsDir,
                         matchExpressionValidator,
-                        () -> matchExpressionEvaluator,
+                        () -> matchMatrix,
                         platformClient,
                         dao,
                         fs,
@@ -97,7 +102,8 @@ class CredentialsManagerTest {
 
     @Test
     void initializesEmpty() throws Exception {
-        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of());
+        Mockito.when(platformClient.getDiscoverableService(new URI("foo")))
+                .thenReturn(Optional.empty());
 
         MatcherAssert.assertThat(
                 credentialsManager.getServiceRefsWithCredentials(), Matchers.empty());
@@ -121,8 +127,7 @@ class CredentialsManagerTest {
         StoredCredentials stored = new StoredCredentials(1, matchExpression, credentials);
 
         ServiceRef serviceRef = new ServiceRef(new URI(targetId), "foo");
-        Mockito.when(matchExpressionEvaluator.applies(matchExpression, serviceRef))
-                .thenReturn(true);
+        Mockito.when(matchMatrix.applies(matchExpression, serviceRef)).thenReturn(true);
 
         Mockito.when(dao.save(Mockito.any())).thenReturn(stored);
 
@@ -216,8 +221,15 @@ class CredentialsManagerTest {
         ServiceRef target3 = new ServiceRef(new URI("target3"), "target3Alias");
         ServiceRef target4 = new ServiceRef(new URI("target4"), "target4Alias");
 
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(target1, target2, target3, target4));
+        Mockito.when(platformClient.getDiscoverableService(Mockito.any(URI.class)))
+                .thenAnswer(
+                        invocation ->
+                                Stream.of(target1, target2, target3, target4)
+                                        .filter(
+                                                t ->
+                                                        t.getServiceUri()
+                                                                .equals(invocation.getArgument(0)))
+                                        .findFirst());
 
         String matchExpression = "some expression";
         String username = "user";
@@ -227,7 +239,7 @@ class CredentialsManagerTest {
         StoredCredentials stored = new StoredCredentials(1, matchExpression, credentials);
         Mockito.when(dao.getAll()).thenReturn(List.of(stored));
 
-        Mockito.when(matchExpressionEvaluator.applies(Mockito.eq(matchExpression), Mockito.any()))
+        Mockito.when(matchMatrix.applies(Mockito.eq(matchExpression), Mockito.any()))
                 .thenAnswer(
                         invocation -> Set.of(target1, target2).contains(invocation.getArgument(1)));
 
@@ -254,35 +266,151 @@ class CredentialsManagerTest {
     void canQueryDiscoveredTargetsWithConfiguredCredentials() throws Exception {
         ServiceRef target1 = new ServiceRef(new URI("target1"), "target1Alias");
         ServiceRef target2 = new ServiceRef(new URI("target2"), "target2Alias");
-        ServiceRef target3 = new ServiceRef(new URI("target3"), "target3Alias");
-        ServiceRef target4 = new ServiceRef(new URI("target4"), "target4Alias");
-
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(target1, target2, target3, target4));
 
         String matchExpression = "some expression";
+        String otherMatchExpression = "some other expression";
         String username = "user";
         String password = "pass";
         Credentials credentials = new Credentials(username, password);
 
         StoredCredentials stored = new StoredCredentials(1, matchExpression, credentials);
+        StoredCredentials otherStored = new StoredCredentials(2, otherMatchExpression, credentials);
+        Mockito.when(dao.getAll()).thenReturn(List.of(stored, otherStored));
+
+        Mockito.when(matchMatrix.getMatchingTargets(matchExpression))
+                .thenReturn(Set.of(target1, target2));
+        Mockito.when(matchMatrix.getMatchingTargets(otherMatchExpression))
+                .thenReturn(Set.of(target2));
+
+        MatcherAssert.assertThat(
+                credentialsManager.getServiceRefsWithCredentials(),
+                Matchers.containsInAnyOrder(target1, target2));
+        Mockito.verify(platformClient, Mockito.never()).listDiscoverableServices();
+    }
+
+    @Test
+    void reusesStoredCredentialsUntilCredentialsChange() throws Exception {
+        String matchExpression = "some expression";
+        Credentials credentials = new Credentials("user", "pass");
+        StoredCredentials stored = new StoredCredentials(1, matchExpression, credentials);
+        ServiceRef target = new ServiceRef(new URI("target1"), "target1Alias");
+
+        Mockito.when(dao.getAll()).thenReturn(List.of(stored));
+        Mockito.when(matchMatrix.applies(matchExpression, target)).thenReturn(true);
+
+        MatcherAssert.assertThat(
+                credentialsManager.getCredentials(target), Matchers.equalTo(credentials));
+        MatcherAssert.assertThat(
+                credentialsManager.getCredentials(target), Matchers.equalTo(credentials));
+        Mockito.verify(dao, Mockito.times(1)).getAll();
+
+        Mockito.when(dao.save(Mockito.any())).thenReturn(stored);
+        credentialsManager.addCredentials(matchExpression, credentials);
+        Mockito.when(dao.getAll()).thenReturn(List.of());
+
+        MatcherAssert.assertThat(credentialsManager.getCredentials(target), Matchers.nullValue());
+        Mockito.verify(dao, Mockito.times(2)).getAll();
+    }
+
+    @Test
+    void reusesCredentialsResolvedByTargetIdUntilTargetChanges() throws Exception {
+        ArgumentCaptor<Consumer<TargetDiscoveryEvent>> listenerCaptor =
+                ArgumentCaptor.forClass(Consumer.class);
+        Mockito.verify(platformClient).addTargetDiscoveryListener(listenerCaptor.capture());
+
+        String matchExpression = "some expression";
+        Credentials credentials = new Credentials("user", "pass");
+        StoredCredentials stored = new StoredCredentials(1, matchExpression, credentials);
+        ServiceRef target = new ServiceRef(new URI("target1"), "target1Alias");
+
         Mockito.when(dao.getAll()).thenReturn(List.of(stored));
+        Mockito.when(platformClient.getDiscoverableService(new URI("target1")))
+                .thenReturn(Optional.of(target));
+        Mockito.when(matchMatrix.applies(matchExpression, target)).thenReturn(true);
+
+        MatcherAssert.assertThat(
+                credentialsManager.getCredentialsByTargetId("target1"),
+                Matchers.equalTo(credentials));
+        MatcherAssert.assertThat(
+                credentialsManager.getCredentialsByTargetId("target1"),
+                Matchers.equalTo(credentials));
+        Mockito.verify(platformClient, Mockito.times(1)).getDiscoverableService(new URI("target1"));
+        Mockito.verify(matchMatrix, Mockito.times(1)).applies(matchExpression, target);
+
+        listenerCaptor.getValue().accept(new TargetDiscoveryEvent(EventKind.LOST, target));
+        Mockito.when(platformClient.getDiscoverableService(new URI("target1")))
+                .thenReturn(Optional.empty());
+
+        MatcherAssert.assertThat(
+                credentialsManager.getCredentialsByTargetId("target1"), Matchers.nullValue());
+        Mockito.verify(dao, Mockito.times(1)).getAll();
+    }
+
+    @Test
+    void doesNotCacheLookupThatRacedWithEviction() throws Exception {
+        ArgumentCaptor<Consumer<TargetDiscoveryEvent>> listenerCaptor =
+                ArgumentCaptor.forClass(Consumer.class);
+        Mockito.verify(platformClient).addTargetDiscoveryListener(listenerCaptor.capture());
 
-        Mockito.when(matchExpressionEvaluator.applies(Mockito.eq(matchExpression), Mockito.any()))
+        String matchExpression = "some expression";
+        Credentials credentials = new Credentials("user", "pass");
+        StoredCredentials stored = new StoredCredentials(1, matchExpression, credentials);
+        ServiceRef target = new ServiceRef(new URI("target1"), "target1Alias");
+
+        Mockito.when(dao.getAll()).thenReturn(List.of(stored));
+        Mockito.when(platformClient.getDiscoverableService(new URI("target1")))
+                .thenReturn(Optional.of(target));
+        // the target is lost while its credentials are still being resolved
+        Mockito.when(matchMatrix.applies(matchExpression, target))
                 .thenAnswer(
-                        new Answer<Boolean>() {
-                            @Override
-                            public Boolean answer(InvocationOnMock invocation) throws Throwable {
-                                ServiceRef sr = (ServiceRef) invocation.getArgument(1);
-                                String alias = sr.getAlias().orElseThrow();
-                                return Set.of(target1.getAlias().get(), target2.getAlias().get())
-                                        .contains(alias);
-                            }
+                        invocation -> {
+                            listenerCaptor
+                                    .getValue()
+                                    .accept(new TargetDiscoveryEvent(EventKind.LOST, target));
+                            return true;
                         });
 
         MatcherAssert.assertThat(
-                credentialsManager.getServiceRefsWithCredentials(),
-                Matchers.equalTo(List.of(target1, target2)));
+                credentialsManager.getCredentialsByTargetId("target1"),
+                Matchers.equalTo(credentials));
+
+        Mockito.when(platformClient.getDiscoverableService(new URI("target1")))
+                .thenReturn(Optional.empty());
+        MatcherAssert.assertThat(
+                credentialsManager.getCredentialsByTargetId("target1"), Matchers.nullValue());
+    }
+
+    @Test
+    void invalidatesCacheBeforeNotifyingRemoval() throws Exception {
+        String matchExpression = "some expression";
+        Credentials credentials = new Credentials("user", "pass");
+        StoredCredentials stored = new StoredCredentials(1, matchExpression, credentials);
+        ServiceRef target = new ServiceRef(new URI("target1"), "target1Alias");
+
+        Mockito.when(dao.getAll()).thenReturn(List.of(stored));
+        Mockito.when(matchMatrix.applies(matchExpression, target)).thenReturn(true);
+        MatcherAssert.assertThat(
+                credentialsManager.getCredentials(target), Matchers.equalTo(credentials));
+
+        Mockito.when(dao.get(1)).thenReturn(Optional.of(stored));
+        Mockito.when(dao.delete(1))
+                .thenAnswer(
+                        invocation -> {
+                            Mockito.when(dao.getAll()).thenReturn(List.of());
+                            return true;
+                        });
+        List<Credentials> observed = new ArrayList<>();
+        credentialsManager.addListener(
+                event -> {
+                    try {
+                        observed.add(credentialsManager.getCredentials(target));
+                    } catch (ScriptException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+
+        MatcherAssert.assertThat(credentialsManager.delete(1), Matchers.is(true));
+        MatcherAssert.assertThat(observed, Matchers.contains(Matchers.nullValue()));
     }
 
     @Test
@@ -311,9 +439,8 @@ class CredentialsManagerTest {
                         URI.create("service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi"),
                         "mytarget");
 
-        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(serviceRef));
-        Mockito.when(matchExpressionEvaluator.applies(matchExpression, serviceRef))
-                .thenReturn(true);
+        Mockito.when(matchMatrix.getMatchingTargets(matchExpression))
+                .thenReturn(Set.of(serviceRef));
 
         Set<ServiceRef> expected = Set.of(serviceRef);
 
@@ -0,0 +1,188 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.discovery;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.TargetDiscoveryEvent;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class DiscoveryEventBatcherTest {
+
+    static final Duration QUIET_PERIOD = Duration.ofMillis(100);
+    static final Duration MAX_DELAY = Duration.ofSeconds(1);
+
+    @Mock Vertx vertx;
+    Map<Long, Handler<Long>> timers;
+    List<Long> quietTimers;
+    List<Long> maxDelayTimers;
+    List<DiscoveryEventBatcher.Batch> batches;
+    DiscoveryEventBatcher batcher;
+
+    ServiceRef sr1;
+    ServiceRef sr2;
+
+    @BeforeEach
+    void setup() {
+        this.timers = new HashMap<>();
+        this.quietTimers = new ArrayList<>();
+        this.maxDelayTimers = new ArrayList<>();
+        this.batches = new ArrayList<>();
+        Mockito.lenient()
+                .when(vertx.setTimer(Mockito.anyLong(), Mockito.any()))
+                .thenAnswer(
+                        invocation -> {
+                            long id = timers.size() + 1;
+                            timers.put(id, invocation.getArgument(1));
+                            if (invocation.<Long>getArgument(0) == QUIET_PERIOD.toMillis()) {
+                                quietTimers.add(id);
+                            } else {
+                                maxDelayTimers.add(id);
+                            }
+                            return id;
+                        });
+        this.batcher = new DiscoveryEventBatcher(vertx, QUIET_PERIOD, MAX_DELAY, batches::add);
+        this.sr1 = new ServiceRef(URI.create("service:jmx:rmi:///jndi/rmi://host:1/jmxrmi"), "1");
+        this.sr2 = new ServiceRef(URI.create("service:jmx:rmi:///jndi/rmi://host:2/jmxrmi"), "2");
+    }
+
+    @Test
+    void mergesBurstIntoOneBatchAfterQuietPeriod() {
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr1));
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr2));
+        batcher.accept(new TargetDiscoveryEvent(EventKind.LOST, sr1));
+
+        MatcherAssert.assertThat(batches, Matchers.empty());
+
+        fire(lastQuietTimer());
+
+        MatcherAssert.assertThat(batches, Matchers.hasSize(1));
+        DiscoveryEventBatcher.Batch batch = batches.get(0);
+        MatcherAssert.assertThat(batch.getReceived(), Matchers.equalTo(3));
+        MatcherAssert.assertThat(
+                batch.getEvents(),
+                Matchers.contains(
+                        new TargetDiscoveryEvent(EventKind.FOUND, sr2),
+                        new TargetDiscoveryEvent(EventKind.LOST, sr1)));
+    }
+
+    @Test
+    void restartsQuietPeriodOnEachEvent() {
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr1));
+        long firstQuietTimer = lastQuietTimer();
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr2));
+
+        Mockito.verify(vertx).cancelTimer(firstQuietTimer);
+        // a cancelled timer which fired anyway
+        fire(firstQuietTimer);
+        MatcherAssert.assertThat(batches, Matchers.empty());
+
+        fire(lastQuietTimer());
+        MatcherAssert.assertThat(batches, Matchers.hasSize(1));
+        MatcherAssert.assertThat(batches.get(0).getEvents(), Matchers.hasSize(2));
+    }
+
+    @Test
+    void flushesAfterMaxDelayDuringContinuousEvents() {
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr1));
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr2));
+        MatcherAssert.assertThat(maxDelayTimers, Matchers.hasSize(1));
+
+        fire(maxDelayTimers.get(0));
+
+        MatcherAssert.assertThat(batches, Matchers.hasSize(1));
+        MatcherAssert.assertThat(batches.get(0).getReceived(), Matchers.equalTo(2));
+
+        // the next event starts a new batch with its own max delay
+        batcher.accept(new TargetDiscoveryEvent(EventKind.LOST, sr1));
+        MatcherAssert.assertThat(maxDelayTimers, Matchers.hasSize(2));
+    }
+
+    @Test
+    void passesEventsThroughWithoutQuietPeriod() {
+        batcher = new DiscoveryEventBatcher(vertx, Duration.ZERO, MAX_DELAY, batches::add);
+
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr1));
+        batcher.accept(new TargetDiscoveryEvent(EventKind.LOST, sr1));
+
+        MatcherAssert.assertThat(batches, Matchers.hasSize(2));
+        MatcherAssert.assertThat(batches.get(0).getReceived(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(
+                batches.get(1).getEvents(),
+                Matchers.contains(new TargetDiscoveryEvent(EventKind.LOST, sr1)));
+        MatcherAssert.assertThat(timers, Matchers.anEmptyMap());
+    }
+
+    @Test
+    void flushPassesOnPendingEvents() {
+        batcher.flush();
+        MatcherAssert.assertThat(batches, Matchers.empty());
+
+        batcher.accept(new TargetDiscoveryEvent(EventKind.FOUND, sr1));
+        batcher.flush();
+
+        MatcherAssert.assertThat(batches, Matchers.hasSize(1));
+        timers.keySet().forEach(id -> Mockito.verify(vertx).cancelTimer(id));
+    }
+
+    private long lastQuietTimer() {
+        return quietTimers.get(quietTimers.size() - 1);
+    }
+
+    private void fire(long id) {
+        timers.get(id).handle(id);
+    }
+}
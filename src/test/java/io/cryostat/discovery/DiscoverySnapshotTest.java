@@ -0,0 +1,131 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.discovery;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.discovery.BaseNodeType;
+import io.cryostat.platform.discovery.EnvironmentNode;
+import io.cryostat.platform.discovery.TargetNode;
+import io.cryostat.platform.internal.KubeApiPlatformClient.KubernetesNodeType;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DiscoverySnapshotTest {
+
+    ServiceRef sr1;
+    ServiceRef sr2;
+    ServiceRef sr3;
+    EnvironmentNode realm1;
+    EnvironmentNode realm2;
+    DiscoverySnapshot snapshot;
+
+    @BeforeEach
+    void setup() {
+        this.sr1 = service(1, "app");
+        this.sr2 = service(2, "app");
+        this.sr3 = service(3, "other");
+        EnvironmentNode namespace =
+                new EnvironmentNode(
+                        "ns",
+                        KubernetesNodeType.NAMESPACE,
+                        Map.of(),
+                        List.of(
+                                new TargetNode(KubernetesNodeType.ENDPOINT, sr1),
+                                new TargetNode(KubernetesNodeType.ENDPOINT, sr2)));
+        this.realm1 =
+                new EnvironmentNode("realm1", BaseNodeType.REALM, Map.of(), List.of(namespace));
+        this.realm2 =
+                new EnvironmentNode(
+                        "realm2",
+                        BaseNodeType.REALM,
+                        Map.of(),
+                        List.of(new TargetNode(BaseNodeType.JVM, sr3)));
+        this.snapshot = new DiscoverySnapshot(7, List.of(realm1, realm2));
+    }
+
+    @Test
+    void wrapsRealmsInUniverse() {
+        EnvironmentNode tree = snapshot.getTree();
+
+        MatcherAssert.assertThat(snapshot.getVersion(), Matchers.equalTo(7L));
+        MatcherAssert.assertThat(tree.getName(), Matchers.equalTo("Universe"));
+        MatcherAssert.assertThat(tree.getNodeType(), Matchers.equalTo(BaseNodeType.UNIVERSE));
+        MatcherAssert.assertThat(tree.getChildren(), Matchers.equalTo(List.of(realm1, realm2)));
+    }
+
+    @Test
+    void indexesServices() {
+        MatcherAssert.assertThat(
+                snapshot.getServices(), Matchers.containsInAnyOrder(sr1, sr2, sr3));
+        MatcherAssert.assertThat(
+                snapshot.getService(sr2.getServiceUri()), Matchers.equalTo(Optional.of(sr2)));
+        MatcherAssert.assertThat(
+                snapshot.getService(URI.create("service:jmx:rmi:///jndi/rmi://unknown/jmxrmi")),
+                Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(
+                snapshot.getServicesByAlias("app"), Matchers.containsInAnyOrder(sr1, sr2));
+        MatcherAssert.assertThat(snapshot.getServicesByAlias("none"), Matchers.empty());
+        MatcherAssert.assertThat(
+                snapshot.getServicesByRealm("realm1"), Matchers.containsInAnyOrder(sr1, sr2));
+        MatcherAssert.assertThat(snapshot.getServicesByRealm("realm2"), Matchers.contains(sr3));
+    }
+
+    @Test
+    void isImmutable() {
+        Assertions.assertThrows(
+                UnsupportedOperationException.class, () -> snapshot.getServices().add(sr1));
+        Assertions.assertThrows(
+                UnsupportedOperationException.class,
+                () -> snapshot.getServicesByAlias("app").clear());
+    }
+
+    private static ServiceRef service(int port, String alias) {
+        return new ServiceRef(
+                URI.create(String.format("service:jmx:rmi:///jndi/rmi://host:%d/jmxrmi", port)),
+                alias);
+    }
+}
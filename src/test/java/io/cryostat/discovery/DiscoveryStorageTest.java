@@ -46,6 +46,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.inject.Singleton;
 
@@ -65,6 +66,7 @@ import io.cryostat.platform.discovery.TargetNode;
 import com.google.gson.Gson;
 import dagger.Component;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
@@ -126,7 +128,8 @@ class DiscoveryStorageTest {
 
         @Test
         void immediatelyDeploysBuiltinIfDaoEmpty() throws Exception {
-            Mockito.when(dao.getAll()).thenReturn(List.of());
+            Mockito.when(dao.getAllAsync())
+                    .thenReturn(CompletableFuture.completedFuture(List.of()));
             Mockito.when(deployer.deploy(Mockito.any(), Mockito.anyBoolean()))
                     .thenReturn(Future.succeededFuture());
             Mockito.verifyNoInteractions(deployer);
@@ -149,7 +152,8 @@ class DiscoveryStorageTest {
 
         @Test
         void failsStartupIfDeployerFails() throws Exception {
-            Mockito.when(dao.getAll()).thenReturn(List.of());
+            Mockito.when(dao.getAllAsync())
+                    .thenReturn(CompletableFuture.completedFuture(List.of()));
             Mockito.when(deployer.deploy(Mockito.any(), Mockito.anyBoolean()))
                     .thenReturn(Future.failedFuture("test failure"));
             Mockito.verifyNoInteractions(deployer);
@@ -167,6 +171,29 @@ class DiscoveryStorageTest {
             f.join();
         }
 
+        @Test
+        void failsStartupIfPluginsCannotBeListed() throws Exception {
+            Mockito.when(dao.getAllAsync())
+                    .thenReturn(
+                            CompletableFuture.failedFuture(
+                                    new RejectedExecutionException("test failure")));
+
+            CompletableFuture<Void> f = new CompletableFuture<>();
+            Promise<Void> p = Promise.promise();
+            p.future()
+                    .onComplete(
+                            ar -> {
+                                MatcherAssert.assertThat(
+                                        ar.cause(),
+                                        Matchers.instanceOf(RejectedExecutionException.class));
+                                f.complete(null);
+                            });
+            storage.start(p);
+            f.join();
+
+            Mockito.verifyNoInteractions(deployer);
+        }
+
         @Test
         void removesPluginsIfCallbackRejected() throws Exception {
             Mockito.when(deployer.deploy(Mockito.any(), Mockito.anyBoolean()))
@@ -179,7 +206,8 @@ class DiscoveryStorageTest {
             UUID id = UUID.randomUUID();
             plugin.setId(id);
             Mockito.when(dao.get(id)).thenReturn(Optional.of(plugin));
-            Mockito.when(dao.getAll()).thenReturn(List.of(plugin));
+            Mockito.when(dao.getAllAsync())
+                    .thenReturn(CompletableFuture.completedFuture(List.of(plugin)));
 
             HttpRequest<Buffer> req = Mockito.mock(HttpRequest.class);
             Mockito.when(
@@ -219,7 +247,8 @@ class DiscoveryStorageTest {
             UUID id = UUID.randomUUID();
             plugin.setId(id);
             Mockito.when(dao.get(id)).thenReturn(Optional.of(plugin));
-            Mockito.when(dao.getAll()).thenReturn(List.of(plugin));
+            Mockito.when(dao.getAllAsync())
+                    .thenReturn(CompletableFuture.completedFuture(List.of(plugin)));
 
             HttpRequest<Buffer> req = Mockito.mock(HttpRequest.class);
             Mockito.when(
@@ -253,7 +282,8 @@ class DiscoveryStorageTest {
             PluginInfo plugin =
                     new PluginInfo("test-realm", URI.create("http://example.com"), "[]");
             plugin.setId(UUID.randomUUID());
-            Mockito.when(dao.getAll()).thenReturn(List.of(plugin));
+            Mockito.when(dao.getAllAsync())
+                    .thenReturn(CompletableFuture.completedFuture(List.of(plugin)));
 
             HttpRequest<Buffer> req = Mockito.mock(HttpRequest.class);
             Mockito.when(
@@ -406,7 +436,6 @@ class DiscoveryStorageTest {
 
         @Test
         void throwsIfUuidNull() {
-            Mockito.when(dao.get(Mockito.isNull())).thenThrow(NullPointerException.class);
             Assertions.assertThrows(
                     NullPointerException.class, () -> storage.update(null, Set.of()));
         }
@@ -467,6 +496,101 @@ class DiscoveryStorageTest {
             MatcherAssert.assertThat(
                     discoveryEvents, Matchers.containsInRelativeOrder(foundEvent, lostEvent));
         }
+
+        @Test
+        void appliesDeltaInMemoryAndEmitsOnlyChangedTargets() throws Exception {
+            ServiceRef keptServiceRef =
+                    new ServiceRef(
+                            URI.create("service:jmx:rmi:///jndi/rmi://localhost:1/jmxrmi"),
+                            "keptServiceRef");
+            ServiceRef lostServiceRef =
+                    new ServiceRef(
+                            URI.create("service:jmx:rmi:///jndi/rmi://localhost:2/jmxrmi"),
+                            "lostServiceRef");
+            ServiceRef foundServiceRef =
+                    new ServiceRef(
+                            URI.create("service:jmx:rmi:///jndi/rmi://localhost:3/jmxrmi"),
+                            "foundServiceRef");
+            TargetNode keptTarget = new TargetNode(BaseNodeType.JVM, keptServiceRef);
+            TargetNode lostTarget = new TargetNode(BaseNodeType.JVM, lostServiceRef);
+            TargetNode foundTarget = new TargetNode(BaseNodeType.JVM, foundServiceRef);
+            EnvironmentNode realm =
+                    new EnvironmentNode(
+                            "test-realm",
+                            BaseNodeType.REALM,
+                            Map.of(),
+                            Set.of(keptTarget, lostTarget));
+
+            UUID id = UUID.randomUUID();
+            PluginInfo plugin =
+                    new PluginInfo(
+                            "test-realm", URI.create("http://example.com"), gson.toJson(realm));
+            plugin.setId(id);
+            Mockito.when(dao.get(id)).thenReturn(Optional.of(plugin));
+            Mockito.when(dao.getAll()).thenReturn(List.of(plugin));
+
+            List<TargetDiscoveryEvent> discoveryEvents = new ArrayList<>();
+            storage.addTargetDiscoveryListener(discoveryEvents::add);
+
+            storage.update(
+                    id, List.of(keptTarget, foundTarget), List.of(lostServiceRef.getServiceUri()));
+
+            MatcherAssert.assertThat(
+                    discoveryEvents,
+                    Matchers.contains(
+                            new TargetDiscoveryEvent(EventKind.LOST, lostServiceRef),
+                            new TargetDiscoveryEvent(EventKind.FOUND, foundServiceRef)));
+            MatcherAssert.assertThat(
+                    storage.listDiscoverableServices(),
+                    Matchers.containsInAnyOrder(keptServiceRef, foundServiceRef));
+            Mockito.verify(dao, Mockito.never())
+                    .update(Mockito.any(UUID.class), Mockito.any(EnvironmentNode.class));
+        }
+
+        @Test
+        void coalescesPersistenceOfDeltas() throws Exception {
+            EnvironmentNode realm = new EnvironmentNode("test-realm", BaseNodeType.REALM);
+            UUID id = UUID.randomUUID();
+            PluginInfo plugin =
+                    new PluginInfo(
+                            "test-realm", URI.create("http://example.com"), gson.toJson(realm));
+            plugin.setId(id);
+            Mockito.when(dao.get(id)).thenReturn(Optional.of(plugin));
+
+            TargetNode target1 =
+                    new TargetNode(
+                            BaseNodeType.JVM,
+                            new ServiceRef(
+                                    URI.create("service:jmx:rmi:///jndi/rmi://localhost:1/jmxrmi"),
+                                    "target1"));
+            TargetNode target2 =
+                    new TargetNode(
+                            BaseNodeType.JVM,
+                            new ServiceRef(
+                                    URI.create("service:jmx:rmi:///jndi/rmi://localhost:2/jmxrmi"),
+                                    "target2"));
+            storage.update(id, List.of(target1), List.of());
+            storage.update(id, List.of(target2), List.of());
+
+            ArgumentCaptor<Handler<Long>> timerCaptor = ArgumentCaptor.forClass(Handler.class);
+            Mockito.verify(vertx, Mockito.times(1))
+                    .setTimer(
+                            Mockito.eq(DiscoveryStorage.PERSIST_DELAY.toMillis()),
+                            timerCaptor.capture());
+            Mockito.verify(dao, Mockito.never())
+                    .update(Mockito.any(UUID.class), Mockito.any(EnvironmentNode.class));
+
+            timerCaptor.getValue().handle(MockVertx.TIMER_ID);
+
+            Mockito.verify(dao)
+                    .update(
+                            id,
+                            new EnvironmentNode(
+                                    "test-realm",
+                                    BaseNodeType.REALM,
+                                    Map.of(),
+                                    List.of(target1, target2)));
+        }
     }
 
     @Nested
@@ -634,5 +758,43 @@ class DiscoveryStorageTest {
             MatcherAssert.assertThat(servicesList, Matchers.hasSize(4));
             MatcherAssert.assertThat(servicesList, Matchers.containsInAnyOrder(sr1, sr2, sr3, sr4));
         }
+
+        @Test
+        void reusesSnapshotUntilTreeChanges() throws Exception {
+            ServiceRef sr1 =
+                    new ServiceRef(
+                            URI.create("service:jmx:rmi:///jndi/rmi://leaf:1/jmxrmi"), "sr1");
+            ServiceRef sr2 =
+                    new ServiceRef(
+                            URI.create("service:jmx:rmi:///jndi/rmi://leaf:2/jmxrmi"), "sr2");
+            EnvironmentNode realm =
+                    new EnvironmentNode(
+                            "realm",
+                            BaseNodeType.REALM,
+                            Map.of(),
+                            Set.of(new TargetNode(BaseNodeType.JVM, sr1)));
+            UUID id = UUID.randomUUID();
+            PluginInfo plugin =
+                    new PluginInfo("realm", URI.create("http://example.com"), gson.toJson(realm));
+            plugin.setId(id);
+            Mockito.when(dao.get(id)).thenReturn(Optional.of(plugin));
+            Mockito.when(dao.getAll()).thenReturn(List.of(plugin));
+
+            DiscoverySnapshot first = storage.getSnapshot();
+            MatcherAssert.assertThat(storage.getSnapshot(), Matchers.sameInstance(first));
+            MatcherAssert.assertThat(
+                    storage.getDiscoverableService(sr1.getServiceUri()),
+                    Matchers.equalTo(Optional.of(sr1)));
+            Mockito.verify(dao, Mockito.times(1)).getAll();
+
+            storage.update(id, List.of(new TargetNode(BaseNodeType.JVM, sr2)), List.of());
+
+            DiscoverySnapshot second = storage.getSnapshot();
+            MatcherAssert.assertThat(second, Matchers.not(Matchers.sameInstance(first)));
+            MatcherAssert.assertThat(second.getVersion(), Matchers.greaterThan(first.getVersion()));
+            MatcherAssert.assertThat(
+                    storage.listDiscoverableServices(), Matchers.containsInAnyOrder(sr1, sr2));
+            Mockito.verify(dao, Mockito.times(2)).getAll();
+        }
     }
 }
@@ -0,0 +1,254 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.discovery;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.discovery.AbstractNode;
+import io.cryostat.platform.discovery.BaseNodeType;
+import io.cryostat.platform.discovery.EnvironmentNode;
+import io.cryostat.platform.discovery.TargetNode;
+import io.cryostat.platform.internal.KubeApiPlatformClient.KubernetesNodeType;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DiscoverySubtreeTest {
+
+    static final EnvironmentNode REALM =
+            new EnvironmentNode("test-realm", BaseNodeType.REALM, Map.of("REALM", "id"));
+
+    TargetNode target1;
+    TargetNode target2;
+    DiscoverySubtree subtree;
+
+    @BeforeEach
+    void setup() {
+        this.target1 = target(1, "target1");
+        this.target2 = target(2, "target2");
+        this.subtree =
+                new DiscoverySubtree(
+                        new EnvironmentNode(
+                                REALM.getName(),
+                                REALM.getNodeType(),
+                                REALM.getLabels(),
+                                List.of(namespace("ns1", pod("pod1", target1)))));
+    }
+
+    @Test
+    void shouldRoundTripInitialTree() {
+        MatcherAssert.assertThat(
+                subtree.toNode(),
+                Matchers.equalTo(
+                        new EnvironmentNode(
+                                REALM.getName(),
+                                REALM.getNodeType(),
+                                REALM.getLabels(),
+                                List.of(namespace("ns1", pod("pod1", target1))))));
+        MatcherAssert.assertThat(subtree.listTargets(), Matchers.contains(target1.getTarget()));
+    }
+
+    @Test
+    void shouldMergeAddedBranchIntoExistingEnvironmentNodes() {
+        DiscoverySubtree.Delta delta =
+                subtree.apply(List.of(namespace("ns1", pod("pod2", target2))), List.of());
+
+        MatcherAssert.assertThat(delta.getFound(), Matchers.contains(target2));
+        MatcherAssert.assertThat(delta.getLost(), Matchers.empty());
+        MatcherAssert.assertThat(
+                subtree.toNode().getChildren(),
+                Matchers.contains(namespace("ns1", pod("pod1", target1), pod("pod2", target2))));
+    }
+
+    @Test
+    void shouldRemoveTargetAndPruneEmptiedEnvironmentNodes() {
+        subtree.apply(List.of(namespace("ns1", pod("pod2", target2))), List.of());
+
+        DiscoverySubtree.Delta delta =
+                subtree.apply(List.of(), List.of(target1.getTarget().getServiceUri()));
+
+        MatcherAssert.assertThat(delta.getFound(), Matchers.empty());
+        MatcherAssert.assertThat(delta.getLost(), Matchers.contains(target1));
+        MatcherAssert.assertThat(
+                subtree.toNode().getChildren(),
+                Matchers.contains(namespace("ns1", pod("pod2", target2))));
+
+        subtree.apply(List.of(), List.of(target2.getTarget().getServiceUri()));
+        MatcherAssert.assertThat(subtree.toNode(), Matchers.equalTo(REALM));
+    }
+
+    @Test
+    void shouldIgnoreRemovalOfUnknownTarget() {
+        DiscoverySubtree.Delta delta =
+                subtree.apply(List.of(), List.of(target2.getTarget().getServiceUri()));
+
+        MatcherAssert.assertThat(delta.isEmpty(), Matchers.is(true));
+        MatcherAssert.assertThat(subtree.listTargets(), Matchers.contains(target1.getTarget()));
+    }
+
+    @Test
+    void shouldReplaceTargetWithSameConnectUrl() {
+        TargetNode modified = target(1, "modified");
+
+        DiscoverySubtree.Delta delta =
+                subtree.apply(List.of(namespace("ns2", pod("pod1", modified))), List.of());
+
+        MatcherAssert.assertThat(delta.getFound(), Matchers.contains(modified));
+        MatcherAssert.assertThat(delta.getLost(), Matchers.contains(target1));
+        MatcherAssert.assertThat(
+                subtree.toNode().getChildren(),
+                Matchers.contains(namespace("ns2", pod("pod1", modified))));
+    }
+
+    @Test
+    void shouldNotReportUnchangedTargets() {
+        DiscoverySubtree.Delta delta =
+                subtree.apply(
+                        List.of(namespace("ns1", pod("pod1", target1))),
+                        List.of(target1.getTarget().getServiceUri()));
+
+        MatcherAssert.assertThat(delta.isEmpty(), Matchers.is(true));
+        MatcherAssert.assertThat(
+                subtree.toNode().getChildren(),
+                Matchers.contains(namespace("ns1", pod("pod1", target1))));
+    }
+
+    @Test
+    void shouldUpdateEnvironmentNodeLabels() {
+        EnvironmentNode relabelled =
+                new EnvironmentNode(
+                        "ns1",
+                        KubernetesNodeType.NAMESPACE,
+                        Map.of("env", "prod"),
+                        List.of(pod("pod1", target1)));
+
+        DiscoverySubtree.Delta delta = subtree.apply(List.of(relabelled), List.of());
+
+        MatcherAssert.assertThat(delta.isEmpty(), Matchers.is(true));
+        MatcherAssert.assertThat(subtree.toNode().getChildren(), Matchers.contains(relabelled));
+    }
+
+    @Test
+    void shouldReportDifferenceOnReplace() {
+        DiscoverySubtree.Delta delta = subtree.replace(List.of(target2));
+
+        MatcherAssert.assertThat(delta.getFound(), Matchers.contains(target2));
+        MatcherAssert.assertThat(delta.getLost(), Matchers.contains(target1));
+        MatcherAssert.assertThat(subtree.toNode().getChildren(), Matchers.contains(target2));
+    }
+
+    @Test
+    void shouldIncreaseVersionOnEveryChange() {
+        long initial = subtree.getVersion();
+        subtree.apply(List.of(target2), List.of());
+        long applied = subtree.getVersion();
+        subtree.replace(List.of(target1));
+
+        MatcherAssert.assertThat(applied, Matchers.greaterThan(initial));
+        MatcherAssert.assertThat(subtree.getVersion(), Matchers.greaterThan(applied));
+    }
+
+    @Test
+    void shouldSkipWritesOfVersionsOlderThanLastWritten() {
+        List<Long> written = new ArrayList<>();
+        subtree.write(2, () -> written.add(2L));
+        subtree.write(1, () -> written.add(1L));
+        subtree.write(2, () -> written.add(2L));
+        subtree.write(3, () -> written.add(3L));
+
+        MatcherAssert.assertThat(written, Matchers.contains(2L, 3L));
+    }
+
+    @Test
+    void shouldNotHoldSubtreeLockWhileWriting() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            subtree.write(
+                    1,
+                    () ->
+                            Assertions.assertDoesNotThrow(
+                                    () ->
+                                            executor.submit(
+                                                            () ->
+                                                                    subtree.apply(
+                                                                            List.of(target2),
+                                                                            List.of()))
+                                                    .get(5, TimeUnit.SECONDS)));
+        } finally {
+            executor.shutdownNow();
+        }
+        MatcherAssert.assertThat(
+                subtree.listTargets(),
+                Matchers.containsInAnyOrder(target1.getTarget(), target2.getTarget()));
+    }
+
+    @Test
+    void shouldRejectUnknownNodeTypes() {
+        AbstractNode node = new AbstractNode("unknown", BaseNodeType.JVM, Map.of()) {};
+        Assertions.assertThrows(
+                IllegalArgumentException.class, () -> subtree.apply(List.of(node), List.of()));
+    }
+
+    static TargetNode target(int port, String alias) {
+        return new TargetNode(
+                KubernetesNodeType.ENDPOINT,
+                new ServiceRef(
+                        URI.create(
+                                String.format(
+                                        "service:jmx:rmi:///jndi/rmi://localhost:%d/jmxrmi", port)),
+                        alias));
+    }
+
+    static EnvironmentNode namespace(String name, AbstractNode... children) {
+        return new EnvironmentNode(name, KubernetesNodeType.NAMESPACE, Map.of(), List.of(children));
+    }
+
+    static EnvironmentNode pod(String name, AbstractNode... children) {
+        return new EnvironmentNode(name, KubernetesNodeType.POD, Map.of(), List.of(children));
+    }
+}
@@ -61,10 +61,14 @@ import io.cryostat.net.HttpServer;
 import io.cryostat.net.web.http.HttpMimeType;
 
 import com.google.gson.Gson;
+import io.vertx.core.Context;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
 import io.vertx.core.net.SocketAddress;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -84,6 +88,7 @@ class MessagingServerTest {
     @Mock AuthManager authManager;
     Gson gson = MainModule.provideGson(logger);
     @Mock ServerWebSocket sws;
+    @Mock Context context;
     @Mock Clock clock;
     @Mock NotificationFactory notificationFactory;
     @Mock Notification notification;
@@ -93,6 +98,16 @@ class MessagingServerTest {
     @BeforeEach
     void setup() {
         this.vertx = MockVertx.vertx();
+        lenient().when(vertx.getOrCreateContext()).thenReturn(context);
+        lenient()
+                .doAnswer(
+                        invocation -> {
+                            Handler<Void> action = invocation.getArgument(0);
+                            action.handle(null);
+                            return null;
+                        })
+                .when(context)
+                .runOnContext(Mockito.any());
 
         lenient().when(notificationFactory.createBuilder()).thenReturn(notificationBuilder);
         lenient()
@@ -127,6 +142,8 @@ class MessagingServerTest {
                         authManager,
                         notificationFactory,
                         2,
+                        4,
+                        SlowConsumerPolicy.DROP_OLDEST,
                         clock,
                         logger,
                         gson);
@@ -143,7 +160,7 @@ class MessagingServerTest {
 
         TestMessage message = new TestMessage("msgId", "test", "message");
         server.writeMessage(message);
-        verify(sws, Mockito.never()).writeTextMessage(gson.toJson(message));
+        verify(sws, Mockito.never()).writeFrame(Mockito.any(WebSocketFrame.class));
     }
 
     @Test
@@ -237,8 +254,48 @@ class MessagingServerTest {
 
         TestMessage message = new TestMessage("msgId", "test", "message");
         server.writeMessage(message);
-        verify(sws).writeTextMessage(gson.toJson(message));
-        verify(sws2).writeTextMessage(gson.toJson(message));
+        ArgumentCaptor<WebSocketFrame> frameCaptor = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(sws).writeFrame(frameCaptor.capture());
+        verify(sws2).writeFrame(frameCaptor.capture());
+        for (WebSocketFrame frame : frameCaptor.getAllValues()) {
+            MatcherAssert.assertThat(frame.isText(), Matchers.is(true));
+            MatcherAssert.assertThat(frame.textData(), Matchers.equalTo(gson.toJson(message)));
+        }
+    }
+
+    @Test
+    void writeShouldNotBlockOnSlowClients() throws Exception {
+        server.start();
+
+        ArgumentCaptor<Handler> websocketHandlerCaptor = ArgumentCaptor.forClass(Handler.class);
+        Mockito.verify(httpServer).websocketHandler(websocketHandlerCaptor.capture());
+        websocketHandlerCaptor.getValue().handle(sws);
+
+        ArgumentCaptor<Handler> textMessageHandlerCaptor = ArgumentCaptor.forClass(Handler.class);
+        verify(sws).textMessageHandler(textMessageHandlerCaptor.capture());
+        textMessageHandlerCaptor.getValue().handle("irrelevant");
+
+        ArgumentCaptor<Runnable> authSuccessCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(authAction).onSuccess(authSuccessCaptor.capture());
+        authSuccessCaptor.getValue().run();
+
+        when(sws.writeQueueFull()).thenReturn(true);
+        for (int i = 0; i < 10; i++) {
+            server.writeMessage(new TestMessage("msgId", String.valueOf(i)));
+        }
+
+        verify(sws, Mockito.never()).writeFrame(Mockito.any(WebSocketFrame.class));
+        ArgumentCaptor<Handler<Void>> drainCaptor = ArgumentCaptor.forClass(Handler.class);
+        verify(sws).drainHandler(drainCaptor.capture());
+
+        when(sws.writeQueueFull()).thenReturn(false);
+        drainCaptor.getValue().handle(null);
+
+        ArgumentCaptor<WebSocketFrame> frameCaptor = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(sws, Mockito.times(4)).writeFrame(frameCaptor.capture());
+        MatcherAssert.assertThat(
+                frameCaptor.getValue().textData(),
+                Matchers.equalTo(gson.toJson(new TestMessage("msgId", "9"))));
     }
 
     @Test
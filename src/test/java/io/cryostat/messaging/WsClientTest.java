@@ -0,0 +1,278 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.messaging;
+
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.Clock;
+
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.http.ServerWebSocket;
+import io.vertx.core.http.WebSocketFrame;
+import io.vertx.core.net.SocketAddress;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class WsClientTest {
+
+    @Mock Logger logger;
+    @Mock ServerWebSocket sws;
+    @Mock Context context;
+    @Mock Clock clock;
+    @Mock SocketAddress addr;
+    List<Handler<Void>> pendingTasks;
+
+    @BeforeEach
+    void setup() {
+        pendingTasks = new ArrayList<>();
+        lenient()
+                .doAnswer(
+                        invocation -> {
+                            pendingTasks.add(invocation.getArgument(0));
+                            return null;
+                        })
+                .when(context)
+                .runOnContext(Mockito.any());
+        lenient().when(sws.remoteAddress()).thenReturn(addr);
+        lenient().when(addr.host()).thenReturn("client");
+        lenient().when(addr.port()).thenReturn(12345);
+    }
+
+    WsClient createClient(SlowConsumerPolicy policy) {
+        WsClient client = new WsClient(logger, sws, context, clock, 2, policy);
+        client.setAccepted();
+        return client;
+    }
+
+    void runPendingTasks() {
+        List<Handler<Void>> tasks = new ArrayList<>(pendingTasks);
+        pendingTasks.clear();
+        tasks.forEach(t -> t.handle(null));
+    }
+
+    List<String> writtenMessages() {
+        ArgumentCaptor<WebSocketFrame> frameCaptor = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(sws, Mockito.atLeast(0)).writeFrame(frameCaptor.capture());
+        return frameCaptor.getAllValues().stream()
+                .map(WebSocketFrame::textData)
+                .collect(Collectors.toList());
+    }
+
+    static WsClient.OutgoingMessage message(String category, String text, long timestamp) {
+        return new WsClient.OutgoingMessage(category, text, timestamp);
+    }
+
+    @Test
+    void shouldNotWriteToClientsBeforeAcceptance() {
+        WsClient client =
+                new WsClient(logger, sws, context, clock, 2, SlowConsumerPolicy.DROP_OLDEST);
+
+        client.writeMessage(message("a", "one", 0));
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.empty());
+        MatcherAssert.assertThat(client.getQueuedMessages(), Matchers.equalTo(0));
+    }
+
+    @Test
+    void shouldWriteFromClientContext() {
+        WsClient client = createClient(SlowConsumerPolicy.DROP_OLDEST);
+
+        client.writeMessage(message("a", "one", 0));
+        client.writeMessage(message("a", "two", 0));
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.empty());
+        MatcherAssert.assertThat(pendingTasks, Matchers.hasSize(1));
+
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.contains("one", "two"));
+        MatcherAssert.assertThat(client.getQueuedMessages(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(client.getSentMessages(), Matchers.equalTo(2L));
+    }
+
+    @Test
+    void shouldShareMessagePayloadBetweenClients() {
+        ServerWebSocket sws2 = Mockito.mock(ServerWebSocket.class);
+        when(sws2.remoteAddress()).thenReturn(addr);
+        WsClient client = createClient(SlowConsumerPolicy.DROP_OLDEST);
+        WsClient client2 =
+                new WsClient(logger, sws2, context, clock, 2, SlowConsumerPolicy.DROP_OLDEST);
+        client2.setAccepted();
+
+        WsClient.OutgoingMessage message = message("a", "shared", 0);
+        client.writeMessage(message);
+        client2.writeMessage(message);
+        runPendingTasks();
+
+        ArgumentCaptor<WebSocketFrame> frameCaptor = ArgumentCaptor.forClass(WebSocketFrame.class);
+        verify(sws).writeFrame(frameCaptor.capture());
+        verify(sws2).writeFrame(frameCaptor.capture());
+        for (WebSocketFrame frame : frameCaptor.getAllValues()) {
+            MatcherAssert.assertThat(frame.isText(), Matchers.is(true));
+            MatcherAssert.assertThat(frame.textData(), Matchers.equalTo("shared"));
+        }
+    }
+
+    @Test
+    void shouldWaitForDrainWhenWriteQueueIsFull() {
+        WsClient client = createClient(SlowConsumerPolicy.DROP_OLDEST);
+        when(sws.writeQueueFull()).thenReturn(false, true);
+
+        client.writeMessage(message("a", "one", 0));
+        client.writeMessage(message("a", "two", 0));
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.contains("one"));
+        MatcherAssert.assertThat(client.getQueuedMessages(), Matchers.equalTo(1));
+
+        ArgumentCaptor<Handler<Void>> drainCaptor = ArgumentCaptor.forClass(Handler.class);
+        verify(sws).drainHandler(drainCaptor.capture());
+
+        client.writeMessage(message("a", "three", 0));
+        MatcherAssert.assertThat(pendingTasks, Matchers.empty());
+
+        when(sws.writeQueueFull()).thenReturn(false);
+        drainCaptor.getValue().handle(null);
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.contains("one", "two", "three"));
+    }
+
+    @Test
+    void shouldDropOldestMessagesFromSlowClients() {
+        WsClient client = createClient(SlowConsumerPolicy.DROP_OLDEST);
+
+        client.writeMessage(message("a", "one", 0));
+        client.writeMessage(message("b", "two", 0));
+        client.writeMessage(message("a", "three", 0));
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.contains("two", "three"));
+        MatcherAssert.assertThat(client.getDroppedMessages(), Matchers.equalTo(1L));
+        verify(sws, Mockito.never()).close(Mockito.anyShort(), Mockito.anyString());
+    }
+
+    @Test
+    void shouldCoalesceDuplicateMessagesFromSlowClients() {
+        WsClient client = createClient(SlowConsumerPolicy.COALESCE);
+
+        client.writeMessage(message("a", "one", 0));
+        client.writeMessage(message("b", "two", 0));
+        client.writeMessage(message("b", "two", 0));
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.contains("one", "two"));
+        MatcherAssert.assertThat(client.getDroppedMessages(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    void shouldNotCoalesceDistinctMessagesOfSameCategory() {
+        WsClient client = createClient(SlowConsumerPolicy.COALESCE);
+
+        client.writeMessage(message("a", "one", 0));
+        client.writeMessage(message("b", "two", 0));
+        client.writeMessage(message("b", "three", 0));
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.contains("two", "three"));
+        MatcherAssert.assertThat(client.getDroppedMessages(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    void shouldDropOldestWhenNothingCoalesces() {
+        WsClient client = createClient(SlowConsumerPolicy.COALESCE);
+
+        client.writeMessage(message("a", "one", 0));
+        client.writeMessage(message("b", "two", 0));
+        client.writeMessage(message("c", "three", 0));
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.contains("two", "three"));
+        MatcherAssert.assertThat(client.getDroppedMessages(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    void shouldDisconnectSlowClients() {
+        WsClient client = createClient(SlowConsumerPolicy.DISCONNECT);
+
+        client.writeMessage(message("a", "one", 0));
+        client.writeMessage(message("a", "two", 0));
+        client.writeMessage(message("a", "three", 0));
+        client.writeMessage(message("a", "four", 0));
+        runPendingTasks();
+
+        MatcherAssert.assertThat(writtenMessages(), Matchers.empty());
+        MatcherAssert.assertThat(client.getQueuedMessages(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(client.getDroppedMessages(), Matchers.equalTo(3L));
+        verify(sws).close(WsClient.SLOW_CONSUMER_CLOSE_CODE, "Notification queue overflow");
+    }
+
+    @Test
+    void shouldReportLagOfOldestQueuedMessage() {
+        WsClient client = createClient(SlowConsumerPolicy.DROP_OLDEST);
+        when(clock.getMonotonicTime()).thenReturn(1_000L);
+
+        MatcherAssert.assertThat(client.getLag(), Matchers.equalTo(0L));
+
+        client.writeMessage(message("a", "one", 100));
+        client.writeMessage(message("a", "two", 400));
+
+        MatcherAssert.assertThat(client.getLag(), Matchers.equalTo(900L));
+
+        runPendingTasks();
+
+        MatcherAssert.assertThat(client.getLag(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(client.getMaxLag(), Matchers.equalTo(900L));
+    }
+}
@@ -37,9 +37,17 @@
  */
 package io.cryostat.net;
 
+import java.net.URI;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import javax.management.remote.JMXServiceURL;
 
@@ -47,11 +55,15 @@ import io.cryostat.DirectExecutor;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.JFRConnection;
 import io.cryostat.core.net.JFRConnectionToolkit;
+import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
 import io.cryostat.platform.PlatformClient;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.TargetDiscoveryEvent;
 
 import com.github.benmanes.caffeine.cache.Scheduler;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -81,6 +93,8 @@ class TargetConnectionManagerTest {
                         Scheduler.disabledScheduler(),
                         TTL,
                         -1,
+                        1,
+                        Duration.ZERO,
                         logger);
     }
 
@@ -199,6 +213,8 @@ class TargetConnectionManagerTest {
                         Scheduler.systemScheduler(),
                         Duration.ofNanos(1),
                         1,
+                        1,
+                        Duration.ZERO,
                         logger);
         Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
                 .thenAnswer(
@@ -240,6 +256,8 @@ class TargetConnectionManagerTest {
                         Scheduler.disabledScheduler(),
                         Duration.ofNanos(1),
                         -1,
+                        1,
+                        Duration.ZERO,
                         logger);
         Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
                 .thenAnswer(
@@ -270,4 +288,314 @@ class TargetConnectionManagerTest {
         JFRConnection conn2 = mgr.executeConnectedTask(desc2, a -> a);
         MatcherAssert.assertThat(conn1, Matchers.not(Matchers.sameInstance(conn2)));
     }
+
+    @Test
+    void shouldAllowReadOnlyTaskNestedInMutatingTask() throws Exception {
+        Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        new Answer<JMXServiceURL>() {
+                            @Override
+                            public JMXServiceURL answer(InvocationOnMock args) throws Throwable {
+                                String host = args.getArgument(0);
+                                int port = args.getArgument(1);
+                                return new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        String.format("/jndi/rmi://%s:%d/jmxrmi", host, port));
+                            }
+                        });
+        Mockito.when(jfrConnectionToolkit.connect(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(
+                        new Answer<JFRConnection>() {
+                            @Override
+                            public JFRConnection answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                return Mockito.mock(JFRConnection.class);
+                            }
+                        });
+        ConnectionDescriptor descriptor = new ConnectionDescriptor("foo");
+        String result =
+                mgr.executeConnectedTask(
+                        descriptor,
+                        conn1 ->
+                                mgr.executeConnectedTask(
+                                        descriptor,
+                                        TargetConnectionManager.readOnly(conn2 -> "nested")));
+        MatcherAssert.assertThat(result, Matchers.equalTo("nested"));
+    }
+
+    @Test
+    void shouldRejectMutatingTaskNestedInReadOnlyTask() throws Exception {
+        Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        new Answer<JMXServiceURL>() {
+                            @Override
+                            public JMXServiceURL answer(InvocationOnMock args) throws Throwable {
+                                String host = args.getArgument(0);
+                                int port = args.getArgument(1);
+                                return new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        String.format("/jndi/rmi://%s:%d/jmxrmi", host, port));
+                            }
+                        });
+        Mockito.when(jfrConnectionToolkit.connect(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(
+                        new Answer<JFRConnection>() {
+                            @Override
+                            public JFRConnection answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                return Mockito.mock(JFRConnection.class);
+                            }
+                        });
+        ConnectionDescriptor descriptor = new ConnectionDescriptor("foo");
+        Assertions.assertThrows(
+                IllegalStateException.class,
+                () ->
+                        mgr.executeConnectedTask(
+                                descriptor,
+                                TargetConnectionManager.readOnly(
+                                        conn1 ->
+                                                mgr.executeConnectedTask(
+                                                        descriptor, conn2 -> "nested"))));
+    }
+
+    @Test
+    void shouldExecuteReadOnlyTasksConcurrently() throws Exception {
+        Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        new Answer<JMXServiceURL>() {
+                            @Override
+                            public JMXServiceURL answer(InvocationOnMock args) throws Throwable {
+                                String host = args.getArgument(0);
+                                int port = args.getArgument(1);
+                                return new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        String.format("/jndi/rmi://%s:%d/jmxrmi", host, port));
+                            }
+                        });
+        Mockito.when(jfrConnectionToolkit.connect(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(
+                        new Answer<JFRConnection>() {
+                            @Override
+                            public JFRConnection answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                return Mockito.mock(JFRConnection.class);
+                            }
+                        });
+        ConnectionDescriptor descriptor = new ConnectionDescriptor("foo");
+        CountDownLatch latch = new CountDownLatch(2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(
+                        pool.submit(
+                                () ->
+                                        mgr.executeConnectedTask(
+                                                descriptor,
+                                                TargetConnectionManager.readOnly(
+                                                        conn -> {
+                                                            latch.countDown();
+                                                            return latch.await(5, TimeUnit.SECONDS);
+                                                        }))));
+            }
+            for (Future<Boolean> result : results) {
+                MatcherAssert.assertThat(result.get(), Matchers.is(true));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRecordPoolStatistics() throws Exception {
+        Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        new Answer<JMXServiceURL>() {
+                            @Override
+                            public JMXServiceURL answer(InvocationOnMock args) throws Throwable {
+                                String host = args.getArgument(0);
+                                int port = args.getArgument(1);
+                                return new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        String.format("/jndi/rmi://%s:%d/jmxrmi", host, port));
+                            }
+                        });
+        Mockito.when(jfrConnectionToolkit.connect(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(
+                        new Answer<JFRConnection>() {
+                            @Override
+                            public JFRConnection answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                return Mockito.mock(JFRConnection.class);
+                            }
+                        });
+        ConnectionDescriptor desc = new ConnectionDescriptor("foo");
+        MatcherAssert.assertThat(mgr.getPoolStatistics("foo").isPresent(), Matchers.is(false));
+        mgr.executeConnectedTask(desc, a -> a);
+        mgr.executeConnectedTask(desc, TargetConnectionManager.readOnly(a -> a));
+        TargetConnectionManager.PoolStatistics stats = mgr.getPoolStatistics("foo").get();
+        MatcherAssert.assertThat(stats.getCreates(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(stats.getHits(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(stats.getOpenConnections(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(stats.getActiveTasks(), Matchers.equalTo(0));
+    }
+
+    @Test
+    void shouldOpenPooledConnectionsForConcurrentReadOnlyTasks() throws Exception {
+        TargetConnectionManager mgr =
+                new TargetConnectionManager(
+                        () -> jfrConnectionToolkit,
+                        platformClient,
+                        new DirectExecutor(),
+                        Scheduler.disabledScheduler(),
+                        TTL,
+                        -1,
+                        2,
+                        Duration.ZERO,
+                        logger);
+        Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        new Answer<JMXServiceURL>() {
+                            @Override
+                            public JMXServiceURL answer(InvocationOnMock args) throws Throwable {
+                                String host = args.getArgument(0);
+                                int port = args.getArgument(1);
+                                return new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        String.format("/jndi/rmi://%s:%d/jmxrmi", host, port));
+                            }
+                        });
+        Mockito.when(jfrConnectionToolkit.connect(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(
+                        new Answer<JFRConnection>() {
+                            @Override
+                            public JFRConnection answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                return Mockito.mock(JFRConnection.class);
+                            }
+                        });
+        ConnectionDescriptor descriptor = new ConnectionDescriptor("foo");
+        CountDownLatch latch = new CountDownLatch(2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            List<Future<JFRConnection>> results = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                results.add(
+                        pool.submit(
+                                () ->
+                                        mgr.executeConnectedTask(
+                                                descriptor,
+                                                TargetConnectionManager.readOnly(
+                                                        conn -> {
+                                                            latch.countDown();
+                                                            latch.await(5, TimeUnit.SECONDS);
+                                                            return conn;
+                                                        }))));
+            }
+            MatcherAssert.assertThat(
+                    results.get(0).get(),
+                    Matchers.not(Matchers.sameInstance(results.get(1).get())));
+            MatcherAssert.assertThat(
+                    mgr.getPoolStatistics("foo").get().getCreates(), Matchers.equalTo(2L));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRetirePoolWhenLastConnectionCloses() throws Exception {
+        Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        new Answer<JMXServiceURL>() {
+                            @Override
+                            public JMXServiceURL answer(InvocationOnMock args) throws Throwable {
+                                String host = args.getArgument(0);
+                                int port = args.getArgument(1);
+                                return new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        String.format("/jndi/rmi://%s:%d/jmxrmi", host, port));
+                            }
+                        });
+        ArgumentCaptor<List<Runnable>> closeListeners = ArgumentCaptor.forClass(List.class);
+        Mockito.when(
+                        jfrConnectionToolkit.connect(
+                                Mockito.any(), Mockito.any(), closeListeners.capture()))
+                .thenAnswer(
+                        new Answer<JFRConnection>() {
+                            @Override
+                            public JFRConnection answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                return Mockito.mock(JFRConnection.class);
+                            }
+                        });
+        ConnectionDescriptor desc = new ConnectionDescriptor("foo");
+        mgr.executeConnectedTask(desc, a -> a);
+        MatcherAssert.assertThat(mgr.getPoolStatistics("foo").isPresent(), Matchers.is(true));
+        closeListeners.getValue().forEach(Runnable::run);
+        MatcherAssert.assertThat(mgr.getPoolStatistics("foo").isPresent(), Matchers.is(false));
+        MatcherAssert.assertThat(mgr.markConnectionInUse(desc), Matchers.is(false));
+    }
+
+    @Test
+    void shouldRetireBusyPoolOnceTasksFinishAfterTargetLost() throws Exception {
+        ArgumentCaptor<Consumer<TargetDiscoveryEvent>> discoveryListener =
+                ArgumentCaptor.forClass(Consumer.class);
+        Mockito.verify(platformClient).addTargetDiscoveryListener(discoveryListener.capture());
+        Mockito.when(jfrConnectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        new Answer<JMXServiceURL>() {
+                            @Override
+                            public JMXServiceURL answer(InvocationOnMock args) throws Throwable {
+                                String host = args.getArgument(0);
+                                int port = args.getArgument(1);
+                                return new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        String.format("/jndi/rmi://%s:%d/jmxrmi", host, port));
+                            }
+                        });
+        Mockito.when(jfrConnectionToolkit.connect(Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(
+                        new Answer<JFRConnection>() {
+                            @Override
+                            public JFRConnection answer(InvocationOnMock invocation)
+                                    throws Throwable {
+                                return Mockito.mock(JFRConnection.class);
+                            }
+                        });
+        ConnectionDescriptor desc = new ConnectionDescriptor("foo");
+        TargetDiscoveryEvent lost =
+                new TargetDiscoveryEvent(EventKind.LOST, new ServiceRef(URI.create("foo"), "foo"));
+        JFRConnection conn1 =
+                mgr.executeConnectedTask(
+                        desc,
+                        conn -> {
+                            discoveryListener.getValue().accept(lost);
+                            // the pool is still in use, so it must not be discarded yet
+                            MatcherAssert.assertThat(
+                                    mgr.getPoolStatistics("foo").isPresent(), Matchers.is(true));
+                            return conn;
+                        });
+        MatcherAssert.assertThat(mgr.getPoolStatistics("foo").isPresent(), Matchers.is(false));
+
+        JFRConnection conn2 = mgr.executeConnectedTask(desc, a -> a);
+        MatcherAssert.assertThat(conn2, Matchers.not(Matchers.sameInstance(conn1)));
+        TargetConnectionManager.PoolStatistics stats = mgr.getPoolStatistics("foo").get();
+        MatcherAssert.assertThat(stats.getCreates(), Matchers.equalTo(1L));
+        MatcherAssert.assertThat(stats.getEvictions(), Matchers.equalTo(0L));
+        MatcherAssert.assertThat(stats.getOpenConnections(), Matchers.equalTo(1));
+    }
 }
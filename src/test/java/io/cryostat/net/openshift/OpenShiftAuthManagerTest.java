@@ -41,6 +41,9 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -71,6 +74,7 @@ import io.fabric8.kubernetes.api.model.authentication.TokenReview;
 import io.fabric8.kubernetes.api.model.authentication.TokenReviewBuilder;
 import io.fabric8.kubernetes.api.model.authorization.v1.SelfSubjectAccessReview;
 import io.fabric8.kubernetes.api.model.authorization.v1.SelfSubjectAccessReviewBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
 import io.fabric8.kubernetes.client.dsl.Resource;
 import io.fabric8.kubernetes.client.http.HttpClient;
@@ -169,6 +173,8 @@ class OpenShiftAuthManagerTest {
                         classPropertiesLoader,
                         Runnable::run,
                         Scheduler.disabledScheduler(),
+                        Duration.ofSeconds(30),
+                        Duration.ofSeconds(5),
                         logger);
     }
 
@@ -354,6 +360,181 @@ class OpenShiftAuthManagerTest {
         MatcherAssert.assertThat(pde.getVerb(), Matchers.equalTo("get"));
     }
 
+    @Test
+    void shouldCacheGrantedPermissions() throws Exception {
+        SelfSubjectAccessReview accessReview =
+                new SelfSubjectAccessReviewBuilder()
+                        .withNewStatus()
+                        .withAllowed(true)
+                        .endStatus()
+                        .build();
+        server.expect()
+                .post()
+                .withPath(SUBJECT_REVIEW_API_PATH)
+                .andReturn(HttpURLConnection.HTTP_CREATED, accessReview)
+                .once();
+
+        for (int i = 0; i < 3; i++) {
+            MatcherAssert.assertThat(
+                    mgr.validateToken(() -> "token", Set.of(ResourceAction.READ_RECORDING)).get(),
+                    Matchers.is(true));
+        }
+        MatcherAssert.assertThat(countAccessReviews(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void shouldCacheDeniedPermissions() throws Exception {
+        SelfSubjectAccessReview accessReview =
+                new SelfSubjectAccessReviewBuilder()
+                        .withNewStatus()
+                        .withAllowed(false)
+                        .endStatus()
+                        .build();
+        server.expect()
+                .post()
+                .withPath(SUBJECT_REVIEW_API_PATH)
+                .andReturn(HttpURLConnection.HTTP_CREATED, accessReview)
+                .once();
+
+        for (int i = 0; i < 3; i++) {
+            ExecutionException ee =
+                    Assertions.assertThrows(
+                            ExecutionException.class,
+                            () ->
+                                    mgr.validateToken(
+                                                    () -> "token",
+                                                    Set.of(ResourceAction.READ_RECORDING))
+                                            .get());
+            MatcherAssert.assertThat(
+                    ExceptionUtils.getRootCause(ee),
+                    Matchers.instanceOf(PermissionDeniedException.class));
+        }
+        MatcherAssert.assertThat(countAccessReviews(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void shouldNotShareCachedPermissionsBetweenTokens() throws Exception {
+        SelfSubjectAccessReview accessReview =
+                new SelfSubjectAccessReviewBuilder()
+                        .withNewStatus()
+                        .withAllowed(true)
+                        .endStatus()
+                        .build();
+        server.expect()
+                .post()
+                .withPath(SUBJECT_REVIEW_API_PATH)
+                .andReturn(HttpURLConnection.HTTP_CREATED, accessReview)
+                .times(2);
+
+        MatcherAssert.assertThat(
+                mgr.validateToken(() -> "token1", Set.of(ResourceAction.READ_RECORDING)).get(),
+                Matchers.is(true));
+        MatcherAssert.assertThat(
+                mgr.validateToken(() -> "token2", Set.of(ResourceAction.READ_RECORDING)).get(),
+                Matchers.is(true));
+        MatcherAssert.assertThat(countAccessReviews(), Matchers.equalTo(2));
+    }
+
+    @Test
+    void shouldNotCacheFailedReviews() throws Exception {
+        SelfSubjectAccessReview accessReview =
+                new SelfSubjectAccessReviewBuilder()
+                        .withNewStatus()
+                        .withAllowed(true)
+                        .endStatus()
+                        .build();
+        server.expect()
+                .post()
+                .withPath(SUBJECT_REVIEW_API_PATH)
+                .andReturn(HttpURLConnection.HTTP_INTERNAL_ERROR, "")
+                .once();
+        server.expect()
+                .post()
+                .withPath(SUBJECT_REVIEW_API_PATH)
+                .andReturn(HttpURLConnection.HTTP_CREATED, accessReview)
+                .once();
+
+        ExecutionException ee =
+                Assertions.assertThrows(
+                        ExecutionException.class,
+                        () ->
+                                mgr.validateToken(
+                                                () -> "token",
+                                                Set.of(ResourceAction.READ_RECORDING))
+                                        .get());
+        MatcherAssert.assertThat(
+                ExceptionUtils.getRootCause(ee),
+                Matchers.instanceOf(KubernetesClientException.class));
+        MatcherAssert.assertThat(
+                mgr.validateToken(() -> "token", Set.of(ResourceAction.READ_RECORDING)).get(),
+                Matchers.is(true));
+    }
+
+    @Test
+    void shouldDiscardCachedPermissionsOnLogout() throws Exception {
+        SelfSubjectAccessReview accessReview =
+                new SelfSubjectAccessReviewBuilder()
+                        .withNewStatus()
+                        .withAllowed(true)
+                        .endStatus()
+                        .build();
+        server.expect()
+                .post()
+                .withPath(SUBJECT_REVIEW_API_PATH)
+                .andReturn(HttpURLConnection.HTTP_CREATED, accessReview)
+                .times(2);
+
+        String token = "myToken";
+        MatcherAssert.assertThat(
+                mgr.validateToken(() -> token, Set.of(ResourceAction.READ_RECORDING)).get(),
+                Matchers.is(true));
+
+        Resource<OAuthAccessToken> oauthToken = Mockito.mock(Resource.class);
+        NonNamespaceOperation<OAuthAccessToken, OAuthAccessTokenList, Resource<OAuthAccessToken>>
+                tokens = Mockito.mock(NonNamespaceOperation.class);
+        Mockito.when(client.oAuthAccessTokens()).thenReturn(tokens);
+        Mockito.when(tokens.withName(Mockito.anyString())).thenReturn(oauthToken);
+        Mockito.when(oauthToken.delete()).thenReturn(true);
+
+        Mockito.when(client.getHttpClient()).thenReturn(httpClient);
+        Mockito.when(client.getMasterUrl()).thenReturn(new URL("https://example.com"));
+        HttpRequest.Builder requestBuilder = Mockito.mock(HttpRequest.Builder.class);
+        Mockito.when(requestBuilder.uri(Mockito.any(URI.class))).thenReturn(requestBuilder);
+        Mockito.when(requestBuilder.header(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn(requestBuilder);
+        HttpRequest request = Mockito.mock(HttpRequest.class);
+        Mockito.when(requestBuilder.build()).thenReturn(request);
+        Mockito.when(httpClient.newHttpRequestBuilder()).thenReturn(requestBuilder);
+        HttpResponse<String> resp = Mockito.mock(HttpResponse.class);
+        Mockito.when(resp.body()).thenReturn(OAUTH_METADATA);
+        Mockito.when(httpClient.sendAsync(request, String.class))
+                .thenReturn(CompletableFuture.completedFuture(resp));
+
+        String header =
+                "Bearer "
+                        + Base64.getUrlEncoder()
+                                .encodeToString(token.getBytes(StandardCharsets.UTF_8));
+        mgr.logout(() -> header);
+        // restore the real HTTP client for the following access review
+        Mockito.reset(client);
+
+        MatcherAssert.assertThat(
+                mgr.validateToken(() -> token, Set.of(ResourceAction.READ_RECORDING)).get(),
+                Matchers.is(true));
+        MatcherAssert.assertThat(countAccessReviews(), Matchers.equalTo(2));
+    }
+
+    private int countAccessReviews() throws InterruptedException {
+        int count = 0;
+        RecordedRequest req;
+        while ((req = server.takeRequest(100, TimeUnit.MILLISECONDS)) != null) {
+            if (SUBJECT_REVIEW_API_PATH.equals(req.getPath())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {"", "Bearer ", "invalidHeader"})
     void shouldSendRedirectResponseOnEmptyOrInvalidHeaders(String headers) throws Exception {
@@ -39,25 +39,34 @@ package io.cryostat.net.reports;
 
 import static org.mockito.ArgumentMatchers.anyString;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
-import javax.inject.Provider;
+import org.openjdk.jmc.common.unit.UnitLookup;
+import org.openjdk.jmc.rjmx.services.jfr.IRecordingDescriptor;
+import org.openjdk.jmc.rjmx.services.jfr.IRecordingDescriptor.RecordingState;
 
+import io.cryostat.DirectExecutor;
 import io.cryostat.core.log.Logger;
-import io.cryostat.core.sys.Environment;
+import io.cryostat.core.sys.Clock;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.jmc.serialization.HyperlinkedSerializableRecordingDescriptor;
 import io.cryostat.messaging.notifications.Notification;
 import io.cryostat.net.ConnectionDescriptor;
 import io.cryostat.net.TargetConnectionManager;
+import io.cryostat.recordings.JvmIdHelper;
 import io.cryostat.recordings.RecordingNotFoundException;
 import io.cryostat.recordings.RecordingTargetHelper;
-import io.cryostat.util.JavaProcess;
+import io.cryostat.util.events.Event;
 
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -65,6 +74,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -74,53 +84,92 @@ class ActiveRecordingReportCacheTest {
 
     ActiveRecordingReportCache cache;
     @Mock SubprocessReportGenerator subprocessReportGenerator;
-    @Mock Environment env;
     @Mock FileSystem fs;
     @Mock TargetConnectionManager targetConnectionManager;
+    @Mock JvmIdHelper jvmIdHelper;
+    @Mock Clock clock;
     @Mock Logger logger;
     @Mock CompletableFuture<Path> pathFuture;
     @Mock Path destinationFile;
-    @Mock JavaProcess.Builder javaProcessBuilder;
-    Provider<JavaProcess.Builder> javaProcessBuilderProvider = () -> javaProcessBuilder;
+    @Mock IRecordingDescriptor descriptor;
+    @TempDir Path storeDir;
     final String REPORT_DOC = "<html><body><p>This is a report</p></body></html>";
+    final long MAX_AGE_SECONDS = 30;
+    final AtomicLong monotonicTime = new AtomicLong();
+    final AtomicLong wallTime = new AtomicLong(1_000_000);
 
     @BeforeEach
     void setup() {
-        this.cache =
-                new ActiveRecordingReportCache(
-                        () -> subprocessReportGenerator, fs, targetConnectionManager, 30, logger);
+        Mockito.lenient().when(clock.getMonotonicTime()).thenAnswer(i -> monotonicTime.get());
+        Mockito.lenient().when(clock.getWallTime()).thenAnswer(i -> wallTime.get());
+        this.cache = createCache();
     }
 
-    @Test
-    void shouldReturnFalseWhenDeletingNonExistentReport() {
-        Assertions.assertFalse(cache.delete(new ConnectionDescriptor("foo"), "bar"));
+    void advanceClock(long seconds) {
+        monotonicTime.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+        wallTime.addAndGet(TimeUnit.SECONDS.toMillis(seconds));
     }
 
-    @Test
-    void shouldReturnTrueWhenDeletingReport() throws Exception {
+    ActiveRecordingReportCache createCache() {
+        return new ActiveRecordingReportCache(
+                () -> subprocessReportGenerator,
+                fs,
+                new ActiveReportStore(
+                        storeDir, 1024 * 1024, new FileSystem(), Runnable::run, logger),
+                targetConnectionManager,
+                jvmIdHelper,
+                new ReportScheduler(new DirectExecutor(), 1, 0, logger),
+                clock,
+                30,
+                MAX_AGE_SECONDS,
+                logger);
+    }
+
+    void givenRecording(long id, long dataEndTime) throws Exception {
+        Mockito.when(jvmIdHelper.getJvmId(Mockito.any(ConnectionDescriptor.class)))
+                .thenReturn("jvmId");
+        Mockito.when(
+                        targetConnectionManager.executeConnectedTask(
+                                Mockito.any(ConnectionDescriptor.class), Mockito.any()))
+                .thenReturn(Optional.of(descriptor));
+        Mockito.when(descriptor.getId()).thenReturn(id);
+        Mockito.when(descriptor.getDataEndTime())
+                .thenReturn(UnitLookup.EPOCH_MS.quantity(dataEndTime));
+    }
+
+    void givenGeneratedReport() throws Exception {
         Mockito.when(pathFuture.get(Mockito.anyLong(), Mockito.any())).thenReturn(destinationFile);
         Mockito.when(
                         subprocessReportGenerator.exec(
                                 Mockito.any(RecordingDescriptor.class), anyString()))
                 .thenReturn(pathFuture);
         Mockito.when(fs.readString(destinationFile)).thenReturn(REPORT_DOC);
+    }
+
+    @Test
+    void shouldReturnFalseWhenDeletingNonExistentReport() throws Exception {
+        Mockito.when(jvmIdHelper.getJvmId(Mockito.any(ConnectionDescriptor.class)))
+                .thenReturn("jvmId");
+        Assertions.assertFalse(cache.delete(new ConnectionDescriptor("foo"), "bar"));
+    }
+
+    @Test
+    void shouldReturnTrueWhenDeletingReport() throws Exception {
+        givenRecording(1, 1000);
+        givenGeneratedReport();
 
         String targetId = "foo";
         String recordingName = "bar";
 
         ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor(targetId);
-        cache.get(connectionDescriptor, recordingName, "");
+        cache.get(connectionDescriptor, recordingName, "").get();
         Assertions.assertTrue(cache.delete(connectionDescriptor, recordingName));
     }
 
     @Test
     void shouldReturnGeneratedReportResult() throws Exception {
-        Mockito.when(pathFuture.get(Mockito.anyLong(), Mockito.any())).thenReturn(destinationFile);
-        Mockito.when(
-                        subprocessReportGenerator.exec(
-                                Mockito.any(RecordingDescriptor.class), anyString()))
-                .thenReturn(pathFuture);
-        Mockito.when(fs.readString(destinationFile)).thenReturn(REPORT_DOC);
+        givenRecording(1, 1000);
+        givenGeneratedReport();
 
         String targetId = "foo";
 
@@ -135,12 +184,8 @@ class ActiveRecordingReportCacheTest {
 
     @Test
     void shouldReturnGeneratedReportResultFiltered() throws Exception {
-        Mockito.when(pathFuture.get(Mockito.anyLong(), Mockito.any())).thenReturn(destinationFile);
-        Mockito.when(
-                        subprocessReportGenerator.exec(
-                                Mockito.any(RecordingDescriptor.class), anyString()))
-                .thenReturn(pathFuture);
-        Mockito.when(fs.readString(destinationFile)).thenReturn(REPORT_DOC);
+        givenRecording(1, 1000);
+        givenGeneratedReport();
 
         String targetId = "foo";
 
@@ -149,18 +194,14 @@ class ActiveRecordingReportCacheTest {
         MatcherAssert.assertThat(report.get(), Matchers.equalTo(REPORT_DOC));
 
         Mockito.verify(subprocessReportGenerator)
-                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+                .exec(Mockito.any(RecordingDescriptor.class), Mockito.eq("non-null"));
         Mockito.verify(fs).readString(destinationFile);
     }
 
     @Test
     void shouldReturnCachedReportResultOnSecondRequest() throws Exception {
-        Mockito.when(pathFuture.get(Mockito.anyLong(), Mockito.any())).thenReturn(destinationFile);
-        Mockito.when(
-                        subprocessReportGenerator.exec(
-                                Mockito.any(RecordingDescriptor.class), anyString()))
-                .thenReturn(pathFuture);
-        Mockito.when(fs.readString(destinationFile)).thenReturn(REPORT_DOC);
+        givenRecording(1, 1000);
+        givenGeneratedReport();
 
         String targetId = "foo";
         String recordingName = "bar";
@@ -175,15 +216,111 @@ class ActiveRecordingReportCacheTest {
                 .exec(Mockito.any(RecordingDescriptor.class), anyString());
     }
 
+    @Test
+    void shouldReturnCachedFilteredReportResultOnSecondRequest() throws Exception {
+        givenRecording(1, 1000);
+        givenGeneratedReport();
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        cache.get(connectionDescriptor, "bar", "").get();
+        cache.get(connectionDescriptor, "bar", "someFilter").get();
+        cache.get(connectionDescriptor, "bar", "someFilter").get();
+        cache.get(connectionDescriptor, "bar", "").get();
+
+        Mockito.verify(subprocessReportGenerator, Mockito.times(1))
+                .exec(Mockito.any(RecordingDescriptor.class), Mockito.eq(""));
+        Mockito.verify(subprocessReportGenerator, Mockito.times(1))
+                .exec(Mockito.any(RecordingDescriptor.class), Mockito.eq("someFilter"));
+    }
+
+    @Test
+    void shouldRegenerateReportWhenRecordingHasNewData() throws Exception {
+        givenRecording(1, 1000);
+        givenGeneratedReport();
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        cache.get(connectionDescriptor, "bar", "").get();
+        cache.get(connectionDescriptor, "bar", "").get();
+
+        Mockito.when(descriptor.getDataEndTime()).thenReturn(UnitLookup.EPOCH_MS.quantity(2000));
+        advanceClock(MAX_AGE_SECONDS + 1);
+        cache.get(connectionDescriptor, "bar", "").get();
+        cache.get(connectionDescriptor, "bar", "").get();
+
+        Mockito.verify(subprocessReportGenerator, Mockito.times(2))
+                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+    }
+
+    @Test
+    void shouldNotConnectToTargetOnCacheHitWithinMaxAge() throws Exception {
+        givenRecording(1, 1000);
+        givenGeneratedReport();
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        cache.get(connectionDescriptor, "bar", "").get();
+        advanceClock(MAX_AGE_SECONDS - 1);
+        cache.get(connectionDescriptor, "bar", "").get();
+        cache.get(connectionDescriptor, "bar", "").get();
+
+        Mockito.verify(targetConnectionManager, Mockito.times(1))
+                .executeConnectedTask(Mockito.any(ConnectionDescriptor.class), Mockito.any());
+        Mockito.verify(subprocessReportGenerator, Mockito.times(1))
+                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+    }
+
+    @Test
+    void shouldRegenerateRunningRecordingReportAfterMaxAge() throws Exception {
+        givenRecording(1, 0);
+        givenGeneratedReport();
+        Mockito.when(descriptor.getState()).thenReturn(RecordingState.RUNNING);
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        cache.get(connectionDescriptor, "bar", "").get();
+        advanceClock(MAX_AGE_SECONDS + 1);
+        cache.get(connectionDescriptor, "bar", "").get();
+
+        Mockito.verify(subprocessReportGenerator, Mockito.times(2))
+                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+    }
+
+    @Test
+    void shouldNotRegenerateStoppedRecordingReportAfterMaxAge() throws Exception {
+        givenRecording(1, 1000);
+        givenGeneratedReport();
+        Mockito.when(descriptor.getState()).thenReturn(RecordingState.STOPPED);
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        cache.get(connectionDescriptor, "bar", "").get();
+        advanceClock(MAX_AGE_SECONDS + 1);
+        cache.get(connectionDescriptor, "bar", "").get();
+
+        Mockito.verify(targetConnectionManager, Mockito.times(2))
+                .executeConnectedTask(Mockito.any(ConnectionDescriptor.class), Mockito.any());
+        Mockito.verify(subprocessReportGenerator, Mockito.times(1))
+                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+    }
+
+    @Test
+    void shouldReturnCachedReportResultAfterRestart() throws Exception {
+        givenRecording(1, 1000);
+        givenGeneratedReport();
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        String report1 = cache.get(connectionDescriptor, "bar", "").get();
+
+        ActiveRecordingReportCache restarted = createCache();
+        String report2 = restarted.get(connectionDescriptor, "bar", "").get();
+        MatcherAssert.assertThat(report2, Matchers.equalTo(report1));
+
+        Mockito.verify(subprocessReportGenerator, Mockito.times(1))
+                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+    }
+
     @SuppressWarnings("rawtypes")
     @Test
     void shouldReturnUncachedReportWhenRecordingStopped() throws Exception {
-        Mockito.when(pathFuture.get(Mockito.anyLong(), Mockito.any())).thenReturn(destinationFile);
-        Mockito.when(
-                        subprocessReportGenerator.exec(
-                                Mockito.any(RecordingDescriptor.class), anyString()))
-                .thenReturn(pathFuture);
-        Mockito.when(fs.readString(destinationFile)).thenReturn(REPORT_DOC);
+        givenRecording(1, 1000);
+        givenGeneratedReport();
 
         String targetId = "foo";
         String recordingName = "bar";
@@ -208,8 +345,77 @@ class ActiveRecordingReportCacheTest {
                 .exec(Mockito.any(RecordingDescriptor.class), anyString());
     }
 
+    @SuppressWarnings("rawtypes")
+    @Test
+    void shouldReturnUncachedReportWhenRecordingDeleted() throws Exception {
+        givenRecording(1, 1000);
+        givenGeneratedReport();
+
+        String targetId = "foo";
+        String recordingName = "bar";
+
+        Notification notification = Mockito.mock(Notification.class);
+        HyperlinkedSerializableRecordingDescriptor hsrd =
+                Mockito.mock(HyperlinkedSerializableRecordingDescriptor.class);
+        Mockito.when(hsrd.getName()).thenReturn(recordingName);
+        Mockito.when(notification.getCategory())
+                .thenReturn(RecordingTargetHelper.DELETION_NOTIFICATION_CATEGORY);
+        Mockito.when(notification.getMessage())
+                .thenReturn(Map.of("target", targetId, "recording", hsrd));
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor(targetId);
+        cache.get(connectionDescriptor, recordingName, "").get();
+        cache.onNotification(notification);
+        cache.get(connectionDescriptor, recordingName, "").get();
+
+        Mockito.verify(targetConnectionManager, Mockito.times(2))
+                .executeConnectedTask(Mockito.any(ConnectionDescriptor.class), Mockito.any());
+        Mockito.verify(subprocessReportGenerator, Mockito.times(2))
+                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+    }
+
+    @Test
+    void shouldEvictReportsOfLostTarget() throws Exception {
+        Mockito.verify(jvmIdHelper).addListener(cache);
+        givenRecording(1, 1000);
+        givenGeneratedReport();
+
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        cache.get(connectionDescriptor, "bar", "").get();
+        cache.onEvent(new Event<>(JvmIdHelper.IdEvent.INVALIDATED, "jvmId"));
+
+        try (Stream<Path> files = Files.walk(storeDir)) {
+            MatcherAssert.assertThat(
+                    files.filter(Files::isRegularFile).count(), Matchers.equalTo(0L));
+        }
+
+        cache.get(connectionDescriptor, "bar", "").get();
+
+        Mockito.verify(targetConnectionManager, Mockito.times(2))
+                .executeConnectedTask(Mockito.any(ConnectionDescriptor.class), Mockito.any());
+        Mockito.verify(subprocessReportGenerator, Mockito.times(2))
+                .exec(Mockito.any(RecordingDescriptor.class), anyString());
+    }
+
     @Test
     void shouldThrowExceptionIfRecordingNotFound() throws Exception {
+        ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
+        Mockito.when(
+                        targetConnectionManager.executeConnectedTask(
+                                Mockito.any(ConnectionDescriptor.class), Mockito.any()))
+                .thenReturn(Optional.empty());
+        ExecutionException ex =
+                Assertions.assertThrows(
+                        ExecutionException.class,
+                        () -> cache.get(connectionDescriptor, "bar", "").get());
+        MatcherAssert.assertThat(
+                ex.getCause(), Matchers.instanceOf(RecordingNotFoundException.class));
+        Mockito.verifyNoInteractions(subprocessReportGenerator);
+    }
+
+    @Test
+    void shouldThrowExceptionIfRecordingNotFoundDuringGeneration() throws Exception {
+        givenRecording(1, 1000);
         ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
         Mockito.when(
                         subprocessReportGenerator.exec(
@@ -221,6 +427,7 @@ class ActiveRecordingReportCacheTest {
 
     @Test
     void shouldThrowExceptionIfSubprocessExitsNonCleanly() throws Exception {
+        givenRecording(1, 1000);
         ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("foo");
         Mockito.when(
                         subprocessReportGenerator.exec(
@@ -0,0 +1,174 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.FileSystem;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ActiveReportStoreTest {
+
+    @Mock Logger logger;
+    @TempDir Path root;
+    FileSystem fs = new FileSystem();
+
+    ActiveReportStore createStore(long maxSize) {
+        return new ActiveReportStore(root, maxSize, fs, Runnable::run, logger);
+    }
+
+    @Test
+    void shouldResolveDistinctPathsForDistinctKeys() {
+        ActiveReportStore store = createStore(1024);
+        Path path = store.resolve("jvm", "rec", "", 1, 1000);
+
+        MatcherAssert.assertThat(path.startsWith(root), Matchers.is(true));
+        MatcherAssert.assertThat(path, Matchers.equalTo(store.resolve("jvm", "rec", "", 1, 1000)));
+        MatcherAssert.assertThat(
+                path, Matchers.not(Matchers.equalTo(store.resolve("jvm2", "rec", "", 1, 1000))));
+        MatcherAssert.assertThat(
+                path, Matchers.not(Matchers.equalTo(store.resolve("jvm", "rec2", "", 1, 1000))));
+        MatcherAssert.assertThat(
+                path, Matchers.not(Matchers.equalTo(store.resolve("jvm", "rec", "f", 1, 1000))));
+        MatcherAssert.assertThat(
+                path, Matchers.not(Matchers.equalTo(store.resolve("jvm", "rec", "", 2, 1000))));
+        MatcherAssert.assertThat(
+                path, Matchers.not(Matchers.equalTo(store.resolve("jvm", "rec", "", 1, 2000))));
+    }
+
+    @Test
+    void shouldReturnEmptyForUnknownReport() {
+        ActiveReportStore store = createStore(1024);
+        MatcherAssert.assertThat(
+                store.get(store.resolve("jvm", "rec", "", 1, 1000)),
+                Matchers.equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldReplaceSupersededReports() throws Exception {
+        ActiveReportStore store = createStore(1024);
+        Path older = store.resolve("jvm", "rec", "", 1, 1000);
+        Path newer = store.resolve("jvm", "rec", "", 1, 2000);
+        Path filtered = store.resolve("jvm", "rec", "f", 1, 1000);
+
+        store.put(older, "old");
+        store.put(filtered, "filtered");
+        store.put(newer, "new");
+
+        MatcherAssert.assertThat(Files.exists(older), Matchers.is(false));
+        MatcherAssert.assertThat(store.get(older), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(store.get(newer), Matchers.equalTo(Optional.of("new")));
+        MatcherAssert.assertThat(store.get(filtered), Matchers.equalTo(Optional.of("filtered")));
+    }
+
+    @Test
+    void shouldReloadReportsFromDisk() throws Exception {
+        Path path = createStore(1024).resolve("jvm", "rec", "", 1, 1000);
+        createStore(1024).put(path, "report");
+        Path partial = path.resolveSibling("partial" + ActiveReportStore.TEMP_EXTENSION);
+        Files.writeString(partial, "incomplete");
+
+        ActiveReportStore store = createStore(1024);
+
+        MatcherAssert.assertThat(store.get(path), Matchers.equalTo(Optional.of("report")));
+        MatcherAssert.assertThat(store.size(), Matchers.equalTo(6L));
+        MatcherAssert.assertThat(Files.exists(partial), Matchers.is(false));
+    }
+
+    @Test
+    void shouldInvalidateAllReportsForRecording() throws Exception {
+        ActiveReportStore store = createStore(1024);
+        Path a = store.resolve("jvm", "rec", "", 1, 1000);
+        Path b = store.resolve("jvm", "rec", "f", 1, 1000);
+        Path other = store.resolve("jvm", "other", "", 2, 1000);
+        store.put(a, "a");
+        store.put(b, "b");
+        store.put(other, "other");
+
+        MatcherAssert.assertThat(store.invalidate("jvm", "rec"), Matchers.is(true));
+        MatcherAssert.assertThat(store.invalidate("jvm", "rec"), Matchers.is(false));
+
+        MatcherAssert.assertThat(store.get(a), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(store.get(b), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(store.get(other), Matchers.equalTo(Optional.of("other")));
+    }
+
+    @Test
+    void shouldInvalidateAllReportsForJvm() throws Exception {
+        ActiveReportStore store = createStore(1024);
+        Path a = store.resolve("jvm", "rec", "", 1, 1000);
+        Path b = store.resolve("jvm", "other", "f", 2, 1000);
+        Path otherJvm = store.resolve("jvm2", "rec", "", 1, 1000);
+        store.put(a, "a");
+        store.put(b, "b");
+        store.put(otherJvm, "other");
+
+        MatcherAssert.assertThat(store.invalidate("jvm"), Matchers.is(true));
+        MatcherAssert.assertThat(store.invalidate("jvm"), Matchers.is(false));
+
+        MatcherAssert.assertThat(Files.exists(store.jvmDirectory("jvm")), Matchers.is(false));
+        MatcherAssert.assertThat(store.get(a), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(store.get(b), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(store.get(otherJvm), Matchers.equalTo(Optional.of("other")));
+        MatcherAssert.assertThat(store.size(), Matchers.equalTo(5L));
+    }
+
+    @Test
+    void shouldEvictReportsWhenFull() throws Exception {
+        ActiveReportStore store = createStore(10);
+        Path a = store.resolve("jvm", "a", "", 1, 1000);
+        Path b = store.resolve("jvm", "b", "", 2, 1000);
+        store.put(a, "123456");
+        store.put(b, "789012");
+        store.cleanUp();
+
+        MatcherAssert.assertThat(store.size(), Matchers.lessThanOrEqualTo(10L));
+        MatcherAssert.assertThat(Files.exists(a) && Files.exists(b), Matchers.is(false));
+    }
+}
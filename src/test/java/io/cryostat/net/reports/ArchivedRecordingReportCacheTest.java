@@ -44,6 +44,7 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
+import io.cryostat.DirectExecutor;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.recordings.RecordingArchiveHelper;
@@ -79,7 +80,12 @@ class ArchivedRecordingReportCacheTest {
     void setup() {
         this.cache =
                 new ArchivedRecordingReportCache(
-                        fs, () -> subprocessReportGenerator, recordingArchiveHelper, 30, logger);
+                        fs,
+                        () -> subprocessReportGenerator,
+                        recordingArchiveHelper,
+                        new ReportScheduler(new DirectExecutor(), 1, 0, logger),
+                        30,
+                        logger);
         this.sourceTarget = "service:jmx:rmi://localhost:9091/jndi/rmi://fooHost:9091/jmxrmi";
         this.recordingName = "foo";
     }
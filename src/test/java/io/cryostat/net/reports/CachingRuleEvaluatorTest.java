@@ -0,0 +1,198 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import org.openjdk.jmc.common.item.IItemCollection;
+import org.openjdk.jmc.flightrecorder.rules.IResult;
+import org.openjdk.jmc.flightrecorder.rules.IRule;
+import org.openjdk.jmc.flightrecorder.rules.Severity;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CachingRuleEvaluatorTest {
+
+    @Mock CachingRuleEvaluator.RecordingLoader loader;
+    @Mock CachingRuleEvaluator.RuleEvaluator ruleEvaluator;
+    @Mock Function<Collection<IResult>, String> renderer;
+    @Mock IItemCollection items;
+    @Mock IRule rule1;
+    @Mock IRule rule2;
+    @Mock IResult result1;
+    @Mock IResult result2;
+    @TempDir Path tempDir;
+    Path recording;
+    CachingRuleEvaluator evaluator;
+
+    @BeforeEach
+    void setup() throws Exception {
+        recording = Files.writeString(tempDir.resolve("recording.jfr"), "recording");
+        evaluator =
+                new CachingRuleEvaluator(
+                        loader, () -> List.of(rule1, rule2), ruleEvaluator, renderer);
+    }
+
+    void givenEvaluation() throws Exception {
+        givenEvaluation("<html></html>");
+    }
+
+    void givenEvaluation(String html) throws Exception {
+        Mockito.when(rule1.getId()).thenReturn("rule1");
+        Mockito.when(rule2.getId()).thenReturn("rule2");
+        Mockito.when(result1.getSeverity()).thenReturn(Severity.WARNING);
+        Mockito.lenient().when(result2.getSeverity()).thenReturn(Severity.NA);
+        Mockito.when(loader.load(Mockito.any())).thenReturn(items);
+        Map<IRule, Future<IResult>> results =
+                Map.of(
+                        rule1, CompletableFuture.completedFuture(result1),
+                        rule2, CompletableFuture.completedFuture(result2));
+        Mockito.when(ruleEvaluator.evaluate(Mockito.anyCollection(), Mockito.same(items)))
+                .thenReturn(results);
+        Mockito.when(renderer.apply(Mockito.anyCollection())).thenReturn(html);
+    }
+
+    @Test
+    void shouldParseAndEvaluateRecordingOnce() throws Exception {
+        givenEvaluation();
+
+        CachingRuleEvaluator.Report first = evaluator.generate(recording, r -> true, Set.of());
+        CachingRuleEvaluator.Report second = evaluator.generate(recording, r -> true, Set.of());
+
+        Mockito.verify(loader, Mockito.times(1)).load(Mockito.any());
+        Mockito.verify(ruleEvaluator, Mockito.times(1))
+                .evaluate(Mockito.anyCollection(), Mockito.any());
+
+        MatcherAssert.assertThat(first.getStatistics().isRecordingCacheHit(), Matchers.is(false));
+        MatcherAssert.assertThat(first.getStatistics().getRuleCacheHits(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(second.getStatistics().isRecordingCacheHit(), Matchers.is(true));
+        MatcherAssert.assertThat(second.getStatistics().getRuleCacheHits(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(
+                second.getStatistics().getRecordingSizeBytes(),
+                Matchers.equalTo(Files.size(recording)));
+        MatcherAssert.assertThat(evaluator.getCachedRecordingCount(), Matchers.equalTo(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldBuildFilteredReportFromCachedResults() throws Exception {
+        givenEvaluation();
+
+        evaluator.generate(recording, r -> true, Set.of());
+        CachingRuleEvaluator.Report filtered =
+                evaluator.generate(recording, r -> r == rule2, Set.of());
+
+        Mockito.verify(ruleEvaluator, Mockito.times(1))
+                .evaluate(Mockito.anyCollection(), Mockito.any());
+        ArgumentCaptor<Collection<IResult>> captor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(renderer, Mockito.times(2)).apply(captor.capture());
+        MatcherAssert.assertThat(captor.getAllValues().get(0), Matchers.contains(result1, result2));
+        MatcherAssert.assertThat(captor.getAllValues().get(1), Matchers.contains(result2));
+
+        MatcherAssert.assertThat(filtered.getStatistics().getRulesEvaluated(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(
+                filtered.getStatistics().getRulesApplicable(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(filtered.getStatistics().getRuleCacheHits(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void shouldCountApplicableRules() throws Exception {
+        givenEvaluation();
+
+        CachingRuleEvaluator.Report report = evaluator.generate(recording, r -> true, Set.of());
+
+        MatcherAssert.assertThat(report.getStatistics().getRulesEvaluated(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(report.getStatistics().getRulesApplicable(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void shouldEvaluateRecordingsWithDifferentContentsSeparately() throws Exception {
+        givenEvaluation();
+        Path other = Files.writeString(tempDir.resolve("other.jfr"), "other recording");
+
+        evaluator.generate(recording, r -> true, Set.of());
+        evaluator.generate(other, r -> true, Set.of());
+
+        Mockito.verify(loader, Mockito.times(2)).load(Mockito.any());
+        Mockito.verify(ruleEvaluator, Mockito.times(2))
+                .evaluate(Mockito.anyCollection(), Mockito.any());
+    }
+
+    @Test
+    void shouldReuseEvaluationForCopiesOfSameRecording() throws Exception {
+        givenEvaluation();
+        Path copy = Files.copy(recording, tempDir.resolve("copy.jfr"));
+
+        evaluator.generate(recording, r -> true, Set.of());
+        CachingRuleEvaluator.Report report = evaluator.generate(copy, r -> true, Set.of());
+
+        Mockito.verify(loader, Mockito.times(1)).load(Mockito.any());
+        MatcherAssert.assertThat(report.getStatistics().isRecordingCacheHit(), Matchers.is(true));
+    }
+
+    @Test
+    void shouldApplyReportTransformers() throws Exception {
+        givenEvaluation("<html><body><div class=\"test\">report</div></body></html>");
+
+        CachingRuleEvaluator.Report report =
+                evaluator.generate(
+                        recording,
+                        r -> true,
+                        Set.of(new SubprocessReportGeneratorTest.TestReportTransformer()));
+
+        MatcherAssert.assertThat(report.getHtml(), Matchers.containsString("Hello World report"));
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.cryostat.core.log.Logger;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ReportSchedulerTest {
+
+    @Mock Logger logger;
+
+    List<Runnable> pending;
+    List<String> executed;
+
+    @BeforeEach
+    void setup() {
+        this.pending = new ArrayList<>();
+        this.executed = new ArrayList<>();
+    }
+
+    ReportScheduler createScheduler(int maxConcurrent, int maxQueued) {
+        return new ReportScheduler(pending::add, maxConcurrent, maxQueued, logger);
+    }
+
+    CompletableFuture<String> submit(
+            ReportScheduler scheduler, String key, ReportPriority priority) {
+        return scheduler.submit(
+                key,
+                priority,
+                () -> {
+                    executed.add(key);
+                    return key + "-report";
+                });
+    }
+
+    void runNext() {
+        pending.remove(0).run();
+    }
+
+    @Test
+    void shouldShareInFlightGenerationForSameKey() throws Exception {
+        ReportScheduler scheduler = createScheduler(1, 1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<String> f1 =
+                scheduler
+                        .submit("foo", ReportPriority.INTERACTIVE, calls::incrementAndGet)
+                        .thenApply(String::valueOf);
+        CompletableFuture<String> f2 =
+                scheduler
+                        .submit("foo", ReportPriority.INTERACTIVE, calls::incrementAndGet)
+                        .thenApply(String::valueOf);
+        MatcherAssert.assertThat(pending, Matchers.hasSize(1));
+        runNext();
+
+        MatcherAssert.assertThat(calls.get(), Matchers.equalTo(1));
+        MatcherAssert.assertThat(f1.get(), Matchers.equalTo("1"));
+        MatcherAssert.assertThat(f2.get(), Matchers.equalTo("1"));
+    }
+
+    @Test
+    void shouldStartNewGenerationAfterPreviousCompletes() throws Exception {
+        ReportScheduler scheduler = createScheduler(1, 1);
+
+        CompletableFuture<String> f1 = submit(scheduler, "foo", ReportPriority.INTERACTIVE);
+        runNext();
+        CompletableFuture<String> f2 = submit(scheduler, "foo", ReportPriority.INTERACTIVE);
+        runNext();
+
+        MatcherAssert.assertThat(f1.get(), Matchers.equalTo("foo-report"));
+        MatcherAssert.assertThat(f2.get(), Matchers.equalTo("foo-report"));
+        MatcherAssert.assertThat(executed, Matchers.contains("foo", "foo"));
+    }
+
+    @Test
+    void shouldNotCancelSharedGenerationWhenOneRequesterCancels() throws Exception {
+        ReportScheduler scheduler = createScheduler(1, 1);
+
+        CompletableFuture<String> f1 = submit(scheduler, "foo", ReportPriority.INTERACTIVE);
+        CompletableFuture<String> f2 = submit(scheduler, "foo", ReportPriority.INTERACTIVE);
+        f1.cancel(true);
+        runNext();
+
+        MatcherAssert.assertThat(f2.get(), Matchers.equalTo("foo-report"));
+    }
+
+    @Test
+    void shouldLimitConcurrentGenerations() {
+        ReportScheduler scheduler = createScheduler(2, 4);
+
+        submit(scheduler, "a", ReportPriority.INTERACTIVE);
+        submit(scheduler, "b", ReportPriority.INTERACTIVE);
+        submit(scheduler, "c", ReportPriority.INTERACTIVE);
+
+        MatcherAssert.assertThat(pending, Matchers.hasSize(2));
+        MatcherAssert.assertThat(scheduler.getRunningCount(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(scheduler.getQueueDepth(), Matchers.equalTo(1));
+
+        runNext();
+
+        MatcherAssert.assertThat(scheduler.getRunningCount(), Matchers.equalTo(2));
+        MatcherAssert.assertThat(scheduler.getQueueDepth(), Matchers.equalTo(0));
+    }
+
+    @Test
+    void shouldRunInteractiveRequestsBeforeBackgroundRequests() {
+        ReportScheduler scheduler = createScheduler(1, 4);
+
+        submit(scheduler, "running", ReportPriority.BACKGROUND);
+        submit(scheduler, "background1", ReportPriority.BACKGROUND);
+        submit(scheduler, "interactive1", ReportPriority.INTERACTIVE);
+        submit(scheduler, "background2", ReportPriority.BACKGROUND);
+        submit(scheduler, "interactive2", ReportPriority.INTERACTIVE);
+        while (!pending.isEmpty()) {
+            runNext();
+        }
+
+        MatcherAssert.assertThat(
+                executed,
+                Matchers.contains(
+                        "running", "interactive1", "interactive2", "background1", "background2"));
+    }
+
+    @Test
+    void shouldPromoteQueuedRequestWhenInteractiveRequestCoalesces() {
+        ReportScheduler scheduler = createScheduler(1, 4);
+
+        submit(scheduler, "running", ReportPriority.BACKGROUND);
+        submit(scheduler, "background1", ReportPriority.BACKGROUND);
+        submit(scheduler, "background2", ReportPriority.BACKGROUND);
+        submit(scheduler, "background2", ReportPriority.INTERACTIVE);
+        while (!pending.isEmpty()) {
+            runNext();
+        }
+
+        MatcherAssert.assertThat(
+                executed, Matchers.contains("running", "background2", "background1"));
+    }
+
+    @Test
+    void shouldRejectRequestsWhenQueueIsFull() {
+        ReportScheduler scheduler = createScheduler(1, 1);
+
+        submit(scheduler, "a", ReportPriority.INTERACTIVE);
+        submit(scheduler, "b", ReportPriority.INTERACTIVE);
+        CompletableFuture<String> rejected = submit(scheduler, "c", ReportPriority.INTERACTIVE);
+
+        ExecutionException ee = Assertions.assertThrows(ExecutionException.class, rejected::get);
+        MatcherAssert.assertThat(
+                ee.getCause(), Matchers.instanceOf(ReportQueueFullException.class));
+        ReportQueueFullException rqfe = (ReportQueueFullException) ee.getCause();
+        MatcherAssert.assertThat(rqfe.getStatusCode(), Matchers.equalTo(503));
+        MatcherAssert.assertThat(rqfe.getRetryAfterSeconds(), Matchers.greaterThanOrEqualTo(1L));
+        MatcherAssert.assertThat(executed, Matchers.empty());
+    }
+
+    @Test
+    void shouldCoalesceRequestsEvenWhenQueueIsFull() throws Exception {
+        ReportScheduler scheduler = createScheduler(1, 1);
+
+        submit(scheduler, "a", ReportPriority.INTERACTIVE);
+        submit(scheduler, "b", ReportPriority.INTERACTIVE);
+        CompletableFuture<String> f = submit(scheduler, "b", ReportPriority.INTERACTIVE);
+        runNext();
+        runNext();
+
+        MatcherAssert.assertThat(f.get(), Matchers.equalTo("b-report"));
+    }
+
+    @Test
+    void shouldPropagateFailuresAndReleaseCapacity() throws Exception {
+        ReportScheduler scheduler = createScheduler(1, 0);
+        Exception failure = new Exception("test failure");
+
+        CompletableFuture<String> failed =
+                scheduler.submit(
+                        "a",
+                        ReportPriority.INTERACTIVE,
+                        () -> {
+                            throw failure;
+                        });
+        runNext();
+        CompletableFuture<String> next = submit(scheduler, "a", ReportPriority.INTERACTIVE);
+        runNext();
+
+        ExecutionException ee = Assertions.assertThrows(ExecutionException.class, failed::get);
+        MatcherAssert.assertThat(ee.getCause(), Matchers.sameInstance(failure));
+        MatcherAssert.assertThat(next.get(), Matchers.equalTo("a-report"));
+    }
+
+    @Test
+    void shouldReleaseCapacityWhenTaskThrowsError() throws Exception {
+        ReportScheduler scheduler = createScheduler(1, 1);
+        StackOverflowError error = new StackOverflowError();
+
+        CompletableFuture<String> failed =
+                scheduler.submit(
+                        "a",
+                        ReportPriority.INTERACTIVE,
+                        () -> {
+                            throw error;
+                        });
+        CompletableFuture<String> queued = submit(scheduler, "b", ReportPriority.INTERACTIVE);
+        Assertions.assertThrows(StackOverflowError.class, this::runNext);
+
+        ExecutionException ee = Assertions.assertThrows(ExecutionException.class, failed::get);
+        MatcherAssert.assertThat(ee.getCause(), Matchers.sameInstance(error));
+        MatcherAssert.assertThat(scheduler.getRunningCount(), Matchers.equalTo(1));
+        runNext();
+        MatcherAssert.assertThat(queued.get(), Matchers.equalTo("b-report"));
+
+        CompletableFuture<String> retried = submit(scheduler, "a", ReportPriority.INTERACTIVE);
+        runNext();
+        MatcherAssert.assertThat(retried.get(), Matchers.equalTo("a-report"));
+    }
+}
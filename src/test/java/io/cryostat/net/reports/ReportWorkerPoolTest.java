@@ -0,0 +1,254 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.reports;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.cryostat.DirectExecutorService;
+import io.cryostat.MainModule;
+import io.cryostat.core.log.Logger;
+import io.cryostat.net.reports.SubprocessReportGenerator.ExitStatus;
+import io.cryostat.util.JavaProcess;
+
+import com.google.gson.Gson;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ReportWorkerPoolTest {
+
+    @Mock JavaProcess.Builder javaProcessBuilder;
+    @Mock Process proc;
+    @Mock Logger logger;
+    Gson gson = MainModule.provideGson(logger);
+    ScheduledExecutorService watchdog;
+    ReportWorkerPool pool;
+
+    final ReportWorkerPool.Request request =
+            new ReportWorkerPool.Request("/tmp/recording.jfr", "/tmp/report.html", "", "");
+
+    @BeforeEach
+    void setup() throws Exception {
+        Mockito.lenient()
+                .when(javaProcessBuilder.klazz(Mockito.any(Class.class)))
+                .thenReturn(javaProcessBuilder);
+        Mockito.lenient()
+                .when(javaProcessBuilder.jvmArgs(Mockito.anyList()))
+                .thenReturn(javaProcessBuilder);
+        Mockito.lenient()
+                .when(javaProcessBuilder.pipeIO(Mockito.anyBoolean()))
+                .thenReturn(javaProcessBuilder);
+        Mockito.lenient().when(javaProcessBuilder.exec()).thenReturn(proc);
+        watchdog = Executors.newSingleThreadScheduledExecutor();
+        pool = createPool(30);
+    }
+
+    @AfterEach
+    void teardown() {
+        watchdog.shutdownNow();
+    }
+
+    ReportWorkerPool createPool(long timeoutSeconds) {
+        return new ReportWorkerPool(
+                () -> javaProcessBuilder,
+                gson,
+                List.of("-Xmx1M"),
+                new DirectExecutorService(),
+                watchdog,
+                timeoutSeconds,
+                logger);
+    }
+
+    void givenResponses(Process proc, ExitStatus... statuses) {
+        StringBuilder sb = new StringBuilder();
+        for (ExitStatus status : statuses) {
+            sb.append(gson.toJson(new ReportWorkerPool.Response(status, null)));
+            sb.append('\n');
+        }
+        Mockito.when(proc.getInputStream())
+                .thenReturn(
+                        new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        Mockito.when(proc.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+    }
+
+    @Test
+    void shouldCreateJvmArgs() {
+        MatcherAssert.assertThat(
+                ReportWorkerPool.createJvmArgs(200),
+                Matchers.equalTo(
+                        List.of(
+                                "-Xms200M",
+                                "-Xmx200M",
+                                "-XX:+ExitOnOutOfMemoryError",
+                                "-XX:+UseSerialGC")));
+    }
+
+    @Test
+    void shouldCreateJvmArgsWithoutMaxHeap() {
+        MatcherAssert.assertThat(
+                ReportWorkerPool.createJvmArgs(0),
+                Matchers.equalTo(List.of("-XX:+ExitOnOutOfMemoryError", "-XX:+UseSerialGC")));
+    }
+
+    @Test
+    void shouldStartSelfAsWorkerWithPipedIO() throws Exception {
+        givenResponses(proc, ExitStatus.OK);
+        Mockito.when(proc.isAlive()).thenReturn(true);
+
+        pool.submit(request).get();
+
+        Mockito.verify(javaProcessBuilder).klazz(SubprocessReportGenerator.class);
+        Mockito.verify(javaProcessBuilder).jvmArgs(List.of("-Xmx1M"));
+        Mockito.verify(javaProcessBuilder).pipeIO(true);
+    }
+
+    @Test
+    void shouldSendRequestAndReturnResponse() throws Exception {
+        ByteArrayOutputStream requests = new ByteArrayOutputStream();
+        Mockito.when(proc.getInputStream())
+                .thenReturn(
+                        new ByteArrayInputStream(
+                                (gson.toJson(new ReportWorkerPool.Response(ExitStatus.OK, null))
+                                                + "\n")
+                                        .getBytes(StandardCharsets.UTF_8)));
+        Mockito.when(proc.getOutputStream()).thenReturn(requests);
+        Mockito.when(proc.isAlive()).thenReturn(true);
+
+        ReportWorkerPool.Response response = pool.submit(request).get();
+
+        MatcherAssert.assertThat(response.getStatus(), Matchers.equalTo(ExitStatus.OK));
+        String line = requests.toString(StandardCharsets.UTF_8);
+        MatcherAssert.assertThat(line, Matchers.endsWith("\n"));
+        ReportWorkerPool.Request sent = gson.fromJson(line.trim(), ReportWorkerPool.Request.class);
+        MatcherAssert.assertThat(sent.getRecording(), Matchers.equalTo("/tmp/recording.jfr"));
+        MatcherAssert.assertThat(sent.getSaveFile(), Matchers.equalTo("/tmp/report.html"));
+    }
+
+    @Test
+    void shouldReuseLiveWorker() throws Exception {
+        givenResponses(proc, ExitStatus.OK, ExitStatus.NO_SUCH_RECORDING);
+        Mockito.when(proc.isAlive()).thenReturn(true);
+
+        MatcherAssert.assertThat(
+                pool.submit(request).get().getStatus(), Matchers.equalTo(ExitStatus.OK));
+        MatcherAssert.assertThat(
+                pool.submit(request).get().getStatus(),
+                Matchers.equalTo(ExitStatus.NO_SUCH_RECORDING));
+
+        Mockito.verify(javaProcessBuilder, Mockito.times(1)).exec();
+        MatcherAssert.assertThat(pool.getIdleWorkerCount(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void shouldRecycleWorkerThatExits() throws Exception {
+        givenResponses(proc);
+        Mockito.when(proc.isAlive()).thenReturn(false);
+        Mockito.when(proc.waitFor(Mockito.anyLong(), Mockito.any(TimeUnit.class))).thenReturn(true);
+        Mockito.when(proc.exitValue()).thenReturn(ExitStatus.OUT_OF_MEMORY.code);
+
+        Process replacement = Mockito.mock(Process.class);
+        givenResponses(replacement, ExitStatus.OK);
+        Mockito.when(replacement.isAlive()).thenReturn(true);
+        Mockito.when(javaProcessBuilder.exec()).thenReturn(proc).thenReturn(replacement);
+
+        MatcherAssert.assertThat(
+                pool.submit(request).get().getStatus(), Matchers.equalTo(ExitStatus.OUT_OF_MEMORY));
+        MatcherAssert.assertThat(pool.getIdleWorkerCount(), Matchers.equalTo(0));
+        MatcherAssert.assertThat(
+                pool.submit(request).get().getStatus(), Matchers.equalTo(ExitStatus.OK));
+
+        Mockito.verify(javaProcessBuilder, Mockito.times(2)).exec();
+        Mockito.verify(proc, Mockito.atLeastOnce()).destroyForcibly();
+    }
+
+    @Test
+    void shouldKillAndRecycleWorkerThatSendsMalformedResponse() throws Exception {
+        Mockito.when(proc.getInputStream())
+                .thenReturn(
+                        new ByteArrayInputStream(
+                                "Worker starting\n".getBytes(StandardCharsets.UTF_8)));
+        Mockito.when(proc.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        Mockito.lenient().when(proc.isAlive()).thenReturn(true);
+
+        MatcherAssert.assertThat(
+                pool.submit(request).get().getStatus(), Matchers.equalTo(ExitStatus.OTHER));
+
+        Mockito.verify(proc).destroyForcibly();
+        MatcherAssert.assertThat(pool.getIdleWorkerCount(), Matchers.equalTo(0));
+    }
+
+    @Test
+    void shouldKillAndRecycleWorkerThatTimesOut() throws Exception {
+        PipedOutputStream workerStdout = new PipedOutputStream();
+        Mockito.when(proc.getInputStream()).thenReturn(new PipedInputStream(workerStdout));
+        Mockito.when(proc.getOutputStream()).thenReturn(new ByteArrayOutputStream());
+        Mockito.when(proc.destroyForcibly())
+                .then(
+                        invocation -> {
+                            workerStdout.close();
+                            return proc;
+                        });
+        ReportWorkerPool pool = createPool(1);
+
+        Assertions.assertTimeoutPreemptively(
+                Duration.ofSeconds(5),
+                () -> {
+                    MatcherAssert.assertThat(
+                            pool.submit(request).get().getStatus(),
+                            Matchers.equalTo(ExitStatus.TIMED_OUT));
+                });
+        MatcherAssert.assertThat(pool.getIdleWorkerCount(), Matchers.equalTo(0));
+    }
+}
@@ -38,25 +38,17 @@
 package io.cryostat.net.reports;
 
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
-import java.time.Duration;
-import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
-import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.Credentials;
 import io.cryostat.core.reports.ReportTransformer;
-import io.cryostat.core.sys.Environment;
 import io.cryostat.core.sys.FileSystem;
 import io.cryostat.net.ConnectionDescriptor;
 import io.cryostat.net.TargetConnectionManager;
-import io.cryostat.util.JavaProcess;
 
-import com.google.gson.Gson;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
@@ -73,13 +65,10 @@ import org.mockito.stubbing.Answer;
 @ExtendWith(MockitoExtension.class)
 class SubprocessReportGeneratorTest {
 
-    @Mock Environment env;
-    @Mock Gson gson;
     @Mock FileSystem fs;
     @Mock TargetConnectionManager targetConnectionManager;
-    @Mock JavaProcess.Builder javaProcessBuilder;
+    @Mock ReportWorkerPool workerPool;
     @Mock Logger logger;
-    @Mock Process proc;
     ConnectionDescriptor connectionDescriptor;
     RecordingDescriptor recordingDescriptor;
     @Mock Path recordingFile;
@@ -104,37 +93,29 @@ class SubprocessReportGeneratorTest {
         Mockito.lenient().when(recordingFile.toAbsolutePath()).thenReturn(recordingFile);
         Mockito.lenient().when(recordingFile.toString()).thenReturn("/dest/recording.tmp");
 
-        Mockito.lenient()
-                .when(javaProcessBuilder.env(Mockito.anyMap()))
-                .thenReturn(javaProcessBuilder);
-        Mockito.lenient()
-                .when(javaProcessBuilder.jvmArgs(Mockito.anyList()))
-                .thenReturn(javaProcessBuilder);
-        Mockito.lenient()
-                .when(javaProcessBuilder.klazz(Mockito.any(Class.class)))
-                .thenReturn(javaProcessBuilder);
-        Mockito.lenient()
-                .when(javaProcessBuilder.processArgs(Mockito.anyList()))
-                .thenReturn(javaProcessBuilder);
-        Mockito.lenient().when(javaProcessBuilder.exec()).thenReturn(proc);
-        Mockito.lenient()
-                .when(
-                        env.getEnv(
-                                Mockito.eq("CRYOSTAT_REPORT_GENERATION_MAX_HEAP"),
-                                Mockito.anyString()))
-                .thenReturn("200");
         this.generator =
                 new SubprocessReportGenerator(
-                        env,
-                        gson,
                         fs,
                         targetConnectionManager,
                         Set.of(new TestReportTransformer()),
-                        () -> javaProcessBuilder,
-                        30,
+                        workerPool,
                         logger);
     }
 
+    void givenWorkerStatus(SubprocessReportGenerator.ExitStatus status) {
+        Mockito.when(workerPool.submit(Mockito.any(ReportWorkerPool.Request.class)))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                new ReportWorkerPool.Response(status, null)));
+    }
+
+    Path mockDestination() {
+        Path dest = Mockito.mock(Path.class);
+        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
+        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
+        return dest;
+    }
+
     @Test
     void shouldThrowIfRecordingPathIsNull() {
         Assertions.assertThrows(
@@ -156,145 +137,94 @@ class SubprocessReportGeneratorTest {
     }
 
     @Test
-    void shouldWriteSerializedTransformersToFile() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-
-        generator.exec(recordingFile, dest, "");
-
-        ArgumentCaptor<String> captor = ArgumentCaptor.forClass(String.class);
-        Mockito.verify(fs)
-                .writeString(
-                        Mockito.same(dest),
-                        captor.capture(),
-                        Mockito.same(StandardOpenOption.CREATE),
-                        Mockito.same(StandardOpenOption.TRUNCATE_EXISTING),
-                        Mockito.same(StandardOpenOption.DSYNC),
-                        Mockito.same(StandardOpenOption.WRITE));
-        String serialized = captor.getValue();
-        MatcherAssert.assertThat(
-                serialized, Matchers.equalTo(TestReportTransformer.class.getCanonicalName()));
-    }
-
-    @Test
-    void shouldUseSelfAsForkedProcess() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-
-        generator.exec(recordingFile, dest, "");
-
-        Mockito.verify(javaProcessBuilder).klazz(SubprocessReportGenerator.class);
-    }
-
-    @Test
-    void shouldSetJvmArgs() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-
-        generator.exec(recordingFile, dest, "");
+    void shouldSubmitSerializedTransformers() throws Exception {
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.OK);
 
-        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
-        Mockito.verify(javaProcessBuilder).jvmArgs(captor.capture());
+        generator.exec(recordingFile, mockDestination(), "");
 
-        List<String> expected =
-                List.of("-Xms200M", "-Xmx200M", "-XX:+ExitOnOutOfMemoryError", "-XX:+UseSerialGC");
-        MatcherAssert.assertThat(captor.getValue(), Matchers.equalTo(expected));
+        ArgumentCaptor<ReportWorkerPool.Request> captor =
+                ArgumentCaptor.forClass(ReportWorkerPool.Request.class);
+        Mockito.verify(workerPool).submit(captor.capture());
+        MatcherAssert.assertThat(
+                captor.getValue().getTransformers(),
+                Matchers.equalTo(TestReportTransformer.class.getCanonicalName()));
     }
 
     @Test
-    void shouldSetJvmArgsWithoutReportMaxHeapEnvVar() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-        Mockito.when(
-                        env.getEnv(
-                                Mockito.eq("CRYOSTAT_REPORT_GENERATION_MAX_HEAP"),
-                                Mockito.anyString()))
-                .thenReturn("0");
-
-        generator.exec(recordingFile, dest, "");
+    void shouldSubmitRequestPaths() throws Exception {
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.OK);
 
-        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
-        Mockito.verify(javaProcessBuilder).jvmArgs(captor.capture());
+        generator.exec(recordingFile, mockDestination(), "");
 
-        List<String> expected = List.of("-XX:+ExitOnOutOfMemoryError", "-XX:+UseSerialGC");
-        MatcherAssert.assertThat(captor.getValue(), Matchers.equalTo(expected));
+        ArgumentCaptor<ReportWorkerPool.Request> captor =
+                ArgumentCaptor.forClass(ReportWorkerPool.Request.class);
+        Mockito.verify(workerPool).submit(captor.capture());
+        MatcherAssert.assertThat(
+                captor.getValue().getRecording(), Matchers.equalTo("/dest/recording.tmp"));
+        MatcherAssert.assertThat(
+                captor.getValue().getSaveFile(), Matchers.equalTo("/dest/somefile.tmp"));
+        MatcherAssert.assertThat(captor.getValue().getFilter(), Matchers.equalTo(""));
     }
 
     @Test
-    void shouldSetProcessArgs() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-
-        generator.exec(recordingFile, dest, "");
+    void shouldSubmitRequestFiltered() throws Exception {
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.OK);
 
-        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
-        Mockito.verify(javaProcessBuilder).processArgs(captor.capture());
+        generator.exec(recordingFile, mockDestination(), "someFilter");
 
-        List<String> expected = List.of("/dest/recording.tmp", "/dest/somefile.tmp", "");
-        MatcherAssert.assertThat(captor.getValue(), Matchers.equalTo(expected));
+        ArgumentCaptor<ReportWorkerPool.Request> captor =
+                ArgumentCaptor.forClass(ReportWorkerPool.Request.class);
+        Mockito.verify(workerPool).submit(captor.capture());
+        MatcherAssert.assertThat(captor.getValue().getFilter(), Matchers.equalTo("someFilter"));
     }
 
     @Test
-    void shouldSetProcessArgsFiltered() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-
-        generator.exec(recordingFile, dest, "someFilter");
+    void shouldReturnPathOnOkStatus() throws Exception {
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.OK);
+        Path dest = mockDestination();
 
-        ArgumentCaptor<List<String>> captor = ArgumentCaptor.forClass(List.class);
-        Mockito.verify(javaProcessBuilder).processArgs(captor.capture());
+        Path path = generator.exec(recordingFile, dest, "").get();
 
-        List<String> expected = List.of("/dest/recording.tmp", "/dest/somefile.tmp", "someFilter");
-        MatcherAssert.assertThat(captor.getValue(), Matchers.equalTo(expected));
+        MatcherAssert.assertThat(path, Matchers.sameInstance(dest));
     }
 
     @Test
-    void shouldExecuteProcessAndReturnPathOnOkExit() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-        Mockito.when(proc.waitFor(29, TimeUnit.SECONDS)).thenReturn(true);
-
-        Assertions.assertTimeoutPreemptively(
-                Duration.ofSeconds(2),
-                () -> {
-                    Future<Path> path = generator.exec(recordingFile, dest, "");
-                    MatcherAssert.assertThat(path.get(), Matchers.sameInstance(dest));
-                });
+    void shouldThrowRecordingNotFoundOnNoSuchRecordingStatus() throws Exception {
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.NO_SUCH_RECORDING);
+        Path dest = mockDestination();
+
+        ExecutionException ex =
+                Assertions.assertThrows(
+                        ExecutionException.class,
+                        () -> generator.exec(recordingFile, dest, "").get());
+        MatcherAssert.assertThat(
+                ex.getMessage(),
+                Matchers.containsString(
+                        "Recording /dest/recording.tmp not found in target archives"));
     }
 
     @Test
-    void shouldExecuteProcessAndThrowExceptionOnNonOkExit() throws Exception {
-        Path dest = Mockito.mock(Path.class);
-        Mockito.when(dest.toAbsolutePath()).thenReturn(dest);
-        Mockito.when(dest.toString()).thenReturn("/dest/somefile.tmp");
-        Mockito.when(proc.waitFor(29, TimeUnit.SECONDS)).thenReturn(false);
-        Mockito.when(proc.exitValue())
-                .thenReturn(SubprocessReportGenerator.ExitStatus.NO_SUCH_RECORDING.code);
-        Assertions.assertTimeoutPreemptively(
-                Duration.ofSeconds(2),
-                () -> {
-                    ExecutionException ex =
-                            Assertions.assertThrows(
-                                    ExecutionException.class,
-                                    () -> generator.exec(recordingFile, dest, "").get());
-                    MatcherAssert.assertThat(
-                            ex.getMessage(),
-                            Matchers.containsString(
-                                    "Recording /dest/recording.tmp not found in target archives"));
-                });
+    void shouldThrowGenerationExceptionWithWorkerStatus() throws Exception {
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.OUT_OF_MEMORY);
+        Path dest = mockDestination();
+
+        ExecutionException ex =
+                Assertions.assertThrows(
+                        ExecutionException.class,
+                        () -> generator.exec(recordingFile, dest, "").get());
+        MatcherAssert.assertThat(
+                ex.getCause(),
+                Matchers.instanceOf(
+                        SubprocessReportGenerator.SubprocessReportGenerationException.class));
+        MatcherAssert.assertThat(
+                ((SubprocessReportGenerator.SubprocessReportGenerationException) ex.getCause())
+                        .getStatus(),
+                Matchers.equalTo(SubprocessReportGenerator.ExitStatus.OUT_OF_MEMORY));
     }
 
     @Test
     void shouldExecuteProcessAndDeleteRecordingOnCompletion() throws Exception {
-        Mockito.when(proc.waitFor(29, TimeUnit.SECONDS)).thenReturn(true);
-        Mockito.when(proc.exitValue()).thenReturn(SubprocessReportGenerator.ExitStatus.OK.code);
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.OK);
 
         Mockito.when(targetConnectionManager.executeConnectedTask(Mockito.any(), Mockito.any()))
                 .then(
@@ -313,9 +243,7 @@ class SubprocessReportGeneratorTest {
 
     @Test
     void shouldExecuteProcessAndDeleteRecordingOnFailure() throws Exception {
-        Mockito.when(proc.waitFor(29, TimeUnit.SECONDS)).thenReturn(true);
-        Mockito.when(proc.exitValue())
-                .thenReturn(SubprocessReportGenerator.ExitStatus.NO_SUCH_RECORDING.code);
+        givenWorkerStatus(SubprocessReportGenerator.ExitStatus.NO_SUCH_RECORDING);
 
         Mockito.when(targetConnectionManager.executeConnectedTask(Mockito.any(), Mockito.any()))
                 .then(
@@ -335,30 +263,6 @@ class SubprocessReportGeneratorTest {
         Mockito.verify(fs).deleteIfExists(tempFile1);
     }
 
-    @Test
-    void shouldExecuteProcessAndDeleteTempReportStatsFileOnFailure() throws Exception {
-        Mockito.when(proc.waitFor(29, TimeUnit.SECONDS)).thenReturn(true);
-        Mockito.when(proc.exitValue())
-                .thenReturn(SubprocessReportGenerator.ExitStatus.NO_SUCH_RECORDING.code);
-
-        Mockito.when(targetConnectionManager.executeConnectedTask(Mockito.any(), Mockito.any()))
-                .then(
-                        new Answer<Path>() {
-                            @Override
-                            public Path answer(InvocationOnMock invocation) throws Throwable {
-                                return fs.createTempFile(null, null);
-                            }
-                        });
-
-        Assertions.assertThrows(
-                ExecutionException.class,
-                () -> {
-                    generator.exec(recordingDescriptor, "").get();
-                });
-
-        Mockito.verify(fs).deleteIfExists(Path.of(Variables.REPORT_STATS_PATH));
-    }
-
     static class TestReportTransformer implements ReportTransformer {
         @Override
         public int priority() {
@@ -38,6 +38,8 @@
 package io.cryostat.net.web;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
@@ -47,6 +49,7 @@ import java.net.SocketException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.UnknownHostException;
+import java.util.List;
 import java.util.Set;
 
 import javax.management.remote.JMXServiceURL;
@@ -59,8 +62,10 @@ import io.cryostat.core.net.JFRConnection;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.HttpServer;
 import io.cryostat.net.NetworkConfiguration;
+import io.cryostat.net.web.http.api.ApiVersion;
 
 import com.google.gson.Gson;
+import org.apache.http.client.utils.URIBuilder;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.BeforeEach;
@@ -242,4 +247,66 @@ class WebServerTest {
                         "https://example.com:8181/api/v1/targets/service:jmx:rmi:%2F%2Flocalhost:9091%2Fjndi%2Frmi:%2F%2FfooHost:9091%2Fjmxrmi/reports/"
                                 + recordingName));
     }
+
+    @Test
+    void shouldReuseHostUrlForAssetUrls() throws Exception {
+        when(netConf.getWebServerHost()).thenReturn("example.com");
+        when(netConf.getExternalWebServerPort()).thenReturn(8181);
+
+        for (int i = 0; i < 3; i++) {
+            exporter.getArchivedDownloadURL(
+                    "service:jmx:rmi:///jndi/rmi://fooHost:9091/jmxrmi", "foo");
+            exporter.getArchivedReportURL(
+                    "service:jmx:rmi:///jndi/rmi://fooHost:9091/jmxrmi", "foo");
+            exporter.getHostUrl();
+        }
+
+        verify(netConf, times(1)).getWebServerHost();
+        verify(netConf, times(1)).getExternalWebServerPort();
+    }
+
+    @Test
+    void shouldProvideAssetDownloadUrl() throws Exception {
+        when(netConf.getWebServerHost()).thenReturn("example.com");
+        when(netConf.getExternalWebServerPort()).thenReturn(8181);
+
+        MatcherAssert.assertThat(
+                exporter.getAssetDownloadURL(ApiVersion.V2_1, "foo", "bar/baz"),
+                Matchers.equalTo("http://example.com:8181/api/v2.1/foo/bar%2Fbaz"));
+    }
+
+    @Test
+    void shouldNormalizeDotSegmentsInAssetDownloadUrl() throws Exception {
+        when(netConf.getWebServerHost()).thenReturn("example.com");
+        when(netConf.getExternalWebServerPort()).thenReturn(8181);
+
+        MatcherAssert.assertThat(
+                exporter.getAssetDownloadURL(ApiVersion.V2_1, "foo", "..", "bar", ".", "baz"),
+                Matchers.equalTo("http://example.com:8181/api/v2.1/bar/baz"));
+        MatcherAssert.assertThat(
+                exporter.getArchivedDownloadURL("target", ".."),
+                Matchers.equalTo("http://example.com:8181/api/beta/recordings/"));
+        MatcherAssert.assertThat(
+                exporter.getArchivedReportURL("target", "..."),
+                Matchers.equalTo("http://example.com:8181/api/beta/reports/target/..."));
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "",
+                "plain-recording_name.jfr",
+                "service:jmx:rmi:///jndi/rmi://fooHost:9091/jmxrmi",
+                "with space",
+                "query?and#fragment",
+                "percent%20",
+                "sub-delims!$&'()*+,;=@~",
+                "\u00fcn\u00efc\u00f6d\u00e9-\u8a18\u9332",
+                "[brackets]{braces}|pipe\\backslash\"quote\"<>^`",
+            })
+    void shouldEncodePathSegmentsLikeUriBuilder(String segment) throws Exception {
+        String expected = new URIBuilder().setPathSegments(List.of(segment)).build().getRawPath();
+        MatcherAssert.assertThat(
+                "/" + WebServer.encodePathSegment(segment), Matchers.equalTo(expected));
+    }
 }
@@ -0,0 +1,334 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.cryostat.DirectExecutor;
+import io.cryostat.core.log.Logger;
+import io.cryostat.net.ConnectionDescriptor;
+import io.cryostat.net.TargetConnectionManager;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class DownloadPipelineTest {
+
+    static final int BUFFER_SIZE = 1024;
+
+    DownloadPipeline pipeline;
+    @Mock Vertx vertx;
+    @Mock Context context;
+    @Mock TargetConnectionManager targetConnectionManager;
+    @Mock WriteStream<Buffer> sink;
+    @Mock Logger logger;
+
+    ConnectionDescriptor connectionDescriptor = new ConnectionDescriptor("fooHost:9091");
+    Buffer dst;
+
+    @BeforeEach
+    void setup() {
+        this.pipeline =
+                new DownloadPipeline(
+                        vertx,
+                        targetConnectionManager,
+                        new DirectExecutor(),
+                        BUFFER_SIZE,
+                        1,
+                        logger);
+        this.dst = Buffer.buffer();
+    }
+
+    void mockContext() {
+        Mockito.when(vertx.getOrCreateContext()).thenReturn(context);
+        Mockito.doAnswer(
+                        invocation -> {
+                            Handler<Void> action = invocation.getArgument(0);
+                            action.handle(null);
+                            return null;
+                        })
+                .when(context)
+                .runOnContext(Mockito.any(Handler.class));
+    }
+
+    void mockContextAndSink() {
+        mockContext();
+        Mockito.doAnswer(
+                        invocation -> {
+                            Buffer chunk = invocation.getArgument(0);
+                            dst.appendBuffer(chunk);
+                            return sink;
+                        })
+                .when(sink)
+                .write(Mockito.any(Buffer.class), Mockito.any(Handler.class));
+    }
+
+    void mockSinkEnd() {
+        Mockito.doAnswer(
+                        invocation -> {
+                            Handler<AsyncResult<Void>> handler = invocation.getArgument(0);
+                            handler.handle(Future.succeededFuture());
+                            return null;
+                        })
+                .when(sink)
+                .end(Mockito.any(Handler.class));
+    }
+
+    @Test
+    void shouldTransferAllBytesInBufferSizedChunks() throws Exception {
+        mockContextAndSink();
+        mockSinkEnd();
+        Mockito.when(targetConnectionManager.markConnectionInUse(connectionDescriptor))
+                .thenReturn(true);
+        byte[] src = new byte[BUFFER_SIZE * 3 + 17];
+        new Random(123456).nextBytes(src);
+
+        Future<Void> future =
+                pipeline.pipe(new ByteArrayInputStream(src), sink, connectionDescriptor, "foo");
+
+        MatcherAssert.assertThat(future.succeeded(), Matchers.is(true));
+        Assertions.assertArrayEquals(src, dst.getBytes());
+        Mockito.verify(sink, Mockito.times(4))
+                .write(Mockito.any(Buffer.class), Mockito.any(Handler.class));
+        Mockito.verify(sink).end(Mockito.any(Handler.class));
+    }
+
+    @Test
+    void shouldWritePartialReadsWithoutWaitingForFullBuffer() throws Exception {
+        mockContextAndSink();
+        mockSinkEnd();
+        Mockito.when(targetConnectionManager.markConnectionInUse(connectionDescriptor))
+                .thenReturn(true);
+        byte[] src = new byte[250];
+        new Random(123456).nextBytes(src);
+        InputStream source =
+                new ByteArrayInputStream(src) {
+                    @Override
+                    public synchronized int read(byte[] b, int off, int len) {
+                        return super.read(b, off, Math.min(len, 100));
+                    }
+                };
+
+        Future<Void> future = pipeline.pipe(source, sink, connectionDescriptor, "foo");
+
+        MatcherAssert.assertThat(future.succeeded(), Matchers.is(true));
+        Assertions.assertArrayEquals(src, dst.getBytes());
+        Mockito.verify(sink, Mockito.times(3))
+                .write(Mockito.any(Buffer.class), Mockito.any(Handler.class));
+    }
+
+    @Test
+    void shouldNotReuseBufferUntilSinkCompletesWrite() throws Exception {
+        mockContext();
+        mockSinkEnd();
+        Mockito.when(targetConnectionManager.markConnectionInUse(connectionDescriptor))
+                .thenReturn(true);
+        List<Buffer> chunks = new ArrayList<>();
+        List<Handler<AsyncResult<Void>>> handlers = new ArrayList<>();
+        Mockito.doAnswer(
+                        invocation -> {
+                            chunks.add(invocation.getArgument(0));
+                            handlers.add(invocation.getArgument(1));
+                            return sink;
+                        })
+                .when(sink)
+                .write(Mockito.any(Buffer.class), Mockito.any(Handler.class));
+        byte[] src = new byte[BUFFER_SIZE * 3];
+        new Random(123456).nextBytes(src);
+
+        Future<Void> future =
+                pipeline.pipe(new ByteArrayInputStream(src), sink, connectionDescriptor, "foo");
+
+        MatcherAssert.assertThat(future.succeeded(), Matchers.is(true));
+        MatcherAssert.assertThat(chunks, Matchers.hasSize(3));
+        for (int i = 0; i < chunks.size(); i++) {
+            Assertions.assertArrayEquals(
+                    Arrays.copyOfRange(src, i * BUFFER_SIZE, (i + 1) * BUFFER_SIZE),
+                    chunks.get(i).getBytes());
+        }
+        handlers.forEach(h -> h.handle(Future.succeededFuture()));
+    }
+
+    @Test
+    void shouldWaitForDrainWhenWriteQueueFull() throws Exception {
+        mockContextAndSink();
+        mockSinkEnd();
+        Mockito.when(targetConnectionManager.markConnectionInUse(connectionDescriptor))
+                .thenReturn(true);
+        Mockito.when(sink.writeQueueFull()).thenReturn(true).thenReturn(false);
+        ArgumentCaptor<Handler<Void>> drainHandler = ArgumentCaptor.forClass(Handler.class);
+        Mockito.when(sink.drainHandler(drainHandler.capture())).thenReturn(sink);
+        byte[] src = new byte[BUFFER_SIZE * 2];
+        new Random(123456).nextBytes(src);
+
+        Future<Void> future =
+                pipeline.pipe(new ByteArrayInputStream(src), sink, connectionDescriptor, "foo");
+
+        MatcherAssert.assertThat(future.isComplete(), Matchers.is(false));
+        MatcherAssert.assertThat(dst.length(), Matchers.equalTo(BUFFER_SIZE));
+
+        drainHandler.getValue().handle(null);
+
+        MatcherAssert.assertThat(future.succeeded(), Matchers.is(true));
+        Assertions.assertArrayEquals(src, dst.getBytes());
+    }
+
+    @Test
+    void shouldFailAndCloseSourceIfConnectionLostDuringTransfer() throws Exception {
+        mockContextAndSink();
+        Mockito.when(targetConnectionManager.markConnectionInUse(connectionDescriptor))
+                .thenReturn(true)
+                .thenReturn(true)
+                .thenReturn(false);
+        AtomicReference<Boolean> closed = new AtomicReference<>(false);
+        InputStream source =
+                new ByteArrayInputStream(new byte[BUFFER_SIZE * 3]) {
+                    @Override
+                    public void close() throws IOException {
+                        closed.set(true);
+                        super.close();
+                    }
+                };
+
+        Future<Void> future = pipeline.pipe(source, sink, connectionDescriptor, "foo");
+
+        MatcherAssert.assertThat(future.failed(), Matchers.is(true));
+        MatcherAssert.assertThat(future.cause(), Matchers.instanceOf(IOException.class));
+        MatcherAssert.assertThat(dst.length(), Matchers.equalTo(BUFFER_SIZE));
+        MatcherAssert.assertThat(closed.get(), Matchers.is(true));
+        Mockito.verify(sink, Mockito.never()).end(Mockito.any(Handler.class));
+    }
+
+    @Test
+    void shouldOnlyReportBytesHandedToSinkWhenFailingDuringRead() throws Exception {
+        List<Runnable> reads = new ArrayList<>();
+        List<Handler<Void>> contextActions = new ArrayList<>();
+        DownloadPipeline pipeline =
+                new DownloadPipeline(
+                        vertx, targetConnectionManager, reads::add, BUFFER_SIZE, 1, logger);
+        Mockito.when(vertx.getOrCreateContext()).thenReturn(context);
+        Mockito.doAnswer(
+                        invocation -> {
+                            contextActions.add(invocation.getArgument(0));
+                            return null;
+                        })
+                .when(context)
+                .runOnContext(Mockito.any(Handler.class));
+        Mockito.when(targetConnectionManager.markConnectionInUse(connectionDescriptor))
+                .thenReturn(true);
+        ArgumentCaptor<Handler<Throwable>> exceptionHandler =
+                ArgumentCaptor.forClass(Handler.class);
+        Mockito.when(sink.exceptionHandler(exceptionHandler.capture())).thenReturn(sink);
+
+        Future<Void> future =
+                pipeline.pipe(
+                        new ByteArrayInputStream(new byte[BUFFER_SIZE * 3]),
+                        sink,
+                        connectionDescriptor,
+                        "foo");
+
+        // the first chunk is read and handed to the sink, then the second read completes but the
+        // sink fails before that chunk reaches it
+        reads.remove(0).run();
+        contextActions.remove(0).handle(null);
+        reads.remove(0).run();
+        exceptionHandler.getValue().handle(new IOException("sink failed"));
+        contextActions.forEach(a -> a.handle(null));
+
+        MatcherAssert.assertThat(future.failed(), Matchers.is(true));
+        Mockito.verify(sink, Mockito.times(1))
+                .write(Mockito.any(Buffer.class), Mockito.any(Handler.class));
+        Mockito.verify(logger)
+                .info(
+                        Mockito.eq("Download of {} {} after {} bytes in {}ms ({} B/s)"),
+                        Mockito.eq("foo"),
+                        Mockito.eq("failed"),
+                        Mockito.eq((long) BUFFER_SIZE),
+                        Mockito.any(),
+                        Mockito.any());
+    }
+
+    @Test
+    void shouldThrowAndCloseSourceIfConnectionAlreadyClosed() throws Exception {
+        Mockito.when(targetConnectionManager.markConnectionInUse(connectionDescriptor))
+                .thenReturn(false);
+        AtomicReference<Boolean> closed = new AtomicReference<>(false);
+        InputStream source =
+                new ByteArrayInputStream(new byte[BUFFER_SIZE]) {
+                    @Override
+                    public void close() throws IOException {
+                        closed.set(true);
+                        super.close();
+                    }
+                };
+
+        IOException ex =
+                Assertions.assertThrows(
+                        IOException.class,
+                        () -> pipeline.pipe(source, sink, connectionDescriptor, "foo"));
+        MatcherAssert.assertThat(
+                ex.getMessage(),
+                Matchers.equalTo(
+                        "Target connection unexpectedly closed while streaming recording"));
+        MatcherAssert.assertThat(closed.get(), Matchers.is(true));
+        Mockito.verifyNoInteractions(sink);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.Gson;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class NdjsonResponseWriterTest {
+
+    @Mock HttpServerResponse response;
+    Gson gson = new Gson();
+
+    @Test
+    void shouldEndWithSingleBufferForSmallBodies() throws Exception {
+        NdjsonResponseWriter writer = new NdjsonResponseWriter(response, gson);
+        writer.write(Map.of("a", 1));
+        writer.write(Map.of("b", 2));
+        writer.end();
+
+        ArgumentCaptor<Buffer> captor = ArgumentCaptor.forClass(Buffer.class);
+        Mockito.verify(response).putHeader(HttpHeaders.CONTENT_TYPE, "application/x-ndjson");
+        Mockito.verify(response).end(captor.capture());
+        Mockito.verify(response, Mockito.never()).setChunked(Mockito.anyBoolean());
+        MatcherAssert.assertThat(
+                captor.getValue().toString(), Matchers.equalTo("{\"a\":1}\n{\"b\":2}\n"));
+    }
+
+    @Test
+    void shouldStreamLargeBodiesInChunks() throws Exception {
+        String value = "x".repeat(1024);
+        NdjsonResponseWriter writer = new NdjsonResponseWriter(response, gson);
+        for (int i = 0; i < 200; i++) {
+            writer.write(Map.of("v", value));
+        }
+        writer.end();
+
+        ArgumentCaptor<Buffer> captor = ArgumentCaptor.forClass(Buffer.class);
+        Mockito.verify(response).setChunked(true);
+        Mockito.verify(response, Mockito.atLeast(2)).write(captor.capture());
+        Mockito.verify(response).end();
+        int total = 0;
+        for (Buffer chunk : captor.getAllValues()) {
+            MatcherAssert.assertThat(
+                    chunk.length(),
+                    Matchers.lessThan(NdjsonResponseWriter.CHUNK_SIZE + value.length() + 16));
+            total += chunk.length();
+        }
+        MatcherAssert.assertThat(total, Matchers.equalTo(200 * (value.length() + 9)));
+    }
+
+    @Test
+    void shouldWaitForDrainWhenWriteQueueIsFull() throws Exception {
+        Mockito.when(response.writeQueueFull()).thenReturn(true, true, false);
+        CompletableFuture<Handler<Void>> drainHandler = new CompletableFuture<>();
+        Mockito.when(response.drainHandler(Mockito.any()))
+                .thenAnswer(
+                        invocation -> {
+                            drainHandler.complete(invocation.getArgument(0));
+                            return response;
+                        });
+
+        CompletableFuture<Void> done =
+                CompletableFuture.runAsync(
+                        () -> {
+                            try {
+                                NdjsonResponseWriter writer =
+                                        new NdjsonResponseWriter(response, gson);
+                                writer.write(
+                                        Map.of("v", "x".repeat(NdjsonResponseWriter.CHUNK_SIZE)));
+                                writer.end();
+                            } catch (Exception e) {
+                                throw new RuntimeException(e);
+                            }
+                        });
+
+        drainHandler.get(5, TimeUnit.SECONDS).handle(null);
+        done.get(5, TimeUnit.SECONDS);
+
+        Mockito.verify(response).write(Mockito.any(Buffer.class));
+        Mockito.verify(response).end();
+    }
+}
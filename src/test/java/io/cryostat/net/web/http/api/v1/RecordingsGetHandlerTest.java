@@ -47,6 +47,7 @@ import io.cryostat.configuration.CredentialsManager;
 import io.cryostat.core.log.Logger;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.security.ResourceAction;
+import io.cryostat.recordings.ArchivedRecordingsQuery;
 import io.cryostat.recordings.RecordingArchiveHelper;
 import io.cryostat.recordings.RecordingMetadataManager.Metadata;
 import io.cryostat.rules.ArchivePathException;
@@ -64,6 +65,7 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -155,6 +157,62 @@ class RecordingsGetHandlerTest {
 
         Mockito.verify(resp)
                 .end(
-                        "[{\"downloadUrl\":\"/some/path/download/recordingFoo\",\"name\":\"recordingFoo\",\"reportUrl\":\"/some/path/archive/recordingFoo\",\"metadata\":{\"labels\":{}},\"size\":0}]");
+                        "[{\"downloadUrl\":\"/some/path/download/recordingFoo\",\"name\":\"recordingFoo\",\"reportUrl\":\"/some/path/archive/recordingFoo\",\"metadata\":{\"labels\":{}},\"size\":0,\"archivedTime\":0}]");
+    }
+
+    @Test
+    void shouldRespondWithRequestedPage() throws Exception {
+        ArchivedRecordingInfo recording =
+                new ArchivedRecordingInfo(
+                        "encodedServiceUriFoo",
+                        "recordingFoo",
+                        "/some/path/download/recordingFoo",
+                        "/some/path/archive/recordingFoo",
+                        new Metadata(),
+                        0);
+        Mockito.when(
+                        recordingArchiveHelper.getRecordingsPage(
+                                Mockito.any(ArchivedRecordingsQuery.class)))
+                .thenReturn(
+                        CompletableFuture.completedFuture(
+                                new ArchivedRecordingsQuery.Page(List.of(recording), "abc")));
+
+        RoutingContext ctx = Mockito.mock(RoutingContext.class);
+        HttpServerResponse resp = Mockito.mock(HttpServerResponse.class);
+        Mockito.when(ctx.response()).thenReturn(resp);
+        HttpServerRequest req = Mockito.mock(HttpServerRequest.class);
+        Mockito.when(ctx.request()).thenReturn(req);
+        Mockito.when(ctx.queryParam("limit")).thenReturn(List.of("1"));
+        Mockito.when(auth.validateHttpHeader(Mockito.any(), Mockito.any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        handler.handle(ctx);
+
+        ArgumentCaptor<ArchivedRecordingsQuery> captor =
+                ArgumentCaptor.forClass(ArchivedRecordingsQuery.class);
+        Mockito.verify(recordingArchiveHelper).getRecordingsPage(captor.capture());
+        MatcherAssert.assertThat(captor.getValue().getLimit(), Matchers.equalTo(1));
+        Mockito.verify(resp)
+                .putHeader(
+                        "Link", "</api/v1/recordings?sort=name&limit=1&cursor=abc>; rel=\"next\"");
+        Mockito.verify(resp)
+                .end(
+                        "[{\"downloadUrl\":\"/some/path/download/recordingFoo\",\"name\":\"recordingFoo\",\"reportUrl\":\"/some/path/archive/recordingFoo\",\"metadata\":{\"labels\":{}},\"size\":0,\"archivedTime\":0}]");
+    }
+
+    @Test
+    void shouldRespond400ForInvalidLimit() throws Exception {
+        RoutingContext ctx = Mockito.mock(RoutingContext.class);
+        HttpServerResponse resp = Mockito.mock(HttpServerResponse.class);
+        Mockito.when(ctx.response()).thenReturn(resp);
+        HttpServerRequest req = Mockito.mock(HttpServerRequest.class);
+        Mockito.when(ctx.request()).thenReturn(req);
+        Mockito.when(ctx.queryParam("limit")).thenReturn(List.of("-1"));
+        Mockito.when(auth.validateHttpHeader(Mockito.any(), Mockito.any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        HttpException httpEx =
+                Assertions.assertThrows(HttpException.class, () -> handler.handle(ctx));
+        MatcherAssert.assertThat(httpEx.getStatusCode(), Matchers.equalTo(400));
     }
 }
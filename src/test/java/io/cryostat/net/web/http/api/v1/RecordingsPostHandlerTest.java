@@ -106,6 +106,7 @@ class RecordingsPostHandlerTest {
     @Mock Notification notification;
     @Mock Notification.Builder notificationBuilder;
     @Mock RecordingMetadataManager recordingMetadataManager;
+    @Mock RecordingArchiveHelper recordingArchiveHelper;
     @Mock Logger logger;
     Gson gson = MainModule.provideGson(logger);
 
@@ -135,6 +136,7 @@ class RecordingsPostHandlerTest {
                         notificationFactory,
                         () -> webServer,
                         recordingMetadataManager,
+                        recordingArchiveHelper,
                         logger);
     }
 
@@ -302,6 +304,7 @@ class RecordingsPostHandlerTest {
         InOrder inOrder = Mockito.inOrder(rep);
         inOrder.verify(rep).putHeader(HttpHeaders.CONTENT_TYPE, HttpMimeType.JSON.mime());
         inOrder.verify(rep).end(gson.toJson(Map.of("name", filename, "metadata", new Metadata())));
+        Mockito.verify(recordingArchiveHelper).refreshArchivedRecording(filePath);
 
         ArchivedRecordingInfo recordingInfo =
                 new ArchivedRecordingInfo(
@@ -52,13 +52,14 @@ import java.util.concurrent.ExecutionException;
 
 import org.openjdk.jmc.rjmx.services.jfr.IFlightRecorderService;
 
+import io.cryostat.DirectExecutor;
 import io.cryostat.configuration.CredentialsManager;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.JFRConnection;
 import io.cryostat.net.AuthManager;
-import io.cryostat.net.HttpServer;
 import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.security.ResourceAction;
+import io.cryostat.net.web.http.DownloadPipeline;
 import io.cryostat.net.web.http.HttpMimeType;
 import io.cryostat.recordings.RecordingTargetHelper;
 
@@ -93,7 +94,6 @@ class TargetRecordingGetHandlerTest {
     @Mock AuthManager authManager;
     @Mock CredentialsManager credentialsManager;
     @Mock TargetConnectionManager targetConnectionManager;
-    @Mock HttpServer httpServer;
     @Mock Vertx vertx;
     @Mock RecordingTargetHelper recordingTargetHelper;
     @Mock Optional<InputStream> stream;
@@ -104,13 +104,19 @@ class TargetRecordingGetHandlerTest {
 
     @BeforeEach
     void setup() {
-        when(httpServer.getVertx()).thenReturn(vertx);
+        DownloadPipeline downloadPipeline =
+                new DownloadPipeline(
+                        vertx,
+                        targetConnectionManager,
+                        new DirectExecutor(),
+                        DownloadPipeline.DEFAULT_BUFFER_SIZE,
+                        1,
+                        logger);
         this.handler =
                 new TargetRecordingGetHandler(
                         authManager,
                         credentialsManager,
-                        targetConnectionManager,
-                        httpServer,
+                        downloadPipeline,
                         recordingTargetHelper,
                         logger);
     }
@@ -225,25 +231,12 @@ class TargetRecordingGetHandlerTest {
         ByteArrayInputStream source = new ByteArrayInputStream(src);
         when(future.get()).thenReturn(Optional.of(source));
 
-        // **************Mocking specific to OutputToReadStream****************
-        Context context = mock(Context.class);
-        when(vertx.getOrCreateContext()).thenReturn(context);
-        doAnswer(
-                        invocation -> {
-                            Handler<Void> action = invocation.getArgument(0);
-                            action.handle(null);
-                            return null;
-                        })
-                .when(context)
-                .runOnContext(Mockito.any(Handler.class));
-
         when(targetConnectionManager.markConnectionInUse(Mockito.any())).thenReturn(false);
-        // ********************************************************************
 
         HttpException ex = Assertions.assertThrows(HttpException.class, () -> handler.handle(ctx));
         MatcherAssert.assertThat(ex.getStatusCode(), Matchers.equalTo(500));
         MatcherAssert.assertThat(
-                ex.getCause().getCause().getMessage(),
+                ex.getCause().getMessage(),
                 Matchers.equalTo(
                         "Target connection unexpectedly closed while streaming recording"));
     }
@@ -282,7 +275,7 @@ class TargetRecordingGetHandlerTest {
         ByteArrayInputStream source = new ByteArrayInputStream(src);
         when(future.get()).thenReturn(Optional.of(source));
 
-        // **************Mocking specific to OutputToReadStream***************
+        // **************Mocking specific to DownloadPipeline******************
         Buffer dst = Buffer.buffer(1024 * 1024);
         doAnswer(
                         invocation -> {
@@ -0,0 +1,212 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import io.cryostat.MainModule;
+import io.cryostat.configuration.CredentialsManager;
+import io.cryostat.core.log.Logger;
+import io.cryostat.net.AuthManager;
+import io.cryostat.net.security.ResourceAction;
+import io.cryostat.net.web.http.HttpMimeType;
+import io.cryostat.net.web.http.api.ApiVersion;
+import io.cryostat.recordings.ArchivedRecordingsQuery;
+import io.cryostat.recordings.RecordingArchiveHelper;
+import io.cryostat.recordings.RecordingMetadataManager.Metadata;
+import io.cryostat.rules.ArchivePathException;
+import io.cryostat.rules.ArchivedRecordingInfo;
+
+import com.google.gson.Gson;
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpMethod;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RecordingsGetHandlerTest {
+
+    RecordingsGetHandler handler;
+    @Mock AuthManager auth;
+    @Mock CredentialsManager credentialsManager;
+    @Mock RecordingArchiveHelper recordingArchiveHelper;
+    @Mock Logger logger;
+    Gson gson = MainModule.provideGson(logger);
+
+    @BeforeEach
+    void setup() {
+        this.handler =
+                new RecordingsGetHandler(auth, credentialsManager, recordingArchiveHelper, gson);
+    }
+
+    @Nested
+    class BasicHandlerDefinition {
+        @Test
+        void shouldRequireAuthentication() {
+            Assertions.assertTrue(handler.requiresAuthentication());
+        }
+
+        @Test
+        void shouldBeV2Handler() {
+            MatcherAssert.assertThat(handler.apiVersion(), Matchers.equalTo(ApiVersion.V2));
+        }
+
+        @Test
+        void shouldBeGETHandler() {
+            MatcherAssert.assertThat(handler.httpMethod(), Matchers.equalTo(HttpMethod.GET));
+        }
+
+        @Test
+        void shouldHaveExpectedApiPath() {
+            MatcherAssert.assertThat(handler.path(), Matchers.equalTo("/api/v2/recordings"));
+        }
+
+        @Test
+        void shouldHaveExpectedRequiredPermissions() {
+            MatcherAssert.assertThat(
+                    handler.resourceActions(),
+                    Matchers.equalTo(Set.of(ResourceAction.READ_RECORDING)));
+        }
+
+        @Test
+        void shouldProduceJsonAndNdjson() {
+            MatcherAssert.assertThat(
+                    handler.produces(),
+                    Matchers.equalTo(List.of(HttpMimeType.JSON, HttpMimeType.NDJSON)));
+        }
+
+        @Test
+        void shouldBeBlockingHandler() {
+            Assertions.assertFalse(handler.isAsync());
+        }
+    }
+
+    @Nested
+    class Requests {
+        @Mock RequestParameters params;
+        MultiMap queryParams = MultiMap.caseInsensitiveMultiMap();
+
+        @BeforeEach
+        void setup() {
+            Mockito.when(params.getQueryParams()).thenReturn(queryParams);
+        }
+
+        @Test
+        void shouldRespondWithPageAndNextCursor() throws Exception {
+            queryParams.set("sort", "-size");
+            queryParams.set("limit", "1");
+            ArchivedRecordingInfo recording =
+                    new ArchivedRecordingInfo(
+                            "target", "foo.jfr", "/download", "/report", new Metadata(), 10, 20);
+            ArchivedRecordingsQuery.Page page =
+                    new ArchivedRecordingsQuery.Page(List.of(recording), "next");
+            Mockito.when(
+                            recordingArchiveHelper.getRecordingsPage(
+                                    Mockito.any(ArchivedRecordingsQuery.class)))
+                    .thenReturn(CompletableFuture.completedFuture(page));
+
+            IntermediateResponse<ArchivedRecordingsQuery.Page> response = handler.handle(params);
+
+            MatcherAssert.assertThat(response.getStatusCode(), Matchers.equalTo(200));
+            MatcherAssert.assertThat(response.getBody(), Matchers.sameInstance(page));
+            MatcherAssert.assertThat(
+                    response.getHeaders().get(RecordingsGetHandler.NEXT_CURSOR_HEADER),
+                    Matchers.equalTo("next"));
+
+            ArgumentCaptor<ArchivedRecordingsQuery> captor =
+                    ArgumentCaptor.forClass(ArchivedRecordingsQuery.class);
+            Mockito.verify(recordingArchiveHelper).getRecordingsPage(captor.capture());
+            MatcherAssert.assertThat(
+                    captor.getValue().getSort(),
+                    Matchers.equalTo(ArchivedRecordingsQuery.Sort.SIZE));
+            MatcherAssert.assertThat(captor.getValue().isDescending(), Matchers.is(true));
+            MatcherAssert.assertThat(captor.getValue().getLimit(), Matchers.equalTo(1));
+        }
+
+        @Test
+        void shouldListSingleTargetWhenRequested() throws Exception {
+            queryParams.set("sourceTarget", "service:jmx:rmi:///jndi/rmi://foo:9091/jmxrmi");
+            ArchivedRecordingsQuery.Page page = new ArchivedRecordingsQuery.Page(List.of(), null);
+            Mockito.when(
+                            recordingArchiveHelper.getRecordingsPage(
+                                    Mockito.eq("service:jmx:rmi:///jndi/rmi://foo:9091/jmxrmi"),
+                                    Mockito.any()))
+                    .thenReturn(CompletableFuture.completedFuture(page));
+
+            IntermediateResponse<ArchivedRecordingsQuery.Page> response = handler.handle(params);
+
+            MatcherAssert.assertThat(response.getBody(), Matchers.sameInstance(page));
+            MatcherAssert.assertThat(response.getHeaders(), Matchers.anEmptyMap());
+        }
+
+        @Test
+        void shouldRespond400ForInvalidSort() throws Exception {
+            queryParams.set("sort", "owner");
+
+            ApiException ex =
+                    Assertions.assertThrows(ApiException.class, () -> handler.handle(params));
+            MatcherAssert.assertThat(ex.getStatusCode(), Matchers.equalTo(400));
+        }
+
+        @Test
+        void shouldRespond501IfArchivesUnavailable() throws Exception {
+            Mockito.when(
+                            recordingArchiveHelper.getRecordingsPage(
+                                    Mockito.any(ArchivedRecordingsQuery.class)))
+                    .thenReturn(
+                            CompletableFuture.failedFuture(
+                                    new ArchivePathException(
+                                            "/flightrecordings", "does not exist")));
+
+            ApiException ex =
+                    Assertions.assertThrows(ApiException.class, () -> handler.handle(params));
+            MatcherAssert.assertThat(ex.getStatusCode(), Matchers.equalTo(501));
+        }
+    }
+}
@@ -48,16 +48,17 @@ import org.openjdk.jmc.rjmx.services.jfr.FlightRecorderException;
 import org.openjdk.jmc.rjmx.services.jfr.IFlightRecorderService;
 import org.openjdk.jmc.rjmx.services.jfr.IRecordingDescriptor;
 
+import io.cryostat.DirectExecutor;
 import io.cryostat.configuration.CredentialsManager;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.JFRConnection;
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.ConnectionDescriptor;
-import io.cryostat.net.HttpServer;
 import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.security.jwt.AssetJwtHelper;
 import io.cryostat.net.web.WebServer;
+import io.cryostat.net.web.http.DownloadPipeline;
 import io.cryostat.net.web.http.HttpMimeType;
 import io.cryostat.net.web.http.api.ApiVersion;
 
@@ -97,21 +98,27 @@ class TargetRecordingGetHandlerTest {
     @Mock CredentialsManager credentialsManager;
     @Mock AssetJwtHelper jwt;
     @Mock WebServer webServer;
-    @Mock HttpServer httpServer;
     @Mock Vertx vertx;
     @Mock TargetConnectionManager targetConnectionManager;
     @Mock Logger logger;
 
     @BeforeEach
     void setup() {
-        Mockito.when(httpServer.getVertx()).thenReturn(vertx);
+        DownloadPipeline downloadPipeline =
+                new DownloadPipeline(
+                        vertx,
+                        targetConnectionManager,
+                        new DirectExecutor(),
+                        DownloadPipeline.DEFAULT_BUFFER_SIZE,
+                        1,
+                        logger);
         this.handler =
                 new TargetRecordingGetHandler(
                         auth,
                         credentialsManager,
                         jwt,
                         () -> webServer,
-                        httpServer,
+                        downloadPipeline,
                         targetConnectionManager,
                         logger);
     }
@@ -254,28 +261,15 @@ class TargetRecordingGetHandlerTest {
             InputStream stream = new ByteArrayInputStream(src);
             Mockito.when(svc.openStream(Mockito.any(), Mockito.eq(false))).thenReturn(stream);
 
-            // **************Mocking specific to OutputToReadStream***************
-            Context context = Mockito.mock(Context.class);
-            Mockito.when(vertx.getOrCreateContext()).thenReturn(context);
-            Mockito.doAnswer(
-                            invocation -> {
-                                Handler<Void> action = invocation.getArgument(0);
-                                action.handle(null);
-                                return null;
-                            })
-                    .when(context)
-                    .runOnContext(Mockito.any(Handler.class));
-
             Mockito.when(targetConnectionManager.markConnectionInUse(Mockito.any()))
                     .thenReturn(false);
-            // ********************************************************************
 
             ApiException ex =
                     Assertions.assertThrows(
                             ApiException.class, () -> handler.handleWithValidJwt(ctx, token));
             MatcherAssert.assertThat(ex.getStatusCode(), Matchers.equalTo(500));
             MatcherAssert.assertThat(
-                    ex.getCause().getCause().getMessage(),
+                    ex.getCause().getMessage(),
                     Matchers.equalTo(
                             "Target connection unexpectedly closed while streaming recording"));
         }
@@ -311,7 +305,7 @@ class TargetRecordingGetHandlerTest {
             InputStream stream = new ByteArrayInputStream(src);
             Mockito.when(svc.openStream(Mockito.any(), Mockito.eq(false))).thenReturn(stream);
 
-            // **************Mocking specific to OutputToReadStream***************
+            // **************Mocking specific to DownloadPipeline******************
             Buffer dst = Buffer.buffer(1024 * 1024);
             Mockito.doAnswer(
                             invocation -> {
@@ -138,10 +138,10 @@ class TargetsPostHandlerTest {
         RequestParameters requestParameters = Mockito.mock(RequestParameters.class);
         Mockito.when(requestParameters.getFormAttributes()).thenReturn(attrs);
         Mockito.when(customTargetPlatformClient.addTarget(Mockito.any())).thenReturn(true);
-        Mockito.when(storage.listDiscoverableServices()).thenReturn(List.of());
-
         String connectUrl = "service:jmx:rmi:///jndi/rmi://cryostat:9099/jmxrmi";
         String alias = "TestTarget";
+        Mockito.when(storage.getDiscoverableService(new URI(connectUrl)))
+                .thenReturn(Optional.empty());
         attrs.set("connectUrl", connectUrl);
         attrs.set("alias", alias);
 
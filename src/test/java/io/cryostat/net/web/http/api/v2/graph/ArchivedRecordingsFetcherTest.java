@@ -245,4 +245,41 @@ class ArchivedRecordingsFetcherTest {
                     Matchers.equalTo(recording3.getSize() + recording5.getSize()));
         }
     }
+
+    @Test
+    void shouldReturnRequestedPage() throws Exception {
+        when(env.getGraphQlContext()).thenReturn(graphCtx);
+        when(auth.validateHttpHeader(Mockito.any(), Mockito.any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        ArchivedRecordingInfo recording1 =
+                new ArchivedRecordingInfo("target", "a", "/a", "/a", new Metadata(), 1, 3);
+        ArchivedRecordingInfo recording2 =
+                new ArchivedRecordingInfo("target", "b", "/b", "/b", new Metadata(), 2, 2);
+        ArchivedRecordingInfo recording3 =
+                new ArchivedRecordingInfo("target", "c", "/c", "/c", new Metadata(), 4, 1);
+
+        Recordings source = Mockito.mock(Recordings.class);
+        source.archived = List.of(recording1, recording2, recording3);
+
+        when(env.getSource()).thenReturn(source);
+        when(env.getArgument(ArchivedRecordingsFetcher.SORT_ARGUMENT)).thenReturn("-time");
+        when(env.getArgument(ArchivedRecordingsFetcher.FIRST_ARGUMENT)).thenReturn(2);
+
+        Archived first = fetcher.get(env);
+
+        MatcherAssert.assertThat(first.data, Matchers.contains(recording3, recording2));
+        MatcherAssert.assertThat(first.pageInfo.hasNextPage, Matchers.is(true));
+        MatcherAssert.assertThat(first.aggregate.count, Matchers.equalTo(3L));
+        MatcherAssert.assertThat(first.aggregate.size, Matchers.equalTo(7L));
+
+        when(env.getArgument(ArchivedRecordingsFetcher.AFTER_ARGUMENT))
+                .thenReturn(first.pageInfo.endCursor);
+
+        Archived second = fetcher.get(env);
+
+        MatcherAssert.assertThat(second.data, Matchers.contains(recording1));
+        MatcherAssert.assertThat(second.pageInfo.hasNextPage, Matchers.is(false));
+        MatcherAssert.assertThat(second.pageInfo.endCursor, Matchers.nullValue());
+    }
 }
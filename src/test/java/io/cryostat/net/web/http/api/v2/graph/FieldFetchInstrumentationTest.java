@@ -0,0 +1,130 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import graphql.schema.idl.TypeRuntimeWiring;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class FieldFetchInstrumentationTest {
+
+    static final String EVENT_NAME =
+            "io.cryostat.net.web.http.api.v2.graph.FieldFetchInstrumentation.FieldFetchEvent";
+
+    @TempDir Path tempDir;
+
+    GraphQL graph;
+
+    @BeforeEach
+    void setup() {
+        RuntimeWiring wiring =
+                RuntimeWiring.newRuntimeWiring()
+                        .type(
+                                TypeRuntimeWiring.newTypeWiring("Query")
+                                        .dataFetcher(
+                                                "environmentNodes",
+                                                env -> List.of(Map.of("name", "JDP"))))
+                        .type(
+                                TypeRuntimeWiring.newTypeWiring("Query")
+                                        .dataFetcher(
+                                                "targetNodes",
+                                                env -> {
+                                                    throw new IllegalStateException();
+                                                }))
+                        .build();
+        this.graph =
+                GraphQL.newGraphQL(
+                                new SchemaGenerator()
+                                        .makeExecutableSchema(
+                                                new SchemaParser()
+                                                        .parse(QueryCostCalculatorTest.SCHEMA),
+                                                wiring))
+                        .instrumentation(new FieldFetchInstrumentation())
+                        .build();
+    }
+
+    @Test
+    void shouldRecordNonTrivialFieldFetches() throws Exception {
+        List<RecordedEvent> events = record("{ environmentNodes { name } }");
+
+        MatcherAssert.assertThat(events, Matchers.hasSize(1));
+        RecordedEvent event = events.get(0);
+        MatcherAssert.assertThat(event.getString("type"), Matchers.equalTo("Query"));
+        MatcherAssert.assertThat(event.getString("field"), Matchers.equalTo("environmentNodes"));
+        MatcherAssert.assertThat(event.getString("path"), Matchers.equalTo("/environmentNodes"));
+        MatcherAssert.assertThat(event.getBoolean("failed"), Matchers.is(false));
+    }
+
+    @Test
+    void shouldRecordFailedFieldFetches() throws Exception {
+        List<RecordedEvent> events = record("{ targetNodes { name } }");
+
+        MatcherAssert.assertThat(events, Matchers.hasSize(1));
+        MatcherAssert.assertThat(events.get(0).getString("field"), Matchers.equalTo("targetNodes"));
+        MatcherAssert.assertThat(events.get(0).getBoolean("failed"), Matchers.is(true));
+    }
+
+    private List<RecordedEvent> record(String query) throws Exception {
+        Path file = tempDir.resolve("fields.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT_NAME);
+            recording.start();
+            graph.execute(query);
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(e -> EVENT_NAME.equals(e.getEventType().getName()))
+                .collect(Collectors.toList());
+    }
+}
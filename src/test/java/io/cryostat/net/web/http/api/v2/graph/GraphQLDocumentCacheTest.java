@@ -0,0 +1,156 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import graphql.parser.Parser;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GraphQLDocumentCacheTest {
+
+    static final String QUERY = "query { targetNodes { name } }";
+
+    GraphQLDocumentCache cache;
+    AtomicInteger parseCount;
+    Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate;
+
+    @BeforeEach
+    void setup() {
+        this.cache = new GraphQLDocumentCache(10);
+        this.parseCount = new AtomicInteger();
+        this.parseAndValidate =
+                input -> {
+                    parseCount.incrementAndGet();
+                    return new PreparsedDocumentEntry(new Parser().parseDocument(input.getQuery()));
+                };
+    }
+
+    @Test
+    void shouldReuseParsedDocuments() {
+        PreparsedDocumentEntry first =
+                cache.getDocument(
+                        ExecutionInput.newExecutionInput(QUERY).build(), parseAndValidate);
+        PreparsedDocumentEntry second =
+                cache.getDocument(
+                        ExecutionInput.newExecutionInput(QUERY)
+                                .variables(Map.of("foo", "bar"))
+                                .build(),
+                        parseAndValidate);
+
+        MatcherAssert.assertThat(second, Matchers.sameInstance(first));
+        MatcherAssert.assertThat(parseCount.get(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void shouldParseDifferentQueriesSeparately() {
+        cache.getDocument(ExecutionInput.newExecutionInput(QUERY).build(), parseAndValidate);
+        cache.getDocument(
+                ExecutionInput.newExecutionInput("query { environmentNodes { name } }").build(),
+                parseAndValidate);
+
+        MatcherAssert.assertThat(parseCount.get(), Matchers.equalTo(2));
+    }
+
+    @Test
+    void shouldReportUnknownPersistedQuery() {
+        PreparsedDocumentEntry entry =
+                cache.getDocument(
+                        persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hash(QUERY)),
+                        parseAndValidate);
+
+        MatcherAssert.assertThat(entry.hasErrors(), Matchers.is(true));
+        MatcherAssert.assertThat(
+                entry.getErrors().get(0).getMessage(), Matchers.equalTo("PersistedQueryNotFound"));
+        MatcherAssert.assertThat(parseCount.get(), Matchers.equalTo(0));
+    }
+
+    @Test
+    void shouldServePersistedQueryByHash() {
+        PreparsedDocumentEntry registered =
+                cache.getDocument(persisted(QUERY, hash(QUERY)), parseAndValidate);
+        PreparsedDocumentEntry retrieved =
+                cache.getDocument(
+                        persisted(PersistedQuerySupport.PERSISTED_QUERY_MARKER, hash(QUERY)),
+                        parseAndValidate);
+
+        MatcherAssert.assertThat(registered.hasErrors(), Matchers.is(false));
+        MatcherAssert.assertThat(retrieved, Matchers.sameInstance(registered));
+        MatcherAssert.assertThat(parseCount.get(), Matchers.equalTo(1));
+    }
+
+    @Test
+    void shouldRejectPersistedQueryWithWrongHash() {
+        PreparsedDocumentEntry entry =
+                cache.getDocument(persisted(QUERY, hash("query { foo }")), parseAndValidate);
+
+        MatcherAssert.assertThat(entry.hasErrors(), Matchers.is(true));
+        MatcherAssert.assertThat(
+                entry.getErrors().get(0).getMessage(), Matchers.equalTo("PersistedQueryIdInvalid"));
+        MatcherAssert.assertThat(parseCount.get(), Matchers.equalTo(0));
+
+        // the mismatched query must not have been registered under the hash
+        PreparsedDocumentEntry retry =
+                cache.getDocument(
+                        persisted(
+                                PersistedQuerySupport.PERSISTED_QUERY_MARKER,
+                                hash("query { foo }")),
+                        parseAndValidate);
+        MatcherAssert.assertThat(
+                retry.getErrors().get(0).getMessage(), Matchers.equalTo("PersistedQueryNotFound"));
+    }
+
+    private static ExecutionInput persisted(String query, String hash) {
+        return ExecutionInput.newExecutionInput(query)
+                .extensions(Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", hash)))
+                .build();
+    }
+
+    private static String hash(String query) {
+        return DigestUtils.sha256Hex(query);
+    }
+}
@@ -41,6 +41,8 @@ import static org.mockito.Mockito.when;
 
 import java.util.concurrent.CompletableFuture;
 
+import javax.inject.Provider;
+
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.web.http.api.ApiVersion;
@@ -49,6 +51,7 @@ import io.cryostat.net.web.http.api.v2.ApiException;
 import graphql.GraphQL;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.ext.web.RoutingContext;
+import org.dataloader.DataLoaderRegistry;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
@@ -65,11 +68,12 @@ class GraphQLGetHandlerTest {
     GraphQLGetHandler handler;
 
     @Mock GraphQL graph;
+    @Mock Provider<DataLoaderRegistry> dataLoaders;
     @Mock AuthManager auth;
 
     @BeforeEach
     void setup() {
-        this.handler = new GraphQLGetHandler(graph, auth);
+        this.handler = new GraphQLGetHandler(graph, dataLoaders, auth);
     }
 
     @Nested
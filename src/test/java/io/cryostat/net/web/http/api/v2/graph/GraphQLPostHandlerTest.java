@@ -39,16 +39,25 @@ package io.cryostat.net.web.http.api.v2.graph;
 
 import static org.mockito.Mockito.when;
 
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
+import javax.inject.Provider;
+
 import io.cryostat.net.AuthManager;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.web.http.api.ApiVersion;
 import io.cryostat.net.web.http.api.v2.ApiException;
 
 import graphql.GraphQL;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerRequest;
 import io.vertx.ext.web.RoutingContext;
+import org.dataloader.DataLoaderRegistry;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
@@ -56,6 +65,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -65,11 +75,12 @@ class GraphQLPostHandlerTest {
     GraphQLPostHandler handler;
 
     @Mock GraphQL graph;
+    @Mock Provider<DataLoaderRegistry> dataLoaders;
     @Mock AuthManager auth;
 
     @BeforeEach
     void setup() {
-        this.handler = new GraphQLPostHandler(graph, auth);
+        this.handler = new GraphQLPostHandler(graph, dataLoaders, auth);
     }
 
     @Nested
@@ -115,4 +126,93 @@ class GraphQLPostHandlerTest {
             MatcherAssert.assertThat(ex.getStatusCode(), Matchers.equalTo(401));
         }
     }
+
+    @Nested
+    class Extensions {
+        @Mock RoutingContext ctx;
+        @Mock HttpServerRequest req;
+
+        @BeforeEach
+        void setup() {
+            when(ctx.request()).thenReturn(req);
+        }
+
+        @Test
+        void shouldPassPersistedQueryHashFromBody() {
+            when(req.method()).thenReturn(HttpMethod.POST);
+            when(req.getHeader(HttpHeaders.CONTENT_TYPE)).thenReturn("application/json");
+            when(ctx.getBody())
+                    .thenReturn(
+                            Buffer.buffer(
+                                    "{\"extensions\":{\"persistedQuery\":{\"version\":1,"
+                                            + "\"sha256Hash\":\"abc\"}}}"));
+
+            handler.readExtensions(ctx);
+
+            Mockito.verify(ctx)
+                    .put(
+                            GraphQLPostHandler.EXTENSIONS,
+                            Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", "abc")));
+            ArgumentCaptor<Buffer> body = ArgumentCaptor.forClass(Buffer.class);
+            Mockito.verify(ctx).setBody(body.capture());
+            MatcherAssert.assertThat(
+                    body.getValue().toJsonObject().getString("query"),
+                    Matchers.equalTo(PersistedQuerySupport.PERSISTED_QUERY_MARKER));
+        }
+
+        @Test
+        void shouldNotReplaceQueryTextInBody() {
+            when(req.method()).thenReturn(HttpMethod.POST);
+            when(ctx.getBody())
+                    .thenReturn(
+                            Buffer.buffer(
+                                    "{\"query\":\"{ targetNodes { name } }\",\"extensions\":{}}"));
+
+            handler.readExtensions(ctx);
+
+            Mockito.verify(ctx).put(GraphQLPostHandler.EXTENSIONS, Map.of());
+            Mockito.verify(ctx, Mockito.never()).setBody(Mockito.any());
+        }
+
+        @Test
+        void shouldIgnoreRequestsWithoutExtensions() {
+            when(req.method()).thenReturn(HttpMethod.POST);
+            when(req.getHeader(HttpHeaders.CONTENT_TYPE)).thenReturn("application/graphql");
+
+            handler.readExtensions(ctx);
+
+            Mockito.verify(ctx, Mockito.never()).put(Mockito.any(), Mockito.any());
+            Mockito.verify(ctx, Mockito.never()).setBody(Mockito.any());
+        }
+
+        @Test
+        void shouldPassPersistedQueryHashFromQueryParams() {
+            MultiMap params = MultiMap.caseInsensitiveMultiMap();
+            params.set("extensions", "{\"persistedQuery\":{\"version\":1,\"sha256Hash\":\"abc\"}}");
+            when(req.method()).thenReturn(HttpMethod.GET);
+            when(ctx.queryParams()).thenReturn(params);
+
+            handler.readExtensions(ctx);
+
+            Mockito.verify(ctx)
+                    .put(
+                            GraphQLPostHandler.EXTENSIONS,
+                            Map.of("persistedQuery", Map.of("version", 1, "sha256Hash", "abc")));
+            MatcherAssert.assertThat(
+                    params.get("query"),
+                    Matchers.equalTo(PersistedQuerySupport.PERSISTED_QUERY_MARKER));
+        }
+
+        @Test
+        void shouldRespond400OnMalformedExtensions() {
+            MultiMap params = MultiMap.caseInsensitiveMultiMap();
+            params.set("extensions", "{");
+            when(req.method()).thenReturn(HttpMethod.GET);
+            when(ctx.queryParams()).thenReturn(params);
+
+            ApiException ex =
+                    Assertions.assertThrows(ApiException.class, () -> handler.readExtensions(ctx));
+            MatcherAssert.assertThat(ex.getStatusCode(), Matchers.equalTo(400));
+        }
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import graphql.GraphQL;
+import graphql.analysis.MaxQueryComplexityInstrumentation;
+import graphql.schema.GraphQLSchema;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryCostCalculatorTest {
+
+    static final String SCHEMA =
+            String.join(
+                    " ",
+                    "type Query { targetNodes: [TargetNode] environmentNodes: [EnvironmentNode] }",
+                    "type EnvironmentNode { name: String descendantTargets: [TargetNode] }",
+                    "type TargetNode { name: String recordings: Recordings doSnapshot: String }",
+                    "type Recordings { active: [String] archived: [String] }");
+
+    GraphQLSchema schema;
+
+    @BeforeEach
+    void setup() {
+        this.schema =
+                new SchemaGenerator()
+                        .makeExecutableSchema(
+                                new SchemaParser().parse(SCHEMA),
+                                RuntimeWiring.newRuntimeWiring().build());
+    }
+
+    @Test
+    void shouldCountOrdinaryFieldsOnce() {
+        MatcherAssert.assertThat(cost("{ environmentNodes { name } }"), Matchers.equalTo(2));
+    }
+
+    @Test
+    void shouldMultiplySelectionsOnTargetLists() {
+        MatcherAssert.assertThat(cost("{ targetNodes { name } }"), Matchers.equalTo(11));
+        MatcherAssert.assertThat(
+                cost("{ targetNodes { recordings { archived } } }"), Matchers.equalTo(21));
+    }
+
+    @Test
+    void shouldWeightTargetConnections() {
+        MatcherAssert.assertThat(
+                cost("{ targetNodes { recordings { active } } }"), Matchers.equalTo(111));
+        MatcherAssert.assertThat(cost("{ targetNodes { doSnapshot } }"), Matchers.equalTo(101));
+    }
+
+    @Test
+    void shouldWeightDescendantTargets() {
+        MatcherAssert.assertThat(
+                cost("{ environmentNodes { descendantTargets { recordings { active } } } }"),
+                Matchers.equalTo(112));
+    }
+
+    private int cost(String query) {
+        AtomicInteger cost = new AtomicInteger(-1);
+        GraphQL graph =
+                GraphQL.newGraphQL(schema)
+                        .instrumentation(
+                                new MaxQueryComplexityInstrumentation(
+                                        0,
+                                        new QueryCostCalculator(),
+                                        info -> {
+                                            cost.set(info.getComplexity());
+                                            return false;
+                                        }))
+                        .build();
+        graph.execute(query);
+        return cost.get();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph;
+
+import java.util.Map;
+
+import graphql.ExecutionInput;
+import graphql.ExecutionResult;
+import graphql.GraphQL;
+import graphql.schema.idl.RuntimeWiring;
+import graphql.schema.idl.SchemaGenerator;
+import graphql.schema.idl.SchemaParser;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class QueryLimitsInstrumentationTest {
+
+    static final String EXPENSIVE_QUERY = "{ targetNodes { recordings { active } } }";
+
+    GraphQL graph;
+
+    @BeforeEach
+    void setup() {
+        this.graph =
+                GraphQL.newGraphQL(
+                                new SchemaGenerator()
+                                        .makeExecutableSchema(
+                                                new SchemaParser()
+                                                        .parse(QueryCostCalculatorTest.SCHEMA),
+                                                RuntimeWiring.newRuntimeWiring().build()))
+                        .preparsedDocumentProvider(new GraphQLDocumentCache(10))
+                        .instrumentation(new QueryLimitsInstrumentation(3, 50))
+                        .build();
+    }
+
+    @Test
+    void shouldExecuteQueriesWithinLimits() {
+        ExecutionResult result = graph.execute("{ targetNodes { recordings { archived } } }");
+
+        MatcherAssert.assertThat(result.getErrors(), Matchers.empty());
+    }
+
+    @Test
+    void shouldRejectExpensiveQueries() {
+        ExecutionResult result = graph.execute(EXPENSIVE_QUERY);
+
+        MatcherAssert.assertThat(result.getErrors(), Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+                result.getErrors().get(0).getMessage(),
+                Matchers.containsString("maximum query complexity exceeded"));
+    }
+
+    @Test
+    void shouldRejectDeepQueries() {
+        ExecutionResult result =
+                graph.execute(
+                        "{ environmentNodes { descendantTargets { recordings { archived } } } }");
+
+        MatcherAssert.assertThat(result.getErrors(), Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+                result.getErrors().get(0).getMessage(),
+                Matchers.containsString("maximum query depth exceeded"));
+    }
+
+    @Test
+    void shouldRejectCachedQueriesEveryTime() {
+        graph.execute(EXPENSIVE_QUERY);
+        ExecutionResult result = graph.execute(EXPENSIVE_QUERY);
+
+        MatcherAssert.assertThat(result.getErrors(), Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+                result.getErrors().get(0).getMessage(),
+                Matchers.containsString("maximum query complexity exceeded"));
+    }
+
+    @Test
+    void shouldApplyLimitsWithEachExecutionsVariables() {
+        String query =
+                "query Targets($active: Boolean!) { targetNodes { name recordings @include(if:"
+                        + " $active) { active } } }";
+
+        ExecutionResult cheap =
+                graph.execute(
+                        ExecutionInput.newExecutionInput(query)
+                                .variables(Map.of("active", false))
+                                .build());
+        ExecutionResult expensive =
+                graph.execute(
+                        ExecutionInput.newExecutionInput(query)
+                                .variables(Map.of("active", true))
+                                .build());
+
+        MatcherAssert.assertThat(cheap.getErrors(), Matchers.empty());
+        MatcherAssert.assertThat(expensive.getErrors(), Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+                expensive.getErrors().get(0).getMessage(),
+                Matchers.containsString("maximum query complexity exceeded"));
+    }
+}
@@ -41,9 +41,18 @@ import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.inject.Provider;
 
@@ -56,6 +65,8 @@ import io.cryostat.net.TargetConnectionManager.ConnectedTask;
 import io.cryostat.net.security.ResourceAction;
 import io.cryostat.net.web.WebServer;
 import io.cryostat.net.web.http.api.v2.graph.RecordingsFetcher.Recordings;
+import io.cryostat.net.web.http.api.v2.graph.RecordingsFetcher.RecordingsKey;
+import io.cryostat.net.web.http.api.v2.graph.RecordingsFetcher.TargetRecordings;
 import io.cryostat.platform.ServiceRef;
 import io.cryostat.platform.discovery.TargetNode;
 import io.cryostat.recordings.RecordingArchiveHelper;
@@ -63,12 +74,19 @@ import io.cryostat.recordings.RecordingMetadataManager;
 import io.cryostat.rules.ArchivedRecordingInfo;
 
 import graphql.GraphQLContext;
+import graphql.execution.DataFetcherResult;
+import graphql.execution.ExecutionStepInfo;
+import graphql.execution.ResultPath;
+import graphql.language.Field;
+import graphql.language.SourceLocation;
 import graphql.schema.DataFetchingEnvironment;
 import graphql.schema.DataFetchingFieldSelectionSet;
 import graphql.schema.SelectedField;
 import io.vertx.ext.web.RoutingContext;
+import org.dataloader.DataLoader;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -86,6 +104,7 @@ class RecordingsFetcherTest {
     static final SelectedField archived = Mockito.mock(SelectedField.class);
 
     RecordingsFetcher fetcher;
+    ExecutorService executor;
 
     @Mock AuthManager auth;
     @Mock TargetConnectionManager targetConnectionManager;
@@ -109,6 +128,7 @@ class RecordingsFetcherTest {
 
     @BeforeEach
     void setup() {
+        this.executor = Executors.newFixedThreadPool(4);
         this.fetcher =
                 new RecordingsFetcher(
                         auth,
@@ -117,9 +137,16 @@ class RecordingsFetcherTest {
                         credentialsManager,
                         metadataManager,
                         webServer,
+                        executor,
+                        2,
                         logger);
     }
 
+    @AfterEach
+    void teardown() {
+        executor.shutdownNow();
+    }
+
     @Test
     void shouldHaveExpectedRequiredPermissions() {
         MatcherAssert.assertThat(
@@ -149,7 +176,7 @@ class RecordingsFetcherTest {
         when(source.getTarget()).thenReturn(target);
         when(target.getServiceUri()).thenReturn(EXAMPLE_URI);
 
-        Recordings recordings = fetcher.get(env);
+        Recordings recordings = fetcher.get(env).get().getData();
 
         MatcherAssert.assertThat(recordings, Matchers.notNullValue());
         // should be null ?
@@ -184,13 +211,45 @@ class RecordingsFetcherTest {
         when(archiveHelper.getRecordings(Mockito.any())).thenReturn(archivedFuture);
         when(archivedFuture.get()).thenReturn(List.of());
 
-        Recordings recordings = fetcher.get(env);
+        Recordings recordings = fetcher.get(env).get().getData();
 
         MatcherAssert.assertThat(recordings, Matchers.notNullValue());
         MatcherAssert.assertThat(recordings.active, Matchers.empty());
         MatcherAssert.assertThat(recordings.archived, Matchers.empty());
     }
 
+    @Test
+    void shouldNotConnectWhenNoRecordingLabelsMatch() throws Exception {
+        when(env.getGraphQlContext()).thenReturn(graphCtx);
+        when(auth.validateHttpHeader(Mockito.any(), Mockito.any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        TargetNode source = Mockito.mock(TargetNode.class);
+        ServiceRef target = Mockito.mock(ServiceRef.class);
+        DataFetchingFieldSelectionSet selectionSet =
+                Mockito.mock(DataFetchingFieldSelectionSet.class);
+        SelectedField filteredActive = Mockito.mock(SelectedField.class);
+
+        when(env.getSource()).thenReturn(source);
+        when(env.getSelectionSet()).thenReturn(selectionSet);
+        when(selectionSet.getFields()).thenReturn(List.of(filteredActive));
+        when(filteredActive.getName()).thenReturn("active");
+        when(filteredActive.getArguments())
+                .thenReturn(Map.of("filter", Map.of("labels", List.of("env=prod"))));
+
+        when(source.getTarget()).thenReturn(target);
+        when(target.getServiceUri()).thenReturn(EXAMPLE_URI);
+
+        when(metadataManager.findRecordingNames(Mockito.eq(URI_STRING), Mockito.anyCollection()))
+                .thenReturn(Optional.of(Set.of()));
+
+        Recordings recordings = fetcher.get(env).get().getData();
+
+        MatcherAssert.assertThat(recordings.active, Matchers.empty());
+        Mockito.verifyNoInteractions(targetConnectionManager);
+        Mockito.verifyNoInteractions(credentialsManager);
+    }
+
     @Test
     void shouldReturnActiveRecording() throws Exception {
         when(env.getGraphQlContext()).thenReturn(graphCtx);
@@ -218,7 +277,7 @@ class RecordingsFetcherTest {
         lenient().when(archiveHelper.getRecordings(Mockito.any())).thenReturn(archivedFuture);
         lenient().when(archivedFuture.get()).thenReturn(List.of(archivedRecording));
 
-        Recordings recordings = fetcher.get(env);
+        Recordings recordings = fetcher.get(env).get().getData();
 
         MatcherAssert.assertThat(recordings, Matchers.notNullValue());
         MatcherAssert.assertThat(recordings.active, Matchers.contains(activeRecording));
@@ -255,7 +314,7 @@ class RecordingsFetcherTest {
         when(archiveHelper.getRecordings(Mockito.any())).thenReturn(archivedFuture);
         when(archivedFuture.get()).thenReturn(List.of(archivedRecording));
 
-        Recordings recordings = fetcher.get(env);
+        Recordings recordings = fetcher.get(env).get().getData();
 
         MatcherAssert.assertThat(recordings, Matchers.notNullValue());
         MatcherAssert.assertThat(recordings.active, Matchers.nullValue());
@@ -294,7 +353,7 @@ class RecordingsFetcherTest {
         when(archivedFuture.get())
                 .thenReturn(List.of(archivedRecording1, archivedRecording2, archivedRecording3));
 
-        Recordings recordings = fetcher.get(env);
+        Recordings recordings = fetcher.get(env).get().getData();
 
         MatcherAssert.assertThat(recordings, Matchers.notNullValue());
         MatcherAssert.assertThat(
@@ -305,4 +364,183 @@ class RecordingsFetcherTest {
                 Matchers.containsInAnyOrder(
                         archivedRecording1, archivedRecording2, archivedRecording3));
     }
+
+    @Test
+    void shouldReturnPartialResultsWhenTargetFails() throws Exception {
+        when(env.getGraphQlContext()).thenReturn(graphCtx);
+        when(auth.validateHttpHeader(Mockito.any(), Mockito.any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        TargetNode source = Mockito.mock(TargetNode.class);
+        ServiceRef target = Mockito.mock(ServiceRef.class);
+        DataFetchingFieldSelectionSet selectionSet =
+                Mockito.mock(DataFetchingFieldSelectionSet.class);
+        ExecutionStepInfo stepInfo = Mockito.mock(ExecutionStepInfo.class);
+
+        when(env.getSource()).thenReturn(source);
+        when(env.getSelectionSet()).thenReturn(selectionSet);
+        when(env.getField())
+                .thenReturn(
+                        Field.newField("recordings")
+                                .sourceLocation(new SourceLocation(1, 1))
+                                .build());
+        when(env.getExecutionStepInfo()).thenReturn(stepInfo);
+        when(stepInfo.getPath()).thenReturn(ResultPath.rootPath().segment("recordings"));
+        when(selectionSet.getFields()).thenReturn(List.of(active, archived));
+
+        when(source.getTarget()).thenReturn(target);
+        when(target.getServiceUri()).thenReturn(EXAMPLE_URI);
+
+        when(targetConnectionManager.executeConnectedTask(
+                        Mockito.any(ConnectionDescriptor.class), Mockito.any(ConnectedTask.class)))
+                .thenThrow(new IllegalStateException("connection refused"));
+
+        ArchivedRecordingInfo archivedRecording = Mockito.mock(ArchivedRecordingInfo.class);
+        when(archiveHelper.getRecordings(Mockito.any())).thenReturn(archivedFuture);
+        when(archivedFuture.get()).thenReturn(List.of(archivedRecording));
+
+        DataFetcherResult<Recordings> result = fetcher.get(env).get();
+
+        MatcherAssert.assertThat(result.getData().active, Matchers.empty());
+        MatcherAssert.assertThat(result.getData().archived, Matchers.contains(archivedRecording));
+        MatcherAssert.assertThat(result.getErrors(), Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+                result.getErrors().get(0).getMessage(),
+                Matchers.allOf(
+                        Matchers.containsString(URI_STRING),
+                        Matchers.containsString("connection refused")));
+        MatcherAssert.assertThat(
+                result.getErrors().get(0).getPath(), Matchers.equalTo(List.of("recordings")));
+    }
+
+    @Test
+    void shouldFetchActiveAndArchivedRecordingsConcurrently() throws Exception {
+        ServiceRef target = Mockito.mock(ServiceRef.class);
+        when(target.getServiceUri()).thenReturn(EXAMPLE_URI);
+
+        CountDownLatch latch = new CountDownLatch(2);
+        GraphRecordingDescriptor activeRecording = Mockito.mock(GraphRecordingDescriptor.class);
+        when(targetConnectionManager.executeConnectedTask(
+                        Mockito.any(ConnectionDescriptor.class), Mockito.any(ConnectedTask.class)))
+                .thenAnswer(
+                        invocation -> {
+                            latch.countDown();
+                            return latch.await(5, TimeUnit.SECONDS)
+                                    ? List.of(activeRecording)
+                                    : List.of();
+                        });
+        ArchivedRecordingInfo archivedRecording = Mockito.mock(ArchivedRecordingInfo.class);
+        when(archiveHelper.getRecordings(Mockito.any())).thenReturn(archivedFuture);
+        when(archivedFuture.get())
+                .thenAnswer(
+                        invocation -> {
+                            latch.countDown();
+                            return latch.await(5, TimeUnit.SECONDS)
+                                    ? List.of(archivedRecording)
+                                    : List.of();
+                        });
+
+        TargetRecordings result = fetcher.load(new RecordingsKey(target, true, true, null)).get();
+
+        MatcherAssert.assertThat(result.recordings.active, Matchers.contains(activeRecording));
+        MatcherAssert.assertThat(result.recordings.archived, Matchers.contains(archivedRecording));
+        MatcherAssert.assertThat(result.errors, Matchers.empty());
+    }
+
+    @Test
+    void shouldBatchTargetsWithBoundedParallelism() throws Exception {
+        List<GraphRecordingDescriptor> recordings = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            recordings.add(Mockito.mock(GraphRecordingDescriptor.class));
+        }
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(targetConnectionManager.executeConnectedTask(
+                        Mockito.any(ConnectionDescriptor.class), Mockito.any(ConnectedTask.class)))
+                .thenAnswer(
+                        invocation -> {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            Thread.sleep(50);
+                            running.decrementAndGet();
+                            ConnectionDescriptor cd = invocation.getArgument(0);
+                            int i =
+                                    Integer.parseInt(
+                                            cd.getTargetId().substring("target-".length()));
+                            return List.of(recordings.get(i));
+                        });
+
+        DataLoader<RecordingsKey, TargetRecordings> loader = fetcher.newDataLoader();
+        List<CompletableFuture<TargetRecordings>> results = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            ServiceRef target = Mockito.mock(ServiceRef.class);
+            when(target.getServiceUri()).thenReturn(URI.create("target-" + i));
+            results.add(loader.load(new RecordingsKey(target, true, false, null)));
+        }
+        loader.dispatch();
+
+        List<GraphRecordingDescriptor> loaded =
+                results.stream()
+                        .map(CompletableFuture::join)
+                        .flatMap(r -> r.recordings.active.stream())
+                        .collect(Collectors.toList());
+
+        MatcherAssert.assertThat(loaded, Matchers.equalTo(recordings));
+        MatcherAssert.assertThat(maxRunning.get(), Matchers.equalTo(2));
+        Mockito.verifyNoInteractions(archiveHelper);
+    }
+
+    @Test
+    void shouldShareParallelismBetweenBatchesOfOneQuery() throws Exception {
+        AtomicInteger maxRunning = givenSlowTargets();
+
+        DataLoader<RecordingsKey, TargetRecordings> loader = fetcher.newDataLoader();
+        List<CompletableFuture<TargetRecordings>> results = new ArrayList<>();
+        for (int batch = 0; batch < 2; batch++) {
+            for (int i = 0; i < 3; i++) {
+                results.add(loader.load(slowTargetKey(batch * 3 + i)));
+            }
+            loader.dispatch();
+        }
+        results.forEach(CompletableFuture::join);
+
+        MatcherAssert.assertThat(maxRunning.get(), Matchers.equalTo(2));
+    }
+
+    @Test
+    void shouldLimitParallelismOfEachQuerySeparately() throws Exception {
+        AtomicInteger maxRunning = givenSlowTargets();
+
+        List<CompletableFuture<TargetRecordings>> results = new ArrayList<>();
+        for (int query = 0; query < 2; query++) {
+            DataLoader<RecordingsKey, TargetRecordings> loader = fetcher.newDataLoader();
+            for (int i = 0; i < 3; i++) {
+                results.add(loader.load(slowTargetKey(query * 3 + i)));
+            }
+            loader.dispatch();
+        }
+        results.forEach(CompletableFuture::join);
+
+        MatcherAssert.assertThat(maxRunning.get(), Matchers.equalTo(4));
+    }
+
+    AtomicInteger givenSlowTargets() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(targetConnectionManager.executeConnectedTask(
+                        Mockito.any(ConnectionDescriptor.class), Mockito.any(ConnectedTask.class)))
+                .thenAnswer(
+                        invocation -> {
+                            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                            Thread.sleep(100);
+                            running.decrementAndGet();
+                            return List.of();
+                        });
+        return maxRunning;
+    }
+
+    RecordingsKey slowTargetKey(int i) {
+        ServiceRef target = Mockito.mock(ServiceRef.class);
+        when(target.getServiceUri()).thenReturn(URI.create("target-" + i));
+        return new RecordingsKey(target, true, false, null);
+    }
 }
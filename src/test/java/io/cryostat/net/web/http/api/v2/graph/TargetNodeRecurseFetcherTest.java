@@ -94,7 +94,7 @@ class TargetNodeRecurseFetcherTest {
 
     @BeforeEach
     void setup() {
-        this.fetcher = new TargetNodeRecurseFetcher(auth);
+        this.fetcher = new TargetNodeRecurseFetcher(auth, new TargetAnnotationIndex());
     }
 
     @Test
@@ -84,7 +84,9 @@ class TargetNodesFetcherTest {
 
     @BeforeEach
     void setup() {
-        this.fetcher = new TargetNodesFetcher(auth, rootNodeFetcher, recurseFetcher);
+        this.fetcher =
+                new TargetNodesFetcher(
+                        auth, rootNodeFetcher, recurseFetcher, new TargetAnnotationIndex());
     }
 
     @Test
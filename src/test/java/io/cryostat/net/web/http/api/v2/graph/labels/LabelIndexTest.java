@@ -0,0 +1,131 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.net.web.http.api.v2.graph.labels;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class LabelIndexTest {
+
+    private static final Map<String, Map<String, String>> OBJECTS =
+            Map.of(
+                    "a", Map.of("env", "prod", "tier", "frontend"),
+                    "b", Map.of("env", "qa", "tier", "backend"),
+                    "c", Map.of("env", "prod", "tier", "backend", "canary", ""),
+                    "d", Map.of("team", "core"),
+                    "e", Map.of());
+
+    LabelIndex<String> index;
+
+    @BeforeEach
+    void setup() {
+        this.index = new LabelIndex<>();
+        OBJECTS.forEach(index::put);
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "env=prod",
+                "env==qa",
+                "env!=prod",
+                "canary=",
+                "canary!=",
+                "missing=value",
+                "missing!=value",
+                "env in (prod, qa)",
+                "tier In (backend)",
+                "env notin (prod)",
+                "missing notin (x)",
+                "team",
+                "!team",
+                "missing",
+                "!missing",
+            })
+    void shouldSelectSameObjectsAsMatcher(String selector) {
+        LabelSelectorMatcher matcher = LabelSelectorMatcher.parse(selector);
+        Set<String> expected =
+                OBJECTS.entrySet().stream()
+                        .filter(e -> matcher.test(e.getValue()))
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toSet());
+
+        MatcherAssert.assertThat(selector, matcher.select(index), Matchers.equalTo(expected));
+    }
+
+    @Test
+    void shouldReindexReplacedLabels() {
+        index.put("a", Map.of("env", "qa"));
+
+        MatcherAssert.assertThat(index.get("env", "prod"), Matchers.equalTo(Set.of("c")));
+        MatcherAssert.assertThat(index.get("env", "qa"), Matchers.equalTo(Set.of("a", "b")));
+        MatcherAssert.assertThat(index.get("tier"), Matchers.equalTo(Set.of("b", "c")));
+    }
+
+    @Test
+    void shouldUnindexRemovedObjects() {
+        index.remove("c");
+        index.remove("d");
+
+        MatcherAssert.assertThat(index.contains("c"), Matchers.is(false));
+        MatcherAssert.assertThat(index.all(), Matchers.equalTo(Set.of("a", "b", "e")));
+        MatcherAssert.assertThat(index.get("canary"), Matchers.empty());
+        MatcherAssert.assertThat(index.get("team", "core"), Matchers.empty());
+    }
+
+    @Test
+    void shouldReportWhetherUnlabelledObjectsMatch() {
+        MatcherAssert.assertThat(
+                LabelSelectorMatcher.parse("env=prod").matchesUnlabelled(), Matchers.is(false));
+        MatcherAssert.assertThat(
+                LabelSelectorMatcher.parse("env!=prod").matchesUnlabelled(), Matchers.is(true));
+        MatcherAssert.assertThat(
+                LabelSelectorMatcher.parse("!team").matchesUnlabelled(), Matchers.is(true));
+    }
+}
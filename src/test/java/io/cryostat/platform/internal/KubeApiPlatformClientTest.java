@@ -38,17 +38,20 @@
 package io.cryostat.platform.internal;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import javax.management.remote.JMXServiceURL;
 
+import io.cryostat.configuration.Variables;
 import io.cryostat.core.log.Logger;
 import io.cryostat.core.net.JFRConnectionToolkit;
 import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
@@ -66,9 +69,13 @@ import io.fabric8.kubernetes.api.model.EndpointAddressBuilder;
 import io.fabric8.kubernetes.api.model.EndpointPortBuilder;
 import io.fabric8.kubernetes.api.model.Endpoints;
 import io.fabric8.kubernetes.api.model.EndpointsBuilder;
+import io.fabric8.kubernetes.api.model.PodBuilder;
+import io.fabric8.kubernetes.api.model.apps.DeploymentBuilder;
+import io.fabric8.kubernetes.api.model.apps.ReplicaSetBuilder;
 import io.fabric8.kubernetes.client.KubernetesClient;
 import io.fabric8.kubernetes.client.server.mock.EnableKubernetesMockClient;
 import io.fabric8.kubernetes.client.server.mock.KubernetesMockServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.hamcrest.Matcher;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
@@ -97,7 +104,8 @@ class KubeApiPlatformClientTest {
     @BeforeEach
     void setup() throws Exception {
         this.platformClient =
-                new KubeApiPlatformClient(NAMESPACE, k8sClient, () -> connectionToolkit, logger);
+                new KubeApiPlatformClient(
+                        List.of(NAMESPACE), k8sClient, () -> connectionToolkit, logger);
     }
 
     @Test
@@ -451,6 +459,231 @@ class KubeApiPlatformClientTest {
         MatcherAssert.assertThat(podB.getChildren(), Matchers.contains(sr2Matcher));
     }
 
+    @Test
+    void shouldReadNamespacesFromEnvironment() {
+        Mockito.when(env.getEnv(Variables.KUBERNETES_NAMESPACES, "")).thenReturn(" foo, bar ,,baz");
+        MatcherAssert.assertThat(
+                KubeApiPlatformClient.getNamespaces(env, NAMESPACE),
+                Matchers.equalTo(Set.of("foo", "bar", "baz")));
+    }
+
+    @Test
+    void shouldDefaultToOwnNamespace() {
+        Mockito.when(env.getEnv(Variables.KUBERNETES_NAMESPACES, "")).thenReturn("");
+        MatcherAssert.assertThat(
+                KubeApiPlatformClient.getNamespaces(env, NAMESPACE),
+                Matchers.equalTo(Set.of(NAMESPACE)));
+    }
+
+    @Test
+    void shouldResolveOwnerChainFromInformerCaches() throws Exception {
+        Mockito.when(connectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        args ->
+                                new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        "/jndi/rmi://"
+                                                + args.getArgument(0)
+                                                + ":"
+                                                + args.getArgument(1)
+                                                + "/jmxrmi"));
+
+        k8sClient
+                .apps()
+                .deployments()
+                .inNamespace(NAMESPACE)
+                .create(
+                        new DeploymentBuilder()
+                                .withNewMetadata()
+                                .withName("deployment1")
+                                .withNamespace(NAMESPACE)
+                                .endMetadata()
+                                .build());
+        k8sClient
+                .apps()
+                .replicaSets()
+                .inNamespace(NAMESPACE)
+                .create(
+                        new ReplicaSetBuilder()
+                                .withNewMetadata()
+                                .withName("replicaset1")
+                                .withNamespace(NAMESPACE)
+                                .addNewOwnerReference()
+                                .withKind("Deployment")
+                                .withName("deployment1")
+                                .endOwnerReference()
+                                .endMetadata()
+                                .build());
+        k8sClient
+                .pods()
+                .inNamespace(NAMESPACE)
+                .create(
+                        new PodBuilder()
+                                .withNewMetadata()
+                                .withName("targetA")
+                                .withNamespace(NAMESPACE)
+                                .withLabels(Map.of("app", "foo"))
+                                .addNewOwnerReference()
+                                .withKind("ReplicaSet")
+                                .withName("replicaset1")
+                                .endOwnerReference()
+                                .endMetadata()
+                                .build());
+        k8sClient
+                .endpoints()
+                .inNamespace(NAMESPACE)
+                .create(
+                        new EndpointsBuilder()
+                                .withNewMetadata()
+                                .withName("endpoints1")
+                                .withNamespace(NAMESPACE)
+                                .endMetadata()
+                                .addNewSubset()
+                                .withAddresses(
+                                        new EndpointAddressBuilder()
+                                                .withIp("127.0.0.2")
+                                                .withNewTargetRef()
+                                                .withName("targetA")
+                                                .withKind("Pod")
+                                                .withNamespace(NAMESPACE)
+                                                .endTargetRef()
+                                                .build())
+                                .withPorts(
+                                        new EndpointPortBuilder()
+                                                .withName("jfr-jmx")
+                                                .withPort(9091)
+                                                .withProtocol("tcp")
+                                                .build())
+                                .endSubset()
+                                .build());
+
+        platformClient.start();
+        drainRequests();
+
+        EnvironmentNode realmNode = platformClient.getDiscoveryTree();
+        platformClient.getDiscoveryTree();
+        List<ServiceRef> services = platformClient.listDiscoverableServices();
+
+        // the owner chain must have been resolved from the informer caches rather than by
+        // retrieving each owner from the API server
+        MatcherAssert.assertThat(
+                drainRequests(), Matchers.everyItem(Matchers.containsString("watch=true")));
+
+        MatcherAssert.assertThat(services, Matchers.hasSize(1));
+        MatcherAssert.assertThat(
+                services.get(0).getLabels(), Matchers.equalTo(Map.of("app", "foo")));
+
+        EnvironmentNode namespaceNode = (EnvironmentNode) realmNode.getChildren().get(0);
+        MatcherAssert.assertThat(namespaceNode.getChildren(), Matchers.hasSize(1));
+        EnvironmentNode deploymentNode = (EnvironmentNode) namespaceNode.getChildren().get(0);
+        MatcherAssert.assertThat(deploymentNode.getName(), Matchers.equalTo("deployment1"));
+        MatcherAssert.assertThat(
+                deploymentNode.getNodeType(), Matchers.equalTo(KubernetesNodeType.DEPLOYMENT));
+        MatcherAssert.assertThat(deploymentNode.getChildren(), Matchers.hasSize(1));
+        EnvironmentNode replicaSetNode = (EnvironmentNode) deploymentNode.getChildren().get(0);
+        MatcherAssert.assertThat(replicaSetNode.getName(), Matchers.equalTo("replicaset1"));
+        MatcherAssert.assertThat(
+                replicaSetNode.getNodeType(), Matchers.equalTo(KubernetesNodeType.REPLICASET));
+        MatcherAssert.assertThat(replicaSetNode.getChildren(), Matchers.hasSize(1));
+        EnvironmentNode podNode = (EnvironmentNode) replicaSetNode.getChildren().get(0);
+        MatcherAssert.assertThat(podNode.getName(), Matchers.equalTo("targetA"));
+        MatcherAssert.assertThat(podNode.getNodeType(), Matchers.equalTo(KubernetesNodeType.POD));
+        MatcherAssert.assertThat(
+                podNode.getChildren(),
+                Matchers.contains(
+                        Matchers.allOf(
+                                Matchers.hasProperty(
+                                        "nodeType", Matchers.equalTo(KubernetesNodeType.ENDPOINT)),
+                                Matchers.hasProperty(
+                                        "target", Matchers.equalTo(services.get(0))))));
+
+        AbstractNode branch = platformClient.getDiscoveryBranch(services.get(0)).get();
+        MatcherAssert.assertThat(branch.getName(), Matchers.equalTo(NAMESPACE));
+        MatcherAssert.assertThat(
+                ((EnvironmentNode) branch).getChildren(),
+                Matchers.contains(Matchers.hasProperty("name", Matchers.equalTo("deployment1"))));
+    }
+
+    @Test
+    void shouldDiscoverAcrossConfiguredNamespaces() throws Exception {
+        Mockito.when(connectionToolkit.createServiceURL(Mockito.anyString(), Mockito.anyInt()))
+                .thenAnswer(
+                        args ->
+                                new JMXServiceURL(
+                                        "rmi",
+                                        "",
+                                        0,
+                                        "/jndi/rmi://"
+                                                + args.getArgument(0)
+                                                + ":"
+                                                + args.getArgument(1)
+                                                + "/jmxrmi"));
+        String otherNamespace = "bar-namespace";
+        for (String ns : List.of(NAMESPACE, otherNamespace)) {
+            k8sClient
+                    .endpoints()
+                    .inNamespace(ns)
+                    .create(
+                            new EndpointsBuilder()
+                                    .withNewMetadata()
+                                    .withName("endpoints1")
+                                    .withNamespace(ns)
+                                    .endMetadata()
+                                    .addNewSubset()
+                                    .withAddresses(
+                                            new EndpointAddressBuilder()
+                                                    .withIp("127.0.0.2")
+                                                    .withNewTargetRef()
+                                                    .withName("target-" + ns)
+                                                    .withKind("Pod")
+                                                    .withNamespace(ns)
+                                                    .endTargetRef()
+                                                    .build())
+                                    .withPorts(
+                                            new EndpointPortBuilder()
+                                                    .withName("jfr-jmx")
+                                                    .withPort(9091)
+                                                    .withProtocol("tcp")
+                                                    .build())
+                                    .endSubset()
+                                    .build());
+        }
+
+        KubeApiPlatformClient client =
+                new KubeApiPlatformClient(
+                        List.of(NAMESPACE, otherNamespace),
+                        k8sClient,
+                        () -> connectionToolkit,
+                        logger);
+        try {
+            client.start();
+
+            MatcherAssert.assertThat(client.listDiscoverableServices(), Matchers.hasSize(2));
+            EnvironmentNode realmNode = client.getDiscoveryTree();
+            MatcherAssert.assertThat(
+                    realmNode.getChildren(),
+                    Matchers.containsInAnyOrder(
+                            Matchers.hasProperty("name", Matchers.equalTo(NAMESPACE)),
+                            Matchers.hasProperty("name", Matchers.equalTo(otherNamespace))));
+            MatcherAssert.assertThat(
+                    realmNode.getChildren(),
+                    Matchers.everyItem(Matchers.hasProperty("children", Matchers.hasSize(1))));
+        } finally {
+            client.stop();
+        }
+    }
+
+    private List<String> drainRequests() throws InterruptedException {
+        List<String> paths = new ArrayList<>();
+        RecordedRequest request;
+        while ((request = server.takeRequest(500, TimeUnit.MILLISECONDS)) != null) {
+            paths.add(request.getPath());
+        }
+        return paths;
+    }
+
     @Test
     public void shouldNotifyOnAsyncAdded() throws Exception {
         CompletableFuture<TargetDiscoveryEvent> eventFuture = new CompletableFuture<>();
@@ -0,0 +1,263 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.recordings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.FileSystem;
+
+import com.google.gson.Gson;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ArchiveCatalogTest {
+
+    @Mock ScheduledExecutorService persistExecutor;
+    @Mock Logger logger;
+    @TempDir Path root;
+    FileSystem fs = new FileSystem();
+    Gson gson = new Gson();
+
+    @BeforeEach
+    void setup() throws Exception {
+        Path target = Files.createDirectory(root.resolve("encodedJvmIdA"));
+        Files.writeString(target.resolve(ArchiveCatalog.CONNECT_URL), "service:jmx:rmi://a\n");
+        Files.writeString(target.resolve("recordingA.jfr"), "12345");
+        Files.writeString(target.resolve(".hidden"), "ignored");
+        Path uploads = Files.createDirectory(root.resolve("uploads"));
+        Files.writeString(uploads.resolve("recordingB.jfr"), "123");
+    }
+
+    ArchiveCatalog createCatalog() {
+        // no watcher thread; changes are observed through refresh()
+        return createCatalog(fs);
+    }
+
+    ArchiveCatalog createCatalog(FileSystem fs) {
+        return new ArchiveCatalog(root, fs, gson, r -> {}, persistExecutor, logger);
+    }
+
+    @Test
+    void shouldIndexExistingArchives() {
+        ArchiveCatalog catalog = createCatalog();
+
+        MatcherAssert.assertThat(catalog.getDirectories(), Matchers.hasSize(2));
+
+        ArchiveCatalog.Directory dir = catalog.getDirectory("encodedJvmIdA").get();
+        MatcherAssert.assertThat(
+                dir.getConnectUrl(), Matchers.equalTo(Optional.of("service:jmx:rmi://a")));
+        MatcherAssert.assertThat(dir.getRecordings(), Matchers.hasSize(1));
+
+        ArchiveCatalog.Entry entry = dir.getRecordings().iterator().next();
+        MatcherAssert.assertThat(entry.getName(), Matchers.equalTo("recordingA.jfr"));
+        MatcherAssert.assertThat(entry.getSize(), Matchers.equalTo(5L));
+        MatcherAssert.assertThat(
+                entry.getPath(),
+                Matchers.equalTo(root.resolve("encodedJvmIdA").resolve("recordingA.jfr")));
+
+        MatcherAssert.assertThat(
+                catalog.getDirectory("uploads").get().getConnectUrl(),
+                Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(
+                catalog.getDirectory("nonexistent"), Matchers.equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldFindRecordingsByName() {
+        ArchiveCatalog catalog = createCatalog();
+
+        MatcherAssert.assertThat(
+                catalog.find("recordingB.jfr").get().getPath(),
+                Matchers.equalTo(root.resolve("uploads").resolve("recordingB.jfr")));
+        MatcherAssert.assertThat(
+                catalog.get("uploads", "recordingB.jfr").get().getSize(), Matchers.equalTo(3L));
+        MatcherAssert.assertThat(
+                catalog.get("encodedJvmIdA", "recordingB.jfr"), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(catalog.find(".hidden"), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(
+                catalog.find(ArchiveCatalog.CONNECT_URL), Matchers.equalTo(Optional.empty()));
+    }
+
+    @Test
+    void refreshShouldTrackWritesAndDeletes() throws Exception {
+        ArchiveCatalog catalog = createCatalog();
+        catalog.start();
+
+        Path created = Files.createDirectory(root.resolve("encodedJvmIdB"));
+        Path recording = created.resolve("recordingC.jfr");
+        Files.writeString(recording, "1234567");
+
+        MatcherAssert.assertThat(
+                catalog.refresh(recording).map(ArchiveCatalog.Entry::getSize),
+                Matchers.equalTo(Optional.of(7L)));
+        MatcherAssert.assertThat(
+                catalog.find("recordingC.jfr").get().getPath(), Matchers.equalTo(recording));
+
+        Files.delete(recording);
+
+        MatcherAssert.assertThat(catalog.refresh(recording), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(
+                catalog.find("recordingC.jfr"), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(
+                catalog.getDirectory("encodedJvmIdB").get().getRecordings(), Matchers.empty());
+    }
+
+    @Test
+    void refreshShouldIgnoreFilesOutsideSubdirectories() throws Exception {
+        ArchiveCatalog catalog = createCatalog();
+        Path file = Files.writeString(root.resolve("stray.jfr"), "1");
+
+        MatcherAssert.assertThat(catalog.refresh(file), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(catalog.find("stray.jfr"), Matchers.equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldRestorePersistedCatalog() throws Exception {
+        ArchiveCatalog catalog = createCatalog();
+        catalog.start();
+        catalog.close();
+
+        MatcherAssert.assertThat(
+                Files.isRegularFile(root.resolve(ArchiveCatalog.CATALOG_FILE_NAME)),
+                Matchers.is(true));
+
+        ArchiveCatalog restored = createCatalog();
+        MatcherAssert.assertThat(restored.getDirectories(), Matchers.hasSize(2));
+        MatcherAssert.assertThat(
+                restored.find("recordingA.jfr").get().getSize(), Matchers.equalTo(5L));
+        MatcherAssert.assertThat(
+                restored.getDirectory("encodedJvmIdA").get().getConnectUrl(),
+                Matchers.equalTo(Optional.of("service:jmx:rmi://a")));
+        restored.close();
+    }
+
+    @Test
+    void shouldValidateRestoredCatalogAgainstFiles() throws Exception {
+        ArchiveCatalog catalog = createCatalog();
+        catalog.start();
+        catalog.close();
+
+        // rewriting a file in place does not update its directory's modification time
+        Path dir = root.resolve("encodedJvmIdA");
+        FileTime dirModified = Files.getLastModifiedTime(dir);
+        Files.writeString(dir.resolve("recordingA.jfr"), "1234567890");
+        Files.writeString(dir.resolve(ArchiveCatalog.CONNECT_URL), "service:jmx:rmi://b\n");
+        Files.delete(root.resolve("uploads").resolve("recordingB.jfr"));
+        Files.writeString(root.resolve("uploads").resolve("recordingE.jfr"), "1");
+        Files.setLastModifiedTime(dir, dirModified);
+
+        ArchiveCatalog restored = createCatalog();
+        MatcherAssert.assertThat(
+                restored.find("recordingA.jfr").get().getSize(), Matchers.equalTo(10L));
+        MatcherAssert.assertThat(
+                restored.getDirectory("encodedJvmIdA").get().getConnectUrl(),
+                Matchers.equalTo(Optional.of("service:jmx:rmi://b")));
+        MatcherAssert.assertThat(
+                restored.find("recordingB.jfr"), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(
+                restored.find("recordingE.jfr").get().getSize(), Matchers.equalTo(1L));
+        restored.close();
+    }
+
+    @Test
+    void shouldRescanIfPersistedCatalogCannotBeRead() throws Exception {
+        ArchiveCatalog catalog = createCatalog();
+        catalog.start();
+        catalog.close();
+
+        FileSystem failingFs = Mockito.spy(fs);
+        Mockito.doThrow(IOException.class)
+                .when(failingFs)
+                .readFile(root.resolve(ArchiveCatalog.CATALOG_FILE_NAME));
+
+        ArchiveCatalog restored = createCatalog(failingFs);
+        MatcherAssert.assertThat(restored.getDirectories(), Matchers.hasSize(2));
+        MatcherAssert.assertThat(
+                restored.find("recordingA.jfr").get().getSize(), Matchers.equalTo(5L));
+        Mockito.verify(logger)
+                .warn(
+                        "Archive catalog {} could not be read, rescanning",
+                        root.resolve(ArchiveCatalog.CATALOG_FILE_NAME));
+    }
+
+    @Test
+    void shouldObserveChangesMadeByOtherProcesses() throws Exception {
+        ExecutorService watcher = Executors.newSingleThreadExecutor();
+        ArchiveCatalog catalog =
+                new ArchiveCatalog(root, fs, gson, watcher, persistExecutor, logger);
+        try {
+            catalog.start();
+
+            Path dir = Files.createDirectory(root.resolve("encodedJvmIdC"));
+            Files.writeString(dir.resolve(ArchiveCatalog.CONNECT_URL), "service:jmx:rmi://c");
+            Files.writeString(dir.resolve("recordingD.jfr"), "12");
+            Files.delete(root.resolve("uploads").resolve("recordingB.jfr"));
+
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (System.nanoTime() < deadline
+                    && (catalog.find("recordingD.jfr").isEmpty()
+                            || catalog.find("recordingB.jfr").isPresent())) {
+                Thread.sleep(50);
+            }
+
+            MatcherAssert.assertThat(
+                    catalog.find("recordingD.jfr").get().getSize(), Matchers.equalTo(2L));
+            MatcherAssert.assertThat(
+                    catalog.find("recordingB.jfr"), Matchers.equalTo(Optional.empty()));
+        } finally {
+            catalog.close();
+            watcher.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.recordings;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import io.cryostat.recordings.RecordingMetadataManager.Metadata;
+import io.cryostat.rules.ArchivedRecordingInfo;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ArchivedRecordingsQueryTest {
+
+    static ArchivedRecordingInfo recording(String target, String name, long size, long time) {
+        return new ArchivedRecordingInfo(
+                target, name, "/download/" + name, "/report/" + name, new Metadata(), size, time);
+    }
+
+    static final List<ArchivedRecordingInfo> RECORDINGS =
+            List.of(
+                    recording("targetA", "c.jfr", 300, 1000),
+                    recording("targetA", "a.jfr", 200, 3000),
+                    recording("targetB", "b.jfr", 200, 2000),
+                    recording("targetB", "a.jfr", 100, 4000));
+
+    static List<String> names(List<ArchivedRecordingInfo> recordings) {
+        return recordings.stream()
+                .map(r -> r.getServiceUri() + "/" + r.getName())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    void shouldSortByNameByDefault() {
+        ArchivedRecordingsQuery query = ArchivedRecordingsQuery.parse(null, null, null);
+        ArchivedRecordingsQuery.Page page = query.apply(RECORDINGS);
+
+        MatcherAssert.assertThat(
+                names(page.getRecordings()),
+                Matchers.contains(
+                        "targetA/a.jfr", "targetB/a.jfr", "targetB/b.jfr", "targetA/c.jfr"));
+        MatcherAssert.assertThat(page.getNextCursor().isPresent(), Matchers.is(false));
+    }
+
+    @Test
+    void shouldSortBySizeThenName() {
+        ArchivedRecordingsQuery.Page page =
+                ArchivedRecordingsQuery.parse("size", null, null).apply(RECORDINGS);
+
+        MatcherAssert.assertThat(
+                names(page.getRecordings()),
+                Matchers.contains(
+                        "targetB/a.jfr", "targetA/a.jfr", "targetB/b.jfr", "targetA/c.jfr"));
+    }
+
+    @Test
+    void shouldSortByTimeDescending() {
+        ArchivedRecordingsQuery query = ArchivedRecordingsQuery.parse("-TIME", null, null);
+        ArchivedRecordingsQuery.Page page = query.apply(RECORDINGS);
+
+        MatcherAssert.assertThat(query.getSortParameter(), Matchers.equalTo("-time"));
+        MatcherAssert.assertThat(
+                names(page.getRecordings()),
+                Matchers.contains(
+                        "targetB/a.jfr", "targetA/a.jfr", "targetB/b.jfr", "targetA/c.jfr"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"name", "-name", "size", "-size", "time", "-time"})
+    void pagesShouldCoverAllRecordingsOnce(String sort) {
+        List<ArchivedRecordingInfo> expected =
+                ArchivedRecordingsQuery.parse(sort, null, null).apply(RECORDINGS).getRecordings();
+
+        List<ArchivedRecordingInfo> actual = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            ArchivedRecordingsQuery.Page page =
+                    ArchivedRecordingsQuery.parse(sort, cursor, "3").apply(RECORDINGS);
+            actual.addAll(page.getRecordings());
+            cursor = page.getNextCursor().orElse(null);
+            pages++;
+        } while (cursor != null);
+
+        MatcherAssert.assertThat(pages, Matchers.equalTo(2));
+        MatcherAssert.assertThat(actual, Matchers.equalTo(expected));
+    }
+
+    @Test
+    void cursorShouldSurviveChangesToArchives() {
+        ArchivedRecordingsQuery.Page first =
+                ArchivedRecordingsQuery.parse("name", null, "2").apply(RECORDINGS);
+        MatcherAssert.assertThat(
+                names(first.getRecordings()), Matchers.contains("targetA/a.jfr", "targetB/a.jfr"));
+
+        List<ArchivedRecordingInfo> changed = new ArrayList<>(RECORDINGS);
+        changed.remove(3);
+        changed.add(recording("targetA", "0.jfr", 1, 1));
+        changed.add(recording("targetA", "bb.jfr", 1, 1));
+
+        ArchivedRecordingsQuery.Page second =
+                ArchivedRecordingsQuery.parse("name", first.getNextCursor().get(), "2")
+                        .apply(changed);
+        MatcherAssert.assertThat(
+                names(second.getRecordings()),
+                Matchers.contains("targetB/b.jfr", "targetA/bb.jfr"));
+    }
+
+    @Test
+    void shouldOnlyConvertCandidatesInPage() {
+        List<ArchivedRecordingInfo> converted = new ArrayList<>();
+        ArchivedRecordingsQuery.Page page =
+                ArchivedRecordingsQuery.parse("-size", null, "2")
+                        .apply(
+                                RECORDINGS,
+                                r -> {
+                                    converted.add(r);
+                                    return Optional.of(r);
+                                });
+
+        List<ArchivedRecordingInfo> recordings = List.copyOf(page.getRecordings());
+        MatcherAssert.assertThat(
+                names(recordings), Matchers.contains("targetA/c.jfr", "targetB/b.jfr"));
+        MatcherAssert.assertThat(converted, Matchers.equalTo(recordings));
+        MatcherAssert.assertThat(page.getNextCursor().isPresent(), Matchers.is(true));
+    }
+
+    @Test
+    void shouldConvertCandidatesOneAtATimeWhenIterated() {
+        List<ArchivedRecordingInfo> converted = new ArrayList<>();
+        ArchivedRecordingsQuery.Page page =
+                ArchivedRecordingsQuery.parse(null, null, null)
+                        .apply(
+                                RECORDINGS,
+                                r -> {
+                                    converted.add(r);
+                                    return Optional.of(r);
+                                });
+
+        MatcherAssert.assertThat(converted, Matchers.empty());
+
+        Iterator<ArchivedRecordingInfo> it = page.getRecordings().iterator();
+        MatcherAssert.assertThat(it.next().getName(), Matchers.equalTo("a.jfr"));
+        MatcherAssert.assertThat(converted, Matchers.hasSize(1));
+        it.next();
+        MatcherAssert.assertThat(converted, Matchers.hasSize(2));
+    }
+
+    @Test
+    void shouldOmitCandidatesWhichCannotBeConverted() {
+        ArchivedRecordingsQuery.Page page =
+                ArchivedRecordingsQuery.parse("name", null, "2")
+                        .apply(
+                                RECORDINGS,
+                                r ->
+                                        r.getServiceUri().equals("targetB")
+                                                ? Optional.empty()
+                                                : Optional.of(r));
+
+        MatcherAssert.assertThat(names(page.getRecordings()), Matchers.contains("targetA/a.jfr"));
+        MatcherAssert.assertThat(page.getNextCursor().isPresent(), Matchers.is(true));
+    }
+
+    @Test
+    void shouldRejectCursorFromDifferentSort() {
+        String cursor =
+                ArchivedRecordingsQuery.parse("size", null, "1")
+                        .apply(RECORDINGS)
+                        .getNextCursor()
+                        .get();
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> ArchivedRecordingsQuery.parse("-size", cursor, "1"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"garbage", "name.0.!!.", "name.x.YQ.YQ", "size.1.a"})
+    void shouldRejectInvalidCursors(String cursor) {
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> ArchivedRecordingsQuery.parse(null, cursor, null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"owner", "-", "--name"})
+    void shouldRejectUnknownSortKeys(String sort) {
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> ArchivedRecordingsQuery.parse(sort, null, null));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-1", "ten"})
+    void shouldRejectInvalidLimits(String limit) {
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> ArchivedRecordingsQuery.parse(null, null, limit));
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.recordings;
+
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.sys.FileSystem;
+import io.cryostat.recordings.RecordingMetadataManager.StoredRecordingMetadata;
+
+import com.google.gson.Gson;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MetadataStoreTest {
+
+    MetadataStore store;
+    @Mock FileSystem fs;
+    @Mock ScheduledExecutorService flushExecutor;
+    @Mock Logger logger;
+    @TempDir Path metadataDir;
+    Gson gson = new Gson();
+
+    Path file;
+    StoredRecordingMetadata srm;
+
+    @BeforeEach
+    void setup() {
+        this.store = new MetadataStore(metadataDir, fs, gson, flushExecutor, logger);
+        this.file = metadataDir.resolve("jvmId").resolve("recording.json");
+        this.srm =
+                new StoredRecordingMetadata(
+                        "service:jmx:rmi://localhost:9091/jndi/rmi://fooHost:9091/jmxrmi",
+                        "jvmId",
+                        "recording",
+                        Map.of("foo", "bar"));
+    }
+
+    @Test
+    void shouldServeWritesImmediatelyAndPersistOnFlush() throws Exception {
+        store.put(file, srm);
+
+        MatcherAssert.assertThat(
+                store.get("jvmId", "recording"), Matchers.equalTo(Optional.of(srm)));
+        MatcherAssert.assertThat(store.getAll("jvmId"), Matchers.contains(srm));
+        Mockito.verifyNoInteractions(fs);
+        verify(flushExecutor)
+                .schedule(
+                        Mockito.any(Runnable.class),
+                        Mockito.anyLong(),
+                        Mockito.any(TimeUnit.class));
+
+        store.flush();
+
+        verify(fs).createDirectory(file.getParent());
+        verify(fs)
+                .writeString(
+                        file,
+                        gson.toJson(srm),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        MatcherAssert.assertThat(
+                Files.exists(metadataDir.resolve(MetadataStore.JOURNAL_FILE_NAME)),
+                Matchers.is(false));
+    }
+
+    @Test
+    void shouldCoalesceRepeatedWrites() throws Exception {
+        StoredRecordingMetadata updated =
+                new StoredRecordingMetadata(
+                        srm.getTargetId(), "jvmId", "recording", Map.of("foo", "baz"));
+
+        store.put(file, srm);
+        store.put(file, updated);
+        store.flush();
+
+        verify(flushExecutor)
+                .schedule(
+                        Mockito.any(Runnable.class),
+                        Mockito.anyLong(),
+                        Mockito.any(TimeUnit.class));
+        verify(fs)
+                .writeString(
+                        Mockito.any(Path.class),
+                        Mockito.anyString(),
+                        Mockito.any(StandardOpenOption.class),
+                        Mockito.any(StandardOpenOption.class),
+                        Mockito.any(StandardOpenOption.class));
+        verify(fs)
+                .writeString(
+                        file,
+                        gson.toJson(updated),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Test
+    void shouldDeleteRemovedMetadataAndEmptyDirectory() throws Exception {
+        store.load(file, srm);
+        when(fs.deleteIfExists(file)).thenReturn(true);
+        when(fs.listDirectoryChildren(file.getParent())).thenReturn(List.of());
+
+        MatcherAssert.assertThat(
+                store.remove("jvmId", "recording"), Matchers.equalTo(Optional.of(srm)));
+        MatcherAssert.assertThat(
+                store.get("jvmId", "recording"), Matchers.equalTo(Optional.empty()));
+        MatcherAssert.assertThat(store.getAll("jvmId"), Matchers.empty());
+
+        store.flush();
+
+        verify(fs).deleteIfExists(file);
+        verify(fs).deleteIfExists(file.getParent());
+    }
+
+    @Test
+    void shouldQueueDeletionOfUnindexedFile() throws Exception {
+        store.delete(file);
+
+        Mockito.verifyNoInteractions(fs);
+
+        store.flush();
+
+        verify(fs).deleteIfExists(file);
+    }
+
+    @Test
+    void shouldNotRestoreFileDeletedDuringFlush() throws Exception {
+        store.put(file, srm);
+        Mockito.doAnswer(
+                        invocation -> {
+                            // the file is deleted after the flush has taken its batch
+                            store.delete(file);
+                            return file;
+                        })
+                .when(fs)
+                .writeString(
+                        file,
+                        gson.toJson(srm),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+
+        store.flush();
+        store.flush();
+
+        InOrder inOrder = Mockito.inOrder(fs);
+        inOrder.verify(fs)
+                .writeString(
+                        file,
+                        gson.toJson(srm),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        inOrder.verify(fs).deleteIfExists(file);
+        MatcherAssert.assertThat(
+                store.get("jvmId", "recording"), Matchers.equalTo(Optional.empty()));
+    }
+
+    @Test
+    void shouldPersistSameValueAsIndexForConcurrentWrites() throws Exception {
+        int writes = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String writer = String.valueOf(i);
+            Thread t =
+                    new Thread(
+                            () -> {
+                                try {
+                                    start.await();
+                                } catch (InterruptedException e) {
+                                    return;
+                                }
+                                for (int j = 0; j < writes; j++) {
+                                    store.put(
+                                            file,
+                                            new StoredRecordingMetadata(
+                                                    srm.getTargetId(),
+                                                    "jvmId",
+                                                    "recording",
+                                                    Map.of(writer, String.valueOf(j))));
+                                }
+                            });
+            t.start();
+            writers.add(t);
+        }
+        start.countDown();
+        for (Thread t : writers) {
+            t.join();
+        }
+
+        store.flush();
+
+        ArgumentCaptor<String> written = ArgumentCaptor.forClass(String.class);
+        verify(fs)
+                .writeString(
+                        Mockito.eq(file),
+                        written.capture(),
+                        Mockito.any(StandardOpenOption.class),
+                        Mockito.any(StandardOpenOption.class),
+                        Mockito.any(StandardOpenOption.class));
+        MatcherAssert.assertThat(
+                written.getValue(),
+                Matchers.equalTo(gson.toJson(store.get("jvmId", "recording").get())));
+    }
+
+    @Test
+    void shouldRequeueFailedWrites() throws Exception {
+        Mockito.doThrow(IOException.class)
+                .doAnswer(invocation -> null)
+                .when(fs)
+                .writeString(
+                        file,
+                        gson.toJson(srm),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+
+        store.put(file, srm);
+        store.flush();
+        store.flush();
+
+        verify(flushExecutor, Mockito.times(2))
+                .schedule(
+                        Mockito.any(Runnable.class),
+                        Mockito.anyLong(),
+                        Mockito.any(TimeUnit.class));
+        verify(fs, Mockito.times(2))
+                .writeString(
+                        file,
+                        gson.toJson(srm),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    @Test
+    void shouldReplayJournalOnRecover() throws Exception {
+        Path other = metadataDir.resolve("jvmId").resolve("other.json");
+        Files.writeString(
+                metadataDir.resolve(MetadataStore.JOURNAL_FILE_NAME),
+                String.format(
+                        "{\"records\":[{\"file\":%s,\"metadata\":%s},{\"file\":%s}]}",
+                        gson.toJson(file.toString()),
+                        gson.toJson(srm),
+                        gson.toJson(other.toString())));
+        when(fs.isDirectory(file.getParent())).thenReturn(true);
+
+        store.recover();
+
+        verify(fs)
+                .writeString(
+                        file,
+                        gson.toJson(srm),
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING);
+        verify(fs).deleteIfExists(other);
+        MatcherAssert.assertThat(
+                Files.exists(metadataDir.resolve(MetadataStore.JOURNAL_FILE_NAME)),
+                Matchers.is(false));
+    }
+
+    @Test
+    void shouldDiscardInvalidJournal() throws Exception {
+        Files.writeString(metadataDir.resolve(MetadataStore.JOURNAL_FILE_NAME), "not json{");
+
+        store.recover();
+
+        Mockito.verifyNoInteractions(fs);
+        MatcherAssert.assertThat(
+                Files.exists(metadataDir.resolve(MetadataStore.JOURNAL_FILE_NAME)),
+                Matchers.is(false));
+    }
+}
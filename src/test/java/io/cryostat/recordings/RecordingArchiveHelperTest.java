@@ -40,17 +40,20 @@ package io.cryostat.recordings;
 import static org.mockito.Mockito.lenient;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 
@@ -73,6 +76,7 @@ import io.cryostat.platform.PlatformClient;
 import io.cryostat.platform.ServiceRef;
 import io.cryostat.recordings.RecordingArchiveHelper.ArchiveDirectory;
 import io.cryostat.recordings.RecordingMetadataManager.Metadata;
+import io.cryostat.rules.ArchivePathException;
 import io.cryostat.rules.ArchivedRecordingInfo;
 import io.cryostat.util.URIUtil;
 
@@ -109,6 +113,7 @@ class RecordingArchiveHelperTest {
     @Mock NotificationFactory notificationFactory;
     @Mock JvmIdHelper jvmIdHelper;
     @Mock Base32 base32;
+    @Mock ArchiveCatalog catalog;
     @Mock Notification notification;
     @Mock Notification.Builder notificationBuilder;
     @Mock JFRConnection connection;
@@ -163,7 +168,32 @@ class RecordingArchiveHelperTest {
                         platformClient,
                         notificationFactory,
                         jvmIdHelper,
-                        base32);
+                        base32,
+                        catalog);
+    }
+
+    void givenDiscoverableServices(ServiceRef... services) {
+        Mockito.when(platformClient.getDiscoverableService(Mockito.any(URI.class)))
+                .thenAnswer(
+                        invocation ->
+                                Arrays.stream(services)
+                                        .filter(
+                                                sr ->
+                                                        sr.getServiceUri()
+                                                                .equals(invocation.getArgument(0)))
+                                        .findFirst());
+    }
+
+    ArchiveCatalog.Directory mockDirectory(String name, String connectUrl, String... files) {
+        ArchiveCatalog.Directory dir = Mockito.mock(ArchiveCatalog.Directory.class);
+        lenient().when(dir.getName()).thenReturn(name);
+        lenient().when(dir.getConnectUrl()).thenReturn(Optional.ofNullable(connectUrl));
+        List<ArchiveCatalog.Entry> entries = new ArrayList<>();
+        for (String file : files) {
+            entries.add(new ArchiveCatalog.Entry(file, Path.of(name, file), 0, 0));
+        }
+        lenient().when(dir.getRecordings()).thenReturn(entries);
+        return dir;
     }
 
     @Test
@@ -240,8 +270,7 @@ class RecordingArchiveHelperTest {
                                         "service:jmx:rmi:///jndi/rmi://cryostat:9093/jmxrmi")),
                         "some.Alias.3");
 
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(serviceRef1, serviceRef2, serviceRef3));
+        givenDiscoverableServices(serviceRef1, serviceRef2, serviceRef3);
         Mockito.when(connection.getJMXURL())
                 .thenReturn(
                         (new JMXServiceURL("service:jmx:rmi:///jndi/rmi://cryostat:9092/jmxrmi")));
@@ -318,7 +347,7 @@ class RecordingArchiveHelperTest {
                                         "service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi")),
                         alias);
 
-        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(serviceRef1));
+        givenDiscoverableServices(serviceRef1);
         Mockito.when(connection.getJMXURL())
                 .thenReturn(
                         (new JMXServiceURL("service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi")));
@@ -411,8 +440,7 @@ class RecordingArchiveHelperTest {
                                         "service:jmx:rmi:///jndi/rmi://cryostat:9093/jmxrmi")),
                         "some.Alias.3");
 
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(serviceRef1, serviceRef2, serviceRef3));
+        givenDiscoverableServices(serviceRef1, serviceRef2, serviceRef3);
         Mockito.when(connection.getJMXURL())
                 .thenReturn(
                         (new JMXServiceURL("service:jmx:rmi:///jndi/rmi://cryostat:9092/jmxrmi")));
@@ -490,8 +518,7 @@ class RecordingArchiveHelperTest {
                                         "service:jmx:rmi:///jndi/rmi://cryostat:9093/jmxrmi")),
                         "some.Alias.3");
 
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(serviceRef1, serviceRef3));
+        givenDiscoverableServices(serviceRef1, serviceRef3);
         Mockito.when(connection.getJMXURL())
                 .thenReturn(
                         (new JMXServiceURL("service:jmx:rmi:///jndi/rmi://cryostat:9092/jmxrmi")));
@@ -576,8 +603,7 @@ class RecordingArchiveHelperTest {
                                         "service:jmx:rmi:///jndi/rmi://cryostat:9093/jmxrmi")),
                         "some.Alias.3");
 
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(serviceRef1, serviceRef2, serviceRef3));
+        givenDiscoverableServices(serviceRef1, serviceRef2, serviceRef3);
         Mockito.when(connection.getJMXURL())
                 .thenReturn(
                         (new JMXServiceURL("service:jmx:rmi:///jndi/rmi://cryostat:9092/jmxrmi")));
@@ -645,8 +671,7 @@ class RecordingArchiveHelperTest {
                                         "service:jmx:rmi:///jndi/rmi://cryostat:9093/jmxrmi")),
                         "some.Alias.3");
 
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(serviceRef1, serviceRef2, serviceRef3));
+        givenDiscoverableServices(serviceRef1, serviceRef2, serviceRef3);
         Mockito.when(connection.getJMXURL())
                 .thenReturn(
                         (new JMXServiceURL("service:jmx:rmi:///jndi/rmi://cryostat:9092/jmxrmi")));
@@ -711,8 +736,7 @@ class RecordingArchiveHelperTest {
                                         "service:jmx:rmi:///jndi/rmi://cryostat:9093/jmxrmi")),
                         "some.Alias.3");
 
-        Mockito.when(platformClient.listDiscoverableServices())
-                .thenReturn(List.of(serviceRef1, serviceRef2, serviceRef3));
+        givenDiscoverableServices(serviceRef1, serviceRef2, serviceRef3);
         Mockito.when(connection.getJMXURL())
                 .thenReturn(
                         (new JMXServiceURL("service:jmx:rmi:///jndi/rmi://cryostat:9092/jmxrmi")));
@@ -767,15 +791,19 @@ class RecordingArchiveHelperTest {
         Mockito.when(fs.isReadable(Mockito.any())).thenReturn(true);
 
         List<String> subdirectories = List.of(jvmIdA, jvmId123);
-        Mockito.when(fs.listDirectoryChildren(archivedRecordingsPath)).thenReturn(subdirectories);
-
-        Mockito.when(archivedRecordingsPath.resolve(jvmIdA)).thenReturn(Path.of(jvmIdA));
-        Mockito.when(fs.listDirectoryChildren(Path.of(jvmIdA)))
-                .thenReturn(List.of("recordingA", "connectUrl"));
 
         Mockito.when(archivedRecordingsPath.resolve(jvmId123)).thenReturn(Path.of(jvmId123));
-        Mockito.when(fs.listDirectoryChildren(Path.of(jvmId123)))
-                .thenReturn(List.of("123recording", "connectUrl"));
+        Mockito.when(catalog.find(recordingName))
+                .thenReturn(
+                        Optional.of(
+                                new ArchiveCatalog.Entry(
+                                        recordingName,
+                                        Path.of(jvmId123)
+                                                .resolve(recordingName)
+                                                .normalize()
+                                                .toAbsolutePath(),
+                                        0,
+                                        0)));
 
         Mockito.when(fs.listDirectoryChildren(Path.of(jvmId123).normalize().toAbsolutePath()))
                 .thenReturn(List.of("123recording", "connectUrl"));
@@ -907,22 +935,11 @@ class RecordingArchiveHelperTest {
         Mockito.when(fs.isReadable(Mockito.any())).thenReturn(true);
         Mockito.when(fs.isDirectory(Mockito.any())).thenReturn(true);
 
-        List<String> subdirectories = List.of("encodedJvmIdA", "encodedJvmId123");
-        Mockito.when(fs.listDirectoryChildren(archivedRecordingsPath)).thenReturn(subdirectories);
-
-        Mockito.when(archivedRecordingsPath.resolve(subdirectories.get(0)))
-                .thenReturn(Path.of(subdirectories.get(0)));
-        Mockito.when(fs.listDirectoryChildren(Path.of(subdirectories.get(0))))
-                .thenReturn(List.of("recordingA", "connectUrl"));
-
-        Mockito.when(archivedRecordingsPath.resolve(subdirectories.get(1)))
-                .thenReturn(Path.of(subdirectories.get(1)));
-        Mockito.when(fs.listDirectoryChildren(Path.of(subdirectories.get(1))))
-                .thenReturn(List.of("123recording", "connectUrl"));
-
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
-        Mockito.when(fs.readFile(Mockito.any(Path.class))).thenReturn(reader);
-        Mockito.when(reader.readLine()).thenReturn("connectUrlA").thenReturn("connectUrl123");
+        Mockito.when(catalog.getDirectories())
+                .thenReturn(
+                        List.of(
+                                mockDirectory("encodedJvmIdA", "connectUrlA", "recordingA"),
+                                mockDirectory("encodedJvmId123", "connectUrl123", "123recording")));
 
         Mockito.when(webServer.getArchivedReportURL(Mockito.anyString(), Mockito.anyString()))
                 .thenAnswer(
@@ -967,11 +984,9 @@ class RecordingArchiveHelperTest {
     }
 
     @Test
-    void getRecordingsShouldHandleIOException() throws Exception {
+    void getRecordingsShouldFailIfArchiveIsNotReadable() throws Exception {
         Mockito.when(fs.exists(Mockito.any())).thenReturn(true);
-        Mockito.when(fs.isReadable(Mockito.any())).thenReturn(true);
-        Mockito.when(fs.isDirectory(Mockito.any())).thenReturn(true);
-        Mockito.when(fs.listDirectoryChildren(Mockito.any())).thenThrow(IOException.class);
+        Mockito.when(fs.isReadable(Mockito.any())).thenReturn(false);
 
         Assertions.assertThrows(
                 ExecutionException.class,
@@ -979,10 +994,70 @@ class RecordingArchiveHelperTest {
                     try {
                         recordingArchiveHelper.getRecordings().get();
                     } catch (ExecutionException ee) {
-                        Assertions.assertTrue(ee.getCause() instanceof IOException);
+                        Assertions.assertTrue(ee.getCause() instanceof ArchivePathException);
                         throw ee;
                     }
                 });
+        Mockito.verifyNoInteractions(catalog);
+    }
+
+    @Test
+    void getRecordingsShouldSkipDirectoriesWithoutConnectUrl() throws Exception {
+        Mockito.when(fs.exists(Mockito.any())).thenReturn(true);
+        Mockito.when(fs.isReadable(Mockito.any())).thenReturn(true);
+        Mockito.when(fs.isDirectory(Mockito.any())).thenReturn(true);
+        Mockito.when(catalog.getDirectories())
+                .thenReturn(List.of(mockDirectory("encodedJvmIdA", null, "recordingA")));
+
+        MatcherAssert.assertThat(recordingArchiveHelper.getRecordings().get(), Matchers.empty());
+    }
+
+    @Test
+    void shouldGetPageOfRecordings() throws Exception {
+        Mockito.when(fs.exists(Mockito.any())).thenReturn(true);
+        Mockito.when(fs.isReadable(Mockito.any())).thenReturn(true);
+        Mockito.when(fs.isDirectory(Mockito.any())).thenReturn(true);
+        Mockito.when(catalog.getDirectories())
+                .thenReturn(
+                        List.of(
+                                mockDirectory("encodedJvmIdA", "connectUrlA", "c", "a"),
+                                mockDirectory("uploads", null, "b")));
+        Mockito.when(webServer.getArchivedDownloadURL(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn("/some/path/download");
+        Mockito.when(webServer.getArchivedReportURL(Mockito.anyString(), Mockito.anyString()))
+                .thenReturn("/some/path/archive");
+        Mockito.when(recordingMetadataManager.getMetadata(Mockito.any(), Mockito.anyString()))
+                .thenReturn(new Metadata());
+
+        ArchivedRecordingsQuery.Page page =
+                recordingArchiveHelper
+                        .getRecordingsPage(ArchivedRecordingsQuery.parse("name", null, "2"))
+                        .get();
+
+        MatcherAssert.assertThat(
+                page.getRecordings(),
+                Matchers.contains(
+                        new ArchivedRecordingInfo(
+                                "connectUrlA",
+                                "a",
+                                "/some/path/download",
+                                "/some/path/archive",
+                                new Metadata(),
+                                0),
+                        new ArchivedRecordingInfo(
+                                "uploads",
+                                "b",
+                                "/some/path/download",
+                                "/some/path/archive",
+                                new Metadata(),
+                                0)));
+        MatcherAssert.assertThat(page.getNextCursor().isPresent(), Matchers.is(true));
+        Mockito.verify(recordingMetadataManager, Mockito.never())
+                .getMetadata(Mockito.any(), Mockito.eq("c"));
+        Mockito.verify(webServer, Mockito.never())
+                .getArchivedDownloadURL(Mockito.anyString(), Mockito.eq("c"));
+        Mockito.verify(webServer, Mockito.never())
+                .getArchivedReportURL(Mockito.anyString(), Mockito.eq("c"));
     }
 
     @Test
@@ -1000,8 +1075,16 @@ class RecordingArchiveHelperTest {
         Path specificRecordingsPath = Path.of("/some/path/");
         Mockito.when(archivedRecordingsPath.resolve(Mockito.anyString()))
                 .thenReturn(specificRecordingsPath);
-        Mockito.when(fs.listDirectoryChildren(Mockito.any(Path.class)))
-                .thenReturn(List.of("foo_recording"));
+        Mockito.when(catalog.getDirectory(Mockito.anyString()))
+                .thenAnswer(
+                        new Answer<Optional<ArchiveCatalog.Directory>>() {
+                            @Override
+                            public Optional<ArchiveCatalog.Directory> answer(
+                                    InvocationOnMock invocation) throws Throwable {
+                                String name = invocation.getArgument(0);
+                                return Optional.of(mockDirectory(name, name, "foo_recording"));
+                            }
+                        });
 
         Mockito.when(webServer.getArchivedReportURL(Mockito.anyString(), Mockito.anyString()))
                 .thenAnswer(
@@ -1072,22 +1155,11 @@ class RecordingArchiveHelperTest {
         Mockito.when(fs.isReadable(Mockito.any())).thenReturn(true);
         Mockito.when(fs.isDirectory(Mockito.any())).thenReturn(true);
 
-        List<String> subdirectories = List.of("encodedJvmIdA", "encodedJvmId123");
-        Mockito.when(fs.listDirectoryChildren(archivedRecordingsPath)).thenReturn(subdirectories);
-
-        Mockito.when(archivedRecordingsPath.resolve(subdirectories.get(0)))
-                .thenReturn(Path.of(subdirectories.get(0)));
-        Mockito.when(fs.listDirectoryChildren(Path.of(subdirectories.get(0))))
-                .thenReturn(List.of("recordingA", "connectUrl"));
-
-        Mockito.when(archivedRecordingsPath.resolve(subdirectories.get(1)))
-                .thenReturn(Path.of(subdirectories.get(1)));
-        Mockito.when(fs.listDirectoryChildren(Path.of(subdirectories.get(1))))
-                .thenReturn(List.of("123recording", "connectUrl"));
-
-        BufferedReader reader = Mockito.mock(BufferedReader.class);
-        Mockito.when(fs.readFile(Mockito.any(Path.class))).thenReturn(reader);
-        Mockito.when(reader.readLine()).thenReturn("connectUrlA").thenReturn("connectUrl123");
+        Mockito.when(catalog.getDirectories())
+                .thenReturn(
+                        List.of(
+                                mockDirectory("encodedJvmIdA", "connectUrlA", "recordingA"),
+                                mockDirectory("encodedJvmId123", "connectUrl123", "123recording")));
 
         Mockito.when(webServer.getArchivedReportURL(Mockito.anyString(), Mockito.anyString()))
                 .thenAnswer(
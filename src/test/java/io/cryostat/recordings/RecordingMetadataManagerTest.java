@@ -41,12 +41,14 @@ import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import java.io.BufferedReader;
-import java.io.StringReader;
 import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.inject.Provider;
 
@@ -62,6 +64,7 @@ import io.cryostat.messaging.notifications.NotificationFactory;
 import io.cryostat.net.ConnectionDescriptor;
 import io.cryostat.net.TargetConnectionManager;
 import io.cryostat.net.web.http.HttpMimeType;
+import io.cryostat.net.web.http.api.v2.graph.labels.LabelSelectorMatcher;
 import io.cryostat.platform.PlatformClient;
 import io.cryostat.recordings.RecordingMetadataManager.Metadata;
 import io.cryostat.recordings.RecordingMetadataManager.StoredRecordingMetadata;
@@ -69,10 +72,13 @@ import io.cryostat.recordings.RecordingMetadataManager.StoredRecordingMetadata;
 import com.google.gson.Gson;
 import io.vertx.core.Vertx;
 import org.apache.commons.codec.binary.Base32;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -104,6 +110,9 @@ public class RecordingMetadataManagerTest {
     @Mock Notification.Builder notificationBuilder;
     @Mock JFRConnection connection;
     @Mock ConnectionDescriptor connectionDescriptor;
+    @Mock ScheduledExecutorService flushExecutor;
+    @TempDir Path journalDir;
+    MetadataStore store;
     Gson gson = MainModule.provideGson(logger);
 
     @BeforeEach
@@ -133,6 +142,7 @@ public class RecordingMetadataManagerTest {
                             }
                         });
 
+        this.store = new MetadataStore(journalDir, fs, gson, flushExecutor, logger);
         this.recordingMetadataManager =
                 new RecordingMetadataManager(
                         new DirectExecutorService(),
@@ -148,6 +158,7 @@ public class RecordingMetadataManagerTest {
                         jvmIdHelper,
                         gson,
                         base32,
+                        store,
                         logger);
         this.recordingMetadataManager.init(vertx, null);
     }
@@ -169,6 +180,7 @@ public class RecordingMetadataManagerTest {
         recordingMetadataManager
                 .setRecordingMetadata(connectionDescriptor, recordingName, new Metadata(labels))
                 .get();
+        store.flush();
 
         verify(fs)
                 .writeString(
@@ -216,17 +228,69 @@ public class RecordingMetadataManagerTest {
         when(mockPath.getParent()).thenReturn(parentPath);
 
         when(fs.deleteIfExists(mockPath)).thenReturn(true);
-        when(fs.isRegularFile(mockPath)).thenReturn(true);
-        when(fs.readFile(mockPath))
-                .thenReturn(new BufferedReader(new StringReader("{\"labels\":{}}")));
 
         recordingMetadataManager
                 .setRecordingMetadata(connectionDescriptor, recordingName, metadata)
                 .get();
 
-        recordingMetadataManager.deleteRecordingMetadataIfExists(jvmId, recordingName);
+        Metadata deleted =
+                recordingMetadataManager.deleteRecordingMetadataIfExists(jvmId, recordingName);
+        store.flush();
+
+        MatcherAssert.assertThat(deleted, Matchers.equalTo(metadata));
+        MatcherAssert.assertThat(
+                recordingMetadataManager.getMetadataFromPathIfExists(jvmId, recordingName),
+                Matchers.equalTo(new Metadata()));
+        verify(fs).deleteIfExists(mockPath);
+        verify(fs).deleteIfExists(parentPath);
+        // the recording was deleted before its metadata was persisted, so it is never written
+        verify(fs, Mockito.never())
+                .writeString(
+                        Mockito.any(Path.class),
+                        Mockito.anyString(),
+                        Mockito.any(OpenOption.class),
+                        Mockito.any(OpenOption.class),
+                        Mockito.any(OpenOption.class));
+    }
+
+    @Test
+    void shouldFindLabelledRecordingsWrittenUnderAnotherConnectUrl() throws Exception {
+        String recordingName = "someRecording";
+        String jvmId = "id";
+        String serviceUri = "service:jmx:rmi:///jndi/rmi://localhost:9091/jmxrmi";
+        Metadata metadata = new Metadata(Map.of("app", "foo"));
 
-        verify(fs).deleteIfExists(Mockito.any(Path.class));
+        when(jvmIdHelper.getJvmId(Mockito.any(ConnectionDescriptor.class))).thenReturn(jvmId);
+        when(jvmIdHelper.getCachedJvmId(serviceUri)).thenReturn(Optional.of(jvmId));
+        Path mockPath = Mockito.mock(Path.class);
+        when(recordingMetadataDir.resolve(Mockito.anyString())).thenReturn(mockPath);
+        when(mockPath.resolve(Mockito.anyString())).thenReturn(mockPath);
+
+        recordingMetadataManager
+                .setRecordingMetadata(
+                        new ConnectionDescriptor("localhost:9091"), recordingName, metadata)
+                .get();
+
+        MatcherAssert.assertThat(
+                recordingMetadataManager.findRecordingNames(
+                        serviceUri, List.of(LabelSelectorMatcher.parse("app=foo"))),
+                Matchers.equalTo(Optional.of(Set.of(recordingName))));
+        MatcherAssert.assertThat(
+                recordingMetadataManager.findRecordingNames(
+                        serviceUri, List.of(LabelSelectorMatcher.parse("app=bar"))),
+                Matchers.equalTo(Optional.of(Set.of())));
+    }
+
+    @Test
+    void shouldNotRuleOutRecordingsOfTargetsWithUnknownJvmId() throws Exception {
+        String serviceUri = "service:jmx:rmi:///jndi/rmi://localhost:9091/jmxrmi";
+        when(jvmIdHelper.getCachedJvmId(serviceUri)).thenReturn(Optional.empty());
+
+        MatcherAssert.assertThat(
+                recordingMetadataManager.findRecordingNames(
+                        serviceUri, List.of(LabelSelectorMatcher.parse("app=foo"))),
+                Matchers.equalTo(Optional.empty()));
+        Mockito.verify(jvmIdHelper, Mockito.never()).getJvmId(Mockito.anyString());
     }
 
     @Test
@@ -253,11 +317,16 @@ public class RecordingMetadataManagerTest {
         recordingMetadataManager
                 .setRecordingMetadata(connectionDescriptor, recordingName, metadata)
                 .get();
+        store.flush();
 
         recordingMetadataManager
                 .setRecordingMetadata(connectionDescriptor, recordingName, updatedMetadata)
                 .get();
+        store.flush();
 
+        MatcherAssert.assertThat(
+                recordingMetadataManager.getMetadata(connectionDescriptor, recordingName),
+                Matchers.equalTo(updatedMetadata));
         InOrder inOrder = Mockito.inOrder(fs);
         inOrder.verify(fs)
                 .writeString(
@@ -294,10 +363,15 @@ public class RecordingMetadataManagerTest {
         recordingMetadataManager
                 .setRecordingMetadata(connectionDescriptor, recordingName, metadata)
                 .get();
+        store.flush();
 
         recordingMetadataManager.copyMetadataToArchives(
                 connectionDescriptor, recordingName, filename);
+        store.flush();
 
+        MatcherAssert.assertThat(
+                recordingMetadataManager.getMetadata(connectionDescriptor, filename),
+                Matchers.equalTo(metadata));
         Mockito.verify(fs)
                 .writeString(
                         mockPath,
@@ -0,0 +1,217 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.rules;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import javax.script.ScriptEngine;
+
+import io.cryostat.MainModule;
+import io.cryostat.configuration.CredentialsManager;
+import io.cryostat.core.log.Logger;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.ServiceRef.AnnotationKey;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MatchExpressionCompilerTest {
+
+    MatchExpressionCompiler compiler;
+    ScriptEngine scriptEngine;
+    MatchExpressionEvaluator evaluator;
+    @Mock CredentialsManager credentials;
+    @Mock RuleRegistry rules;
+    @Mock Logger logger;
+
+    List<ServiceRef> serviceRefs;
+
+    @BeforeEach
+    void setup() throws Exception {
+        this.compiler = new MatchExpressionCompiler();
+        this.scriptEngine = MainModule.provideScriptEngine();
+        this.evaluator = new MatchExpressionEvaluator(scriptEngine, credentials, rules, logger);
+
+        ServiceRef cryostat =
+                new ServiceRef(
+                        new URI("service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi"),
+                        "io.cryostat.Cryostat");
+        cryostat.setLabels(Map.of("app", "cryostat", "app.kubernetes.io/part-of", "Cryostat"));
+        cryostat.setPlatformAnnotations(Map.of("annotation1", "someAnnotation"));
+        cryostat.setCryostatAnnotations(
+                Map.of(
+                        AnnotationKey.JAVA_MAIN,
+                        "io.cryostat.Cryostat",
+                        AnnotationKey.PORT,
+                        "9091"));
+
+        ServiceRef other =
+                new ServiceRef(
+                        new URI("service:jmx:rmi:///jndi/rmi://Other-Host:9093/jmxrmi"),
+                        "es.andrewazor.demo.Main\nsecond line");
+        other.setLabels(Map.of("app", ""));
+
+        this.serviceRefs = List.of(cryostat, other);
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "true",
+                "false",
+                "!true",
+                "(true)",
+                "target.alias == 'io.cryostat.Cryostat'",
+                "target.alias === 'io.cryostat.Cryostat'",
+                "target.alias != \"io.cryostat.Cryostat\"",
+                "target.alias == null",
+                "target.alias === undefined",
+                "target.connectUrl == 'service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi'",
+                "target.connectUrl === 'service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi'",
+                "target.connectUrl != 'service:jmx:rmi:///jndi/rmi://cryostat:9091/jmxrmi'",
+                "target.connectUrl == null",
+                "target.connectUrl == target.alias",
+                "target.labels.app == 'cryostat'",
+                "target.labels['app.kubernetes.io/part-of'] === 'Cryostat'",
+                "target.labels.app == ''",
+                "target.labels.missing == null",
+                "target.labels.missing === null",
+                "target.labels.missing === undefined",
+                "target.labels.missing != undefined",
+                "target.labels.app == target.labels.missing",
+                "target.labels.app === target.alias",
+                "target.annotations.platform.annotation1 == 'someAnnotation'",
+                "target.annotations.cryostat.JAVA_MAIN == 'io.cryostat.Cryostat'",
+                "target.annotations.cryostat.PORT === '9091'",
+                "target.annotations.cryostat.NOT_AN_ANNOTATION === undefined",
+                "target.alias === true",
+                "true == null",
+                "target.alias == 'io.cryostat.Cryostat' && target.labels.app == 'cryostat'",
+                "target.alias == 'foo' || (target.labels.app != null && !(target.labels.app =="
+                        + " ''))",
+                "/^io\\.cryostat\\./.test(target.alias)",
+                "/cryostat:\\d+/.test(target.connectUrl)",
+                "/CRYOSTAT/i.test(target.connectUrl)",
+                "/^[a-z]+$/.test(target.labels.app)",
+                "/^[^.]+$/.test(target.labels.app)",
+                "/Main$/.test(target.alias)",
+                "/Main.second/.test(target.alias)",
+                "/\\bdemo\\b/.test(target.alias)",
+                "/(?:other|cryostat)-?host/i.test(target.connectUrl)",
+                "/a{2,}|t{1}/.test(target.alias)",
+                "/undefined/.test(target.labels.missing)",
+                "/null/.test(target.labels.missing)",
+                "/[[]/.test(target.alias)",
+                "/[a&&b]/.test(target.alias)",
+                "/^.*?(9091|9093).*$/.test(target.connectUrl)",
+            })
+    void shouldCompileExpressionsEquivalentToScriptEngine(String expr) throws Exception {
+        Optional<Predicate<ServiceRef>> compiled = compiler.compile(expr);
+        MatcherAssert.assertThat(compiled.isPresent(), Matchers.is(true));
+        for (ServiceRef serviceRef : serviceRefs) {
+            Object expected = scriptEngine.eval(expr, evaluator.createBindings(serviceRef));
+            MatcherAssert.assertThat(
+                    expr + " " + serviceRef,
+                    compiled.get().test(serviceRef),
+                    Matchers.equalTo(expected));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "",
+                "1",
+                "null",
+                "target.alias",
+                "\"a string\"",
+                "true; false",
+                "var x = true; x",
+                "target == null",
+                "target.noSuchProperty == null",
+                "somethingElse.alias == 'foo'",
+                "target.labels.size == 'foo'",
+                "target.labels.empty == 'foo'",
+                "target.labels['class'] == 'foo'",
+                "target.labels[0] == 'foo'",
+                "target.connectUrl == target.connectUrl",
+                "target.alias == true",
+                "true == 'true'",
+                "target.alias && true",
+                "!target.alias",
+                "target.alias.length == 4",
+                "/a/g.test(target.alias)",
+                "/a/m.test(target.alias)",
+                "/a++/.test(target.alias)",
+                "/a{,2}/.test(target.alias)",
+                "/\\s/.test(target.alias)",
+                "/(a)\\1/.test(target.alias)",
+                "/(?<name>a)/.test(target.alias)",
+                "/[^]/.test(target.alias)",
+                "/\u00e9/i.test(target.alias)",
+                "/a/.exec(target.alias)",
+                "/a/.test(target.alias, target.alias)",
+                "[].length == 0",
+                "this is not javascript",
+            })
+    void shouldNotCompileUnsupportedExpressions(String expr) {
+        MatcherAssert.assertThat(compiler.compile(expr).isPresent(), Matchers.is(false));
+    }
+
+    @Test
+    void shouldTranslateRegExpDialect() {
+        MatcherAssert.assertThat(
+                MatchExpressionCompiler.regExp("^a.b$", "").pattern(),
+                Matchers.equalTo("^a[^\\n\\r\\u2028\\u2029]b\\z"));
+        MatcherAssert.assertThat(
+                MatchExpressionCompiler.regExp("[\\b[&]", "").pattern(),
+                Matchers.equalTo("[\\x08\\[\\&]"));
+    }
+}
@@ -93,11 +93,16 @@ class MatchExpressionEvaluatorTest {
         this.platformAnnotations = Map.of("annotation1", "someAnnotation");
         this.cryostatAnnotations = Map.of(AnnotationKey.JAVA_MAIN, "io.cryostat.Cryostat");
 
-        Mockito.when(serviceRef.getServiceUri()).thenReturn(this.serviceUri);
-        Mockito.when(serviceRef.getAlias()).thenReturn(Optional.of(this.alias));
-        Mockito.when(serviceRef.getLabels()).thenReturn(this.labels);
-        Mockito.when(serviceRef.getPlatformAnnotations()).thenReturn(this.platformAnnotations);
-        Mockito.when(serviceRef.getCryostatAnnotations()).thenReturn(this.cryostatAnnotations);
+        // compiled match expressions only read the properties they refer to
+        Mockito.lenient().when(serviceRef.getServiceUri()).thenReturn(this.serviceUri);
+        Mockito.lenient().when(serviceRef.getAlias()).thenReturn(Optional.of(this.alias));
+        Mockito.lenient().when(serviceRef.getLabels()).thenReturn(this.labels);
+        Mockito.lenient()
+                .when(serviceRef.getPlatformAnnotations())
+                .thenReturn(this.platformAnnotations);
+        Mockito.lenient()
+                .when(serviceRef.getCryostatAnnotations())
+                .thenReturn(this.cryostatAnnotations);
     }
 
     @Nested
@@ -246,6 +251,23 @@ class MatchExpressionEvaluatorTest {
             Assertions.assertTrue(ruleMatcher.applies(expr, serviceRef));
         }
 
+        @Test
+        void shouldNotCreateBindingsForCompiledExpressions() throws Exception {
+            String expr =
+                    "target.labels.label1 == 'someLabel' && /cryostat/.test(target.connectUrl)";
+            Assertions.assertTrue(ruleMatcher.applies(expr, serviceRef));
+            Mockito.verify(serviceRef, Mockito.never()).getAlias();
+            Mockito.verify(serviceRef, Mockito.never()).getPlatformAnnotations();
+            Mockito.verify(serviceRef, Mockito.never()).getCryostatAnnotations();
+        }
+
+        @Test
+        void shouldFallBackToScriptEngineForUnsupportedExpressions() throws Exception {
+            String expr = "target.labels.label1.length == 9";
+            Assertions.assertTrue(ruleMatcher.applies(expr, serviceRef));
+            Mockito.verify(serviceRef).getPlatformAnnotations();
+        }
+
         @ParameterizedTest
         @ValueSource(strings = {"1", "null", "target.alias", "\"a string\""})
         void shouldThrowExceptionOnNonBooleanExpressionEval(String expr) throws Exception {
@@ -0,0 +1,309 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.rules;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.script.ScriptException;
+
+import io.cryostat.configuration.CredentialsManager;
+import io.cryostat.configuration.CredentialsManager.CredentialsEvent;
+import io.cryostat.core.log.Logger;
+import io.cryostat.core.net.discovery.JvmDiscoveryClient.EventKind;
+import io.cryostat.platform.PlatformClient;
+import io.cryostat.platform.ServiceRef;
+import io.cryostat.platform.TargetDiscoveryEvent;
+import io.cryostat.rules.RuleRegistry.RuleEvent;
+import io.cryostat.util.events.Event;
+import io.cryostat.util.events.EventListener;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MatchMatrixTest {
+
+    static final String EXPRESSION = "target.alias == 'app'";
+
+    MatchMatrix matrix;
+    @Mock PlatformClient platformClient;
+    @Mock MatchExpressionEvaluator evaluator;
+    @Mock CredentialsManager credentialsManager;
+    @Mock RuleRegistry ruleRegistry;
+    @Mock Logger logger;
+
+    EventListener<CredentialsEvent, String> credentialsListener;
+    EventListener<RuleEvent, Rule> ruleListener;
+
+    ServiceRef app;
+    ServiceRef other;
+
+    @BeforeEach
+    void setup() throws Exception {
+        this.matrix =
+                new MatchMatrix(
+                        platformClient, evaluator, credentialsManager, ruleRegistry, logger);
+
+        ArgumentCaptor<EventListener<CredentialsEvent, String>> credentialsCaptor =
+                ArgumentCaptor.forClass(EventListener.class);
+        Mockito.verify(credentialsManager).addListener(credentialsCaptor.capture());
+        this.credentialsListener = credentialsCaptor.getValue();
+        ArgumentCaptor<EventListener<RuleEvent, Rule>> ruleCaptor =
+                ArgumentCaptor.forClass(EventListener.class);
+        Mockito.verify(ruleRegistry).addListener(ruleCaptor.capture());
+        this.ruleListener = ruleCaptor.getValue();
+        Mockito.verify(platformClient).addTargetDiscoveryListener(matrix);
+
+        this.app = new ServiceRef(new URI("service:jmx:rmi:///jndi/rmi://app:9091/jmxrmi"), "app");
+        this.other =
+                new ServiceRef(new URI("service:jmx:rmi:///jndi/rmi://other:9091/jmxrmi"), "other");
+    }
+
+    void givenEvaluatorMatchesAlias(String alias) throws ScriptException {
+        Mockito.when(evaluator.applies(Mockito.eq(EXPRESSION), Mockito.any(ServiceRef.class)))
+                .thenAnswer(
+                        invocation ->
+                                ((ServiceRef) invocation.getArgument(1))
+                                        .getAlias()
+                                        .get()
+                                        .equals(alias));
+    }
+
+    @Test
+    void shouldEvaluateExpressionAgainstEachTargetOnce() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(app, other));
+        givenEvaluatorMatchesAlias("app");
+
+        MatcherAssert.assertThat(
+                matrix.getMatchingTargets(EXPRESSION), Matchers.equalTo(Set.of(app)));
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+        Assertions.assertFalse(matrix.applies(EXPRESSION, other));
+
+        Mockito.verify(platformClient, Mockito.times(1)).listDiscoverableServices();
+        Mockito.verify(evaluator, Mockito.times(1)).applies(EXPRESSION, app);
+        Mockito.verify(evaluator, Mockito.times(1)).applies(EXPRESSION, other);
+    }
+
+    @Test
+    void shouldOnlyEvaluateFoundTarget() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(other));
+        givenEvaluatorMatchesAlias("app");
+        MatcherAssert.assertThat(matrix.getMatchingTargets(EXPRESSION), Matchers.empty());
+
+        matrix.accept(new TargetDiscoveryEvent(EventKind.FOUND, app));
+
+        MatcherAssert.assertThat(
+                matrix.getMatchingTargets(EXPRESSION), Matchers.equalTo(Set.of(app)));
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+        Mockito.verify(evaluator, Mockito.times(1)).applies(EXPRESSION, app);
+        Mockito.verify(evaluator, Mockito.times(1)).applies(EXPRESSION, other);
+    }
+
+    @Test
+    void shouldForgetLostTarget() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(app, other));
+        givenEvaluatorMatchesAlias("app");
+        MatcherAssert.assertThat(
+                matrix.getMatchingTargets(EXPRESSION), Matchers.equalTo(Set.of(app)));
+
+        matrix.accept(new TargetDiscoveryEvent(EventKind.LOST, app));
+
+        MatcherAssert.assertThat(matrix.getMatchingTargets(EXPRESSION), Matchers.empty());
+        // no longer part of the matrix, so evaluated directly
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+        Mockito.verify(evaluator, Mockito.times(2)).applies(EXPRESSION, app);
+    }
+
+    @Test
+    void shouldKeepModifiedTarget() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(other));
+        givenEvaluatorMatchesAlias("app");
+        MatcherAssert.assertThat(matrix.getMatchingTargets(EXPRESSION), Matchers.empty());
+
+        ServiceRef renamed = new ServiceRef(other.getServiceUri(), "app");
+        matrix.accept(new TargetDiscoveryEvent(EventKind.FOUND, renamed));
+        matrix.accept(new TargetDiscoveryEvent(EventKind.LOST, other));
+
+        MatcherAssert.assertThat(
+                matrix.getMatchingTargets(EXPRESSION), Matchers.equalTo(Set.of(renamed)));
+    }
+
+    @Test
+    void shouldIgnoreDiscoveryEventsBeforeFirstUse() throws Exception {
+        matrix.accept(new TargetDiscoveryEvent(EventKind.FOUND, app));
+
+        Mockito.verifyNoInteractions(evaluator);
+        Mockito.verify(platformClient, Mockito.never()).listDiscoverableServices();
+    }
+
+    @Test
+    void shouldComputeAddedRuleExpressionAndDropRemovedOne() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(app));
+        givenEvaluatorMatchesAlias("app");
+        Rule rule =
+                new Rule.Builder()
+                        .name("test")
+                        .matchExpression(EXPRESSION)
+                        .eventSpecifier("template=Continuous")
+                        .build();
+
+        ruleListener.onEvent(new Event<>(RuleEvent.ADDED, rule));
+        Mockito.verify(evaluator, Mockito.times(1)).applies(EXPRESSION, app);
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+        Mockito.verify(evaluator, Mockito.times(1)).applies(EXPRESSION, app);
+
+        ruleListener.onEvent(new Event<>(RuleEvent.REMOVED, rule));
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+        Mockito.verify(evaluator, Mockito.times(2)).applies(EXPRESSION, app);
+    }
+
+    @Test
+    void shouldDropRemovedCredentialsExpression() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(app));
+        givenEvaluatorMatchesAlias("app");
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+
+        credentialsListener.onEvent(new Event<>(CredentialsEvent.REMOVED, EXPRESSION));
+
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+        Mockito.verify(evaluator, Mockito.times(2)).applies(EXPRESSION, app);
+    }
+
+    @Test
+    void shouldNotRetainFailedEvaluations() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(app));
+        Mockito.when(evaluator.applies(EXPRESSION, app))
+                .thenThrow(ScriptException.class)
+                .thenReturn(true);
+
+        Assertions.assertThrows(ScriptException.class, () -> matrix.applies(EXPRESSION, app));
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+    }
+
+    @Test
+    void shouldNotHoldLockWhileEvaluating() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(app));
+        givenEvaluatorMatchesAlias("app");
+        Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(evaluator.applies("slow", app))
+                .thenAnswer(
+                        invocation -> {
+                            evaluating.countDown();
+                            release.await();
+                            return true;
+                        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Set<ServiceRef>> slow = executor.submit(() -> matrix.getMatchingTargets("slow"));
+            evaluating.await();
+
+            Assertions.assertTrue(matrix.applies(EXPRESSION, app));
+            MatcherAssert.assertThat(
+                    matrix.getMatchingTargets(EXPRESSION), Matchers.equalTo(Set.of(app)));
+
+            release.countDown();
+            MatcherAssert.assertThat(slow.get(5, TimeUnit.SECONDS), Matchers.equalTo(Set.of(app)));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldEvaluateTargetFoundWhileComputingColumn() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices()).thenReturn(List.of(app));
+        CountDownLatch evaluating = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(evaluator.applies(Mockito.eq(EXPRESSION), Mockito.any(ServiceRef.class)))
+                .thenAnswer(
+                        invocation -> {
+                            evaluating.countDown();
+                            release.await();
+                            return true;
+                        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Set<ServiceRef>> matching =
+                    executor.submit(() -> matrix.getMatchingTargets(EXPRESSION));
+            evaluating.await();
+
+            matrix.accept(new TargetDiscoveryEvent(EventKind.FOUND, other));
+            release.countDown();
+
+            MatcherAssert.assertThat(
+                    matching.get(5, TimeUnit.SECONDS), Matchers.equalTo(Set.of(app, other)));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldApplyDiscoveryEventsReceivedWhileListingTargets() throws Exception {
+        Mockito.when(platformClient.listDiscoverableServices())
+                .thenAnswer(
+                        invocation -> {
+                            matrix.accept(new TargetDiscoveryEvent(EventKind.LOST, app));
+                            matrix.accept(new TargetDiscoveryEvent(EventKind.FOUND, other));
+                            return List.of(app);
+                        });
+        Mockito.when(evaluator.applies(Mockito.eq(EXPRESSION), Mockito.any(ServiceRef.class)))
+                .thenReturn(true);
+
+        MatcherAssert.assertThat(
+                matrix.getMatchingTargets(EXPRESSION), Matchers.equalTo(Set.of(other)));
+    }
+}
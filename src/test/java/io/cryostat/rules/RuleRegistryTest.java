@@ -73,7 +73,7 @@ class RuleRegistryTest {
 
     RuleRegistry registry;
     @Mock Path rulesDir;
-    @Mock MatchExpressionEvaluator matchExpressionEvaluator;
+    @Mock MatchMatrix matchMatrix;
     @Mock FileSystem fs;
     @Mock Logger logger;
     Gson gson = Mockito.spy(MainModule.provideGson(logger));
@@ -84,8 +84,7 @@ class RuleRegistryTest {
 
     @BeforeEach
     void setup() throws Exception {
-        this.registry =
-                new RuleRegistry(rulesDir, () -> matchExpressionEvaluator, fs, gson, logger);
+        this.registry = new RuleRegistry(rulesDir, () -> matchMatrix, fs, gson, logger);
         this.testRule =
                 new Rule.Builder()
                         .name("test rule")
@@ -230,8 +229,7 @@ class RuleRegistryTest {
 
     @Test
     void testGetRulesByServiceRef() throws Exception {
-        Mockito.when(matchExpressionEvaluator.applies(Mockito.any(), Mockito.any()))
-                .thenReturn(true);
+        Mockito.when(matchMatrix.applies(Mockito.any(), Mockito.any())).thenReturn(true);
 
         registry.addRule(testRule);
 
@@ -0,0 +1,97 @@
+/*
+ * Copyright The Cryostat Authors
+ *
+ * The Universal Permissive License (UPL), Version 1.0
+ *
+ * Subject to the condition set forth below, permission is hereby granted to any
+ * person obtaining a copy of this software, associated documentation and/or data
+ * (collectively the "Software"), free of charge and under any and all copyright
+ * rights in the Software, and any and all patent rights owned or freely
+ * licensable by each licensor hereunder covering either (i) the unmodified
+ * Software as contributed to or provided by such licensor, or (ii) the Larger
+ * Works (as defined below), to deal in both
+ *
+ * (a) the Software, and
+ * (b) any piece of software and/or hardware listed in the lrgrwrks.txt file if
+ * one is included with the Software (each a "Larger Work" to which the Software
+ * is contributed by such licensors),
+ *
+ * without restriction, including without limitation the rights to copy, create
+ * derivative works of, display, perform, and distribute the Software and make,
+ * use, sell, offer for sale, import, export, have made, and have sold the
+ * Software and the Larger Work(s), and to sublicense the foregoing rights on
+ * either these or other terms.
+ *
+ * This license is subject to the following condition:
+ * The above copyright notice and either this complete permission notice or at
+ * a minimum a reference to the UPL must be included in all copies or
+ * substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package io.cryostat.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mockito;
+
+class GzipCompressingInputStreamTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 100, 64 * 1024, 3 * 1024 * 1024 + 1})
+    void shouldProduceGzipDecompressibleToSource(int size) throws IOException {
+        byte[] data = new byte[size];
+        Random random = new Random(size);
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) random.nextInt(8);
+        }
+
+        byte[] compressed;
+        try (InputStream in = new GzipCompressingInputStream(new ByteArrayInputStream(data))) {
+            compressed = in.readAllBytes();
+        }
+        byte[] decompressed =
+                new GZIPInputStream(new ByteArrayInputStream(compressed)).readAllBytes();
+
+        MatcherAssert.assertThat(decompressed, Matchers.equalTo(data));
+    }
+
+    @Test
+    void shouldSupportSingleByteReads() throws IOException {
+        byte[] data = "hello world".getBytes();
+        InputStream in = new GzipCompressingInputStream(new ByteArrayInputStream(data));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != -1) {
+            out.write(b);
+        }
+        byte[] decompressed =
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes();
+
+        MatcherAssert.assertThat(decompressed, Matchers.equalTo(data));
+    }
+
+    @Test
+    void shouldCloseSource() throws IOException {
+        InputStream source = Mockito.mock(InputStream.class);
+        new GzipCompressingInputStream(source).close();
+        Mockito.verify(source).close();
+    }
+}